@@ -0,0 +1,112 @@
+package com.raidiam.consents.adapters.eventlog;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Events per second appended to the event log (encoding, checksum and write to the mapped segment, no flush), and
+ * time to replay a log of EVENTS events on startup, from the segments only or from a snapshot taken halfway
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ConsentEventLogBenchmark -prof gc"
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsentEventLogBenchmark {
+
+    private static final int EVENTS = 1_000_000;
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final Instant INSTANT = Instant.parse("2025-01-01T03:00:00Z");
+
+    @State(Scope.Benchmark)
+    public static class AppendState {
+
+        private Path directory;
+        private MappedConsentEventLog eventLog;
+        private long consentId;
+
+        @Setup(Level.Iteration)
+        public void setup() throws IOException {
+            directory = Files.createTempDirectory("event-log-append");
+            eventLog = new MappedConsentEventLog(directory, SEGMENT_SIZE, Integer.MAX_VALUE, Duration.ZERO, Duration.ZERO);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            delete(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ReplayState {
+
+        @Param({"false", "true"})
+        public boolean snapshot;
+
+        private Path directory;
+
+        @Setup
+        public void setup() throws IOException {
+            directory = Files.createTempDirectory("event-log-replay");
+            var eventLog = new MappedConsentEventLog(directory, SEGMENT_SIZE, Integer.MAX_VALUE, Duration.ZERO, Duration.ZERO);
+
+            // Every consent created, then updated once
+            for (long consentId = 1; consentId <= EVENTS / 2; consentId++) {
+                eventLog.append(ConsentEvent.created(consent(consentId, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+            }
+            if (snapshot) {
+                eventLog.snapshot();
+            }
+            for (long consentId = 1; consentId <= EVENTS / 2; consentId++) {
+                eventLog.append(ConsentEvent.updated(consent(consentId, ConsentStatus.AUTHORISED, 1)));
+            }
+            eventLog.flush();
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            delete(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void append(AppendState state) {
+        state.eventLog.append(ConsentEvent.created(consent(++state.consentId, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int replay(ReplayState state) throws IOException {
+        // Not closed: closing would write a snapshot of the whole log
+        return new MappedConsentEventLog(state.directory, SEGMENT_SIZE, Integer.MAX_VALUE, Duration.ZERO, Duration.ZERO).size();
+    }
+
+    private static ConsentSnapshot consent(long consentId, ConsentStatus status, long version) {
+        return new ConsentSnapshot(consentId, "user-" + consentId,
+                List.of(ConsentPermission.READ_DATA, ConsentPermission.WRITE_DATA),
+                status, INSTANT, INSTANT.plusSeconds(version), version, INSTANT.plus(Duration.ofDays(90)));
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.raidiam.consents.adapters.expiration;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules per second into a wheel already holding PENDING timers (deadlines spread over 90 days, the default
+ * validity), and advances per second of a wheel tick by tick with that load (each advance expiring the timers of one
+ * second)
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="TimingWheelBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimingWheelBenchmark {
+
+    private static final long START = 1_735_700_400_000L;
+    private static final long VALIDITY = Duration.ofDays(90).toMillis();
+
+    @Param({"100000", "1000000", "5000000"})
+    public int pending;
+
+    @Param({"64", "256"})
+    public int wheelSize;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private HierarchicalTimingWheel wheel;
+    private long nextId;
+    private long now;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        wheel = new HierarchicalTimingWheel(Duration.ofSeconds(1), wheelSize, START);
+        for (nextId = 0; nextId < pending; nextId++) {
+            wheel.schedule(nextId, START + random.nextLong(VALIDITY));
+        }
+        now = START;
+    }
+
+    @Benchmark
+    public void schedule() {
+        wheel.schedule(nextId++, now + random.nextLong(VALIDITY));
+    }
+
+    @Benchmark
+    public long[] advance() {
+        now += 1000;
+        return wheel.advance(now);
+    }
+}
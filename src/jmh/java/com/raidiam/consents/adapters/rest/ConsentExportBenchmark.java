@@ -0,0 +1,63 @@
+package com.raidiam.consents.adapters.rest;
+
+import com.raidiam.consents.ConsentApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consents per second written by GET /consents/export (cursor read plus NDJSON serialization, response discarded),
+ * over a table of CONSENTS consents (application context without web layer, in-memory H2)
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ConsentExportBenchmark"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConsentExportBenchmark {
+
+    private static final int CONSENTS = 100_000;
+
+    private ConfigurableApplicationContext context;
+    private ConsentController consentController;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(ConsentApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "DB_URL=jdbc:h2:mem:" + UUID.randomUUID(),
+                        "DB_USER=user",
+                        "DB_PASS=pass",
+                        "logging.level.root=WARN")
+                .run();
+
+        context.getBean(JdbcTemplate.class).update(
+                "INSERT INTO consent (consent_id, user_id, status, created_at, updated_at, permissions, version) "
+                + "SELECT X, 'user-' || MOD(X, 1000), MOD(X, 3), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 3, 0 "
+                + "FROM SYSTEM_RANGE(1, ?)", CONSENTS);
+
+        consentController = context.getBean(ConsentController.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONSENTS)
+    public void export() throws IOException {
+        consentController.exportConsents().getBody().writeTo(OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,78 @@
+package com.raidiam.consents.adapters.rest;
+
+import com.raidiam.consents.ConsentApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lines per second imported by POST /consents/import (line reading, parsing, validation and batched inserts), for a
+ * body of LINES lines with one invalid line in every hundred (application context without web layer, in-memory H2)
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ConsentImportBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConsentImportBenchmark {
+
+    private static final int LINES = 10_000;
+
+    @Param({"100", "500", "2000"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private ConsentController consentController;
+    private JdbcTemplate jdbcTemplate;
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(ConsentApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "DB_URL=jdbc:h2:mem:" + UUID.randomUUID(),
+                        "DB_USER=user",
+                        "DB_PASS=pass",
+                        "custom.consent-import.batch-size=" + batchSize,
+                        "logging.level.root=WARN")
+                .run();
+
+        var ndjson = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            ndjson.append(i % 100 == 99
+                    ? "{\"userId\":\"x\",\"status\":\"AWAITING_AUTHORISATION\",\"permissions\":[\"READ_DATA\"]}\n"
+                    : "{\"userId\":\"user-" + i + "\",\"status\":\"AWAITING_AUTHORISATION\",\"permissions\":[\"READ_DATA\",\"WRITE_DATA\"]}\n");
+        }
+        body = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+
+        consentController = context.getBean(ConsentController.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearConsents() {
+        jdbcTemplate.update("DELETE FROM consent");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public Object importConsents() {
+        return consentController.importConsents(new ByteArrayInputStream(body));
+    }
+}
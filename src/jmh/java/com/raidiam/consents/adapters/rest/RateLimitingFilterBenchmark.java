@@ -0,0 +1,123 @@
+package com.raidiam.consents.adapters.rest;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.raidiam.consents.adapters.ratelimit.BoundedRateLimitStore;
+import com.raidiam.consents.adapters.ratelimit.IRateLimitStore;
+import com.raidiam.consents.adapters.ratelimit.InMemoryRateLimitStore;
+import com.raidiam.consents.adapters.ratelimit.RateLimit;
+import com.raidiam.consents.adapters.ratelimit.RateLimitPolicy;
+import com.raidiam.consents.adapters.ratelimit.RateLimitPolicyTable;
+import com.raidiam.consents.adapters.ratelimit.RouteTable;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of RateLimitingFilter.doFilter with mock servlet objects
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="RateLimitingFilterBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimitingFilterBenchmark {
+
+    private static final int KEYS = 100_000;
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {};
+
+    /**
+     *  hot: every request from the same client; many: requests spread over 100,000 clients
+     */
+    @Param({ "hot", "many" })
+    public String distribution;
+
+    /**
+     *  allowed: limit never reached; rejected: limit reached after the first request of each client
+     */
+    @Param({ "allowed", "rejected" })
+    public String path;
+
+    @Param({ "memory", "bounded" })
+    public String store;
+
+    private RateLimitingFilter filter;
+    private String[] keys;
+    private boolean manyKeys;
+
+    @Setup
+    public void setup() {
+
+        IRateLimitStore rateLimitStore = "bounded".equals(store)
+                ? new BoundedRateLimitStore(Ticker.systemTicker(), 10_000, 0.001, 0.01)
+                : new InMemoryRateLimitStore(Ticker.systemTicker());
+
+        var rateLimit = "allowed".equals(path)
+                ? new RateLimit(Integer.MAX_VALUE, Duration.ofSeconds(1))
+                : new RateLimit(1, Duration.ofHours(1));
+
+        var routes = new RouteTable<RateLimitPolicy>();
+        routes.add("GET", "/consents/{consentId}",
+                new RateLimitPolicy("GET /consents/{consentId}", 1, rateLimitStore.create("GET", rateLimit), null));
+
+        var defaultPolicy = new RateLimitPolicy("default", 1, rateLimitStore.create("default", rateLimit), null);
+        filter = new RateLimitingFilter(new RateLimitPolicyTable(routes, defaultPolicy, defaultPolicy));
+
+        manyKeys = "many".equals(distribution);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "10." + (i >> 16) + "." + ((i >> 8) & 0xff) + "." + (i & 0xff);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Exchange {
+
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/consents/consent-1");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        int next;
+
+        @Setup
+        public void setup(RateLimitingFilterBenchmark benchmark) {
+            next = (int) (Thread.currentThread().getId() * 7919) % KEYS;
+            request.setRemoteAddr(benchmark.keys[0]);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int doFilter1Thread(Exchange exchange) throws Exception {
+        return doFilter(exchange);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int doFilter8Threads(Exchange exchange) throws Exception {
+        return doFilter(exchange);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public int doFilter64Threads(Exchange exchange) throws Exception {
+        return doFilter(exchange);
+    }
+
+    private int doFilter(Exchange exchange) throws Exception {
+
+        if (manyKeys) {
+            exchange.request.setRemoteAddr(keys[exchange.next]);
+            exchange.next = exchange.next + 1 == KEYS ? 0 : exchange.next + 1;
+        }
+
+        exchange.response.reset();
+        filter.doFilter(exchange.request, exchange.response, NO_OP_CHAIN);
+
+        return exchange.response.getStatus();
+    }
+}
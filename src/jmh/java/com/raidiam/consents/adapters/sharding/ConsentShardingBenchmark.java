@@ -0,0 +1,102 @@
+package com.raidiam.consents.adapters.sharding;
+
+import com.raidiam.consents.ConsentApplication;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.usecases.createconsent.ICreateConsent;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentRequest;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentResponse;
+import com.raidiam.consents.usecases.exportconsents.IExportConsents;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates per second from 8 threads (each creating consents of its own users) and exports per second of EXPORTED
+ * consents, with 1, 2, 4 and 8 shards (application context without web layer, one in-memory H2 database per shard)
+ * <p>
+ * The shards share the CPU of the benchmark: the gain measured comes from spreading the locks and the writes of a
+ * single database, not from more hardware
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ConsentShardingBenchmark"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConsentShardingBenchmark {
+
+    private static final int EXPORTED = 10_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    private ConfigurableApplicationContext context;
+    private ICreateConsent createConsent;
+    private IExportConsents exportConsents;
+
+    @State(Scope.Thread)
+    public static class Users {
+
+        private final String prefix = "user-" + UUID.randomUUID() + "-";
+        private long next;
+
+        private CreateConsentRequest nextRequest() {
+            return CreateConsentRequest.builder()
+                    .userId(prefix + (next++ % 1000))
+                    .permissions(List.of(ConsentPermission.READ_DATA, ConsentPermission.WRITE_DATA))
+                    .status(ConsentStatus.AWAITING_AUTHORISATION)
+                    .build();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        var properties = new ArrayList<>(List.of(
+                "DB_URL=jdbc:h2:mem:" + UUID.randomUUID(),
+                "DB_USER=user",
+                "DB_PASS=pass",
+                "logging.level.root=WARN"));
+        for (int shard = 1; shard < shards; shard++) {
+            properties.add("custom.datasource.shards[" + (shard - 1) + "].url=jdbc:h2:mem:" + UUID.randomUUID());
+        }
+
+        context = new SpringApplicationBuilder(ConsentApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties.toArray(String[]::new))
+                .run();
+        createConsent = context.getBean(ICreateConsent.class);
+        exportConsents = context.getBean(IExportConsents.class);
+
+        var users = new Users();
+        for (int i = 0; i < EXPORTED; i++) {
+            createConsent.execute(users.nextRequest());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public CreateConsentResponse create8Threads(Users users) {
+        return createConsent.execute(users.nextRequest());
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(EXPORTED)
+    public long export() {
+        return exportConsents.execute(consent -> { });
+    }
+}
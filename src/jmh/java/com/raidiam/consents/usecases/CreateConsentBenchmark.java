@@ -0,0 +1,91 @@
+package com.raidiam.consents.usecases;
+
+import com.raidiam.consents.ConsentApplication;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.usecases.createconsent.ICreateConsent;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentBatchResponse;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentRequest;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates per second through CreateConsent (application context without web layer, in-memory H2), one consent per
+ * call (execute) or BATCH_SIZE consents per call (executeBatch)
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="CreateConsentBenchmark"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CreateConsentBenchmark {
+
+    private static final CreateConsentRequest REQUEST =
+            CreateConsentRequest.builder()
+                .userId("user-1")
+                .permissions(List.of(ConsentPermission.READ_DATA, ConsentPermission.WRITE_DATA))
+                .status(ConsentStatus.AWAITING_AUTHORISATION)
+                .build();
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final List<CreateConsentRequest> BATCH_REQUEST = Collections.nCopies(BATCH_SIZE, REQUEST);
+
+    private ConfigurableApplicationContext context;
+    private ICreateConsent createConsent;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(ConsentApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "DB_URL=jdbc:h2:mem:" + UUID.randomUUID(),
+                        "DB_USER=user",
+                        "DB_PASS=pass",
+                        "logging.level.root=WARN")
+                .run();
+        createConsent = context.getBean(ICreateConsent.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public CreateConsentResponse create1Thread() {
+        return createConsent.execute(REQUEST);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public CreateConsentResponse create8Threads() {
+        return createConsent.execute(REQUEST);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public CreateConsentBatchResponse createBatch1Thread() {
+        return createConsent.executeBatch(BATCH_REQUEST);
+    }
+
+    @Benchmark
+    @Threads(8)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public CreateConsentBatchResponse createBatch8Threads() {
+        return createConsent.executeBatch(BATCH_REQUEST);
+    }
+}
@@ -0,0 +1,99 @@
+package com.raidiam.consents.usecases;
+
+import com.raidiam.consents.ConsentApplication;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.domain.entities.Consent;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.usecases.purgeconsents.IPurgeConsents;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Time per consent purged through PurgeConsents, deleting PURGED old REJECT consents (among as many authorised ones,
+ * kept) chunkSize at a time (application context without web layer, in-memory H2, purge scheduler disabled)
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="PurgeConsentsBenchmark"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PurgeConsentsBenchmark {
+
+    private static final int PURGED = 50_000;
+    private static final Instant OLD = Instant.parse("2020-01-01T00:00:00Z");
+    private static final List<ConsentStatus> STATUSES = List.of(ConsentStatus.REJECT);
+
+    @Param({"500", "5000", "50000"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private IConsentRepository consentRepository;
+    private IPurgeConsents purgeConsents;
+    private long nextConsentId = 1;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(ConsentApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "DB_URL=jdbc:h2:mem:" + UUID.randomUUID(),
+                        "DB_USER=user",
+                        "DB_PASS=pass",
+                        "logging.level.root=WARN",
+                        "custom.consent-purge.enabled=false",
+                        "custom.consent-expiration.enabled=false")
+                .run();
+        consentRepository = context.getBean(IConsentRepository.class);
+        purgeConsents = context.getBean(IPurgeConsents.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void insertConsents() {
+        // Every other consent is rejected, 5000 of them per transaction
+        for (int i = 0; i < PURGED; i += 5000) {
+            consentRepository.saveAll(LongStream.range(0, 10_000)
+                    .mapToObj(j -> consent(nextConsentId++, j % 2 == 0 ? ConsentStatus.REJECT : ConsentStatus.AUTHORISED))
+                    .toList());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PURGED)
+    public long purge() {
+        long purged = 0;
+        int chunk;
+        do {
+            chunk = purgeConsents.execute(STATUSES, Instant.now(), chunkSize);
+            purged += chunk;
+        } while (chunk == chunkSize);
+        return purged;
+    }
+
+    private static Consent consent(long consentId, ConsentStatus status) {
+        return Consent.builder()
+                .consentId(consentId)
+                .userId("user-" + consentId % 1000)
+                .permissions(List.of(ConsentPermission.READ_DATA))
+                .status(status)
+                .createdAt(OLD)
+                .updatedAt(OLD)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.raidiam.consents.usecases;
+
+import com.raidiam.consents.ConsentApplication;
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.usecases.createconsent.ICreateConsent;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentRequest;
+import com.raidiam.consents.utils.CustomFormatter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Time of a read of one of CONSENTS consents in a read-only transaction, as a managed entity (findById, then copied
+ * into a snapshot) and as a projection (findSnapshotById) (application context without web layer, in-memory H2)
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="RetrieveConsentBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RetrieveConsentBenchmark {
+
+    private static final int CONSENTS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private IConsentRepository consentRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private List<Long> consentIds;
+    private int next;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(ConsentApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "DB_URL=jdbc:h2:mem:" + UUID.randomUUID(),
+                        "DB_USER=user",
+                        "DB_PASS=pass",
+                        "logging.level.root=WARN")
+                .run();
+        consentRepository = context.getBean(IConsentRepository.class);
+
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        var createConsent = context.getBean(ICreateConsent.class);
+        var request = CreateConsentRequest.builder()
+                .userId("user-1")
+                .permissions(List.of(ConsentPermission.READ_DATA))
+                .status(ConsentStatus.AWAITING_AUTHORISATION)
+                .build();
+        consentIds = IntStream.range(0, CONSENTS)
+                .mapToObj(i -> CustomFormatter.getLongConsentId(createConsent.execute(request).getConsentId()))
+                .toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ConsentSnapshot entity() {
+        var consentId = nextConsentId();
+        return readOnlyTransaction.execute(status -> consentRepository.findById(consentId).map(ConsentSnapshot::of).orElseThrow());
+    }
+
+    @Benchmark
+    public ConsentSnapshot projection() {
+        var consentId = nextConsentId();
+        return readOnlyTransaction.execute(status -> consentRepository.findSnapshotById(consentId).orElseThrow());
+    }
+
+    private Long nextConsentId() {
+        return consentIds.get(next++ % CONSENTS);
+    }
+}
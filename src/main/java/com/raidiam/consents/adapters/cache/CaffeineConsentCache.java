@@ -0,0 +1,103 @@
+package com.raidiam.consents.adapters.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process consent cache (size- and time-based eviction, with hit/miss/eviction stats)
+ * <p>
+ * A load races safely with an invalidation of the same key: invalidate waits for the load in flight and then drops its result, so a snapshot read before a committed change never outlives the invalidation.
+ * Invalidations are local to the node: other nodes see a change once their copy expires, so expireAfterWrite (seconds) bounds how stale a read can be across nodes.
+ * Within a transaction, the invalidation waits for the transaction to complete, so a load in between cannot cache the uncommitted state
+ * <p>
+ * Loads may read from a replica that has not applied a change yet.
+ * A consent changed on this node within the replica lag is therefore loaded without being cached, so the replica's copy from before the change is never cached
+ */
+public class CaffeineConsentCache implements IConsentCache {
+
+    private final Cache<Long, ConsentSnapshot> cache;
+
+    /**
+     *  Consents changed within the replica lag (null without replicas)
+     */
+    private final Cache<Long, Boolean> recentlyChanged;
+
+    /**
+     * Constructor
+     *
+     * @param maximumSize       Maximum number of cached consents
+     * @param expireAfterWrite  Time a cached consent is served before being loaded again
+     * @param replicaLag        Time a replica may take to apply a change (zero: loads read from the primary)
+     * @param ticker            Time source
+     */
+    public CaffeineConsentCache(long maximumSize, Duration expireAfterWrite, Duration replicaLag, Ticker ticker) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.recentlyChanged = replicaLag.isZero() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(replicaLag)
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public ConsentSnapshot get(Long consentId, Function<Long, ConsentSnapshot> loader) {
+
+        if (recentlyChanged == null) {
+            return cache.get(consentId, loader);
+        }
+
+        // Checked within the load, so a change invalidated before the load started is always seen (one invalidated
+        // after waits for the load and drops its result)
+        var uncached = new ConsentSnapshot[1];
+        var consent = cache.get(consentId, id -> {
+            if (recentlyChanged.getIfPresent(id) == null) {
+                return loader.apply(id);
+            }
+            uncached[0] = loader.apply(id);
+            return null;
+        });
+
+        return consent != null ? consent : uncached[0];
+    }
+
+    @Override
+    public void invalidate(Long consentId) {
+        if (! TransactionSynchronizationManager.isSynchronizationActive()) {
+            drop(consentId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                drop(consentId);
+            }
+        });
+    }
+
+    private void drop(Long consentId) {
+        if (recentlyChanged != null) {
+            recentlyChanged.put(consentId, Boolean.TRUE);
+        }
+        cache.invalidate(consentId);
+    }
+
+    /**
+     * Underlying cache, to expose its stats as metrics
+     *
+     * @return Cache    Caffeine cache
+     */
+    public Cache<Long, ConsentSnapshot> getNativeCache() {
+        return cache;
+    }
+}
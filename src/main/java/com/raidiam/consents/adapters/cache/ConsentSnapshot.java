@@ -0,0 +1,67 @@
+package com.raidiam.consents.adapters.cache;
+
+import com.raidiam.consents.domain.entities.Consent;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable copy of a consent, safe to share between requests
+ *
+ * @param consentId             Numerical consent identification
+ * @param userId                User identification
+ * @param permissions           Permissions (unmodifiable)
+ * @param status                Status
+ * @param createdAt             Creation timestamp
+ * @param updatedAt             Last update timestamp
+ * @param version               Optimistic lock version
+ * @param expirationDateTime    Expiration timestamp (null: never expires)
+ */
+public record ConsentSnapshot(
+        Long consentId,
+        String userId,
+        List<ConsentPermission> permissions,
+        ConsentStatus status,
+        Instant createdAt,
+        Instant updatedAt,
+        long version,
+        Instant expirationDateTime) {
+
+    /**
+     * Take a snapshot of a consent
+     *
+     * @param consent           Consent entity
+     * @return ConsentSnapshot  Immutable copy
+     */
+    public static ConsentSnapshot of(Consent consent) {
+        return new ConsentSnapshot(
+                consent.getConsentId(),
+                consent.getUserId(),
+                List.copyOf(consent.getPermissions()),
+                consent.getStatus(),
+                consent.getCreatedAt(),
+                consent.getUpdatedAt(),
+                consent.getVersion(),
+                consent.getExpirationDateTime());
+    }
+
+    /**
+     * Status at a timestamp: a consent awaiting authorisation or authorised is EXPIRED from its expiration date time
+     * on, even before the expiration (or the expiration of a cached copy) catches up
+     *
+     * @param now               Timestamp
+     * @return ConsentStatus    Status
+     */
+    public ConsentStatus statusAt(Instant now) {
+        if (expirationDateTime != null && ! expirationDateTime.isAfter(now) && ConsentStatus.EXPIRABLE.contains(status)) {
+            return ConsentStatus.EXPIRED;
+        }
+        return status;
+    }
+
+    public String formattedConsentId() {
+        return String.format("consent-%s", consentId);
+    }
+}
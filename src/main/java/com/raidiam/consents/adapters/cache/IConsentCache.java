@@ -0,0 +1,22 @@
+package com.raidiam.consents.adapters.cache;
+
+import java.util.function.Function;
+
+public interface IConsentCache {
+
+    /**
+     * Return the cached consent, loading (and caching) it on a miss
+     *
+     * @param consentId         Numerical consent identification
+     * @param loader            Loads the consent on a miss (returns null if not found, which is not cached)
+     * @return ConsentSnapshot  Consent, null if not found
+     */
+    ConsentSnapshot get(Long consentId, Function<Long, ConsentSnapshot> loader);
+
+    /**
+     * Drop a consent from the cache, once a change to it is committed (at the end of the current transaction, if any)
+     *
+     * @param consentId     Numerical consent identification
+     */
+    void invalidate(Long consentId);
+}
@@ -0,0 +1,168 @@
+package com.raidiam.consents.adapters.concurrency;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive concurrency limiter (gradient algorithm)
+ * <p>
+ * Latencies are sampled per window. At the end of each window the limit is scaled by the gradient between the
+ * long-term (no load) latency and the latency of the window: when latency grows, requests are queueing and the
+ * limit shrinks; when it is stable, the limit grows by a queue allowance of sqrt(limit). Requests beyond the limit
+ * are rejected at once instead of waiting for a slow database.
+ */
+public class GradientConcurrencyLimiter {
+
+    /**
+     *  Result of tryAcquire when the limit is reached
+     */
+    public static final long REJECTED = Long.MIN_VALUE;
+
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double LONG_RTT_WINDOWS = 20;
+
+    private final Ticker ticker;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final double smoothing;
+    private final double rttTolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAccumulator maxInFlight = new LongAccumulator(Math::max, 0);
+    private final LongAdder rttSum = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong nextUpdateAt;
+
+    private volatile double limit;
+    private double longRtt;
+
+    /**
+     * Constructor
+     *
+     * @param ticker            Source of time in nanoseconds
+     * @param initialLimit      Initial limit of requests in flight
+     * @param minLimit          Minimum limit
+     * @param maxLimit          Maximum limit
+     * @param window            Interval between updates of the limit
+     * @param smoothing         Weight of a new limit (0 to 1)
+     * @param rttTolerance      Latency growth tolerated before the limit shrinks (e.g. 1.5)
+     */
+    public GradientConcurrencyLimiter(Ticker ticker, int initialLimit, int minLimit, int maxLimit,
+                                      Duration window, double smoothing, double rttTolerance) {
+        this.ticker = ticker;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = window.toNanos();
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.limit = initialLimit;
+        this.nextUpdateAt = new AtomicLong(ticker.read() + windowNanos);
+    }
+
+    /**
+     * Try to start a request
+     *
+     * @return long     Start time of the request (to be released), or REJECTED if the limit is reached
+     */
+    public long tryAcquire() {
+
+        int current;
+        do {
+            current = inFlight.get();
+
+            if (current >= (int) limit) {
+                rejected.increment();
+                return REJECTED;
+            }
+        } while (! inFlight.compareAndSet(current, current + 1));
+
+        maxInFlight.accumulate(current + 1);
+
+        return ticker.read();
+    }
+
+    /**
+     * Finish a request, sampling its latency
+     *
+     * @param startNanos    Start time returned by tryAcquire
+     */
+    public void release(long startNanos) {
+
+        inFlight.decrementAndGet();
+
+        long now = ticker.read();
+        rttSum.add(now - startNanos);
+        samples.increment();
+
+        long updateAt = nextUpdateAt.get();
+
+        // Only the thread that moves the deadline updates the limit
+        if (now - updateAt >= 0 && nextUpdateAt.compareAndSet(updateAt, now + windowNanos)) {
+            update();
+        }
+    }
+
+    private synchronized void update() {
+
+        long count = samples.sumThenReset();
+        double shortRtt = (double) rttSum.sumThenReset() / Math.max(1, count);
+        long peak = maxInFlight.getThenReset();
+
+        if (count == 0 || shortRtt <= 0) {
+            return;
+        }
+
+        // Long-term latency follows the window latency slowly, and quickly when load drops
+        longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) / LONG_RTT_WINDOWS;
+
+        if (longRtt > 2 * shortRtt) {
+            longRtt = 2 * shortRtt;
+        }
+
+        double current = limit;
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+
+        // Do not grow a limit that is not being used
+        if (target > current && peak < current / 2) {
+            return;
+        }
+
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    /**
+     * Current limit of requests in flight
+     *
+     * @return int  Limit
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Requests in flight
+     *
+     * @return int  Requests in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Requests rejected since start
+     *
+     * @return long     Rejected requests
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,164 @@
+package com.raidiam.consents.adapters.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Datasource of read-only connections, spread round-robin over the healthy replicas
+ * <p>
+ * Replicas are checked in the background every health check interval. A replica that fails to give a connection is
+ * marked down at once and skipped until a check finds it up again. With no replica up, connections come from the
+ * primary, so reads keep working (at the cost of load on the primary). Replicas lag behind the primary: a read may
+ * not see a change committed just before
+ */
+public class ReplicaPoolDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final int healthCheckTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+
+    private final Logger logger = LoggerFactory.getLogger(ReplicaPoolDataSource.class);
+
+    /**
+     * Constructor: Schedules the health checks of the replicas
+     *
+     * @param primary               Fallback datasource when no replica is up
+     * @param replicas              Replica datasources
+     * @param healthCheckInterval   Interval between health checks (zero disables the scheduler)
+     * @param healthCheckTimeout    Time a replica has to validate a connection
+     */
+    public ReplicaPoolDataSource(DataSource primary, List<DataSource> replicas,
+                                 Duration healthCheckInterval, Duration healthCheckTimeout) {
+        this.primary = primary;
+        this.replicas = IntStream.range(0, replicas.size()).mapToObj(i -> new Replica(i, replicas.get(i))).toList();
+        this.healthCheckTimeoutSeconds = (int) Math.max(1, healthCheckTimeout.toSeconds());
+
+        if (healthCheckInterval.isZero() || replicas.isEmpty()) {
+            this.scheduler = null;
+            return;
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long intervalMillis = Math.max(1, healthCheckInterval.toMillis());
+        this.scheduler.scheduleWithFixedDelay(this::checkHealth, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection connect(ConnectionFactory connectionFactory) throws SQLException {
+
+        int size = replicas.size();
+        int start = size == 0 ? 0 : Math.floorMod(next.getAndIncrement(), size);
+
+        for (int i = 0; i < size; i++) {
+            var replica = replicas.get((start + i) % size);
+            if (! replica.up) {
+                continue;
+            }
+            try {
+                return connectionFactory.getConnection(replica.dataSource);
+            } catch (SQLException ex) {
+                markDown(replica, ex);
+            }
+        }
+
+        // No replica up: reads go to the primary
+        return connectionFactory.getConnection(primary);
+    }
+
+    /**
+     * Validate a connection of every replica, marking it up or down
+     */
+    public void checkHealth() {
+        for (var replica : replicas) {
+            try (var connection = replica.dataSource.getConnection()) {
+                if (connection.isValid(healthCheckTimeoutSeconds)) {
+                    markUp(replica);
+                } else {
+                    markDown(replica, null);
+                }
+            } catch (SQLException | RuntimeException ex) {
+                markDown(replica, ex);
+            }
+        }
+    }
+
+    /**
+     * Number of replicas currently up
+     *
+     * @return int  Replicas up
+     */
+    public int replicasUp() {
+        return (int) replicas.stream().filter(replica -> replica.up).count();
+    }
+
+    private void markUp(Replica replica) {
+        if (! replica.up) {
+            replica.up = true;
+            logger.info("Replica {} is up", replica.index);
+        }
+    }
+
+    private void markDown(Replica replica, Exception ex) {
+        if (replica.up) {
+            replica.up = false;
+            logger.warn("Replica {} is down: {}", replica.index, ex == null ? "invalid connection" : ex.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        for (var replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionFactory {
+        Connection getConnection(DataSource dataSource) throws SQLException;
+    }
+
+    private static final class Replica {
+
+        private final int index;
+        private final DataSource dataSource;
+        private volatile boolean up = true;
+
+        private Replica(int index, DataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.raidiam.consents.adapters.eventlog;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+
+import java.time.Instant;
+
+/**
+ * Change to a consent, as appended to the event log
+ *
+ * @param sequence      Position in the log (assigned on append, 0 before)
+ * @param type          Kind of change
+ * @param consentId     Numerical consent identification
+ * @param timestamp     Time of the change
+ * @param consent       State of the consent after the change (null if revoked or purged)
+ */
+public record ConsentEvent(
+        long sequence,
+        Type type,
+        long consentId,
+        Instant timestamp,
+        ConsentSnapshot consent) {
+
+    /**
+     * Kinds of change (persisted by ordinal: only append new kinds at the end)
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        REVOKED,
+        EXPIRED,
+        PURGED
+    }
+
+    public static ConsentEvent created(ConsentSnapshot consent) {
+        return new ConsentEvent(0, Type.CREATED, consent.consentId(), consent.createdAt(), consent);
+    }
+
+    public static ConsentEvent updated(ConsentSnapshot consent) {
+        return new ConsentEvent(0, Type.UPDATED, consent.consentId(), consent.updatedAt(), consent);
+    }
+
+    public static ConsentEvent revoked(long consentId, Instant timestamp) {
+        return new ConsentEvent(0, Type.REVOKED, consentId, timestamp, null);
+    }
+
+    public static ConsentEvent expired(ConsentSnapshot consent) {
+        return new ConsentEvent(0, Type.EXPIRED, consent.consentId(), consent.updatedAt(), consent);
+    }
+
+    public static ConsentEvent purged(long consentId, Instant timestamp) {
+        return new ConsentEvent(0, Type.PURGED, consentId, timestamp, null);
+    }
+
+    ConsentEvent withSequence(long sequence) {
+        return new ConsentEvent(sequence, type, consentId, timestamp, consent);
+    }
+}
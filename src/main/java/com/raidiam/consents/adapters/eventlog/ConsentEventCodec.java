@@ -0,0 +1,150 @@
+package com.raidiam.consents.adapters.eventlog;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.domain.converters.ConsentPermissionsConverter;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary format of an event: length-prefixed and checksummed, so the end of the written data (a zero length) and a
+ * torn write (a bad checksum) are both detected when reading
+ * <pre>
+ * int length | int crc32c | long sequence | byte type | long consentId | instant timestamp
+ *            | (unless removed) long version | byte status | int permissions | instant createdAt
+ *            |                  instant updatedAt | short userId length | userId (UTF-8)
+ *            |                  (if it expires) instant expirationDateTime
+ * </pre>
+ * length counts the bytes after itself; an instant is long seconds and int nanoseconds. Events written before
+ * expiration existed end after userId, and are read as never expiring
+ */
+final class ConsentEventCodec {
+
+    /**
+     *  Bytes of length and checksum
+     */
+    static final int HEADER_SIZE = 8;
+
+    /**
+     *  Smallest length (checksum and the fields of a revoked or purged event)
+     */
+    private static final int MIN_LENGTH = 4 + 8 + 1 + 8 + 12;
+
+    /**
+     *  Largest encoded event (userId of at most Short.MAX_VALUE bytes)
+     */
+    static final int MAX_EVENT_SIZE = HEADER_SIZE + 8 + 1 + 8 + 12 + 8 + 1 + 4 + 12 + 12 + 2 + Short.MAX_VALUE + 12;
+
+    private static final ConsentPermissionsConverter PERMISSIONS = new ConsentPermissionsConverter();
+    private static final ConsentEvent.Type[] TYPES = ConsentEvent.Type.values();
+    private static final ConsentStatus[] STATUSES = ConsentStatus.values();
+
+    private ConsentEventCodec() {
+    }
+
+    /**
+     * Encode an event at the position of a buffer (which must have MAX_EVENT_SIZE bytes left)
+     *
+     * @param event     Event
+     * @param buffer    Target buffer (position moves past the event)
+     */
+    static void encode(ConsentEvent event, ByteBuffer buffer) {
+
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+
+        buffer.putLong(event.sequence());
+        buffer.put((byte) event.type().ordinal());
+        buffer.putLong(event.consentId());
+        putInstant(buffer, event.timestamp());
+
+        var consent = event.consent();
+        if (consent != null) {
+            var userId = consent.userId().getBytes(StandardCharsets.UTF_8);
+            if (userId.length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("userId too long for the event log");
+            }
+            buffer.putLong(consent.version());
+            buffer.put((byte) consent.status().ordinal());
+            buffer.putInt(PERMISSIONS.convertToDatabaseColumn(consent.permissions()));
+            putInstant(buffer, consent.createdAt());
+            putInstant(buffer, consent.updatedAt());
+            buffer.putShort((short) userId.length);
+            buffer.put(userId);
+            if (consent.expirationDateTime() != null) {
+                putInstant(buffer, consent.expirationDateTime());
+            }
+        }
+
+        int end = buffer.position();
+        buffer.putInt(start, end - start - 4);
+        buffer.putInt(start + 4, checksum(buffer, start + HEADER_SIZE, end));
+    }
+
+    /**
+     * Decode the event at the position of a buffer
+     *
+     * @param buffer            Source buffer (position moves past the event, unless there is none)
+     * @return ConsentEvent     Event, null at the end of the written data or at a torn write
+     */
+    static ConsentEvent decode(ByteBuffer buffer) {
+
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+
+        int length = buffer.getInt(start);
+        if (length < MIN_LENGTH || length > buffer.limit() - start - 4) {
+            return null;
+        }
+
+        int end = start + 4 + length;
+        if (buffer.getInt(start + 4) != checksum(buffer, start + HEADER_SIZE, end)) {
+            return null;
+        }
+
+        buffer.position(start + HEADER_SIZE);
+
+        long sequence = buffer.getLong();
+        var type = TYPES[buffer.get()];
+        long consentId = buffer.getLong();
+        var timestamp = getInstant(buffer);
+
+        ConsentSnapshot consent = null;
+        if (buffer.position() < end) {
+            long version = buffer.getLong();
+            var status = STATUSES[buffer.get()];
+            var permissions = PERMISSIONS.convertToEntityAttribute(buffer.getInt());
+            var createdAt = getInstant(buffer);
+            var updatedAt = getInstant(buffer);
+            var userId = new byte[buffer.getShort()];
+            buffer.get(userId);
+            var expirationDateTime = buffer.position() < end ? getInstant(buffer) : null;
+            consent = new ConsentSnapshot(consentId, new String(userId, StandardCharsets.UTF_8), permissions,
+                    status, createdAt, updatedAt, version, expirationDateTime);
+        }
+
+        buffer.position(end);
+
+        return new ConsentEvent(sequence, type, consentId, timestamp, consent);
+    }
+
+    private static int checksum(ByteBuffer buffer, int from, int to) {
+        var crc = new CRC32C();
+        crc.update(buffer.duplicate().limit(to).position(from));
+        return (int) crc.getValue();
+    }
+
+    private static void putInstant(ByteBuffer buffer, Instant instant) {
+        buffer.putLong(instant.getEpochSecond());
+        buffer.putInt(instant.getNano());
+    }
+
+    private static Instant getInstant(ByteBuffer buffer) {
+        return Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+    }
+}
@@ -0,0 +1,35 @@
+package com.raidiam.consents.adapters.eventlog;
+
+public interface IConsentEventLog {
+
+    /**
+     *  Log that discards every event (event log disabled)
+     */
+    IConsentEventLog DISABLED = new IConsentEventLog() {
+
+        @Override
+        public void append(ConsentEvent event) {
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    /**
+     * Append a change to the log, once it is committed (at the end of the current transaction, if any)
+     *
+     * @param event     Change (its sequence is assigned by the log)
+     */
+    void append(ConsentEvent event);
+
+    /**
+     * Whether appended changes are kept: if not, callers may skip reading what they would append
+     *
+     * @return boolean  True unless the log discards every event
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+}
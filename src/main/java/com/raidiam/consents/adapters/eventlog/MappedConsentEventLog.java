@@ -0,0 +1,418 @@
+package com.raidiam.consents.adapters.eventlog;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of consent changes on memory-mapped segment files, with periodic snapshots of the current state
+ * <p>
+ * Events are written to the mapped segment (ConsentEventCodec format) and reach the disk when the segment is
+ * flushed, every flush interval and when it rolls: a crash of the process loses nothing, a crash of the machine at
+ * most the last flush interval. A segment rolls when the next event does not fit, and segments are kept, so the log
+ * holds the full history. Segments are named after their first sequence.
+ * <p>
+ * The current state (one snapshot per consent, revoked and purged ones removed) is kept in memory and written to a snapshot
+ * file every snapshot interval. On startup the latest snapshot is loaded and only the events after it are replayed.
+ * A snapshot is taken while events are appended, so it may already include some events after its sequence:
+ * replaying them again is harmless, since applying an event is idempotent (the highest version wins).
+ * <p>
+ * The state takes about 300 bytes of heap per consent, so it is bounded by a maximum number of consents. Past it, the
+ * state is dropped and no more snapshots are taken: events are still appended and the history is kept, but startup
+ * replays every segment, and get returns null.
+ */
+public class MappedConsentEventLog implements IConsentEventLog, AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    /**
+     *  Snapshots kept (older ones are deleted once a new one is written)
+     */
+    private static final int SNAPSHOTS_KEPT = 2;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxStateSize;
+    private final Map<Long, ConsentSnapshot> state = new ConcurrentHashMap<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(ConsentEventCodec.MAX_EVENT_SIZE);
+    private final ScheduledExecutorService scheduler;
+    private final Object snapshotLock = new Object();
+
+    private MappedByteBuffer segment;
+    private long sequence;
+    private volatile long snapshotSequence;
+    private volatile boolean stateDropped;
+
+    private final Logger logger = LoggerFactory.getLogger(MappedConsentEventLog.class);
+
+    /**
+     * Constructor: Replays the log and schedules flushes and snapshots
+     *
+     * @param directory         Directory of segments and snapshots (created if missing)
+     * @param segmentSize       Size of a segment file
+     * @param maxStateSize      Maximum consents in the current state (the state is dropped beyond it)
+     * @param flushInterval     Interval between flushes of the current segment (zero disables the scheduler)
+     * @param snapshotInterval  Interval between snapshots (zero disables the scheduler)
+     * @throws IOException      If the log cannot be read
+     */
+    public MappedConsentEventLog(Path directory, int segmentSize, int maxStateSize, Duration flushInterval,
+                                 Duration snapshotInterval) throws IOException {
+        if (segmentSize < ConsentEventCodec.MAX_EVENT_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + ConsentEventCodec.MAX_EVENT_SIZE + " bytes");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.maxStateSize = maxStateSize;
+
+        replay();
+
+        if (flushInterval.isZero() && snapshotInterval.isZero()) {
+            this.scheduler = null;
+            return;
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "event-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (! flushInterval.isZero()) {
+            long flushMillis = Math.max(1, flushInterval.toMillis());
+            this.scheduler.scheduleWithFixedDelay(this::flushSafely, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        }
+        if (! snapshotInterval.isZero()) {
+            long snapshotMillis = Math.max(1, snapshotInterval.toMillis());
+            this.scheduler.scheduleWithFixedDelay(this::snapshotSafely, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void append(ConsentEvent event) {
+        if (! TransactionSynchronizationManager.isSynchronizationActive()) {
+            appendNow(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                appendNow(event);
+            }
+        });
+    }
+
+    private synchronized void appendNow(ConsentEvent event) {
+
+        var sequenced = event.withSequence(sequence + 1);
+
+        scratch.clear();
+        ConsentEventCodec.encode(sequenced, scratch);
+        scratch.flip();
+
+        try {
+            if (segment == null || segment.remaining() < scratch.remaining()) {
+                roll(sequenced.sequence());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        segment.put(scratch);
+        sequence = sequenced.sequence();
+        apply(sequenced);
+    }
+
+    /**
+     * Current state of a consent, as rebuilt from the log
+     *
+     * @param consentId         Numerical consent identification
+     * @return ConsentSnapshot  Consent, null if never created, revoked or purged (or if the state was dropped)
+     */
+    public ConsentSnapshot get(long consentId) {
+        return state.get(consentId);
+    }
+
+    /**
+     * Number of consents in the current state
+     *
+     * @return int  Consents (0 if the state was dropped)
+     */
+    public int size() {
+        return state.size();
+    }
+
+    /**
+     * Sequence of the last appended event
+     *
+     * @return long     Sequence (0 if the log is empty)
+     */
+    public synchronized long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Whether the state grew past its maximum and was dropped (no more snapshots are taken)
+     *
+     * @return boolean  True if dropped
+     */
+    public boolean isStateDropped() {
+        return stateDropped;
+    }
+
+    /**
+     * Write the current state to a new snapshot file, then delete the oldest snapshots (nothing if the state was
+     * dropped)
+     *
+     * @throws IOException  If the snapshot cannot be written
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            writeSnapshot();
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+
+        long snapshotAt = sequence();
+        if (snapshotAt == snapshotSequence || stateDropped) {
+            return;
+        }
+
+        // Events up to snapshotAt are in the state (later ones may be too)
+        var file = directory.resolve(fileName(SNAPSHOT_PREFIX, snapshotAt, SNAPSHOT_SUFFIX));
+        var temporary = directory.resolve(file.getFileName() + ".tmp");
+        var buffer = ByteBuffer.allocateDirect(1 << 16);
+        long count = 0;
+
+        try (var channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            for (var consent : state.values()) {
+                if (buffer.remaining() < ConsentEventCodec.MAX_EVENT_SIZE) {
+                    write(channel, buffer);
+                }
+                ConsentEventCodec.encode(ConsentEvent.created(consent).withSequence(snapshotAt), buffer);
+                count++;
+            }
+            write(channel, buffer);
+            channel.force(true);
+        }
+
+        // Dropped while being written: the snapshot may miss consents
+        if (stateDropped) {
+            Files.deleteIfExists(temporary);
+            return;
+        }
+
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        snapshotSequence = snapshotAt;
+
+        var snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for (int i = 0; i < snapshots.size() - SNAPSHOTS_KEPT; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+
+        logger.info("Event log snapshot written: sequence={} consents={}", snapshotAt, count);
+    }
+
+    /**
+     * Write the current segment to disk
+     */
+    public synchronized void flush() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        flush();
+        snapshotSafely();
+    }
+
+    /**
+     * Load the latest readable snapshot, then apply the events after it and position appends at the end of the log
+     */
+    private void replay() throws IOException {
+
+        long started = System.nanoTime();
+
+        var snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for (int i = snapshots.size() - 1; i >= 0 && ! stateDropped && ! loadSnapshot(snapshots.get(i)); i--) {
+            state.clear();
+        }
+        sequence = snapshotSequence;
+
+        var segments = list(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        long replayed = 0;
+
+        for (int i = 0; i < segments.size(); i++) {
+
+            // Segments entirely covered by the snapshot are skipped
+            boolean last = i == segments.size() - 1;
+            if (! last && firstSequence(segments.get(i + 1)) <= snapshotSequence + 1) {
+                continue;
+            }
+
+            var buffer = map(segments.get(i));
+            ConsentEvent event;
+            while ((event = ConsentEventCodec.decode(buffer)) != null) {
+                if (event.sequence() > sequence) {
+                    apply(event);
+                    sequence = event.sequence();
+                    replayed++;
+                }
+            }
+
+            if (last) {
+                // Appends go on from the end of the written data, over any torn write
+                if (buffer.remaining() >= 4 && buffer.getInt(buffer.position()) != 0) {
+                    clear(buffer);
+                }
+                segment = buffer;
+            }
+        }
+
+        logger.info("Event log replayed: snapshot={} events={} consents={} in {} ms",
+                snapshotSequence, replayed, state.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private boolean loadSnapshot(Path file) throws IOException {
+
+        long snapshotAt = firstSequence(file);
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ConsentEvent event;
+            while ((event = ConsentEventCodec.decode(buffer)) != null) {
+                apply(event);
+            }
+            if (buffer.hasRemaining()) {
+                logger.warn("Event log snapshot {} is damaged: skipped", file.getFileName());
+                return false;
+            }
+        }
+
+        snapshotSequence = snapshotAt;
+        return true;
+    }
+
+    private void apply(ConsentEvent event) {
+        if (stateDropped) {
+            return;
+        }
+        if (event.consent() == null) {
+            // Revoked or purged
+            state.remove(event.consentId());
+            return;
+        }
+        state.merge(event.consentId(), event.consent(),
+                (current, next) -> next.version() >= current.version() ? next : current);
+
+        if (state.size() > maxStateSize) {
+            // Set first, so a snapshot being written sees it once the state is cleared
+            stateDropped = true;
+            state.clear();
+            logger.warn("Event log state dropped: more than {} consents (no more snapshots are taken)", maxStateSize);
+        }
+    }
+
+    private void roll(long firstSequence) throws IOException {
+        if (segment != null) {
+            segment.force();
+        }
+        segment = map(directory.resolve(fileName(SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX)));
+        logger.info("Event log segment started: sequence={}", firstSequence);
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // A new file is zero-filled up to the segment size; an existing one keeps its size
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+        }
+    }
+
+    private static void clear(MappedByteBuffer buffer) {
+        int position = buffer.position();
+        while (buffer.remaining() >= 8) {
+            if (buffer.getLong(buffer.position()) != 0) {
+                buffer.putLong(0);
+            } else {
+                buffer.position(buffer.position() + 8);
+            }
+        }
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) 0);
+        }
+        buffer.position(position);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private List<Path> list(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().startsWith(prefix))
+                    .filter(file -> file.getFileName().toString().endsWith(suffix))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long firstSequence(Path file) {
+        var name = file.getFileName().toString();
+        return Long.parseLong(name.substring(name.indexOf('-') + 1, name.lastIndexOf('.')));
+    }
+
+    private static String fileName(String prefix, long sequence, String suffix) {
+        return String.format("%s%020d%s", prefix, sequence, suffix);
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            logger.error("Event log flush failed", ex);
+        }
+    }
+
+    private void snapshotSafely() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Event log snapshot failed", ex);
+        }
+    }
+}
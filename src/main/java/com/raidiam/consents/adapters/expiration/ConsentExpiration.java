@@ -0,0 +1,14 @@
+package com.raidiam.consents.adapters.expiration;
+
+import java.time.Instant;
+
+/**
+ * Expiration of a consent, as read to schedule it
+ *
+ * @param consentId             Numerical consent identification
+ * @param expirationDateTime    Expiration timestamp
+ */
+public record ConsentExpiration(
+        Long consentId,
+        Instant expirationDateTime) {
+}
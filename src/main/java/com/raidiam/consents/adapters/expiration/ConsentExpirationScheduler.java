@@ -0,0 +1,199 @@
+package com.raidiam.consents.adapters.expiration;
+
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.usecases.expireconsents.IExpireConsents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Expires consents when their expiration date time passes, from an in-process HierarchicalTimingWheel
+ * <p>
+ * Every tick, the consents due are expired by IExpireConsents, batchSize consents per statement. On start, the
+ * consents already due are expired at once, and the wheel is rebuilt from the consents still to expire, read in
+ * expiration order (index consent_expiration_idx). Each node expires the consents it scheduled or read on start: with
+ * several nodes a consent may be expired by more than one of them, which changes nothing the second time
+ * <p>
+ * Every sweep interval, the consents already due are expired again in one statement: the consents no live node has
+ * in its wheel (scheduled by a node that stopped since) expire at the latest one sweep interval late
+ */
+public class ConsentExpirationScheduler implements IConsentExpirationScheduler, AutoCloseable {
+
+    private final IExpireConsents expireConsents;
+    private final IConsentRepository consentRepository;
+    private final Clock clock;
+    private final Duration tick;
+    private final Duration sweepInterval;
+    private final int batchSize;
+    private final int rebuildPageSize;
+    private final HierarchicalTimingWheel wheel;
+    private final LongAdder expired = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+
+    private final Logger logger = LoggerFactory.getLogger(ConsentExpirationScheduler.class);
+
+    /**
+     * Constructor (nothing runs before start)
+     *
+     * @param expireConsents        Expires the consents due
+     * @param consentRepository     Repository the wheel is rebuilt from
+     * @param clock                 Clock
+     * @param tick                  Duration of a tick of the wheel (expirations fire up to one tick late)
+     * @param sweepInterval         Interval between two expirations of every consent already due
+     * @param wheelSize             Slots per level of the wheel (a power of two)
+     * @param batchSize             Consents expired per statement
+     * @param rebuildPageSize       Expirations read per query while rebuilding the wheel
+     */
+    public ConsentExpirationScheduler(IExpireConsents expireConsents, IConsentRepository consentRepository, Clock clock,
+                                      Duration tick, Duration sweepInterval, int wheelSize, int batchSize,
+                                      int rebuildPageSize) {
+        this.expireConsents = expireConsents;
+        this.consentRepository = consentRepository;
+        this.clock = clock;
+        this.tick = tick;
+        this.sweepInterval = sweepInterval;
+        this.batchSize = batchSize;
+        this.rebuildPageSize = rebuildPageSize;
+        this.wheel = new HierarchicalTimingWheel(tick, wheelSize, clock.millis());
+    }
+
+    /**
+     * Rebuild the wheel, then advance it every tick and sweep every sweep interval (all on the expiration thread:
+     * consents scheduled meanwhile wait in the wheel)
+     */
+    public void start() {
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "consent-expiration");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.execute(this::rebuild);
+
+        long tickMillis = tick.toMillis();
+        scheduler.scheduleWithFixedDelay(this::expireDue, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+
+        long sweepMillis = sweepInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void schedule(Long consentId, Instant expirationDateTime) {
+        if (expirationDateTime != null) {
+            wheel.schedule(consentId, expirationDateTime.toEpochMilli());
+        }
+    }
+
+    /**
+     * @return long     Consents waiting in the wheel
+     */
+    public long scheduled() {
+        return wheel.size();
+    }
+
+    /**
+     * @return long     Consents expired since start
+     */
+    public long expired() {
+        return expired.sum();
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Expire the consents already due, then schedule the others
+     * <p>
+     * The expirations are read from the start of time, not from now: a consent that falls due between the two steps
+     * is still awaiting authorisation or authorised, and is scheduled to expire at the first tick
+     */
+    void rebuild() {
+
+        long started = System.nanoTime();
+
+        try {
+            expired.add(expireConsents.executeAllDue());
+
+            Instant afterExpiration = Instant.EPOCH;
+            Long afterConsentId = 0L;
+            long count = 0;
+
+            while (true) {
+                var page = consentRepository.findExpirationPage(afterExpiration, afterConsentId, PageRequest.ofSize(rebuildPageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                for (var expiration : page) {
+                    schedule(expiration.consentId(), expiration.expirationDateTime());
+                }
+                count += page.size();
+
+                var last = page.get(page.size() - 1);
+                afterExpiration = last.expirationDateTime();
+                afterConsentId = last.consentId();
+            }
+
+            logger.info("Consent expirations scheduled on start: {} in {} ms", count,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        } catch (RuntimeException ex) {
+            // Consents not scheduled expire on the next start
+            logger.error("Consent expirations could not be rebuilt", ex);
+        }
+    }
+
+    /**
+     * Expire every consent already due, scheduled on this node or not
+     */
+    void sweep() {
+        try {
+            expired.add(expireConsents.executeAllDue());
+        } catch (RuntimeException ex) {
+            // Due again at the next sweep
+            logger.error("Consents past their expiration could not be expired, retrying at the next sweep", ex);
+        }
+    }
+
+    /**
+     * Advance the wheel and expire the consents due, batchSize at a time
+     */
+    void expireDue() {
+
+        var due = wheel.advance(clock.millis());
+
+        for (int from = 0; from < due.length; from += batchSize) {
+            var batch = new ArrayList<Long>(Math.min(batchSize, due.length - from));
+            for (int i = from; i < Math.min(from + batchSize, due.length); i++) {
+                batch.add(due[i]);
+            }
+            expire(batch);
+        }
+    }
+
+    private void expire(List<Long> consentIds) {
+        try {
+            expired.add(expireConsents.execute(consentIds));
+        } catch (RuntimeException ex) {
+            // Due again at the next tick
+            logger.error("Consents could not be expired, retrying at the next tick: {} consents", consentIds.size(), ex);
+            long now = clock.millis();
+            consentIds.forEach(consentId -> wheel.schedule(consentId, now));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.raidiam.consents.adapters.expiration;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Hierarchical timing wheel of identifiers, each due at a deadline (Varghese and Lauck, as in the Linux kernel timers)
+ * <p>
+ * Time is counted in ticks. Level 0 has one slot per tick, and each level above has slots wheelSize times as long:
+ * a timer is placed in the lowest level whose slots still tell its deadline apart from the current tick, so
+ * scheduling costs a few bit operations whatever the number of timers. When the current tick enters a slot of an
+ * upper level, that slot is cascaded down to the lower levels; the timers of the level 0 slot of the current tick are
+ * due. Levels cover every non-negative tick, so no timer ever overflows the wheel.
+ * <p>
+ * Timers cannot be cancelled: whoever handles a due identifier checks that it is still due. Thread-safe
+ */
+public class HierarchicalTimingWheel {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final Slot[][] levels;
+
+    /**
+     *  Timers due at the next advance (scheduled at or before the current tick)
+     */
+    private final Slot due = new Slot();
+
+    private long currentTick;
+    private long size;
+
+    /**
+     * Constructor
+     *
+     * @param tick          Duration of a tick (deadlines are rounded up to a tick)
+     * @param wheelSize     Slots per level (a power of two, at least 2)
+     * @param nowMillis     Current time, in epoch milliseconds
+     */
+    public HierarchicalTimingWheel(Duration tick, int wheelSize, long nowMillis) {
+
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two, at least 2: " + wheelSize);
+        }
+        if (tick.toMillis() < 1) {
+            throw new IllegalArgumentException("Tick must be at least 1 ms: " + tick);
+        }
+
+        this.tickMillis = tick.toMillis();
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.levels = new Slot[(Long.SIZE - 1 + bits - 1) / bits][];
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedule an identifier
+     *
+     * @param id                Identifier
+     * @param deadlineMillis    Deadline, in epoch milliseconds
+     */
+    public synchronized void schedule(long id, long deadlineMillis) {
+        place(id, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        size++;
+    }
+
+    /**
+     * Move the wheel to the current time
+     *
+     * @param nowMillis     Current time, in epoch milliseconds
+     * @return long[]       Identifiers due (in no particular order, empty if none)
+     */
+    public synchronized long[] advance(long nowMillis) {
+
+        long targetTick = nowMillis / tickMillis;
+
+        if (size == due.size) {
+            // Nothing but due timers: no slot to visit on the way
+            currentTick = Math.max(currentTick, targetTick);
+        }
+
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            // Slots of the upper levels the current tick enters, highest first, so their timers reach level 0
+            int enteredLevel = Math.min(Long.numberOfTrailingZeros(currentTick) / bits, levels.length - 1);
+            for (int level = enteredLevel; level > 0; level--) {
+                cascade(level, slotIndex(currentTick, level));
+            }
+            cascade(0, slotIndex(currentTick, 0));
+        }
+
+        var ids = due.drain();
+        size -= ids.length;
+        return ids;
+    }
+
+    /**
+     * @return long     Number of scheduled identifiers (including the ones due at the next advance)
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    private void place(long id, long deadlineTick) {
+
+        if (deadlineTick <= currentTick) {
+            due.add(id, deadlineTick);
+            return;
+        }
+
+        // Highest bit where the deadline and the current tick differ picks the level
+        int level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(deadlineTick ^ currentTick)) / bits;
+        if (levels[level] == null) {
+            levels[level] = new Slot[mask + 1];
+        }
+
+        var slots = levels[level];
+        int index = slotIndex(deadlineTick, level);
+        if (slots[index] == null) {
+            slots[index] = new Slot();
+        }
+        slots[index].add(id, deadlineTick);
+    }
+
+    /**
+     * Take the timers out of a slot and place them again from the current tick (lower, or due)
+     */
+    private void cascade(int level, int index) {
+
+        var slots = levels[level];
+        if (slots == null || slots[index] == null || slots[index].size == 0) {
+            return;
+        }
+
+        var slot = slots[index];
+        var ids = slot.ids;
+        var deadlines = slot.deadlines;
+        int count = slot.size;
+        slots[index] = null;
+
+        for (int i = 0; i < count; i++) {
+            place(ids[i], deadlines[i]);
+        }
+    }
+
+    private int slotIndex(long tick, int level) {
+        return (int) (tick >>> (bits * level)) & mask;
+    }
+
+    /**
+     * Timers of a slot: identifiers and deadline ticks in two growable arrays (no object per timer)
+     */
+    private static final class Slot {
+
+        private long[] ids = EMPTY;
+        private long[] deadlines = EMPTY;
+        private int size;
+
+        private void add(long id, long deadlineTick) {
+            if (size == ids.length) {
+                int capacity = Math.max(8, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                deadlines = Arrays.copyOf(deadlines, capacity);
+            }
+            ids[size] = id;
+            deadlines[size] = deadlineTick;
+            size++;
+        }
+
+        private long[] drain() {
+            var drained = size == 0 ? EMPTY : Arrays.copyOf(ids, size);
+            ids = EMPTY;
+            deadlines = EMPTY;
+            size = 0;
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.raidiam.consents.adapters.expiration;
+
+import java.time.Instant;
+
+public interface IConsentExpirationScheduler {
+
+    /**
+     * Schedule the expiration of a consent (a consent no longer awaiting authorisation or authorised when it fires,
+     * or revoked meanwhile, is left as is)
+     *
+     * @param consentId             Numerical consent identification
+     * @param expirationDateTime    Expiration timestamp (null: never expires)
+     */
+    void schedule(Long consentId, Instant expirationDateTime);
+}
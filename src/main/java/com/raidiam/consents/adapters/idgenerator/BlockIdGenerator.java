@@ -0,0 +1,68 @@
+package com.raidiam.consents.adapters.idgenerator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out identifiers from a block leased in memory
+ * <p>
+ * Identifiers are taken from the current block with a single atomic increment; only the thread that exhausts
+ * a block goes to the block source, once every blockSize identifiers. Identifiers left in the block when the node
+ * stops are skipped, never reused.
+ */
+public class BlockIdGenerator implements IIdGenerator {
+
+    private final IIdBlockSource source;
+    private final String name;
+    private final int blockSize;
+
+    private volatile Block block = new Block(0, 0);
+
+    /**
+     * Constructor
+     *
+     * @param source        Source of blocks
+     * @param name          Name of the identifier range
+     * @param blockSize     Number of identifiers leased at once
+     */
+    public BlockIdGenerator(IIdBlockSource source, String name, int blockSize) {
+        this.source = source;
+        this.name = name;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public long nextId() {
+        for (;;) {
+            var current = block;
+            long id = current.next.getAndIncrement();
+
+            if (id < current.end) {
+                return id;
+            }
+
+            refill(current);
+        }
+    }
+
+    private synchronized void refill(Block exhausted) {
+
+        // Another thread already replaced the exhausted block
+        if (block != exhausted) {
+            return;
+        }
+
+        long start = source.lease(name, blockSize);
+        block = new Block(start, start + blockSize);
+    }
+
+    private static final class Block {
+
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
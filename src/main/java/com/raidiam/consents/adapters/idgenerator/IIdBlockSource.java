@@ -0,0 +1,13 @@
+package com.raidiam.consents.adapters.idgenerator;
+
+public interface IIdBlockSource {
+
+    /**
+     * Lease a block of identifiers, never leased again to any node
+     *
+     * @param name      Name of the identifier range
+     * @param size      Number of identifiers
+     * @return long     First identifier of the block
+     */
+    long lease(String name, int size);
+}
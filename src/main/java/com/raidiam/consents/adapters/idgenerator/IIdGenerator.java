@@ -0,0 +1,21 @@
+package com.raidiam.consents.adapters.idgenerator;
+
+public interface IIdGenerator {
+
+    /**
+     * Next identifier, unique across restarts and nodes
+     *
+     * @return long     Identifier
+     */
+    long nextId();
+
+    /**
+     * Next identifier for a partition key (generators that split identifiers into ranges use the key to pick one)
+     *
+     * @param key       Partition key
+     * @return long     Identifier
+     */
+    default long nextId(String key) {
+        return nextId();
+    }
+}
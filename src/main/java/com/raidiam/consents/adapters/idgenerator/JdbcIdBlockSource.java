@@ -0,0 +1,42 @@
+package com.raidiam.consents.adapters.idgenerator;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Leases blocks from table id_block: the row lock of the update serializes nodes, and the block is committed
+ * in its own transaction before any identifier of it is used
+ */
+public class JdbcIdBlockSource implements IIdBlockSource {
+
+    private static final String UPDATE_BLOCK = "UPDATE id_block SET next_id = next_id + ? WHERE name = ?";
+    private static final String SELECT_BLOCK = "SELECT next_id FROM id_block WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcIdBlockSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public long lease(String name, int size) {
+
+        Long next = transactionTemplate.execute(status -> {
+
+            if (jdbcTemplate.update(UPDATE_BLOCK, size, name) == 0) {
+                throw new IllegalStateException("Unknown identifier range: " + name);
+            }
+
+            return jdbcTemplate.queryForObject(SELECT_BLOCK, Long.class, name);
+        });
+
+        return next - size;
+    }
+}
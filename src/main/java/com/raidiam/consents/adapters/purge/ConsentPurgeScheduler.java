@@ -0,0 +1,151 @@
+package com.raidiam.consents.adapters.purge;
+
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.usecases.purgeconsents.IPurgeConsents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Purges consents with some statuses (REJECT) last changed more than a retention ago, in the background
+ * <p>
+ * Every interval, a run deletes the consents to purge chunkSize at a time, each chunk in short transactions of its
+ * own, sleeping pause between chunks so foreground requests get the locks and the connections in between. A run ends
+ * with the first chunk not full. With several nodes, each node purges: a consent deleted by another node is skipped
+ */
+public class ConsentPurgeScheduler implements AutoCloseable {
+
+    private final IPurgeConsents purgeConsents;
+    private final Clock clock;
+    private final List<ConsentStatus> statuses;
+    private final Duration retention;
+    private final int chunkSize;
+    private final Duration pause;
+    private final Duration interval;
+
+    private final LongAdder purged = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder chunkNanos = new LongAdder();
+    private volatile long runPurged;
+
+    private ScheduledExecutorService scheduler;
+
+    private final Logger logger = LoggerFactory.getLogger(ConsentPurgeScheduler.class);
+
+    /**
+     * Constructor (nothing runs before start)
+     *
+     * @param purgeConsents     Deletes a chunk of consents
+     * @param clock             Clock
+     * @param statuses          Consent statuses to purge
+     * @param retention         Time consents are kept after their last change
+     * @param chunkSize         Consents deleted per chunk
+     * @param pause             Sleep between chunks
+     * @param interval          Time between the end of a run and the start of the next
+     */
+    public ConsentPurgeScheduler(IPurgeConsents purgeConsents, Clock clock, List<ConsentStatus> statuses,
+                                 Duration retention, int chunkSize, Duration pause, Duration interval) {
+        this.purgeConsents = purgeConsents;
+        this.clock = clock;
+        this.statuses = List.copyOf(statuses);
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+        this.interval = interval;
+    }
+
+    /**
+     * Run a purge every interval, the first one an interval after start (on the purge thread)
+     */
+    public void start() {
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "consent-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long intervalMillis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::purge, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return long     Consents purged since start
+     */
+    public long purged() {
+        return purged.sum();
+    }
+
+    /**
+     * @return long     Consents purged by the current run (or the last one)
+     */
+    public long runPurged() {
+        return runPurged;
+    }
+
+    /**
+     * @return long     Chunks deleted since start
+     */
+    public long chunks() {
+        return chunks.sum();
+    }
+
+    /**
+     * @param unit      Time unit
+     * @return double   Time spent deleting chunks since start (pauses excluded)
+     */
+    public double chunkTime(TimeUnit unit) {
+        return (double) chunkNanos.sum() / unit.toNanos(1);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Delete the consents to purge, chunk by chunk, until a chunk is not full
+     */
+    void purge() {
+
+        Instant updatedBefore = clock.instant().minus(retention);
+        long started = System.nanoTime();
+        runPurged = 0;
+
+        try {
+            while (true) {
+                long chunkStarted = System.nanoTime();
+                int chunk = purgeConsents.execute(statuses, updatedBefore, chunkSize);
+                chunkNanos.add(System.nanoTime() - chunkStarted);
+                chunks.increment();
+                purged.add(chunk);
+                runPurged += chunk;
+
+                if (chunk < chunkSize) {
+                    break;
+                }
+                Thread.sleep(pause.toMillis());
+            }
+
+            logger.info("Consents purged: {} changed before {} in {} ms", runPurged, updatedBefore,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        } catch (InterruptedException ex) {
+            // Shutting down: the rest is purged by the next run
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            // The rest is purged by the next run
+            logger.error("Consents could not be purged, {} purged before the failure", runPurged, ex);
+        }
+    }
+}
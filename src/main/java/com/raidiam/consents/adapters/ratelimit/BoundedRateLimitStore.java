@@ -0,0 +1,26 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+/**
+ * Node-local store with fixed memory: only the heaviest keys are counted exactly
+ */
+public class BoundedRateLimitStore implements IRateLimitStore {
+
+    private final Ticker ticker;
+    private final long maxTrackedKeys;
+    private final double epsilon;
+    private final double delta;
+
+    public BoundedRateLimitStore(Ticker ticker, long maxTrackedKeys, double epsilon, double delta) {
+        this.ticker = ticker;
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.epsilon = epsilon;
+        this.delta = delta;
+    }
+
+    @Override
+    public IRateLimiter create(String name, RateLimit rateLimit) {
+        return new BoundedRateLimiter(rateLimit, ticker, maxTrackedKeys, epsilon, delta);
+    }
+}
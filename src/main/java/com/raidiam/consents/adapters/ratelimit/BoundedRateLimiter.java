@@ -0,0 +1,148 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Memory-bounded rate limiter
+ * <p>
+ * The long tail of keys is counted approximately in a pair of count-min sketches (current and previous window,
+ * weighted as a sliding window). Keys whose estimate reaches half of the limit are promoted to an exact GCRA
+ * state, kept in a cache of at most maxTrackedKeys entries. Memory stays fixed no matter how many keys are seen,
+ * and since the cache admits by frequency, a flood of one-off (spoofed) keys cannot evict the heavy hitters.
+ * <p>
+ * Each sketch carries the window it counts. A sketch still holding an older window is cleared before its new window
+ * is published, and requests of the new window wait for the clear, so it never wipes their counts.
+ */
+public class BoundedRateLimiter implements IRateLimiter {
+
+    /**
+     *  Window of a sketch being cleared
+     */
+    private static final long CLEARING = Long.MIN_VALUE;
+
+    private final RateLimit rateLimit;
+    private final Ticker ticker;
+    private final InMemoryRateLimiter exact;
+    private final CountMinSketch[] sketches;
+    private final AtomicLongArray windows;
+    private final long periodNanos;
+    private final long promotionThreshold;
+
+    /**
+     * Constructor
+     *
+     * @param rateLimit         Rate limit to be applied to each key
+     * @param ticker            Source of time in nanoseconds
+     * @param maxTrackedKeys    Maximum number of keys with an exact state
+     * @param epsilon           Maximum error of the sketch as a fraction of the requests in a window
+     * @param delta             Probability of exceeding the maximum error
+     */
+    public BoundedRateLimiter(RateLimit rateLimit, Ticker ticker, long maxTrackedKeys, double epsilon, double delta) {
+        this.rateLimit = rateLimit;
+        this.ticker = ticker;
+        this.exact = new InMemoryRateLimiter(rateLimit, ticker, maxTrackedKeys);
+        this.periodNanos = rateLimit.getPeriod().toNanos();
+        this.promotionThreshold = Math.max(1, rateLimit.getLimit() / 2);
+
+        long seed = System.nanoTime();
+        this.sketches = new CountMinSketch[] {
+                new CountMinSketch(epsilon, delta, seed),
+                new CountMinSketch(epsilon, delta, seed)
+        };
+
+        long current = Math.floorDiv(ticker.read(), periodNanos);
+        this.windows = new AtomicLongArray(2);
+        this.windows.set((int) (current & 1), current);
+        this.windows.set((int) ((current - 1) & 1), current - 1);
+    }
+
+    @Override
+    public long tryAcquire(String key, int permits) {
+
+        if (rateLimit.getLimit() <= 0) {
+            return -periodNanos;
+        }
+
+        long now = ticker.read();
+        long current = Math.floorDiv(now, periodNanos);
+        long elapsed = Math.floorMod(now, periodNanos);
+
+        // Sliding window: the previous window counts in proportion to the part of it still in the period.
+        // Tracked keys are counted too, so a key evicted from the exact states keeps its history.
+        long previous = estimate(key, current - 1);
+        long count = sketch(current).add(key, permits)
+                + (long) (previous * (double) (periodNanos - elapsed) / periodNanos);
+
+        if (exact.isTracked(key)) {
+            return exact.tryAcquire(key, permits);
+        }
+
+        if (count - permits >= promotionThreshold) {
+            return exact.tryAcquire(key, permits, (count - permits) * rateLimit.getEmissionIntervalNanos());
+        }
+
+        if (count > rateLimit.getLimit()) {
+            return elapsed - periodNanos;
+        }
+
+        return count * rateLimit.getEmissionIntervalNanos();
+    }
+
+    @Override
+    public void release(String key, int permits) {
+        exact.release(key, permits);
+    }
+
+    @Override
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * Number of keys with an exact state
+     *
+     * @return long     Estimated number of keys
+     */
+    long trackedKeys() {
+        return exact.trackedKeys();
+    }
+
+    /**
+     * Sketch of a window, cleared first if it still counts an older one
+     *
+     * @param window            Window
+     * @return CountMinSketch   Sketch (of a later window for a request that read the ticker a window too early)
+     */
+    private CountMinSketch sketch(long window) {
+
+        int slot = (int) (window & 1);
+
+        while (true) {
+            long counted = windows.get(slot);
+
+            if (counted == CLEARING) {
+                Thread.onSpinWait();
+            } else if (counted >= window) {
+                return sketches[slot];
+            } else if (windows.compareAndSet(slot, counted, CLEARING)) {
+                sketches[slot].clear();
+                windows.set(slot, window);
+                return sketches[slot];
+            }
+        }
+    }
+
+    /**
+     * Estimated count of a key in a window
+     *
+     * @param key       Key
+     * @param window    Window
+     * @return long     Estimated count (0 if no sketch counts the window)
+     */
+    private long estimate(String key, long window) {
+        int slot = (int) (window & 1);
+        return windows.get(slot) == window ? sketches[slot].estimate(key) : 0;
+    }
+}
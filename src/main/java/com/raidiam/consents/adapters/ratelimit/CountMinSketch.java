@@ -0,0 +1,159 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch with conservative update
+ * <p>
+ * Estimates are never below the true count and, with probability 1 - delta, exceed it by at most epsilon * N,
+ * where N is the total count added since the last clear. Memory is fixed: depth * width counters.
+ * <p>
+ * Each key is hashed once to 64 bits (over its characters, not String.hashCode, whose 32 bits collide for keys as
+ * short as "Aa" and "BB"); the row hashes are derived from it as h1 + row * h2.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long seed;
+    private final AtomicLongArray counters;
+
+    /**
+     * Constructor: Sizes the sketch for the given error bounds
+     *
+     * @param epsilon   Maximum error as a fraction of the total count
+     * @param delta     Probability of exceeding the maximum error
+     * @param seed      Seed of the hash functions
+     */
+    public CountMinSketch(double epsilon, double delta, long seed) {
+        this((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)), seed);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param width     Counters per row
+     * @param depth     Number of rows (hash functions)
+     * @param seed      Seed of the hash functions
+     */
+    public CountMinSketch(int width, int depth, long seed) {
+        this.width = width;
+        this.depth = depth;
+        this.seed = new SplittableRandom(seed).nextLong();
+        this.counters = new AtomicLongArray(width * depth);
+    }
+
+    /**
+     * Add to the count of a key, raising only the counters at the current minimum
+     *
+     * @param key       Key
+     * @param count     Count to add
+     * @return long     New estimated count of the key
+     */
+    public long add(String key, long count) {
+
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ seed) | 1;
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(h1, h2, row)));
+        }
+
+        long target = estimate + count;
+
+        for (int row = 0; row < depth; row++) {
+            int index = index(h1, h2, row);
+            long current;
+            while ((current = counters.get(index)) < target && ! counters.compareAndSet(index, current, target)) {
+                // Retry: another thread raised the counter
+            }
+        }
+
+        return target;
+    }
+
+    /**
+     * Estimate the count of a key
+     *
+     * @param key       Key
+     * @return long     Estimated count (never below the true count)
+     */
+    public long estimate(String key) {
+
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ seed) | 1;
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(h1, h2, row)));
+        }
+
+        return estimate;
+    }
+
+    /**
+     * Reset all counters
+     */
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    private int index(long h1, long h2, int row) {
+        return row * width + (int) Math.floorMod(h1 + row * h2, (long) width);
+    }
+
+    private long hash(String key) {
+
+        // MurmurHash3 x64 style: 4 UTF-16 characters per 64-bit block, then the remaining ones
+        int length = key.length();
+        long h = seed ^ length;
+        int i = 0;
+
+        for (; i + 4 <= length; i += 4) {
+            long block = key.charAt(i)
+                    | (long) key.charAt(i + 1) << 16
+                    | (long) key.charAt(i + 2) << 32
+                    | (long) key.charAt(i + 3) << 48;
+            h ^= scramble(block);
+            h = Long.rotateLeft(h, 27) * 5 + 0x52dce729;
+        }
+
+        long tail = 0;
+        for (int shift = 0; i < length; i++, shift += 16) {
+            tail |= (long) key.charAt(i) << shift;
+        }
+        h ^= scramble(tail);
+
+        return mix(h);
+    }
+
+    private static long scramble(long block) {
+        block *= 0x87c37b91114253d5L;
+        block = Long.rotateLeft(block, 31);
+        return block * 0x4cf5ad432745937fL;
+    }
+
+    private static long mix(long h) {
+
+        // Murmur3 finalizer
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return h;
+    }
+}
@@ -0,0 +1,16 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+/**
+ * Backend keeping the state of rate limiters
+ */
+public interface IRateLimitStore {
+
+    /**
+     * Create a limiter whose state is kept in this store
+     *
+     * @param name              Unique name of the limiter (e.g. policy name)
+     * @param rateLimit         Rate limit to be applied to each key
+     * @return IRateLimiter     Rate limiter
+     */
+    IRateLimiter create(String name, RateLimit rateLimit);
+}
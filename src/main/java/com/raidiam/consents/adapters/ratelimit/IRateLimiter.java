@@ -0,0 +1,34 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+public interface IRateLimiter {
+
+    /**
+     * Try to acquire permits for a key
+     *
+     * @param key       Client key
+     * @param permits   Number of permits (cost of the request)
+     * @return long     Allowed: debt of the key in nanoseconds (zero or positive)
+     *                  Rejected: negative nanoseconds to wait before retrying
+     */
+    long tryAcquire(String key, int permits);
+
+    /**
+     * Give back permits acquired for a key (e.g. when a further limit rejected the request)
+     *
+     * @param key       Client key
+     * @param permits   Number of permits
+     */
+    void release(String key, int permits);
+
+    RateLimit getRateLimit();
+
+    /**
+     * Checks if a result of tryAcquire allows the request
+     *
+     * @param result        Result of tryAcquire
+     * @return boolean      True/False
+     */
+    static boolean isAllowed(long result) {
+        return result >= 0;
+    }
+}
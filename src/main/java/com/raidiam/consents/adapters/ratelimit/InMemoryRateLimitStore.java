@@ -0,0 +1,20 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+/**
+ * Node-local store: limits are enforced per instance of the application
+ */
+public class InMemoryRateLimitStore implements IRateLimitStore {
+
+    private final Ticker ticker;
+
+    public InMemoryRateLimitStore(Ticker ticker) {
+        this.ticker = ticker;
+    }
+
+    @Override
+    public IRateLimiter create(String name, RateLimit rateLimit) {
+        return new InMemoryRateLimiter(rateLimit, ticker);
+    }
+}
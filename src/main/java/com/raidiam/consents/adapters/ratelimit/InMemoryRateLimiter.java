@@ -0,0 +1,147 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory Generic Cell Rate Algorithm (GCRA) rate limiter
+ * <p>
+ * The state of each key is a single theoretical arrival time (TAT), updated with compare-and-set,
+ * so concurrent requests of the same key are never lost and no lock is taken.
+ */
+public class InMemoryRateLimiter implements IRateLimiter {
+
+    /**
+     *  Initial TAT of a key (any reading of the ticker is after it)
+     */
+    private static final long NO_DEBT = Long.MIN_VALUE;
+
+    private final RateLimit rateLimit;
+    private final Ticker ticker;
+    private final Cache<String, AtomicLong> states;
+
+    /**
+     * Constructor: Creates a new cache of states expiring after one period without access
+     *
+     * @param rateLimit     Rate limit to be applied to each key
+     * @param ticker        Source of time in nanoseconds
+     */
+    public InMemoryRateLimiter(RateLimit rateLimit, Ticker ticker) {
+        this(rateLimit, ticker, 0);
+    }
+
+    /**
+     * Constructor: Creates a new cache of at most maximumKeys states expiring after one period without access
+     *
+     * @param rateLimit     Rate limit to be applied to each key
+     * @param ticker        Source of time in nanoseconds
+     * @param maximumKeys   Maximum number of keys tracked (zero for unbounded)
+     */
+    public InMemoryRateLimiter(RateLimit rateLimit, Ticker ticker, long maximumKeys) {
+        this.rateLimit = rateLimit;
+        this.ticker = ticker;
+
+        // A key untouched for one period has no debt left, so its state can be discarded
+        var builder =
+                Caffeine.newBuilder()
+                    .expireAfterAccess(rateLimit.getPeriod())
+                    .ticker(ticker);
+
+        if (maximumKeys > 0) {
+            builder.maximumSize(maximumKeys);
+        }
+
+        this.states = builder.build();
+    }
+
+    @Override
+    public long tryAcquire(String key, int permits) {
+
+        if (rateLimit.getLimit() <= 0) {
+            return -rateLimit.getPeriod().toNanos();
+        }
+
+        return acquire(states.get(key, k -> new AtomicLong(NO_DEBT)), ticker.read(), permits);
+    }
+
+    /**
+     * Try to acquire permits for a key, starting its state with a debt if it is not tracked yet
+     *
+     * @param key           Client key
+     * @param permits       Number of permits (cost of the request)
+     * @param initialDebt   Debt (in nanoseconds) of a new state
+     * @return long         Result as returned by tryAcquire
+     */
+    long tryAcquire(String key, int permits, long initialDebt) {
+
+        if (rateLimit.getLimit() <= 0) {
+            return -rateLimit.getPeriod().toNanos();
+        }
+
+        long now = ticker.read();
+
+        return acquire(states.get(key, k -> new AtomicLong(now + initialDebt)), now, permits);
+    }
+
+    /**
+     * Checks if a key has its own state
+     *
+     * @param key       Client key
+     * @return boolean  True/False
+     */
+    boolean isTracked(String key) {
+        return states.getIfPresent(key) != null;
+    }
+
+    /**
+     * Number of keys with their own state
+     *
+     * @return long     Estimated number of keys
+     */
+    long trackedKeys() {
+        states.cleanUp();
+        return states.estimatedSize();
+    }
+
+    private long acquire(AtomicLong state, long now, int permits) {
+
+        long increment = rateLimit.getEmissionIntervalNanos() * permits;
+
+        for (;;) {
+            long tat = state.get();
+            long newTat = Math.max(tat, now) + increment;
+            long debt = newTat - now;
+
+            // Checks if the new debt exceeds the allowed burst
+            if (debt > rateLimit.getBurstNanos()) {
+                return rateLimit.getBurstNanos() - debt;
+            }
+
+            if (state.compareAndSet(tat, newTat)) {
+                return debt;
+            }
+        }
+    }
+
+    @Override
+    public void release(String key, int permits) {
+
+        if (rateLimit.getLimit() <= 0) {
+            return;
+        }
+
+        AtomicLong state = states.getIfPresent(key);
+
+        if (state != null) {
+            state.addAndGet(-rateLimit.getEmissionIntervalNanos() * permits);
+        }
+    }
+
+    @Override
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+}
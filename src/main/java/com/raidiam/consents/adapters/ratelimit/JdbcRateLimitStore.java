@@ -0,0 +1,193 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Store shared by all instances of the application, backed by the JDBC datasource
+ * <p>
+ * The GCRA state of each key lives in table rate_limit_state. Nodes lease blocks of permits from it and spend
+ * them locally, so only one request per lease reaches the database. Unused permits of expired leases are given
+ * back in a single batch every sync interval. Statements time out after the query timeout, so a database that stops
+ * answering fails the limiters open (see JdbcRateLimiter) instead of holding their requests.
+ */
+public class JdbcRateLimitStore implements IRateLimitStore, AutoCloseable {
+
+    private static final String SELECT_STATE = "SELECT tat FROM rate_limit_state WHERE bucket = ? AND client_key = ? FOR UPDATE";
+    private static final String INSERT_STATE = "INSERT INTO rate_limit_state (bucket, client_key, tat) VALUES (?, ?, ?)";
+    private static final String UPDATE_STATE = "UPDATE rate_limit_state SET tat = ? WHERE bucket = ? AND client_key = ?";
+    private static final String REFUND_STATE = "UPDATE rate_limit_state SET tat = tat - ? WHERE bucket = ? AND client_key = ?";
+    private static final String DELETE_EXPIRED_STATES = "DELETE FROM rate_limit_state WHERE tat < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final Ticker ticker;
+    private final int leaseSize;
+    private final Duration leaseTtl;
+    private final List<JdbcRateLimiter> limiters = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final Logger logger = LoggerFactory.getLogger(JdbcRateLimitStore.class);
+
+    /**
+     * Constructor: Schedules the sync of unused permits and the cleanup of expired states
+     *
+     * @param dataSource        Shared datasource
+     * @param clock             Wall clock shared by all nodes
+     * @param ticker            Local source of time in nanoseconds
+     * @param leaseSize         Maximum number of permits leased at once
+     * @param leaseTtl          Time a node may spend leased permits
+     * @param syncInterval      Interval between syncs of unused permits (zero disables the scheduler)
+     * @param queryTimeout      Time a statement may run (rounded up to seconds)
+     */
+    public JdbcRateLimitStore(DataSource dataSource, Clock clock, Ticker ticker, int leaseSize, Duration leaseTtl,
+                              Duration syncInterval, Duration queryTimeout) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setQueryTimeout((int) Math.max(1, queryTimeout.plusNanos(999_999_999).toSeconds()));
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.clock = clock;
+        this.ticker = ticker;
+        this.leaseSize = leaseSize;
+        this.leaseTtl = leaseTtl;
+
+        if (syncInterval.isZero()) {
+            this.scheduler = null;
+            return;
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "rate-limit-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long syncMillis = Math.max(1, syncInterval.toMillis());
+        this.scheduler.scheduleWithFixedDelay(this::syncSafely, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+        this.scheduler.scheduleWithFixedDelay(this::deleteExpiredSafely, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public IRateLimiter create(String name, RateLimit rateLimit) {
+        var limiter = new JdbcRateLimiter(this, name, rateLimit, ticker, leaseSize, leaseTtl.toNanos());
+        limiters.add(limiter);
+        return limiter;
+    }
+
+    /**
+     * Give back the unused permits of expired leases in one batch
+     */
+    public void sync() {
+
+        var refunds = new ArrayList<Object[]>();
+
+        for (var limiter : limiters) {
+            limiter.collectRefunds(refunds);
+        }
+
+        if (! refunds.isEmpty()) {
+            jdbcTemplate.batchUpdate(REFUND_STATE, refunds);
+        }
+    }
+
+    /**
+     * Lease permits of a key, giving back the permits left from the previous lease
+     *
+     * @param bucket        Limiter name
+     * @param key           Client key
+     * @param rateLimit     Rate limit of the limiter
+     * @param minPermits    Permits required by the request
+     * @param maxPermits    Permits to lease if available
+     * @param refund        Permits left from the previous lease
+     * @return Grant        Leased permits or time to wait
+     */
+    Grant lease(String bucket, String key, RateLimit rateLimit, int minPermits, int maxPermits, long refund) {
+        try {
+            return transactionTemplate.execute(status -> leaseInTransaction(bucket, key, rateLimit, minPermits, maxPermits, refund));
+        } catch (DuplicateKeyException ex) {
+            // Another node created the state concurrently: it is now locked by the select
+            return transactionTemplate.execute(status -> leaseInTransaction(bucket, key, rateLimit, minPermits, maxPermits, refund));
+        }
+    }
+
+    private Grant leaseInTransaction(String bucket, String key, RateLimit rateLimit, int minPermits, int maxPermits, long refund) {
+
+        long now = epochNanos();
+        long interval = rateLimit.getEmissionIntervalNanos();
+
+        List<Long> states = jdbcTemplate.queryForList(SELECT_STATE, Long.class, bucket, key);
+        long tat = (states.isEmpty() ? now : states.get(0)) - refund * interval;
+        long base = Math.max(tat, now);
+        long debt = base - now;
+        long available = (rateLimit.getBurstNanos() - debt) / interval;
+
+        long granted = Math.min(maxPermits, available);
+        long newTat = granted >= minPermits ? base + granted * interval : tat;
+
+        if (states.isEmpty()) {
+            jdbcTemplate.update(INSERT_STATE, bucket, key, newTat);
+        } else {
+            jdbcTemplate.update(UPDATE_STATE, newTat, bucket, key);
+        }
+
+        if (granted < minPermits) {
+            return new Grant(0, rateLimit.getBurstNanos() - debt - minPermits * interval);
+        }
+
+        return new Grant(granted, newTat - now);
+    }
+
+    private void syncSafely() {
+        try {
+            sync();
+        } catch (RuntimeException ex) {
+            logger.error("Rate limit sync failed: {}", ex.getLocalizedMessage());
+        }
+    }
+
+    private void deleteExpiredSafely() {
+        try {
+            jdbcTemplate.update(DELETE_EXPIRED_STATES, epochNanos());
+        } catch (RuntimeException ex) {
+            logger.error("Rate limit cleanup failed: {}", ex.getLocalizedMessage());
+        }
+    }
+
+    private long epochNanos() {
+        Instant now = clock.instant();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        syncSafely();
+    }
+
+    /**
+     * Result of a lease
+     *
+     * @param permits   Leased permits (zero if rejected)
+     * @param result    Result as returned by IRateLimiter.tryAcquire
+     */
+    record Grant(long permits, long result) {
+    }
+}
@@ -0,0 +1,186 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Rate limiter spending permits leased from a JdbcRateLimitStore
+ * <p>
+ * Requests are served from the local lease with compare-and-set; only the thread that finds the lease exhausted
+ * or expired goes to the database. If the database is unavailable the limiter fails open at the rate of its policy:
+ * each local lease holds the permits of one lease TTL (at least those of the request), lasts as long as these permits
+ * take to be replenished, and is never given back to the store.
+ */
+class JdbcRateLimiter implements IRateLimiter {
+
+    /**
+     *  Age of a new lease, far enough in the past for any request (ticker values are compared by difference)
+     */
+    private static final long EXPIRED = 1L << 62;
+
+    private final JdbcRateLimitStore store;
+    private final String name;
+    private final RateLimit rateLimit;
+    private final Ticker ticker;
+    private final int leaseSize;
+    private final long leaseTtlNanos;
+    private final int failOpenPermits;
+    private final Cache<String, Lease> leases;
+    private final Function<String, Lease> newLease;
+
+    private final Logger logger = LoggerFactory.getLogger(JdbcRateLimiter.class);
+
+    JdbcRateLimiter(JdbcRateLimitStore store, String name, RateLimit rateLimit, Ticker ticker, int leaseSize, long leaseTtlNanos) {
+        this.store = store;
+        this.name = name;
+        this.rateLimit = rateLimit;
+        this.ticker = ticker;
+        this.leaseSize = Math.max(1, Math.min(leaseSize, rateLimit.getLimit()));
+        this.leaseTtlNanos = leaseTtlNanos;
+        this.failOpenPermits =
+                (int) Math.max(1, Math.min(rateLimit.getLimit(), leaseTtlNanos / rateLimit.getEmissionIntervalNanos()));
+        this.leases =
+                Caffeine.newBuilder()
+                    .expireAfterAccess(rateLimit.getPeriod().plusNanos(leaseTtlNanos))
+                    .ticker(ticker)
+                    .build();
+        this.newLease = key -> new Lease(ticker.read());
+    }
+
+    @Override
+    public long tryAcquire(String key, int permits) {
+
+        if (rateLimit.getLimit() <= 0) {
+            return -rateLimit.getPeriod().toNanos();
+        }
+
+        long now = ticker.read();
+        Lease lease = leases.get(key, newLease);
+
+        for (;;) {
+
+            // Spend leased permits
+            if (now - lease.expiresAt < 0) {
+                long available = lease.permits.get();
+                if (available >= permits) {
+                    if (lease.permits.compareAndSet(available, available - permits)) {
+                        return lease.result;
+                    }
+                    continue;
+                }
+            }
+
+            synchronized (lease) {
+
+                // Still throttled since the last lease
+                if (now - lease.retryAt < 0) {
+                    return now - lease.retryAt;
+                }
+
+                // Renewed by another thread
+                if (now - lease.expiresAt < 0 && lease.permits.get() >= permits) {
+                    continue;
+                }
+
+                return renew(key, lease, permits, now);
+            }
+        }
+    }
+
+    /**
+     * Lease a new block of permits from the store (called holding the lease lock)
+     */
+    private long renew(String key, Lease lease, int permits, long now) {
+
+        long leftover = lease.permits.getAndSet(0);
+
+        JdbcRateLimitStore.Grant grant;
+        try {
+            grant = store.lease(name, key, rateLimit, permits, Math.max(leaseSize, permits), lease.shared ? leftover : 0);
+        } catch (DataAccessException | TransactionException ex) {
+            logger.error("Rate limit store unavailable, granting local lease: {}", ex.getLocalizedMessage());
+            // Permits at the policy rate: once spent, the key waits until the lease ends to try the store again
+            long granted = Math.max(failOpenPermits, permits);
+            lease.shared = false;
+            lease.permits.set(granted - permits);
+            lease.result = 0;
+            lease.expiresAt = now + granted * rateLimit.getEmissionIntervalNanos();
+            lease.retryAt = lease.expiresAt;
+            return 0;
+        }
+
+        lease.shared = true;
+
+        if (! IRateLimiter.isAllowed(grant.result())) {
+            lease.retryAt = now - grant.result();
+            return grant.result();
+        }
+
+        lease.permits.set(grant.permits() - permits);
+        lease.result = grant.result();
+        lease.expiresAt = now + leaseTtlNanos;
+
+        return grant.result();
+    }
+
+    @Override
+    public void release(String key, int permits) {
+
+        Lease lease = leases.getIfPresent(key);
+
+        if (lease != null) {
+            lease.permits.addAndGet(permits);
+        }
+    }
+
+    /**
+     * Take the unused permits of expired leases
+     *
+     * @param refunds   Batch arguments (nanoseconds, bucket, key) of the refund statement
+     */
+    void collectRefunds(List<Object[]> refunds) {
+
+        long now = ticker.read();
+
+        leases.asMap().forEach((key, lease) -> {
+            if (lease.shared && now - lease.expiresAt >= 0 && lease.permits.get() > 0) {
+                long leftover = lease.permits.getAndSet(0);
+                if (leftover > 0) {
+                    refunds.add(new Object[] {leftover * rateLimit.getEmissionIntervalNanos(), name, key});
+                }
+            }
+        });
+    }
+
+    @Override
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    private static class Lease {
+        private final AtomicLong permits = new AtomicLong();
+        private volatile long expiresAt;
+        private volatile long retryAt;
+        private volatile long result;
+        private volatile boolean shared = true;
+
+        /**
+         * Constructor: Creates a lease expired long ago
+         *
+         * @param now   Current time of the ticker
+         */
+        private Lease(long now) {
+            this.expiresAt = now - EXPIRED;
+            this.retryAt = now - EXPIRED;
+        }
+    }
+}
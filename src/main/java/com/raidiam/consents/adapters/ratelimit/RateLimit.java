@@ -0,0 +1,62 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+@Getter
+@ToString
+public class RateLimit {
+
+    private final int limit;
+    private final Duration period;
+
+    /**
+     *  Time (in nanoseconds) a single permit takes to be replenished
+     */
+    private final long emissionIntervalNanos;
+
+    /**
+     *  Maximum debt (in nanoseconds) a key may accumulate before being throttled
+     */
+    private final long burstNanos;
+
+    /**
+     * Constructor: Allows up to limit permits per period
+     *
+     * @param limit     Number of permits per period
+     * @param period    Period of time
+     */
+    public RateLimit(int limit, Duration period) {
+        this.limit = limit;
+        this.period = period;
+        // Capped at one permit per nanosecond, so a huge limit never yields a zero interval
+        this.emissionIntervalNanos = limit > 0 ? Math.max(1, period.toNanos() / limit) : period.toNanos();
+        this.burstNanos = limit > 0 ? emissionIntervalNanos * limit : 0;
+    }
+
+    /**
+     * Permits left to a key after an allowed request
+     *
+     * @param result    Result of IRateLimiter.tryAcquire
+     * @return long     Remaining permits (zero if rejected)
+     */
+    public long remaining(long result) {
+        if (result < 0 || limit <= 0) {
+            return 0;
+        }
+        return Math.max(0, (burstNanos - result) / emissionIntervalNanos);
+    }
+
+    /**
+     * Seconds until a key has all its permits back (allowed) or may retry (rejected)
+     *
+     * @param result    Result of IRateLimiter.tryAcquire
+     * @return long     Seconds, rounded up
+     */
+    public long resetSeconds(long result) {
+        long nanos = Math.abs(result);
+        return nanos / 1_000_000_000L + (nanos % 1_000_000_000L == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,61 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Rate limit applied to a route: its own limiter and cost, plus an optional budget shared by other routes
+ */
+@Getter
+@ToString
+public class RateLimitPolicy {
+
+    private final String name;
+    private final int cost;
+
+    @ToString.Exclude
+    private final IRateLimiter rateLimiter;
+
+    @ToString.Exclude
+    private final IRateLimiter budget;
+
+    /**
+     * Constructor
+     *
+     * @param name          Policy name
+     * @param cost          Permits consumed by each request
+     * @param rateLimiter   Limiter of the route
+     * @param budget        Limiter shared with other routes (nullable)
+     */
+    public RateLimitPolicy(String name, int cost, IRateLimiter rateLimiter, IRateLimiter budget) {
+        this.name = name;
+        this.cost = cost;
+        this.rateLimiter = rateLimiter;
+        this.budget = budget;
+    }
+
+    /**
+     * Try to acquire the permits of a request in the route limiter and in the shared budget
+     *
+     * @param key       Client key
+     * @return long     Result as returned by IRateLimiter.tryAcquire
+     */
+    public long tryAcquire(String key) {
+
+        long result = rateLimiter.tryAcquire(key, cost);
+
+        if (budget == null || ! IRateLimiter.isAllowed(result)) {
+            return result;
+        }
+
+        long budgetResult = budget.tryAcquire(key, cost);
+
+        // Rejected by the shared budget: the route permits were not used
+        if (! IRateLimiter.isAllowed(budgetResult)) {
+            rateLimiter.release(key, cost);
+            return budgetResult;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+/**
+ * Resolves the rate limit policy of a request from its HTTP method and path
+ */
+public class RateLimitPolicyTable {
+
+    private final RouteTable<RateLimitPolicy> routes;
+    private final RateLimitPolicy defaultReadPolicy;
+    private final RateLimitPolicy defaultWritePolicy;
+
+    /**
+     * Constructor
+     *
+     * @param routes                Policies by route and method
+     * @param defaultReadPolicy     Policy of unmatched read requests
+     * @param defaultWritePolicy    Policy of unmatched write requests
+     */
+    public RateLimitPolicyTable(RouteTable<RateLimitPolicy> routes, RateLimitPolicy defaultReadPolicy, RateLimitPolicy defaultWritePolicy) {
+        this.routes = routes;
+        this.defaultReadPolicy = defaultReadPolicy;
+        this.defaultWritePolicy = defaultWritePolicy;
+    }
+
+    /**
+     * Resolve the policy of a request
+     *
+     * @param method                HTTP method
+     * @param path                  Request path
+     * @return RateLimitPolicy      Matched policy or the default one
+     */
+    public RateLimitPolicy resolve(String method, String path) {
+
+        var policy = routes.match(method, path);
+
+        if (policy != null) {
+            return policy;
+        }
+
+        return isWrite(method) ? defaultWritePolicy : defaultReadPolicy;
+    }
+
+    /**
+     * Checks if an HTTP method changes state
+     *
+     * @param method        HTTP method
+     * @return boolean      True/False
+     */
+    public static boolean isWrite(String method) {
+        return "POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method) || "DELETE".equals(method);
+    }
+}
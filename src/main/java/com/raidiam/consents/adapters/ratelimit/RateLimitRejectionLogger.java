@@ -0,0 +1,60 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates rejected requests into at most one log line per interval
+ * <p>
+ * During a flood, logging each rejection costs more than the rejection itself.
+ */
+public class RateLimitRejectionLogger {
+
+    private final Ticker ticker;
+    private final long intervalNanos;
+    private final LongAdder rejections = new LongAdder();
+    private final AtomicLong nextLogAt;
+
+    private final Logger logger = LoggerFactory.getLogger(RateLimitRejectionLogger.class);
+
+    /**
+     * Constructor
+     *
+     * @param ticker        Source of time in nanoseconds
+     * @param interval      Minimum interval between log lines
+     */
+    public RateLimitRejectionLogger(Ticker ticker, Duration interval) {
+        this.ticker = ticker;
+        this.intervalNanos = interval.toNanos();
+        this.nextLogAt = new AtomicLong(ticker.read());
+    }
+
+    /**
+     * Record a rejected request
+     *
+     * @param key       Client key
+     * @param policy    Policy that rejected the request
+     * @return boolean  True if a log line was written
+     */
+    public boolean record(String key, RateLimitPolicy policy) {
+
+        rejections.increment();
+
+        long now = ticker.read();
+        long logAt = nextLogAt.get();
+
+        // Only the thread that moves the deadline writes the line
+        if (now - logAt < 0 || ! nextLogAt.compareAndSet(logAt, now + intervalNanos)) {
+            return false;
+        }
+
+        logger.error("Too many requests: {} rejected (last: client={} policy={})", rejections.sumThenReset(), key, policy.getName());
+
+        return true;
+    }
+}
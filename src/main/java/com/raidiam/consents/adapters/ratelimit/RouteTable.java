@@ -0,0 +1,156 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precompiled table of route templates (e.g. /consents/{consentId}) per HTTP method
+ * <p>
+ * Templates are compiled into one segment tree per method. Matching walks the request path in place,
+ * without regular expressions and without allocating substrings.
+ *
+ * @param <T>   Type of the value bound to each route
+ */
+public class RouteTable<T> {
+
+    private static final int SUPPORTED_METHODS = 8;
+
+    private final List<Node<T>> roots = new ArrayList<>();
+
+    public RouteTable() {
+        for (int i = 0; i < SUPPORTED_METHODS; i++) {
+            roots.add(new Node<>(""));
+        }
+    }
+
+    /**
+     * Bind a value to a route template
+     *
+     * @param method    HTTP method
+     * @param route     Route template, path variables written as {name}
+     * @param value     Value bound to the route
+     */
+    public void add(String method, String route, T value) {
+
+        int index = methodIndex(method);
+
+        if (index < 0) {
+            throw new IllegalArgumentException(String.format("HTTP method %s is not supported", method));
+        }
+
+        var node = roots.get(index);
+
+        for (String segment : route.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            node = node.child(segment);
+        }
+
+        node.value = value;
+    }
+
+    /**
+     * Find the value bound to the route matching a request
+     *
+     * @param method    HTTP method
+     * @param path      Request path
+     * @return T        Bound value or null if no route matches
+     */
+    public T match(String method, String path) {
+
+        int index = methodIndex(method);
+
+        if (index < 0 || path == null) {
+            return null;
+        }
+
+        return find(roots.get(index), path, 0);
+    }
+
+    /**
+     * Walk the tree from a node, preferring literal segments over path variables
+     */
+    private static <T> T find(Node<T> node, String path, int from) {
+
+        int length = path.length();
+        int start = from;
+
+        while (start < length && path.charAt(start) == '/') {
+            start++;
+        }
+
+        if (start >= length) {
+            return node.value;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = length;
+        }
+
+        int segmentLength = end - start;
+
+        for (int i = 0; i < node.literals.size(); i++) {
+            var child = node.literals.get(i);
+            if (child.segment.length() == segmentLength && path.regionMatches(start, child.segment, 0, segmentLength)) {
+                T value = find(child, path, end);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+
+        return node.variable != null ? find(node.variable, path, end) : null;
+    }
+
+    private static int methodIndex(String method) {
+        if (method == null) {
+            return -1;
+        }
+        return switch (method) {
+            case "GET" -> 0;
+            case "HEAD" -> 1;
+            case "POST" -> 2;
+            case "PUT" -> 3;
+            case "PATCH" -> 4;
+            case "DELETE" -> 5;
+            case "OPTIONS" -> 6;
+            case "TRACE" -> 7;
+            default -> -1;
+        };
+    }
+
+    private static class Node<T> {
+
+        private final String segment;
+        private final List<Node<T>> literals = new ArrayList<>();
+        private Node<T> variable;
+        private T value;
+
+        private Node(String segment) {
+            this.segment = segment;
+        }
+
+        private Node<T> child(String segment) {
+
+            // Path variable: {name}
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                if (variable == null) {
+                    variable = new Node<>(segment);
+                }
+                return variable;
+            }
+
+            for (var literal : literals) {
+                if (literal.segment.equals(segment)) {
+                    return literal;
+                }
+            }
+
+            var literal = new Node<T>(segment);
+            literals.add(literal);
+            return literal;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.raidiam.consents.adapters.ratelimit.keys;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.security.cert.X509Certificate;
+
+/**
+ * Key on the subject of the client certificate (mTLS)
+ */
+public class ClientCertificateKeyResolver implements IClientKeyResolver<X509Certificate> {
+
+    public static final String X509_CERTIFICATE = "jakarta.servlet.request.X509Certificate";
+
+    @Override
+    public X509Certificate input(HttpServletRequest request) {
+
+        var certificates = (X509Certificate[]) request.getAttribute(X509_CERTIFICATE);
+
+        return certificates != null && certificates.length > 0 ? certificates[0] : null;
+    }
+
+    @Override
+    public String resolve(X509Certificate certificate) {
+        return "cert:" + certificate.getSubjectX500Principal().getName();
+    }
+}
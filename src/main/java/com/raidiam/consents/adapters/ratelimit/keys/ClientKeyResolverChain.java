@@ -0,0 +1,94 @@
+package com.raidiam.consents.adapters.ratelimit.keys;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Chain of client key resolvers: the first resolved key wins, falling back to the remote address
+ * <p>
+ * The last input and key of each resolver are kept per connection, so a keep-alive connection resolves
+ * (parses headers, formats certificate subjects) only when the input changes.
+ */
+public class ClientKeyResolverChain {
+
+    private final IClientKeyResolver<?>[] resolvers;
+    private final Cache<String, Resolved[]> connections;
+
+    /**
+     * Constructor
+     *
+     * @param resolvers         Resolvers, in order of precedence
+     * @param ticker            Source of time in nanoseconds
+     * @param idleTimeout       Time after which the keys of an idle connection are discarded
+     * @param maxConnections    Maximum number of connections with cached keys
+     */
+    public ClientKeyResolverChain(List<IClientKeyResolver<?>> resolvers, Ticker ticker, Duration idleTimeout, long maxConnections) {
+        this.resolvers = resolvers.toArray(IClientKeyResolver<?>[]::new);
+        this.connections =
+                Caffeine.newBuilder()
+                    .expireAfterAccess(idleTimeout)
+                    .maximumSize(maxConnections)
+                    .ticker(ticker)
+                    .build();
+    }
+
+    /**
+     * Constructor: Keys on the remote address only
+     */
+    public ClientKeyResolverChain() {
+        this(List.of(), Ticker.systemTicker(), Duration.ofMinutes(1), 10_000);
+    }
+
+    /**
+     * Resolve the client key of a request
+     *
+     * @param request   HTTP request
+     * @return String   Client key
+     */
+    public String resolve(HttpServletRequest request) {
+
+        if (resolvers.length == 0) {
+            return request.getRemoteAddr();
+        }
+
+        var resolved = connections.get(request.getServletConnection().getConnectionId(), id -> new Resolved[resolvers.length]);
+
+        for (int i = 0; i < resolvers.length; i++) {
+            var key = resolve(resolvers[i], request, resolved, i);
+
+            if (key != null) {
+                return key;
+            }
+        }
+
+        return request.getRemoteAddr();
+    }
+
+    private static <T> String resolve(IClientKeyResolver<T> resolver, HttpServletRequest request, Resolved[] resolved, int index) {
+
+        T input = resolver.input(request);
+
+        if (input == null) {
+            return null;
+        }
+
+        // Concurrent requests of a multiplexed connection may race here: the loser only resolves again
+        var last = resolved[index];
+
+        if (last != null && (last.input() == input || last.input().equals(input))) {
+            return last.key();
+        }
+
+        var key = resolver.resolve(input);
+        resolved[index] = new Resolved(input, key);
+
+        return key;
+    }
+
+    private record Resolved(Object input, String key) {}
+}
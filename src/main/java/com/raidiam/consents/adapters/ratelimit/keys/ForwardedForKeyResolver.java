@@ -0,0 +1,68 @@
+package com.raidiam.consents.adapters.ratelimit.keys;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Set;
+
+/**
+ * Key on the client address appended to X-Forwarded-For by the outermost trusted proxy
+ * <p>
+ * Each proxy appends the address of its peer, so with N trusted proxies the client is the N-th address from the
+ * right: addresses to its left are supplied by the client and cannot be trusted. The header is only read from the
+ * trusted proxies: from any other peer, it could be anything.
+ */
+public class ForwardedForKeyResolver implements IClientKeyResolver<String> {
+
+    public static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private final Set<String> trustedProxies;
+    private final int trustedHops;
+
+    /**
+     * Constructor
+     *
+     * @param trustedProxies    Addresses of the proxies allowed to set the header (at least one)
+     * @param trustedHops       Number of trusted proxies in front of the application
+     */
+    public ForwardedForKeyResolver(Set<String> trustedProxies, int trustedHops) {
+        if (trustedProxies == null || trustedProxies.isEmpty()) {
+            throw new IllegalArgumentException("X-Forwarded-For cannot be trusted without trusted proxies");
+        }
+        this.trustedProxies = trustedProxies;
+        this.trustedHops = trustedHops;
+    }
+
+    @Override
+    public String input(HttpServletRequest request) {
+
+        if (! trustedProxies.contains(request.getRemoteAddr())) {
+            return null;
+        }
+
+        return request.getHeader(X_FORWARDED_FOR);
+    }
+
+    @Override
+    public String resolve(String forwardedFor) {
+
+        int end = forwardedFor.length();
+
+        // Walk the hops from the right, up to the address appended by the outermost trusted proxy
+        for (int hop = 1; hop <= trustedHops; hop++) {
+            int start = forwardedFor.lastIndexOf(',', end - 1);
+
+            if (hop == trustedHops) {
+                var address = forwardedFor.substring(start + 1, end).strip();
+                return address.isEmpty() ? null : address;
+            }
+
+            if (start < 0) {
+                return null;
+            }
+
+            end = start;
+        }
+
+        return null;
+    }
+}
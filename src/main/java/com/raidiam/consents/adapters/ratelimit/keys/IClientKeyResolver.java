@@ -0,0 +1,30 @@
+package com.raidiam.consents.adapters.ratelimit.keys;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Strategy to resolve the client key of a request
+ * <p>
+ * Reading the input must be cheap (a header or an attribute), since resolving it into a key is done only when the
+ * input differs from the previous request of the same connection.
+ *
+ * @param <T>   Type of the input
+ */
+public interface IClientKeyResolver<T> {
+
+    /**
+     * Raw input of the key in the request
+     *
+     * @param request   HTTP request
+     * @return T        Input, or null when absent
+     */
+    T input(HttpServletRequest request);
+
+    /**
+     * Resolve the client key from the input
+     *
+     * @param input     Input (never null)
+     * @return String   Client key, or null when the input cannot be used
+     */
+    String resolve(T input);
+}
@@ -0,0 +1,19 @@
+package com.raidiam.consents.adapters.ratelimit.keys;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Key on the address of the peer of the connection
+ */
+public class RemoteAddressKeyResolver implements IClientKeyResolver<String> {
+
+    @Override
+    public String input(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
+    @Override
+    public String resolve(String remoteAddress) {
+        return remoteAddress;
+    }
+}
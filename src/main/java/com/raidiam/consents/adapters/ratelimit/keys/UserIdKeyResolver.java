@@ -0,0 +1,46 @@
+package com.raidiam.consents.adapters.ratelimit.keys;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Set;
+
+/**
+ * Key on the user of the consent, from a header set by the ingress
+ * <p>
+ * Never from a request parameter, and the header only from the trusted proxies: otherwise a client could send a new
+ * userId with each request to get a fresh bucket each time
+ */
+public class UserIdKeyResolver implements IClientKeyResolver<String> {
+
+    private final Set<String> trustedProxies;
+    private final String header;
+
+    /**
+     * Constructor
+     *
+     * @param trustedProxies    Addresses of the proxies allowed to set the header (at least one)
+     * @param header            Name of the header with the userId
+     */
+    public UserIdKeyResolver(Set<String> trustedProxies, String header) {
+        if (trustedProxies == null || trustedProxies.isEmpty()) {
+            throw new IllegalArgumentException("The userId header cannot be trusted without trusted proxies");
+        }
+        this.trustedProxies = trustedProxies;
+        this.header = header;
+    }
+
+    @Override
+    public String input(HttpServletRequest request) {
+
+        if (! trustedProxies.contains(request.getRemoteAddr())) {
+            return null;
+        }
+
+        return request.getHeader(header);
+    }
+
+    @Override
+    public String resolve(String userId) {
+        return userId.isBlank() ? null : "user:" + userId;
+    }
+}
@@ -1,9 +1,159 @@
 package com.raidiam.consents.adapters.repositories;
 
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.expiration.ConsentExpiration;
 import com.raidiam.consents.domain.entities.Consent;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import org.springframework.data.domain.Pageable;
 
-@Repository
-public interface IConsentRepository extends JpaRepository<Consent, Long> {
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage of consents (implemented by JpaConsentRepository, routed over the shards by ShardedConsentRepository)
+ */
+public interface IConsentRepository {
+
+    /**
+     * Insert or update a consent
+     *
+     * @param consent       Consent
+     * @return Consent      Saved consent
+     */
+    Consent save(Consent consent);
+
+    /**
+     * Insert or update consents
+     *
+     * @param consents          Consents
+     * @return List<Consent>    Saved consents, in the same order
+     */
+    List<Consent> saveAll(Iterable<Consent> consents);
+
+    /**
+     * Load a consent
+     *
+     * @param consentId             Numerical consent identification
+     * @return Optional<Consent>    Consent, empty if not found
+     */
+    Optional<Consent> findById(Long consentId);
+
+    /**
+     * Read a consent projected into a snapshot, without loading a managed entity (nothing is kept in the persistence
+     * context nor snapshotted for dirty checking)
+     *
+     * @param consentId                     Numerical consent identification
+     * @return Optional<ConsentSnapshot>    Consent, empty if not found
+     */
+    Optional<ConsentSnapshot> findSnapshotById(Long consentId);
+
+    /**
+     * Page of the consents of a user with a status, after a consent id (keyset pagination over index
+     * consent_user_status_id_idx), projected into snapshots without loading managed entities
+     *
+     * @param userId                    User identification
+     * @param status                    Consent status
+     * @param afterConsentId            Numerical consent id the page starts after (0 for the first page)
+     * @param pageable                  Page size (first page only: the offset is always 0)
+     * @return List<ConsentSnapshot>    Consents in consent id order
+     */
+    List<ConsentSnapshot> findPageByUserIdAndStatus(String userId, ConsentStatus status, Long afterConsentId,
+                                                    Pageable pageable);
+
+    /**
+     * All consents in consent id order, read through a forward-only cursor and projected into snapshots, so the
+     * persistence context stays empty however many consents are read. Must be consumed (and closed) inside a
+     * transaction
+     *
+     * @return Stream<ConsentSnapshot>  Consents
+     */
+    Stream<ConsentSnapshot> streamAll();
+
+    /**
+     * Delete a consent in a single statement, without loading it first
+     *
+     * @param consentId     Numerical consent identification
+     * @return int          Number of deleted rows (0 if not found)
+     */
+    int deleteConsentById(Long consentId);
+
+    /**
+     * Update status and permissions of a consent that has not expired in a single statement, without loading it first:
+     * the statement returns the updated row
+     *
+     * @param consentId                     Numerical consent identification
+     * @param expectedVersion               Version to update (null to update any version)
+     * @param status                        New status
+     * @param permissions                   New permissions
+     * @param updatedAt                     Update timestamp
+     * @return Optional<ConsentSnapshot>    Updated consent (empty if not found, expired or version mismatch)
+     */
+    Optional<ConsentSnapshot> updateConsent(Long consentId, Long expectedVersion, ConsentStatus status,
+                                            List<ConsentPermission> permissions, Instant updatedAt);
+
+    /**
+     * Expire the consents among the given ones that are awaiting authorisation or authorised, and due, in a single
+     * statement (status EXPIRED, version bumped)
+     *
+     * @param consentIds    Numerical consent identifications
+     * @param now           Current timestamp (updatedAt of the expired consents)
+     * @return int          Number of expired consents
+     */
+    int expireConsents(List<Long> consentIds, Instant now);
+
+    /**
+     * Expire every consent awaiting authorisation or authorised whose expiration date time has passed, in a single
+     * statement (range scan of index consent_expiration_idx)
+     *
+     * @param now       Current timestamp
+     * @return int      Number of expired consents
+     */
+    int expireAllDue(Instant now);
+
+    /**
+     * Page of the expirations of consents awaiting authorisation or authorised, in (expiration date time, consent id)
+     * order after a given one (keyset pagination over index consent_expiration_idx)
+     *
+     * @param afterExpiration               Expiration date time the page starts after (with afterConsentId)
+     * @param afterConsentId                Numerical consent id the page starts after, for afterExpiration
+     * @param pageable                      Page size (first page only: the offset is always 0)
+     * @return List<ConsentExpiration>      Expirations
+     */
+    List<ConsentExpiration> findExpirationPage(Instant afterExpiration, Long afterConsentId, Pageable pageable);
+
+    /**
+     * Page of the consents expired at a timestamp (by expireConsents or expireAllDue with that timestamp), after a
+     * consent id (keyset pagination over index consent_status_updated_idx)
+     *
+     * @param expiredAt                 Timestamp of the expiration
+     * @param afterConsentId            Numerical consent id the page starts after (0 for the first page)
+     * @param pageable                  Page size (first page only: the offset is always 0)
+     * @return List<ConsentSnapshot>    Consents in consent id order
+     */
+    List<ConsentSnapshot> findExpiredPage(Instant expiredAt, Long afterConsentId, Pageable pageable);
+
+    /**
+     * Identifications of consents with one of the statuses, last changed before a timestamp (range scans of index
+     * consent_status_updated_idx, in no particular order)
+     *
+     * @param statuses          Consent statuses
+     * @param updatedBefore     Timestamp the consents were last changed before
+     * @param pageable          Page size (first page only: the offset is always 0)
+     * @return List<Long>       Numerical consent identifications
+     */
+    List<Long> findPurgeableIds(List<ConsentStatus> statuses, Instant updatedBefore, Pageable pageable);
+
+    /**
+     * Delete the consents among the given ones that still have one of the statuses and were last changed before a
+     * timestamp, in a single statement
+     *
+     * @param consentIds        Numerical consent identifications
+     * @param statuses          Consent statuses
+     * @param updatedBefore     Timestamp the consents were last changed before
+     * @return List<Long>       Numerical identifications of the deleted consents
+     */
+    List<Long> purgeConsents(List<Long> consentIds, List<ConsentStatus> statuses, Instant updatedBefore);
 }
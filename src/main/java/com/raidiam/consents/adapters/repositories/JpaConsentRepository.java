@@ -0,0 +1,226 @@
+package com.raidiam.consents.adapters.repositories;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.expiration.ConsentExpiration;
+import com.raidiam.consents.domain.converters.ConsentPermissionsConverter;
+import com.raidiam.consents.domain.entities.Consent;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Consents of the current datasource (one shard: see ShardedConsentRepository). save, saveAll and findById are those
+ * of SimpleJpaRepository
+ */
+@Repository
+public interface JpaConsentRepository extends org.springframework.data.repository.Repository<Consent, Long>, IConsentRepository {
+
+    String EXPORT_FETCH_SIZE = "1000";
+
+    /**
+     *  Query space of no table, given to the native statements: without one, a native statement flushes the whole
+     *  persistence context first
+     */
+    String NO_TABLE_SPACE = "no_table";
+
+    ConsentPermissionsConverter PERMISSIONS = new ConsentPermissionsConverter();
+
+    /**
+     *  Statuses (as stored) of the consents that expire once due
+     */
+    List<Integer> EXPIRABLE = ConsentStatus.EXPIRABLE.stream().map(ConsentStatus::ordinal).toList();
+
+    String EXPIRE = "update consent set status = :expired, updated_at = :now, version = version + 1 "
+            + "where status in (:expirable) and expiration_date_time <= :now";
+
+    /**
+     * Never flushes the persistence context before reading (there is nothing to flush on the read path)
+     */
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.raidiam.consents.adapters.cache.ConsentSnapshot("
+            + "c.consentId, c.userId, c.permissions, c.status, c.createdAt, c.updatedAt, c.version, c.expirationDateTime) "
+            + "from Consent c "
+            + "where c.consentId = :consentId")
+    Optional<ConsentSnapshot> findSnapshotById(@Param("consentId") Long consentId);
+
+    @Override
+    @Query("select new com.raidiam.consents.adapters.cache.ConsentSnapshot("
+            + "c.consentId, c.userId, c.permissions, c.status, c.createdAt, c.updatedAt, c.version, c.expirationDateTime) "
+            + "from Consent c "
+            + "where c.userId = :userId and c.status = :status and c.consentId > :afterConsentId "
+            // Same order as consentId alone, but spelled as the index prefix so the page is read already sorted
+            + "order by c.userId, c.status, c.consentId")
+    List<ConsentSnapshot> findPageByUserIdAndStatus(@Param("userId") String userId,
+                                                    @Param("status") ConsentStatus status,
+                                                    @Param("afterConsentId") Long afterConsentId,
+                                                    Pageable pageable);
+
+    /**
+     * Reads EXPORT_FETCH_SIZE rows per round trip
+     */
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.raidiam.consents.adapters.cache.ConsentSnapshot("
+            + "c.consentId, c.userId, c.permissions, c.status, c.createdAt, c.updatedAt, c.version, c.expirationDateTime) "
+            + "from Consent c "
+            + "order by c.consentId")
+    Stream<ConsentSnapshot> streamAll();
+
+    @Override
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = NO_TABLE_SPACE))
+    @Query(value = "delete from consent where consent_id = :consentId", nativeQuery = true)
+    int deleteConsentById(@Param("consentId") Long consentId);
+
+    @Override
+    default Optional<ConsentSnapshot> updateConsent(Long consentId, Long expectedVersion, ConsentStatus status,
+                                                    List<ConsentPermission> permissions, Instant updatedAt) {
+        return updateConsentRow(consentId, expectedVersion, status.ordinal(),
+                        PERMISSIONS.convertToDatabaseColumn(permissions), updatedAt, ConsentStatus.EXPIRED.ordinal())
+                .stream()
+                .findFirst()
+                .map(JpaConsentRepository::snapshot);
+    }
+
+    /**
+     * updateConsent, with the columns as stored (status ordinal, permissions bitmask): the updated row is read from
+     * the update itself, columns in the order of ConsentSnapshot. A null expected version matches any version (cast, so
+     * the null parameter has a type). A consent past its expiration date time is not updated, even if not yet EXPIRED
+     */
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = NO_TABLE_SPACE))
+    @Query(value = "select consent_id, user_id, permissions, status, created_at, updated_at, version, "
+            + "expiration_date_time from final table ("
+            + "update consent set status = :status, permissions = :permissions, updated_at = :updatedAt, "
+            + "version = version + 1 "
+            + "where consent_id = :consentId and status <> :expired "
+            + "and (expiration_date_time is null or expiration_date_time > :updatedAt) "
+            + "and (cast(:expectedVersion as bigint) is null or version = :expectedVersion))", nativeQuery = true)
+    List<Object[]> updateConsentRow(@Param("consentId") Long consentId,
+                         @Param("expectedVersion") Long expectedVersion,
+                         @Param("status") int status,
+                         @Param("permissions") int permissions,
+                         @Param("updatedAt") Instant updatedAt,
+                         @Param("expired") int expired);
+
+    /**
+     * Snapshot of a row read by a native statement (timestamps with time zone come as OffsetDateTime)
+     */
+    private static ConsentSnapshot snapshot(Object[] row) {
+        return new ConsentSnapshot(
+                ((Number) row[0]).longValue(),
+                (String) row[1],
+                PERMISSIONS.convertToEntityAttribute(((Number) row[2]).intValue()),
+                ConsentStatus.values()[((Number) row[3]).intValue()],
+                instant(row[4]),
+                instant(row[5]),
+                ((Number) row[6]).longValue(),
+                instant(row[7]));
+    }
+
+    private static Instant instant(Object timestamp) {
+        return timestamp == null ? null : Instant.from((TemporalAccessor) timestamp);
+    }
+
+    @Override
+    default int expireConsents(List<Long> consentIds, Instant now) {
+        return expireConsentRows(consentIds, now, ConsentStatus.EXPIRED.ordinal(), EXPIRABLE);
+    }
+
+    /**
+     * expireConsents, with the statuses as stored (ordinals)
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = NO_TABLE_SPACE))
+    @Query(value = EXPIRE + " and consent_id in (:consentIds)", nativeQuery = true)
+    int expireConsentRows(@Param("consentIds") List<Long> consentIds,
+                          @Param("now") Instant now,
+                          @Param("expired") int expired,
+                          @Param("expirable") List<Integer> expirable);
+
+    @Override
+    default int expireAllDue(Instant now) {
+        return expireAllDueRows(now, ConsentStatus.EXPIRED.ordinal(), EXPIRABLE);
+    }
+
+    /**
+     * expireAllDue, with the statuses as stored (ordinals)
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = NO_TABLE_SPACE))
+    @Query(value = EXPIRE, nativeQuery = true)
+    int expireAllDueRows(@Param("now") Instant now,
+                         @Param("expired") int expired,
+                         @Param("expirable") List<Integer> expirable);
+
+    @Override
+    @Query("select new com.raidiam.consents.adapters.expiration.ConsentExpiration(c.consentId, c.expirationDateTime) "
+            + "from Consent c "
+            + "where c.expirationDateTime >= :afterExpiration "
+            + "and (c.expirationDateTime > :afterExpiration or c.consentId > :afterConsentId) "
+            + "and c.status in (com.raidiam.consents.domain.enums.ConsentStatus.AWAITING_AUTHORISATION, "
+            + "com.raidiam.consents.domain.enums.ConsentStatus.AUTHORISED) "
+            + "order by c.expirationDateTime, c.consentId")
+    List<ConsentExpiration> findExpirationPage(@Param("afterExpiration") Instant afterExpiration,
+                                               @Param("afterConsentId") Long afterConsentId,
+                                               Pageable pageable);
+
+    @Override
+    @Query("select new com.raidiam.consents.adapters.cache.ConsentSnapshot("
+            + "c.consentId, c.userId, c.permissions, c.status, c.createdAt, c.updatedAt, c.version, c.expirationDateTime) "
+            + "from Consent c "
+            + "where c.status = com.raidiam.consents.domain.enums.ConsentStatus.EXPIRED "
+            + "and c.updatedAt = :expiredAt and c.consentId > :afterConsentId "
+            + "order by c.consentId")
+    List<ConsentSnapshot> findExpiredPage(@Param("expiredAt") Instant expiredAt,
+                                          @Param("afterConsentId") Long afterConsentId,
+                                          Pageable pageable);
+
+    @Override
+    @Query("select c.consentId from Consent c where c.status in :statuses and c.updatedAt < :updatedBefore")
+    List<Long> findPurgeableIds(@Param("statuses") List<ConsentStatus> statuses,
+                                @Param("updatedBefore") Instant updatedBefore,
+                                Pageable pageable);
+
+    @Override
+    default List<Long> purgeConsents(List<Long> consentIds, List<ConsentStatus> statuses, Instant updatedBefore) {
+        return purgeConsentRows(consentIds, statuses.stream().map(ConsentStatus::ordinal).toList(), updatedBefore);
+    }
+
+    /**
+     * purgeConsents, with the statuses as stored (ordinals): the deleted rows are read from the delete itself
+     */
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = NO_TABLE_SPACE))
+    @Query(value = "select consent_id from old table ("
+            + "delete from consent "
+            + "where consent_id in (:consentIds) and status in (:statuses) and updated_at < :updatedBefore)",
+            nativeQuery = true)
+    List<Long> purgeConsentRows(@Param("consentIds") List<Long> consentIds,
+                                @Param("statuses") List<Integer> statuses,
+                                @Param("updatedBefore") Instant updatedBefore);
+}
@@ -0,0 +1,180 @@
+package com.raidiam.consents.adapters.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raidiam.consents.adapters.concurrency.GradientConcurrencyLimiter;
+import com.raidiam.consents.adapters.ratelimit.RateLimitPolicyTable;
+import com.raidiam.consents.adapters.rest.port.ConsentErrorResponse;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.raidiam.consents.domain.messages.ErrorMessage.SERVICE_UNAVAILABLE;
+
+/**
+ * Sheds load of the consent routes with 503 when the adaptive concurrency limit is reached
+ * <p>
+ * Runs after RateLimitingFilter, so throttled clients do not take a slot. Reads and writes have separate limits.
+ * The streamed routes (export and import) take seconds to minutes: their latency would collapse the gradient of the
+ * reads or writes, so they have a fixed limit of their own instead. A request processed asynchronously (e.g. a
+ * streamed export) holds its slot until the async processing ends.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class ConcurrencyLimitingFilter implements Filter {
+
+    public static final String CONSENTS_PATH = "/consents";
+    public static final String EXPORT_PATH = CONSENTS_PATH + "/export";
+    public static final String IMPORT_PATH = CONSENTS_PATH + "/import";
+
+    /**
+     *  Body of a shed request, serialized once
+     */
+    private static final byte[] SERVICE_UNAVAILABLE_BODY = serialize(
+            ConsentErrorResponse.builder()
+                .message(SERVICE_UNAVAILABLE)
+                .build());
+
+    private final GradientConcurrencyLimiter readLimiter;
+    private final GradientConcurrencyLimiter writeLimiter;
+    private final GradientConcurrencyLimiter streamLimiter;
+
+    /**
+     * Constructor
+     *
+     * @param readLimiter   Concurrency limiter of reads
+     * @param writeLimiter  Concurrency limiter of writes (POST, PUT, PATCH, DELETE)
+     * @param streamLimiter Concurrency limiter of the streamed export and import (fixed limit)
+     */
+    public ConcurrencyLimitingFilter(
+            @Qualifier("readConcurrencyLimiter") GradientConcurrencyLimiter readLimiter,
+            @Qualifier("writeConcurrencyLimiter") GradientConcurrencyLimiter writeLimiter,
+            @Qualifier("streamConcurrencyLimiter") GradientConcurrencyLimiter streamLimiter) {
+        super();
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.streamLimiter = streamLimiter;
+    }
+
+    /**
+     * @param request  The request to process
+     * @param response The response associated with the request
+     * @param chain    Provides access to the next filter in the chain for this filter to pass the request and response
+     *                     to for further processing
+     *
+     * @throws IOException
+     * @throws ServletException
+     */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        // Only the consent routes are limited (actuator endpoints stay reachable under load)
+        if (! isConsentRoute(httpRequest.getRequestURI())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        var limiter = limiter(httpRequest);
+        long start = limiter.tryAcquire();
+
+        if (start == GradientConcurrencyLimiter.REJECTED) {
+            httpResponse.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            httpResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            httpResponse.setContentLength(SERVICE_UNAVAILABLE_BODY.length);
+            httpResponse.getOutputStream().write(SERVICE_UNAVAILABLE_BODY);
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(limiter, start));
+            } else {
+                limiter.release(start);
+            }
+        }
+    }
+
+    /**
+     * Match /consents and the paths below it, a whole segment at a time (not /consents-admin)
+     */
+    private static boolean isConsentRoute(String uri) {
+        return uri.startsWith(CONSENTS_PATH)
+                && (uri.length() == CONSENTS_PATH.length() || uri.charAt(CONSENTS_PATH.length()) == '/');
+    }
+
+    private GradientConcurrencyLimiter limiter(HttpServletRequest request) {
+
+        var uri = request.getRequestURI();
+
+        if (uri.equals(EXPORT_PATH) || uri.equals(IMPORT_PATH)) {
+            return streamLimiter;
+        }
+
+        return RateLimitPolicyTable.isWrite(request.getMethod()) ? writeLimiter : readLimiter;
+    }
+
+    /**
+     * Releases the slot of an async request once, at the first of complete, error or timeout
+     */
+    private static class ReleasingListener implements AsyncListener {
+
+        private final GradientConcurrencyLimiter limiter;
+        private final long start;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReleasingListener(GradientConcurrencyLimiter limiter, long start) {
+            this.limiter = limiter;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Async restarted (by a later dispatch): the listener must register again to be kept
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(start);
+            }
+        }
+    }
+
+    private static byte[] serialize(ConsentErrorResponse errorResponse) {
+        try {
+            return new ObjectMapper().writeValueAsBytes(errorResponse);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
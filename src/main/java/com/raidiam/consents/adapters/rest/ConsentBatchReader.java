@@ -0,0 +1,107 @@
+package com.raidiam.consents.adapters.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.raidiam.consents.adapters.rest.port.ConsentRequest;
+import com.raidiam.consents.domain.exceptions.ConsentBatchTooLargeException;
+import com.raidiam.consents.usecases.importconsents.port.ImportConsentsRequest;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.raidiam.consents.domain.messages.ErrorMessage.BATCH_TOO_LARGE;
+import static com.raidiam.consents.domain.messages.ErrorMessage.REQUEST_BODY_MISSING;
+
+/**
+ * Reads the body of a consent batch, a JSON array or NDJSON, as validated requests in request order
+ * <p>
+ * The body is read one item at a time, so a batch over the maximum number of items is refused as soon as the item past
+ * it is reached, before it is held in memory. NDJSON lines are read by ConsentImportReader: a malformed line only
+ * rejects its own item. A malformed JSON array rejects the whole body
+ */
+public class ConsentBatchReader {
+
+    private final ObjectReader objectReader;
+    private final Function<ConsentRequest, List<String>> validator;
+    private final int maxItems;
+
+    /**
+     * @param objectReader  Reader of ConsentRequest
+     * @param validator     Validation errors of a request (empty if valid, null request if malformed)
+     * @param maxItems      Maximum number of items in a batch
+     */
+    public ConsentBatchReader(ObjectReader objectReader, Function<ConsentRequest, List<String>> validator,
+                              int maxItems) {
+        this.objectReader = objectReader;
+        this.validator = validator;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Read a JSON array of request payloads
+     *
+     * @param inputMessage  Request (body: JSON array)
+     * @return List         Item of each element (line: its position, starting at 1)
+     * @throws IOException  If the body cannot be read
+     */
+    public List<ImportConsentsRequest> readArray(HttpInputMessage inputMessage) throws IOException {
+
+        var items = new ArrayList<ImportConsentsRequest>();
+
+        try (var parser = objectReader.createParser(inputMessage.getBody())) {
+            var token = parser.nextToken();
+            if (token == null) {
+                throw new HttpMessageNotReadableException(REQUEST_BODY_MISSING, inputMessage);
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw MismatchedInputException.from(parser, List.class, "Request body must be a JSON array");
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                checkSize(items.size() + 1);
+                ConsentRequest consentRequest = objectReader.readValue(parser);
+                items.add(ConsentImportReader.toImportRequest(items.size() + 1, consentRequest, validator));
+            }
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, inputMessage);
+        }
+
+        return items;
+    }
+
+    /**
+     * Read NDJSON, one request payload per line (blank lines are skipped)
+     *
+     * @param body  Request body (UTF-8)
+     * @return List Item of each non-blank line
+     */
+    public List<ImportConsentsRequest> readNdjson(InputStream body) {
+
+        var items = new ArrayList<ImportConsentsRequest>();
+        var lines = new ConsentImportReader(body, objectReader, validator);
+
+        while (lines.hasNext()) {
+            checkSize(items.size() + 1);
+            items.add(lines.next());
+        }
+
+        return items;
+    }
+
+    /**
+     * Refuse a batch once it grows past the maximum number of items
+     *
+     * @param items     Number of items read so far, including the current one
+     */
+    private void checkSize(int items) {
+        if (items > maxItems) {
+            throw new ConsentBatchTooLargeException(String.format(BATCH_TOO_LARGE, maxItems));
+        }
+    }
+}
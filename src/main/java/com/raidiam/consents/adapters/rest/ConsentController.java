@@ -1,26 +1,60 @@
 package com.raidiam.consents.adapters.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.raidiam.consents.adapters.rest.port.ConsentBatchResponse;
+import com.raidiam.consents.adapters.rest.port.ConsentImportResponse;
+import com.raidiam.consents.adapters.rest.port.ConsentListResponse;
 import com.raidiam.consents.adapters.rest.port.ConsentRequest;
 import com.raidiam.consents.adapters.rest.port.ConsentResponse;
 import com.raidiam.consents.adapters.rest.port.ConsentUpdateRequest;
+import com.raidiam.consents.domain.enums.ConsentStatus;
 import com.raidiam.consents.domain.exceptions.ConsentPermissionsWithDuplicateValueException;
 import com.raidiam.consents.usecases.createconsent.port.CreateConsentRequest;
 import com.raidiam.consents.usecases.createconsent.ICreateConsent;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentResponse;
+import com.raidiam.consents.usecases.exportconsents.IExportConsents;
+import com.raidiam.consents.usecases.importconsents.IImportConsents;
+import com.raidiam.consents.usecases.importconsents.port.ImportConsentsRequest;
+import com.raidiam.consents.usecases.listconsents.IListConsents;
+import com.raidiam.consents.usecases.listconsents.port.ListConsentsRequest;
 import com.raidiam.consents.usecases.retrieveconsent.IRetrieveConsent;
 import com.raidiam.consents.usecases.retrieveconsent.port.RetrieveConsentRequest;
 import com.raidiam.consents.usecases.revokeconsent.IRevokeConsent;
 import com.raidiam.consents.usecases.revokeconsent.port.RevokeConsentRequest;
 import com.raidiam.consents.usecases.updateconsent.IUpdateConsent;
 import com.raidiam.consents.usecases.updateconsent.port.UpdateConsentRequest;
+import com.raidiam.consents.utils.CustomFormatter;
 import com.raidiam.consents.utils.EnumDuplicateChecker;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.raidiam.consents.domain.messages.ErrorMessage.*;
 
@@ -40,18 +74,40 @@ public class ConsentController {
 	@Autowired
 	private IRevokeConsent revokeConsent;
 
+	@Autowired
+	private IListConsents listConsents;
+
+	@Autowired
+	private IExportConsents exportConsents;
+
+	@Autowired
+	private IImportConsents importConsents;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private Clock clock;
+
+	@Autowired
+	private Validator validator;
+
+	@Value("${custom.consent-batch.max-items}")
+	private int batchMaxItems;
+
 	private final Logger logger = LoggerFactory.getLogger(ConsentController.class);
 
 	/**
 	 * Create consent with initial status of AWAITING_AUTHORISATION
 	 *
 	 * @param consentRequest 	Request payload
+	 * @param response			Response (carries the ETag of the consent)
 	 * @return ConsentResponse	Created consent details
 	 */
 	@PostMapping
 	@ResponseStatus(HttpStatus.CREATED)
 	@ResponseBody
-	public ConsentResponse createConsent(@RequestBody @Valid ConsentRequest consentRequest) {
+	public ConsentResponse createConsent(@RequestBody @Valid ConsentRequest consentRequest, HttpServletResponse response) {
 
 		logger.info("Create consent request: {}", consentRequest);
 
@@ -65,22 +121,14 @@ public class ConsentController {
 					.userId(consentRequest.getUserId())
 					.permissions(consentRequest.getPermissions())
 					.status(consentRequest.getStatus())
+					.expirationDateTime(consentRequest.getExpirationDateTime())
 					.build();
 
 		var createConsentResponse = createConsent.execute(createConsentRequest);
 
-		var consentResponse =
-				ConsentResponse.builder()
-					.consentId(createConsentResponse.getConsentId())
-					.userId(createConsentResponse.getUserId())
-					.permissions(createConsentResponse.getPermissions())
-					.status(createConsentResponse.getStatus())
-					.createdAt(createConsentResponse.getCreatedAt())
-					.updatedAt(createConsentResponse.getUpdatedAt())
-					.meta(ConsentResponse.Meta.builder()
-							.requestDateTime(createConsentResponse.getRequestDateTime())
-							.build())
-					.build();
+		var consentResponse = toConsentResponse(createConsentResponse);
+
+		response.setHeader(HttpHeaders.ETAG, CustomFormatter.formatETag(createConsentResponse.getVersion()));
 
 		logger.info("Consent created successfully: {}", consentResponse);
 
@@ -88,9 +136,222 @@ public class ConsentController {
 	}
 
 	/**
-	 *  Retrieve details of a specific consent
+	 * Create consents in bulk from a JSON array, each with initial status of AWAITING_AUTHORISATION. The array is
+	 * read item by item, so a batch over the maximum is refused before it is held in memory
+	 *
+	 * @param request				Request (body: JSON array of request payloads)
+	 * @return ConsentBatchResponse	Result of each item, in request order
+	 * @throws IOException			If the body cannot be read
+	 */
+	@PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseStatus(HttpStatus.OK)
+	@ResponseBody
+	public ConsentBatchResponse createConsents(HttpServletRequest request) throws IOException {
+
+		var batchItems = batchReader().readArray(new ServletServerHttpRequest(request));
+
+		logger.info("Create consent batch request: {} items", batchItems.size());
+
+		return createConsentBatch(batchItems);
+	}
+
+	/**
+	 * Create consents in bulk from NDJSON (one request payload per line), each with initial status of
+	 * AWAITING_AUTHORISATION. The body is read line by line (a batch over the maximum is refused as soon as the line
+	 * past it is reached); a malformed line only rejects its own item
+	 *
+	 * @param body					Request body
+	 * @return ConsentBatchResponse	Result of each non-blank line, in request order
+	 */
+	@PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	@ResponseStatus(HttpStatus.OK)
+	@ResponseBody
+	public ConsentBatchResponse createConsentsFromNdjson(InputStream body) {
+
+		var batchItems = batchReader().readNdjson(body);
+
+		logger.info("Create consent batch request (NDJSON): {} items", batchItems.size());
+
+		return createConsentBatch(batchItems);
+	}
+
+	/**
+	 * Import consents from NDJSON (one request payload per line), each with initial status of AWAITING_AUTHORISATION
+	 * <p>
+	 * Unlike the batch endpoint, lines are created while the body is being read, in batches committed one at a time,
+	 * so memory does not grow with the size of the body. Each line is validated as createConsent does; a rejected
+	 * line only rejects itself
+	 *
+	 * @param body						Request body
+	 * @return ConsentImportResponse	Counts and rejected lines
+	 */
+	@PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	@ResponseStatus(HttpStatus.OK)
+	@ResponseBody
+	public ConsentImportResponse importConsents(InputStream body) {
+
+		logger.info("Import consents request");
+
+		var importConsentsResponse = importConsents.execute(
+				new ConsentImportReader(body, objectMapper.readerFor(ConsentRequest.class), this::validate));
+
+		var consentImportResponse =
+				ConsentImportResponse.builder()
+					.lines(importConsentsResponse.getLines())
+					.created(importConsentsResponse.getCreated())
+					.rejected(importConsentsResponse.getRejected())
+					.errors(importConsentsResponse.getErrors().stream()
+							.map(error -> ConsentImportResponse.LineError.builder()
+									.line(error.getLine())
+									.errors(error.getErrors())
+									.build())
+							.toList())
+					.build();
+
+		logger.info("Consents imported successfully: lines={} created={} rejected={}",
+				consentImportResponse.getLines(), consentImportResponse.getCreated(), consentImportResponse.getRejected());
+
+		return consentImportResponse;
+	}
+
+	/**
+	 * Reader of a batch body, validating each item as createConsent does
+	 *
+	 * @return ConsentBatchReader	Batch reader
+	 */
+	private ConsentBatchReader batchReader() {
+		return new ConsentBatchReader(objectMapper.readerFor(ConsentRequest.class), this::validate, batchMaxItems);
+	}
+
+	/**
+	 * Create the valid items in a single batch (items of a chunk that could not be saved are reported failed, with
+	 * status 500, and the other chunks are still saved)
+	 *
+	 * @param batchItems			Items read (consent create data, or the reasons of rejection)
+	 * @return ConsentBatchResponse	Result of each item, in request order
+	 */
+	private ConsentBatchResponse createConsentBatch(List<ImportConsentsRequest> batchItems) {
+
+		var items = new ArrayList<ConsentBatchResponse.Item>(batchItems.size());
+		var createConsentRequests = new ArrayList<CreateConsentRequest>(batchItems.size());
+		var createConsentIndexes = new ArrayList<Integer>(batchItems.size());
+
+		for (int index = 0; index < batchItems.size(); index++) {
+			var batchItem = batchItems.get(index);
+
+			if (batchItem.getConsent() == null) {
+				items.add(rejectedItem(index, batchItem.getErrors()));
+				continue;
+			}
+
+			items.add(null);
+			createConsentIndexes.add(index);
+			createConsentRequests.add(batchItem.getConsent());
+		}
+
+		if (! createConsentRequests.isEmpty()) {
+			var createConsentBatchResponse = createConsent.executeBatch(createConsentRequests);
+			var createdItems = createConsentBatchResponse.getItems();
+
+			for (int i = 0; i < createdItems.size(); i++) {
+				int index = createConsentIndexes.get(i);
+				var createdItem = createdItems.get(i);
+
+				if (createdItem.isFailed()) {
+					items.set(index, failedItem(index, createdItem.getError()));
+				} else if (createdItem.getConsent() == null) {
+					items.set(index, rejectedItem(index, List.of(createdItem.getError())));
+				} else {
+					items.set(index, ConsentBatchResponse.Item.builder()
+							.index(index)
+							.status(HttpStatus.CREATED.value())
+							.consent(toConsentResponse(createdItem.getConsent()))
+							.build());
+				}
+			}
+		}
+
+		int created = countItems(items, HttpStatus.CREATED);
+		int failed = countItems(items, HttpStatus.INTERNAL_SERVER_ERROR);
+
+		logger.info("Consent batch processed: created={} rejected={} failed={}", created, items.size() - created - failed,
+				failed);
+
+		return ConsentBatchResponse.builder()
+				.created(created)
+				.rejected(items.size() - created - failed)
+				.failed(failed)
+				.items(items)
+				.build();
+	}
+
+	/**
+	 * Validate a batch item as createConsent does
+	 *
+	 * @param consentRequest	Request payload (null if malformed)
+	 * @return List				Validation errors (empty if valid)
+	 */
+	private List<String> validate(ConsentRequest consentRequest) {
+
+		if (consentRequest == null) {
+			return List.of(MALFORMED_BATCH_ITEM);
+		}
+
+		var errors = validator.validate(consentRequest)
+				.stream()
+				.map(ConstraintViolation::getMessage)
+				.sorted()
+				.toList();
+
+		// Checks for duplicate permissions values
+		if (errors.isEmpty() && EnumDuplicateChecker.hasDuplicateItems(consentRequest.getPermissions())) {
+			return List.of(DUPLICATE_PERMISSIONS_DETECTED);
+		}
+
+		return errors;
+	}
+
+	private static ConsentBatchResponse.Item rejectedItem(int index, List<String> errors) {
+		return ConsentBatchResponse.Item.builder()
+				.index(index)
+				.status(HttpStatus.BAD_REQUEST.value())
+				.errors(errors)
+				.build();
+	}
+
+	private static ConsentBatchResponse.Item failedItem(int index, String error) {
+		return ConsentBatchResponse.Item.builder()
+				.index(index)
+				.status(HttpStatus.INTERNAL_SERVER_ERROR.value())
+				.errors(List.of(error))
+				.build();
+	}
+
+	private static int countItems(List<ConsentBatchResponse.Item> items, HttpStatus status) {
+		return (int) items.stream().filter(item -> item.getStatus() == status.value()).count();
+	}
+
+	private static ConsentResponse toConsentResponse(CreateConsentResponse createConsentResponse) {
+		return ConsentResponse.builder()
+				.consentId(createConsentResponse.getConsentId())
+				.userId(createConsentResponse.getUserId())
+				.permissions(createConsentResponse.getPermissions())
+				.status(createConsentResponse.getStatus())
+				.createdAt(createConsentResponse.getCreatedAt())
+				.updatedAt(createConsentResponse.getUpdatedAt())
+				.expirationDateTime(createConsentResponse.getExpirationDateTime())
+				.meta(ConsentResponse.Meta.builder()
+						.requestDateTime(createConsentResponse.getRequestDateTime())
+						.build())
+				.build();
+	}
+
+	/**
+	 *  Retrieve details of a specific consent (from the per-node consent cache: a change committed through another
+	 *  node is seen within custom.consent-cache.expire-after-write)
 	 *
 	 * @param consentId			Consent identification
+	 * @param response			Response (carries the ETag of the consent)
 	 * @return ConsentResponse	Consent details
 	 */
 	@GetMapping("/{consentId}")
@@ -100,7 +361,8 @@ public class ConsentController {
 			@PathVariable("consentId")
 			@Pattern(regexp = "consent-\\d+", message = INVALID_CONSENT_ID_PATH_PARAMETER_PATTERN)
 			@NotNull(message = REQUIRED_CONSENT_ID_PATH_PARAMETER)
-			@Valid String consentId) {
+			@Valid String consentId,
+			HttpServletResponse response) {
 
 		logger.info("Retrieve consent request: consentId={}", consentId);
 
@@ -119,21 +381,137 @@ public class ConsentController {
 					.status(retrieveConsentResponse.getStatus())
 					.createdAt(retrieveConsentResponse.getCreatedAt())
 					.updatedAt(retrieveConsentResponse.getUpdatedAt())
+					.expirationDateTime(retrieveConsentResponse.getExpirationDateTime())
 					.meta(ConsentResponse.Meta.builder()
 							.requestDateTime(retrieveConsentResponse.getRequestDateTime())
 							.build())
 					.build();
 
+		response.setHeader(HttpHeaders.ETAG, CustomFormatter.formatETag(retrieveConsentResponse.getVersion()));
+
 		logger.info("Consent retrieved successfully: {}", consentReponse);
 
 		return consentReponse;
 	}
 
+	/**
+	 * List consents of a user in consent id order, one page at a time (keyset pagination)
+	 *
+	 * @param userId				User identification
+	 * @param status				Only consents with this status (optional)
+	 * @param after					Cursor: the page starts after this consent (optional, meta.next of the previous page)
+	 * @param limit					Page size (1 to 100)
+	 * @return ConsentListResponse	Page of consents
+	 */
+	@GetMapping
+	@ResponseStatus(HttpStatus.OK)
+	@ResponseBody
+	public ConsentListResponse listConsents(
+			@RequestParam(value = "userId", required = false)
+			@NotNull(message = REQUIRED_USER_ID_QUERY_PARAMETER)
+			@Pattern(regexp = "user-\\d+", message = INVALID_USER_ID_QUERY_PARAMETER_PATTERN)
+			String userId,
+			@RequestParam(value = "status", required = false) ConsentStatus status,
+			@RequestParam(value = "after", required = false)
+			@Pattern(regexp = "consent-\\d+", message = INVALID_AFTER_QUERY_PARAMETER_PATTERN)
+			String after,
+			@RequestParam(value = "limit", defaultValue = "20")
+			@Min(value = 1, message = INVALID_LIMIT_QUERY_PARAMETER)
+			@Max(value = 100, message = INVALID_LIMIT_QUERY_PARAMETER)
+			int limit) {
+
+		logger.info("List consents request: userId={} status={} after={} limit={}", userId, status, after, limit);
+
+		var listConsentsRequest =
+				ListConsentsRequest.builder()
+						.userId(userId)
+						.status(status)
+						.after(after)
+						.limit(limit)
+						.build();
+
+		var listConsentsResponse = listConsents.execute(listConsentsRequest);
+
+		var consentListResponse =
+				ConsentListResponse.builder()
+					.consents(listConsentsResponse.getConsents().stream()
+							.map(consent -> ConsentResponse.builder()
+									.consentId(consent.getConsentId())
+									.userId(consent.getUserId())
+									.permissions(consent.getPermissions())
+									.status(consent.getStatus())
+									.createdAt(consent.getCreatedAt())
+									.updatedAt(consent.getUpdatedAt())
+									.expirationDateTime(consent.getExpirationDateTime())
+									.build())
+							.toList())
+					.meta(ConsentListResponse.Meta.builder()
+							.requestDateTime(listConsentsResponse.getRequestDateTime())
+							.next(listConsentsResponse.getNext())
+							.build())
+					.build();
+
+		logger.info("Consents listed successfully: userId={} count={}", userId, consentListResponse.getConsents().size());
+
+		return consentListResponse;
+	}
+
+	/**
+	 * Export all consents as NDJSON (one consent per line, in consent id order)
+	 * <p>
+	 * The body is streamed while consents are read from a cursor, so memory does not grow with the number of
+	 * consents. An error after the first line can only end the response early. The content type is set on the
+	 * response itself: a StreamingResponseBody goes through no message converter that would set it
+	 *
+	 * @return ResponseEntity<StreamingResponseBody>	Consents
+	 */
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportConsents() {
+
+		logger.info("Export consents request");
+
+		// One line per consent: flushed by the buffers, not after each consent
+		var writer = objectMapper.writerFor(ConsentResponse.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+		StreamingResponseBody body = outputStream -> {
+
+			// Consents past their expiration date time are exported EXPIRED, as retrieved
+			Instant now = clock.instant();
+
+			try (var generator = objectMapper.getFactory().createGenerator(outputStream)
+					.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+
+				exportConsents.execute(consent -> {
+					try {
+						writer.writeValue(generator,
+								ConsentResponse.builder()
+									.consentId(consent.formattedConsentId())
+									.userId(consent.userId())
+									.permissions(consent.permissions())
+									.status(consent.statusAt(now))
+									.createdAt(consent.createdAt())
+									.updatedAt(consent.updatedAt())
+									.expirationDateTime(consent.expirationDateTime())
+									.build());
+						generator.writeRaw('\n');
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+		};
+
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
 	/**
 	 * Update consent details
 	 *
 	 * @param consentId				Consent identification
 	 * @param consentUpdateRequest	Requested update details
+	 * @param ifMatch				ETag of the version to update (optional, 412 if it is not the current version)
+	 * @param response				Response (carries the ETag of the updated consent)
 	 * @return ConsentResponse		Updated consent details
 	 */
 	@PutMapping("/{consentId}")
@@ -144,9 +522,11 @@ public class ConsentController {
 			@Pattern(regexp = "consent-\\d+", message = INVALID_CONSENT_ID_PATH_PARAMETER_PATTERN)
 			@NotNull(message = REQUIRED_CONSENT_ID_PATH_PARAMETER)
 			@Valid String consentId,
-		    @RequestBody @Valid ConsentUpdateRequest consentUpdateRequest) {
+		    @RequestBody @Valid ConsentUpdateRequest consentUpdateRequest,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			HttpServletResponse response) {
 
-		logger.info("Update consent request: consentId={} - {}", consentId, consentUpdateRequest);
+		logger.info("Update consent request: consentId={} ifMatch={} - {}", consentId, ifMatch, consentUpdateRequest);
 
 		// Checks for duplicate permissions values
 		if (EnumDuplicateChecker.hasDuplicateItems(consentUpdateRequest.getPermissions())) {
@@ -158,6 +538,7 @@ public class ConsentController {
 						.consentId(consentId)
 						.permissions(consentUpdateRequest.getPermissions())
 						.status(consentUpdateRequest.getStatus())
+						.expectedVersion(CustomFormatter.parseIfMatchVersion(ifMatch))
 						.build();
 
 		var updateConsentResponse = updateConsent.execute(updateConsentRequest);
@@ -170,11 +551,14 @@ public class ConsentController {
 					.status(updateConsentResponse.getStatus())
 					.createdAt(updateConsentResponse.getCreatedAt())
 					.updatedAt(updateConsentResponse.getUpdatedAt())
+					.expirationDateTime(updateConsentResponse.getExpirationDateTime())
 					.meta(ConsentResponse.Meta.builder()
 							.requestDateTime(updateConsentResponse.getRequestDateTime())
 							.build())
 					.build();
 
+		response.setHeader(HttpHeaders.ETAG, CustomFormatter.formatETag(updateConsentResponse.getVersion()));
+
 		logger.info("Consent updated successfully: {}", consentResponse);
 
 		return consentResponse;
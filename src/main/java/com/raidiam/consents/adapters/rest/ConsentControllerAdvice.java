@@ -2,8 +2,11 @@ package com.raidiam.consents.adapters.rest;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import com.raidiam.consents.adapters.rest.port.ConsentErrorResponse;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.domain.exceptions.ConsentBatchTooLargeException;
 import com.raidiam.consents.domain.exceptions.ConsentNotFoundException;
 import com.raidiam.consents.domain.exceptions.ConsentPermissionsWithDuplicateValueException;
+import com.raidiam.consents.domain.exceptions.ConsentVersionMismatchException;
 import com.raidiam.consents.domain.exceptions.ConsentWithInvalidStatusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +21,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.method.annotation.HandlerMethodValidationException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
@@ -48,6 +52,42 @@ public class ConsentControllerAdvice {
                     .build();
     }
 
+    /**
+     * Handle with If-Match precondition not met (consent updated by another request)
+     *
+     * @param ex                        Exception
+     * @param request                   Request data
+     * @return ConsentErrorResponse     Default error response
+     */
+    @ExceptionHandler(ConsentVersionMismatchException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    protected ConsentErrorResponse handleConsentVersionMismatch(RuntimeException ex, WebRequest request) {
+
+        logger.error("Consent version mismatch: {} {}", request, ex.getLocalizedMessage());
+
+        return ConsentErrorResponse.builder()
+                    .message(ex.getLocalizedMessage())
+                    .build();
+    }
+
+    /**
+     * Handle with batch of more items than allowed
+     *
+     * @param ex                        Exception
+     * @param request                   Request data
+     * @return ConsentErrorResponse     Default error response
+     */
+    @ExceptionHandler(ConsentBatchTooLargeException.class)
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    protected ConsentErrorResponse handleConsentBatchTooLarge(RuntimeException ex, WebRequest request) {
+
+        logger.error("Consent batch too large: {} {}", request, ex.getLocalizedMessage());
+
+        return ConsentErrorResponse.builder()
+                    .message(ex.getLocalizedMessage())
+                    .build();
+    }
+
     /**
      * Handle with invalid arguments
      *
@@ -100,6 +140,30 @@ public class ConsentControllerAdvice {
                 .build();
     }
 
+    /**
+     * Handle with query/path parameter of the wrong type (e.g. unknown status)
+     *
+     * @param ex                        Exception
+     * @param request                   Request data
+     * @return ConsentErrorResponse     Default error response
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    protected ConsentErrorResponse handleMethodArgumentTypeMismatch(MethodArgumentTypeMismatchException ex, WebRequest request) {
+
+        var requiredType = ex.getRequiredType();
+        var error = requiredType != null && requiredType.isEnum()
+                ? String.format(INVALID_VALUE_IN_THE_LIST, ex.getName(), List.of(requiredType.getEnumConstants()))
+                : String.format(INVALID_PARAMETER_VALUE, ex.getName());
+
+        logger.error("Method argument type mismatch: {} {}", request, error);
+
+        return ConsentErrorResponse.builder()
+                .message(INVALID_INPUT)
+                .errors(List.of(error))
+                .build();
+    }
+
     /**
      * Handle with unreadable message
      *
@@ -113,9 +177,12 @@ public class ConsentControllerAdvice {
 
         if (ex.getCause() instanceof InvalidFormatException invalidFormatException) {
             if (invalidFormatException.getTargetType() != null && invalidFormatException.getTargetType().isEnum()) {
+                // Of the statuses, a request body takes only the ones a client may send
+                var values = ConsentStatus.class.equals(invalidFormatException.getTargetType())
+                        ? ConsentStatus.REQUESTABLE
+                        : List.of(invalidFormatException.getTargetType().getEnumConstants());
                 var errors = String.format(INVALID_VALUE_IN_THE_LIST,
-                        invalidFormatException.getPath().get(0).getFieldName(),
-                        List.of(invalidFormatException.getTargetType().getEnumConstants()));
+                        invalidFormatException.getPath().get(0).getFieldName(), values);
 
                 logger.error("Http message not readable: {} {}", request, List.of(errors));
 
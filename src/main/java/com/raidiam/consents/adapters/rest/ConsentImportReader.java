@@ -0,0 +1,194 @@
+package com.raidiam.consents.adapters.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.raidiam.consents.adapters.rest.port.ConsentRequest;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentRequest;
+import com.raidiam.consents.usecases.importconsents.port.ImportConsentsRequest;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import static com.raidiam.consents.domain.messages.ErrorMessage.IMPORT_LINE_TOO_LONG;
+
+/**
+ * Reads an NDJSON body one line at a time, as import requests
+ * <p>
+ * The body is read through fixed buffers: memory does not depend on the size of the body, and a line longer than
+ * MAX_LINE_LENGTH is skipped (and rejected) without being held. Each line is parsed by Jackson on its own, so a
+ * malformed line only rejects itself. Blank lines are skipped, but still counted in line numbers
+ */
+public class ConsentImportReader implements Iterator<ImportConsentsRequest> {
+
+    /**
+     *  Maximum characters in a line (a consent takes about 150)
+     */
+    public static final int MAX_LINE_LENGTH = 4096;
+
+    private final Reader body;
+    private final ObjectReader objectReader;
+    private final Function<ConsentRequest, List<String>> validator;
+
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    // Current line (its first MAX_LINE_LENGTH + 1 characters)
+    private final char[] line = new char[MAX_LINE_LENGTH + 1];
+    private long lineNumber;
+
+    private ImportConsentsRequest next;
+    private boolean endOfBody;
+
+    /**
+     * @param body          Request body (UTF-8)
+     * @param objectReader  Reader of ConsentRequest
+     * @param validator     Validation errors of a request (empty if valid, null request if malformed)
+     */
+    public ConsentImportReader(InputStream body, ObjectReader objectReader,
+                               Function<ConsentRequest, List<String>> validator) {
+        this.body = new InputStreamReader(body, StandardCharsets.UTF_8);
+        this.objectReader = objectReader.with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        this.validator = validator;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && ! endOfBody) {
+            try {
+                next = readNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public ImportConsentsRequest next() {
+        if (! hasNext()) {
+            throw new NoSuchElementException();
+        }
+        var request = next;
+        next = null;
+        return request;
+    }
+
+    private ImportConsentsRequest readNext() throws IOException {
+
+        int length;
+        while ((length = readLine()) >= 0) {
+            lineNumber++;
+
+            if (length > MAX_LINE_LENGTH) {
+                return ImportConsentsRequest.builder()
+                        .line(lineNumber)
+                        .errors(List.of(IMPORT_LINE_TOO_LONG))
+                        .build();
+            }
+            if (isBlank(length)) {
+                continue;
+            }
+
+            ConsentRequest consentRequest;
+            try {
+                consentRequest = objectReader.readValue(new CharArrayReader(line, 0, length));
+            } catch (JsonProcessingException e) {
+                // null is rejected by the validator
+                consentRequest = null;
+            }
+
+            return toImportRequest(lineNumber, consentRequest, validator);
+        }
+
+        endOfBody = true;
+        return null;
+    }
+
+    /**
+     * Validate a parsed request and map it to an import request (also used for the items of a batch)
+     *
+     * @param line                      Line of the request (position of the item, for a batch), starting at 1
+     * @param consentRequest            Request payload (null if malformed)
+     * @param validator                 Validation errors of a request (empty if valid, null request if malformed)
+     * @return ImportConsentsRequest    Consent create data, or the reasons of rejection
+     */
+    static ImportConsentsRequest toImportRequest(long line, ConsentRequest consentRequest,
+                                                 Function<ConsentRequest, List<String>> validator) {
+
+        var errors = validator.apply(consentRequest);
+        if (! errors.isEmpty()) {
+            return ImportConsentsRequest.builder()
+                    .line(line)
+                    .errors(errors)
+                    .build();
+        }
+
+        return ImportConsentsRequest.builder()
+                .line(line)
+                .consent(CreateConsentRequest.builder()
+                        .userId(consentRequest.getUserId())
+                        .permissions(consentRequest.getPermissions())
+                        .status(consentRequest.getStatus())
+                        .expirationDateTime(consentRequest.getExpirationDateTime())
+                        .build())
+                .build();
+    }
+
+    /**
+     * Read the next line (without its line feed), keeping its first MAX_LINE_LENGTH + 1 characters
+     *
+     * @return int  Length of the line, up to MAX_LINE_LENGTH + 1 (-1 at the end of the body)
+     */
+    private int readLine() throws IOException {
+
+        int length = 0;
+        boolean empty = true;
+
+        while (true) {
+            if (position == limit) {
+                int read = body.read(buffer, 0, buffer.length);
+                if (read < 0) {
+                    return empty ? -1 : length;
+                }
+                position = 0;
+                limit = read;
+            }
+            empty = false;
+
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+
+            int kept = Math.min(position - start, line.length - length);
+            System.arraycopy(buffer, start, line, length, kept);
+            length += kept;
+
+            if (position < limit) {
+                // Skips the line feed
+                position++;
+                return length;
+            }
+        }
+    }
+
+    private boolean isBlank(int length) {
+        for (int i = 0; i < length; i++) {
+            if (! Character.isWhitespace(line[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
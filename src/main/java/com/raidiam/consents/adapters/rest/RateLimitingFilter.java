@@ -1,54 +1,93 @@
 package com.raidiam.consents.adapters.rest;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.github.benmanes.caffeine.cache.CacheLoader;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.raidiam.consents.adapters.ratelimit.IRateLimiter;
+import com.raidiam.consents.adapters.ratelimit.RateLimitPolicyTable;
+import com.raidiam.consents.adapters.ratelimit.RateLimitRejectionLogger;
+import com.raidiam.consents.adapters.ratelimit.keys.ClientKeyResolverChain;
 import com.raidiam.consents.adapters.rest.port.ConsentErrorResponse;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.checkerframework.checker.nullness.qual.Nullable;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 
 import static com.raidiam.consents.domain.messages.ErrorMessage.TOO_MANY_REQUESTS;
 
 @Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
 public class RateLimitingFilter implements Filter {
 
-    @Value("${custom.transactions-per-second}")
-    private int tps;
+    public static final String RETRY_AFTER = "Retry-After";
+    public static final String RATE_LIMIT_LIMIT = "RateLimit-Limit";
+    public static final String RATE_LIMIT_REMAINING = "RateLimit-Remaining";
+    public static final String RATE_LIMIT_RESET = "RateLimit-Reset";
 
-    private final LoadingCache<String, Integer> cacheLoader;
-    private final ObjectWriter objectWriter = new ObjectMapper().writer().withDefaultPrettyPrinter();
+    /**
+     *  Decimal strings of small header values, so setting headers does not allocate
+     */
+    private static final String[] HEADER_VALUES = new String[1024];
+
+    static {
+        for (int i = 0; i < HEADER_VALUES.length; i++) {
+            HEADER_VALUES[i] = Integer.toString(i);
+        }
+    }
+
+    /**
+     *  Body of a rejected request, serialized once
+     */
+    private static final byte[] TOO_MANY_REQUESTS_BODY = serialize(
+            ConsentErrorResponse.builder()
+                .message(TOO_MANY_REQUESTS)
+                .build());
 
-    private final Logger logger = LoggerFactory.getLogger(RateLimitingFilter.class);
+    private final RateLimitPolicyTable policyTable;
+    private final ClientKeyResolverChain keyResolver;
+    private final RateLimitRejectionLogger rejectionLogger;
 
     /**
-     * Constructor: Creates a new CacheLoader expiring after 1 second
+     * Constructor: Keys on the remote address
+     *
+     * @param policyTable   Rate limit policies by route and HTTP method
+     */
+    public RateLimitingFilter(RateLimitPolicyTable policyTable) {
+        this(policyTable, new ClientKeyResolverChain());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param policyTable   Rate limit policies by route and HTTP method
+     * @param keyResolver   Resolver of the client key
      */
-    public RateLimitingFilter() {
+    @Autowired
+    public RateLimitingFilter(RateLimitPolicyTable policyTable, ClientKeyResolverChain keyResolver) {
+        this(policyTable, keyResolver, new RateLimitRejectionLogger(Ticker.systemTicker(), Duration.ofSeconds(1)));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param policyTable       Rate limit policies by route and HTTP method
+     * @param keyResolver       Resolver of the client key
+     * @param rejectionLogger   Aggregated log of rejected requests
+     */
+    public RateLimitingFilter(RateLimitPolicyTable policyTable, ClientKeyResolverChain keyResolver, RateLimitRejectionLogger rejectionLogger) {
         super();
-        this.cacheLoader =
-                Caffeine.newBuilder()
-                    .expireAfterWrite(1, TimeUnit.SECONDS)
-                    .build(
-                        new CacheLoader<String, Integer>() {
-                            @Override
-                            public @Nullable Integer load(String s) throws Exception {
-                                return 0;
-                            }
-                        }
-                    );
+        this.policyTable = policyTable;
+        this.keyResolver = keyResolver;
+        this.rejectionLogger = rejectionLogger;
     }
 
     /**
@@ -63,34 +102,47 @@ public class RateLimitingFilter implements Filter {
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
 
-        // Get IP Address
-        var ipAddress = request.getRemoteAddr();
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        // Get client key
+        var clientKey = keyResolver.resolve(httpRequest);
+
+        // Get rate limit policy of route
+        var policy = policyTable.resolve(httpRequest.getMethod(), httpRequest.getRequestURI());
+        var rateLimit = policy.getRateLimiter().getRateLimit();
 
-        // Increment number of requests per IP Address
-        var requestsPerIpAddress = Optional.of(cacheLoader.get(ipAddress)).orElse(0) + 1;
-        cacheLoader.put(ipAddress, requestsPerIpAddress);
+        long result = policy.tryAcquire(clientKey);
+
+        httpResponse.setHeader(RATE_LIMIT_LIMIT, headerValue(rateLimit.getLimit()));
+        httpResponse.setHeader(RATE_LIMIT_REMAINING, headerValue(rateLimit.remaining(result)));
+        httpResponse.setHeader(RATE_LIMIT_RESET, headerValue(rateLimit.resetSeconds(result)));
 
         // Check rate limiting filter
-        if (requestsPerIpAddress > tps) {
-            String bodyResponse =
-                    objectWriter.writeValueAsString(
-                        ConsentErrorResponse.builder()
-                            .message(TOO_MANY_REQUESTS)
-                            .build()
-                    );
-
-            HttpServletRequest httpRequest = (HttpServletRequest) request;
-            HttpServletResponse httpResponse = (HttpServletResponse) response;
-
-            httpResponse.setHeader("Content-Type", "application/json");
+        if (! IRateLimiter.isAllowed(result)) {
+            httpResponse.setHeader(RETRY_AFTER, headerValue(rateLimit.resetSeconds(result)));
             httpResponse.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-            httpResponse.getWriter().write(bodyResponse);
+            httpResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            httpResponse.setContentLength(TOO_MANY_REQUESTS_BODY.length);
+            httpResponse.getOutputStream().write(TOO_MANY_REQUESTS_BODY);
 
-            logger.error("Too many requests: {}", httpRequest);
+            rejectionLogger.record(clientKey, policy);
 
             return;
         }
 
         chain.doFilter(request, response);
     }
+
+    private static String headerValue(long value) {
+        return value >= 0 && value < HEADER_VALUES.length ? HEADER_VALUES[(int) value] : Long.toString(value);
+    }
+
+    private static byte[] serialize(ConsentErrorResponse errorResponse) {
+        try {
+            return new ObjectMapper().writeValueAsBytes(errorResponse);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 }
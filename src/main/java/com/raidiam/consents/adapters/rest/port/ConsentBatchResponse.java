@@ -0,0 +1,27 @@
+package com.raidiam.consents.adapters.rest.port;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ConsentBatchResponse {
+
+	private int created;
+	private int rejected;
+	private int failed;
+	private List<Item> items;
+
+	@Data
+	@Builder
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public static class Item {
+		private int index;
+		private int status;
+		private ConsentResponse consent;
+		private List<String> errors;
+	}
+}
@@ -0,0 +1,27 @@
+package com.raidiam.consents.adapters.rest.port;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ConsentImportResponse {
+
+	private long lines;
+	private long created;
+	private long rejected;
+
+	/**
+	 *  Rejected lines, in line order (the first 1000 found; the others are only counted in rejected)
+	 */
+	private List<LineError> errors;
+
+	@Data
+	@Builder
+	public static class LineError {
+		private long line;
+		private List<String> errors;
+	}
+}
@@ -0,0 +1,29 @@
+package com.raidiam.consents.adapters.rest.port;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.raidiam.consents.utils.Rfc3339InstantSerializer;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ConsentListResponse {
+
+	private List<ConsentResponse> consents;
+	private Meta meta;
+
+	@Data
+	@Builder
+	public static class Meta {
+		@JsonSerialize(using = Rfc3339InstantSerializer.class)
+		private Instant requestDateTime;
+
+		/**
+		 *  Cursor of the next page, to be sent as query parameter after (null if this is the last page)
+		 */
+		private String next;
+	}
+}
@@ -1,9 +1,13 @@
 package com.raidiam.consents.adapters.rest.port;
 
+import java.time.Instant;
 import java.util.List;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.raidiam.consents.domain.enums.ConsentPermission;
 import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.utils.RequestedConsentStatusDeserializer;
+import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
@@ -24,5 +28,9 @@ public class ConsentRequest {
 	private List<ConsentPermission> permissions;
 
 	@NotNull(message = "Field status is required")
+	@JsonDeserialize(using = RequestedConsentStatusDeserializer.class)
 	private ConsentStatus status;
+
+	@Future(message = "Field expirationDateTime must be in the future")
+	private Instant expirationDateTime;
 }
@@ -1,27 +1,37 @@
 package com.raidiam.consents.adapters.rest.port;
 
+import java.time.Instant;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.raidiam.consents.domain.enums.ConsentPermission;
 import com.raidiam.consents.domain.enums.ConsentStatus;
 import lombok.Builder;
+import com.raidiam.consents.utils.Rfc3339InstantSerializer;
 import lombok.Data;
 
 @Data
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ConsentResponse {
 
 	private String consentId;
 	private String userId;
 	private List<ConsentPermission> permissions;
 	private ConsentStatus status;
-	private String createdAt;
-	private String updatedAt;
+	@JsonSerialize(using = Rfc3339InstantSerializer.class)
+	private Instant createdAt;
+	@JsonSerialize(using = Rfc3339InstantSerializer.class)
+	private Instant updatedAt;
+	@JsonSerialize(using = Rfc3339InstantSerializer.class)
+	private Instant expirationDateTime;
 	private Meta meta;
 
 	@Data
 	@Builder
     public static class Meta {
-		private String requestDateTime;
+		@JsonSerialize(using = Rfc3339InstantSerializer.class)
+		private Instant requestDateTime;
 	}
 }
@@ -1,7 +1,9 @@
 package com.raidiam.consents.adapters.rest.port;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.raidiam.consents.domain.enums.ConsentPermission;
 import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.utils.RequestedConsentStatusDeserializer;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.Builder;
@@ -19,5 +21,6 @@ public class ConsentUpdateRequest {
     private List<ConsentPermission> permissions;
 
     @NotNull(message = "Field status is required")
+    @JsonDeserialize(using = RequestedConsentStatusDeserializer.class)
     private ConsentStatus status;
 }
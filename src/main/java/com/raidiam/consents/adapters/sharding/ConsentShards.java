@@ -0,0 +1,128 @@
+package com.raidiam.consents.adapters.sharding;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Shards of the consents: the datasource of each shard, and the shard of a user or a consent
+ * <p>
+ * A user belongs to the shard picked by the hash of its userId, and its consents get identifiers from the range of
+ * that shard (shard * ID_RANGE onwards), so the shard of a consent is read from its identifier without a lookup.
+ * The shard of a user depends on the number of shards: it cannot change once consents are stored.
+ * <p>
+ * The shard statements go to is held per thread (see callOn), and read by ShardRoutingDataSource when a connection
+ * is taken; shard 0 when none is set
+ */
+public class ConsentShards implements AutoCloseable {
+
+    /**
+     *  Identifiers of each shard (shard 0 holds the identifiers of an unsharded database)
+     */
+    public static final long ID_RANGE = 1_000_000_000_000_000L;
+
+    /**
+     *  Most shards the identifier ranges allow
+     */
+    public static final int MAX_SHARDS = (int) (Long.MAX_VALUE / ID_RANGE);
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final List<DataSource> dataSources;
+
+    /**
+     * Constructor
+     *
+     * @param dataSources   Datasource of each shard, in shard order
+     */
+    public ConsentShards(List<DataSource> dataSources) {
+        if (dataSources.isEmpty() || dataSources.size() > MAX_SHARDS) {
+            throw new IllegalArgumentException("Number of shards must be between 1 and " + MAX_SHARDS);
+        }
+        this.dataSources = List.copyOf(dataSources);
+    }
+
+    /**
+     * Number of shards
+     *
+     * @return int  Shards
+     */
+    public int count() {
+        return dataSources.size();
+    }
+
+    /**
+     * Datasource of a shard
+     *
+     * @param shard         Shard
+     * @return DataSource   Datasource
+     */
+    public DataSource dataSource(int shard) {
+        return dataSources.get(shard);
+    }
+
+    /**
+     * Shard of a user
+     *
+     * @param userId    User identification
+     * @return int      Shard
+     */
+    public int shardOfUser(String userId) {
+        // Spreads the low bits of String.hashCode (close for userIds that differ only in their last character)
+        int hash = userId.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), dataSources.size());
+    }
+
+    /**
+     * Shard of a consent
+     *
+     * @param consentId     Numerical consent identification
+     * @return int          Shard, -1 if the identifier is in the range of no shard
+     */
+    public int shardOfConsent(long consentId) {
+        long shard = consentId / ID_RANGE;
+        return consentId < 0 || shard >= dataSources.size() ? -1 : (int) shard;
+    }
+
+    /**
+     * Run an action with its statements sent to a shard
+     * <p>
+     * The shard is read when a connection is taken: a transaction stays on the shard of its first statement
+     *
+     * @param shard     Shard
+     * @param action    Action
+     * @return T        Result of the action
+     */
+    public static <T> T callOn(int shard, Supplier<T> action) {
+        var previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Shard statements of the current thread go to
+     *
+     * @return int  Shard (0 if none is set)
+     */
+    public static int current() {
+        var shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (var dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.raidiam.consents.adapters.sharding;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Datasource of connections to the shard of the current thread (ConsentShards.callOn), shard 0 if none is set
+ */
+public class ShardRoutingDataSource extends AbstractDataSource {
+
+    private final ConsentShards shards;
+
+    public ShardRoutingDataSource(ConsentShards shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return shards.dataSource(ConsentShards.current()).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return shards.dataSource(ConsentShards.current()).getConnection(username, password);
+    }
+}
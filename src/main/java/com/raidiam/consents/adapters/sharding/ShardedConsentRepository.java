@@ -0,0 +1,502 @@
+package com.raidiam.consents.adapters.sharding;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.expiration.ConsentExpiration;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.domain.entities.Consent;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Consents spread over shards: each call goes to the repository of one shard, picked from the consent id (or the
+ * userId when listing), except the calls that read or change every shard
+ * <p>
+ * The shard repository runs on a ShardRoutingDataSource, and a transaction stays on the shard of its first
+ * statement: calls made in one transaction must target one shard. saveAll with consents of several shards saves
+ * each shard in a transaction of its own, committed separately, so a failure may leave the other shards saved.
+ * <p>
+ * Calls on every shard (exports, expirations, purges and statements on the consents of several shards) run the shards
+ * at once, one thread each, and merge their results. If a shard fails, the ones still running are cancelled, and the
+ * failure is thrown once the ones already done have committed
+ * <p>
+ * With a single shard every call goes straight to the shard repository
+ */
+public class ShardedConsentRepository implements IConsentRepository, AutoCloseable {
+
+    /**
+     *  Consents read ahead per shard while exporting, waiting to be merged
+     */
+    public static final int EXPORT_BUFFER_SIZE = 1000;
+
+    private static final Object END = new Object();
+
+    private final IConsentRepository shardRepository;
+    private final ConsentShards shards;
+    private final TransactionTemplate shardTransaction;
+    private final TransactionTemplate exportTransaction;
+    private final ExecutorService shardExecutor;
+    private final Semaphore exportPermits;
+    private final Duration exportTimeout;
+
+    /**
+     * Constructor
+     *
+     * @param shardRepository       Repository of the shard of the current thread (ConsentShards.callOn)
+     * @param shards                Shards
+     * @param transactionManager    Transaction manager of the shard repository
+     * @param maxExports            Exports reading the shards at once (each holds a connection and a thread of every
+     *                              shard)
+     * @param exportTimeout         Time an export waits for the ones running to end
+     */
+    public ShardedConsentRepository(IConsentRepository shardRepository, ConsentShards shards,
+                                    PlatformTransactionManager transactionManager, int maxExports,
+                                    Duration exportTimeout) {
+        this.shardRepository = shardRepository;
+        this.shards = shards;
+
+        this.shardTransaction = new TransactionTemplate(transactionManager);
+        this.shardTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        this.exportTransaction.setReadOnly(true);
+
+        // One thread per shard of each export, and one more per shard for the other calls on every shard: the threads
+        // of an export all start at once, so none waits on another export for a thread, and the exports never hold
+        // every thread, so the other calls only wait on each other
+        this.shardExecutor = Executors.newFixedThreadPool((maxExports + 1) * shards.count(), runnable -> {
+            var thread = new Thread(runnable, "shard-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.exportPermits = new Semaphore(maxExports);
+        this.exportTimeout = exportTimeout;
+    }
+
+    @Override
+    public Consent save(Consent consent) {
+        return ConsentShards.callOn(requireShard(consent.getConsentId()), () -> shardRepository.save(consent));
+    }
+
+    @Override
+    public List<Consent> saveAll(Iterable<Consent> consents) {
+
+        var list = new ArrayList<Consent>();
+        var indexesByShard = new TreeMap<Integer, List<Integer>>();
+        for (var consent : consents) {
+            indexesByShard.computeIfAbsent(requireShard(consent.getConsentId()), shard -> new ArrayList<>()).add(list.size());
+            list.add(consent);
+        }
+
+        if (indexesByShard.size() <= 1) {
+            int shard = indexesByShard.isEmpty() ? 0 : indexesByShard.firstKey();
+            return ConsentShards.callOn(shard, () -> shardRepository.saveAll(list));
+        }
+
+        var saved = new ArrayList<Consent>(Collections.nCopies(list.size(), null));
+
+        indexesByShard.forEach((shard, indexes) -> {
+            var shardConsents = indexes.stream().map(list::get).toList();
+            var savedShardConsents = ConsentShards.callOn(shard,
+                    () -> shardTransaction.execute(status -> shardRepository.saveAll(shardConsents)));
+            for (int i = 0; i < indexes.size(); i++) {
+                saved.set(indexes.get(i), savedShardConsents.get(i));
+            }
+        });
+
+        return saved;
+    }
+
+    @Override
+    public Optional<Consent> findById(Long consentId) {
+        int shard = shards.shardOfConsent(consentId);
+        return shard < 0 ? Optional.empty() : ConsentShards.callOn(shard, () -> shardRepository.findById(consentId));
+    }
+
+    @Override
+    public Optional<ConsentSnapshot> findSnapshotById(Long consentId) {
+        int shard = shards.shardOfConsent(consentId);
+        return shard < 0 ? Optional.empty() : ConsentShards.callOn(shard, () -> shardRepository.findSnapshotById(consentId));
+    }
+
+    @Override
+    public List<ConsentSnapshot> findPageByUserIdAndStatus(String userId, ConsentStatus status, Long afterConsentId,
+                                                           Pageable pageable) {
+        return ConsentShards.callOn(shards.shardOfUser(userId),
+                () -> shardRepository.findPageByUserIdAndStatus(userId, status, afterConsentId, pageable));
+    }
+
+    /**
+     * All consents in consent id order
+     * <p>
+     * With several shards, every shard is read at the same time, each in a read-only transaction of its own on an
+     * export thread, up to EXPORT_BUFFER_SIZE consents ahead, and the shards are merged in consent id order as the
+     * stream is consumed. Closing the stream stops the shards still being read. At most maxExports exports read the
+     * shards at once: another one waits up to the export timeout for one of them to be closed
+     *
+     * @return Stream<ConsentSnapshot>  Consents
+     * @throws CannotCreateTransactionException If the exports running do not end within the export timeout
+     */
+    @Override
+    public Stream<ConsentSnapshot> streamAll() {
+
+        if (shards.count() == 1) {
+            return shardRepository.streamAll();
+        }
+
+        acquireExportPermit();
+
+        var queues = new ArrayList<BlockingQueue<Object>>(shards.count());
+        var exports = new ArrayList<Future<?>>(shards.count());
+
+        try {
+            for (int shard = 0; shard < shards.count(); shard++) {
+                var queue = new ArrayBlockingQueue<Object>(EXPORT_BUFFER_SIZE);
+                int exportedShard = shard;
+                queues.add(queue);
+                exports.add(shardExecutor.submit(() -> export(exportedShard, queue)));
+            }
+        } catch (RuntimeException ex) {
+            // Not started (e.g. rejected once closed): nobody will close the stream
+            exports.forEach(export -> export.cancel(true));
+            exportPermits.release();
+            throw ex;
+        }
+
+        var merge = new MergeIterator(queues);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merge, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    exports.forEach(export -> export.cancel(true));
+                    exportPermits.release();
+                });
+    }
+
+    private void acquireExportPermit() {
+        try {
+            if (! exportPermits.tryAcquire(exportTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new CannotCreateTransactionException("No export slot available within " + exportTimeout);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CannotCreateTransactionException("Interrupted while waiting for an export slot");
+        }
+    }
+
+    @Override
+    public int deleteConsentById(Long consentId) {
+        int shard = shards.shardOfConsent(consentId);
+        return shard < 0 ? 0 : ConsentShards.callOn(shard, () -> shardRepository.deleteConsentById(consentId));
+    }
+
+    @Override
+    public Optional<ConsentSnapshot> updateConsent(Long consentId, Long expectedVersion, ConsentStatus status,
+                                                   List<ConsentPermission> permissions, Instant updatedAt) {
+        int shard = shards.shardOfConsent(consentId);
+        return shard < 0 ? Optional.empty() : ConsentShards.callOn(shard,
+                () -> shardRepository.updateConsent(consentId, expectedVersion, status, permissions, updatedAt));
+    }
+
+    /**
+     * Expire the due consents among the given ones, in one statement per shard: with several shards, each shard in a
+     * transaction of its own (consent ids out of every shard range are ignored)
+     */
+    @Override
+    public int expireConsents(List<Long> consentIds, Instant now) {
+        return sumOnShards(consentIds, shardIds -> shardRepository.expireConsents(shardIds, now));
+    }
+
+    /**
+     * Expire the due consents of every shard: with several shards, all shards at once, each in a transaction of its
+     * own
+     */
+    @Override
+    public int expireAllDue(Instant now) {
+
+        if (shards.count() == 1) {
+            return shardRepository.expireAllDue(now);
+        }
+
+        return callOnEachShard(allShards(), shard -> shardTransaction.execute(status -> shardRepository.expireAllDue(now)))
+                .stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    /**
+     * Page of expirations in (expiration date time, consent id) order: with several shards, the page of every shard
+     * is read at once and the first ones of their merge are kept
+     */
+    @Override
+    public List<ConsentExpiration> findExpirationPage(Instant afterExpiration, Long afterConsentId, Pageable pageable) {
+
+        if (shards.count() == 1) {
+            return shardRepository.findExpirationPage(afterExpiration, afterConsentId, pageable);
+        }
+
+        return callOnEachShard(allShards(),
+                shard -> shardRepository.findExpirationPage(afterExpiration, afterConsentId, pageable))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(ConsentExpiration::expirationDateTime).thenComparing(ConsentExpiration::consentId))
+                .limit(pageable.getPageSize())
+                .toList();
+    }
+
+    /**
+     * Page of the consents expired at a timestamp in consent id order: with several shards, the page of every shard
+     * is read at once and the first ones of their merge are kept
+     */
+    @Override
+    public List<ConsentSnapshot> findExpiredPage(Instant expiredAt, Long afterConsentId, Pageable pageable) {
+
+        if (shards.count() == 1) {
+            return shardRepository.findExpiredPage(expiredAt, afterConsentId, pageable);
+        }
+
+        return callOnEachShard(allShards(), shard -> shardRepository.findExpiredPage(expiredAt, afterConsentId, pageable))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(ConsentSnapshot::consentId))
+                .limit(pageable.getPageSize())
+                .toList();
+    }
+
+    /**
+     * Consents to purge: with several shards, a page of every shard is read at once and the page is filled from the
+     * shards in turn
+     */
+    @Override
+    public List<Long> findPurgeableIds(List<ConsentStatus> statuses, Instant updatedBefore, Pageable pageable) {
+
+        if (shards.count() == 1) {
+            return shardRepository.findPurgeableIds(statuses, updatedBefore, pageable);
+        }
+
+        return callOnEachShard(allShards(), shard -> shardRepository.findPurgeableIds(statuses, updatedBefore, pageable))
+                .stream()
+                .flatMap(List::stream)
+                .limit(pageable.getPageSize())
+                .toList();
+    }
+
+    /**
+     * Delete the consents to purge among the given ones, in one statement per shard: with several shards, each shard
+     * in a transaction of its own (consent ids out of every shard range are ignored)
+     */
+    @Override
+    public List<Long> purgeConsents(List<Long> consentIds, List<ConsentStatus> statuses, Instant updatedBefore) {
+        return callOnShards(consentIds, shardIds -> shardRepository.purgeConsents(shardIds, statuses, updatedBefore))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    @Override
+    public void close() {
+        shardExecutor.shutdownNow();
+    }
+
+    /**
+     * Run a bulk statement on the consent ids of each shard and sum the rows changed: one shard in the current
+     * transaction, several at once, each in a transaction of its own
+     */
+    private int sumOnShards(List<Long> consentIds, ToIntFunction<List<Long>> statement) {
+        return callOnShards(consentIds, statement::applyAsInt).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Run a bulk statement on the consent ids of each shard and return the result of each shard: one shard in the
+     * current transaction, several at once, each in a transaction of its own
+     */
+    private <T> List<T> callOnShards(List<Long> consentIds, Function<List<Long>, T> statement) {
+
+        var idsByShard = new TreeMap<Integer, List<Long>>();
+        for (var consentId : consentIds) {
+            int shard = shards.shardOfConsent(consentId);
+            if (shard >= 0) {
+                idsByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(consentId);
+            }
+        }
+
+        if (idsByShard.size() == 1) {
+            int shard = idsByShard.firstKey();
+            return List.of(ConsentShards.callOn(shard, () -> statement.apply(idsByShard.get(shard))));
+        }
+
+        return callOnEachShard(idsByShard.keySet(),
+                shard -> shardTransaction.execute(status -> statement.apply(idsByShard.get(shard))));
+    }
+
+    /**
+     * Run a call on each of the shards at once, on the shard threads, and return the result of each shard in shard
+     * order. If a shard fails, the calls still running are cancelled and the failure is thrown
+     */
+    private <T> List<T> callOnEachShard(Collection<Integer> shardIds, IntFunction<T> call) {
+
+        var calls = new ArrayList<Future<T>>(shardIds.size());
+        try {
+            for (int shard : shardIds) {
+                calls.add(shardExecutor.submit(() -> ConsentShards.callOn(shard, () -> call.apply(shard))));
+            }
+
+            var results = new ArrayList<T>(calls.size());
+            for (var result : calls) {
+                results.add(result.get());
+            }
+            return results;
+        } catch (ExecutionException ex) {
+            calls.forEach(result -> result.cancel(true));
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            calls.forEach(result -> result.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the shards");
+        } catch (RuntimeException ex) {
+            // Rejected (e.g. once closed): the calls already submitted are not waited for
+            calls.forEach(result -> result.cancel(true));
+            throw ex;
+        }
+    }
+
+    private List<Integer> allShards() {
+        return IntStream.range(0, shards.count()).boxed().toList();
+    }
+
+    private int requireShard(Long consentId) {
+        int shard = shards.shardOfConsent(consentId);
+        if (shard < 0) {
+            throw new IllegalArgumentException("Consent id " + consentId + " is in the range of no shard");
+        }
+        return shard;
+    }
+
+    /**
+     * Read a shard into its queue, ending with END (or the failure)
+     */
+    private void export(int shard, BlockingQueue<Object> queue) {
+        try {
+            ConsentShards.callOn(shard, () -> exportTransaction.execute(status -> {
+                try (var consents = shardRepository.streamAll()) {
+                    var iterator = consents.iterator();
+                    while (iterator.hasNext()) {
+                        put(queue, iterator.next());
+                    }
+                }
+                return null;
+            }));
+            put(queue, END);
+        } catch (CancellationException ex) {
+            // Stream closed: nobody reads the queue anymore
+        } catch (RuntimeException ex) {
+            try {
+                put(queue, new Failure(ex));
+            } catch (CancellationException cancelled) {
+                // Stream closed meanwhile
+            }
+        }
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Export cancelled");
+        }
+    }
+
+    /**
+     * Merges the consents of the shard queues in consent id order (each queue is in consent id order)
+     */
+    private static final class MergeIterator implements Iterator<ConsentSnapshot> {
+
+        private final List<BlockingQueue<Object>> queues;
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparingLong(head -> head.consent().consentId()));
+        private boolean started;
+
+        private MergeIterator(List<BlockingQueue<Object>> queues) {
+            this.queues = queues;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (! started) {
+                for (int shard = 0; shard < queues.size(); shard++) {
+                    advance(shard);
+                }
+                started = true;
+            }
+            return ! heads.isEmpty();
+        }
+
+        @Override
+        public ConsentSnapshot next() {
+            if (! hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var head = heads.poll();
+            advance(head.shard());
+            return head.consent();
+        }
+
+        private void advance(int shard) {
+            Object item;
+            try {
+                item = queues.get(shard).take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Export interrupted");
+            }
+
+            if (item instanceof ConsentSnapshot consent) {
+                heads.add(new Head(shard, consent));
+            } else if (item instanceof Failure failure) {
+                throw failure.exception();
+            }
+        }
+    }
+
+    private record Head(int shard, ConsentSnapshot consent) {
+    }
+
+    private record Failure(RuntimeException exception) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.raidiam.consents.adapters.sharding;
+
+import com.raidiam.consents.adapters.idgenerator.IIdGenerator;
+
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Hands out identifiers in the range of the shard of a user: shard * ID_RANGE plus an identifier of the shard
+ */
+public class ShardedIdGenerator implements IIdGenerator {
+
+    private final ConsentShards shards;
+    private final List<IIdGenerator> generators;
+
+    /**
+     * Constructor
+     *
+     * @param shards            Shards
+     * @param shardGenerator    Generator of the identifiers of a shard (from 1, in its own database)
+     */
+    public ShardedIdGenerator(ConsentShards shards, IntFunction<IIdGenerator> shardGenerator) {
+        this.shards = shards;
+        this.generators = IntStream.range(0, shards.count()).mapToObj(shardGenerator).toList();
+    }
+
+    /**
+     * Identifier in the range of shard 0
+     */
+    @Override
+    public long nextId() {
+        return nextId(0);
+    }
+
+    /**
+     * Identifier in the range of the shard of a user
+     *
+     * @param key       User identification
+     * @return long     Identifier
+     */
+    @Override
+    public long nextId(String key) {
+        return nextId(shards.shardOfUser(key));
+    }
+
+    private long nextId(int shard) {
+        long id = generators.get(shard).nextId();
+        if (id >= ConsentShards.ID_RANGE) {
+            throw new IllegalStateException("Identifier range of shard " + shard + " is exhausted");
+        }
+        return shard * ConsentShards.ID_RANGE + id;
+    }
+}
@@ -0,0 +1,92 @@
+package com.raidiam.consents.config;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.raidiam.consents.adapters.concurrency.GradientConcurrencyLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfiguration {
+
+    /**
+     * Configure the concurrency limiter of reads
+     *
+     * @param properties                    Concurrency limit properties
+     * @return GradientConcurrencyLimiter   Concurrency limiter
+     */
+    @Bean
+    public GradientConcurrencyLimiter readConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        return limiter(properties, properties.getRead());
+    }
+
+    /**
+     * Configure the concurrency limiter of writes
+     *
+     * @param properties                    Concurrency limit properties
+     * @return GradientConcurrencyLimiter   Concurrency limiter
+     */
+    @Bean
+    public GradientConcurrencyLimiter writeConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        return limiter(properties, properties.getWrite());
+    }
+
+    /**
+     * Configure the concurrency limiter of the streamed export and import (a fixed limit: minimum and maximum are the
+     * initial limit, so their long latencies never move it)
+     *
+     * @param properties                    Concurrency limit properties
+     * @return GradientConcurrencyLimiter   Concurrency limiter
+     */
+    @Bean
+    public GradientConcurrencyLimiter streamConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        int streams = properties.getStreams();
+        return new GradientConcurrencyLimiter(Ticker.systemTicker(), streams, streams, streams,
+                properties.getWindow(), properties.getSmoothing(), properties.getRttTolerance());
+    }
+
+    /**
+     * Expose limits, requests in flight and shed requests as metrics (tagged by type: read, write or stream)
+     *
+     * @param readConcurrencyLimiter    Concurrency limiter of reads
+     * @param writeConcurrencyLimiter   Concurrency limiter of writes
+     * @param streamConcurrencyLimiter  Concurrency limiter of the streamed export and import
+     * @return MeterBinder              Metrics binder
+     */
+    @Bean
+    public MeterBinder concurrencyLimitMetrics(
+            GradientConcurrencyLimiter readConcurrencyLimiter,
+            GradientConcurrencyLimiter writeConcurrencyLimiter,
+            GradientConcurrencyLimiter streamConcurrencyLimiter) {
+
+        return registry -> {
+            bind(registry, "read", readConcurrencyLimiter);
+            bind(registry, "write", writeConcurrencyLimiter);
+            bind(registry, "stream", streamConcurrencyLimiter);
+        };
+    }
+
+    private static void bind(MeterRegistry registry, String type, GradientConcurrencyLimiter limiter) {
+
+        Gauge.builder("consents.concurrency.limit", limiter, GradientConcurrencyLimiter::getLimit)
+            .tag("type", type)
+            .register(registry);
+        Gauge.builder("consents.concurrency.in-flight", limiter, GradientConcurrencyLimiter::getInFlight)
+            .tag("type", type)
+            .register(registry);
+        FunctionCounter.builder("consents.concurrency.shed", limiter, GradientConcurrencyLimiter::getRejected)
+            .tag("type", type)
+            .register(registry);
+    }
+
+    private static GradientConcurrencyLimiter limiter(ConcurrencyLimitProperties properties, ConcurrencyLimitProperties.Limit limit) {
+        return new GradientConcurrencyLimiter(Ticker.systemTicker(),
+                limit.getInitialLimit(), limit.getMinLimit(), limit.getMaxLimit(),
+                properties.getWindow(), properties.getSmoothing(), properties.getRttTolerance());
+    }
+}
@@ -0,0 +1,42 @@
+package com.raidiam.consents.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "custom.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     *  Interval between updates of the limits
+     */
+    private Duration window = Duration.ofMillis(100);
+
+    /**
+     *  Weight of a new limit (0 to 1)
+     */
+    private double smoothing = 0.2;
+
+    /**
+     *  Latency growth tolerated before the limits shrink
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     *  Fixed limit of streamed exports and imports in flight (kept out of the read and write limits)
+     */
+    private int streams = 4;
+
+    private Limit read = new Limit();
+
+    private Limit write = new Limit();
+
+    @Data
+    public static class Limit {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+    }
+}
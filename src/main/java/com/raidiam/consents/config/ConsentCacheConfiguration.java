@@ -0,0 +1,41 @@
+package com.raidiam.consents.config;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.raidiam.consents.adapters.cache.CaffeineConsentCache;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableConfigurationProperties({ConsentCacheProperties.class, DataSourceRoutingProperties.class})
+public class ConsentCacheConfiguration {
+
+    /**
+     * Configure the read-through cache of consents
+     *
+     * @param properties            Consent cache properties
+     * @param routingProperties     Datasource routing properties (loads read from a replica if there is one)
+     * @return CaffeineConsentCache Consent cache
+     */
+    @Bean
+    public CaffeineConsentCache consentCache(ConsentCacheProperties properties, DataSourceRoutingProperties routingProperties) {
+        var replicaLag = routingProperties.getReplicas().isEmpty() ? Duration.ZERO : properties.getReplicaLag();
+        return new CaffeineConsentCache(properties.getMaximumSize(), properties.getExpireAfterWrite(), replicaLag,
+                Ticker.systemTicker());
+    }
+
+    /**
+     * Expose hits, misses, evictions and size of the consent cache as metrics (cache.* tagged cache=consents)
+     *
+     * @param consentCache  Consent cache
+     * @return MeterBinder  Metrics binder
+     */
+    @Bean
+    public MeterBinder consentCacheMetrics(CaffeineConsentCache consentCache) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, consentCache.getNativeCache(), "consents");
+    }
+}
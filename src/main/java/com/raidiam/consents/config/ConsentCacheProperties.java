@@ -0,0 +1,28 @@
+package com.raidiam.consents.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "custom.consent-cache")
+public class ConsentCacheProperties {
+
+    /**
+     *  Maximum number of cached consents
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     *  Time a cached consent is served before being loaded again: invalidations are local to the node, so this is how
+     *  long a node may serve a consent changed through another node
+     */
+    private Duration expireAfterWrite = Duration.ofSeconds(5);
+
+    /**
+     *  Maximum time a read replica takes to apply a change (only used with replicas): a consent changed on this node
+     *  within it is loaded without being cached
+     */
+    private Duration replicaLag = Duration.ofSeconds(5);
+}
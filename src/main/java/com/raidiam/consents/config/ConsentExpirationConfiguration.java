@@ -0,0 +1,65 @@
+package com.raidiam.consents.config;
+
+import com.raidiam.consents.adapters.expiration.ConsentExpirationScheduler;
+import com.raidiam.consents.adapters.expiration.IConsentExpirationScheduler;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.usecases.expireconsents.IExpireConsents;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(ConsentExpirationProperties.class)
+public class ConsentExpirationConfiguration {
+
+    /**
+     * Configure the expiration of consents (started at once: the timing wheel is rebuilt in the background)
+     *
+     * @param properties                    Consent expiration properties
+     * @param expireConsents                Expires the consents due
+     * @param consentRepository             Consent repository
+     * @param clock                         Clock
+     * @return IConsentExpirationScheduler  Scheduler (discards expirations if disabled)
+     */
+    @Bean
+    public IConsentExpirationScheduler consentExpirationScheduler(ConsentExpirationProperties properties,
+                                                                  IExpireConsents expireConsents,
+                                                                  IConsentRepository consentRepository,
+                                                                  Clock clock) {
+
+        if (! properties.isEnabled()) {
+            return (consentId, expirationDateTime) -> { };
+        }
+
+        var scheduler = new ConsentExpirationScheduler(expireConsents, consentRepository, clock, properties.getTick(),
+                properties.getSweepInterval(), properties.getWheelSize(), properties.getBatchSize(),
+                properties.getRebuildPageSize());
+        scheduler.start();
+        return scheduler;
+    }
+
+    /**
+     * Expose consents waiting in the timing wheel and consents expired as metrics
+     *
+     * @param consentExpirationScheduler    Scheduler
+     * @return MeterBinder                  Metrics binder
+     */
+    @Bean
+    public MeterBinder consentExpirationMetrics(IConsentExpirationScheduler consentExpirationScheduler) {
+        return registry -> {
+            if (consentExpirationScheduler instanceof ConsentExpirationScheduler scheduler) {
+                Gauge.builder("consents.expiration.scheduled", scheduler, ConsentExpirationScheduler::scheduled)
+                        .description("Consents waiting in the timing wheel")
+                        .register(registry);
+                FunctionCounter.builder("consents.expiration.expired", scheduler, ConsentExpirationScheduler::expired)
+                        .description("Consents moved to EXPIRED")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.raidiam.consents.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "custom.consent-expiration")
+public class ConsentExpirationProperties {
+
+    /**
+     *  Whether this node expires consents (consents still get their expiration date time when disabled)
+     */
+    private boolean enabled = true;
+
+    /**
+     *  Validity of a consent created without expiration date time
+     */
+    private Duration defaultValidity = Duration.ofDays(90);
+
+    /**
+     *  Duration of a tick of the timing wheel (expirations fire up to one tick late)
+     */
+    private Duration tick = Duration.ofSeconds(1);
+
+    /**
+     *  Interval between two expirations of every consent already due (catches the consents no live node has scheduled)
+     */
+    private Duration sweepInterval = Duration.ofMinutes(1);
+
+    /**
+     *  Slots per level of the timing wheel (a power of two)
+     */
+    private int wheelSize = 64;
+
+    /**
+     *  Consents expired per statement
+     */
+    private int batchSize = 1000;
+
+    /**
+     *  Expirations read per query while rebuilding the timing wheel on start
+     */
+    private int rebuildPageSize = 10000;
+}
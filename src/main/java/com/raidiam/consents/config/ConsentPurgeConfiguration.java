@@ -0,0 +1,61 @@
+package com.raidiam.consents.config;
+
+import com.raidiam.consents.adapters.purge.ConsentPurgeScheduler;
+import com.raidiam.consents.usecases.purgeconsents.IPurgeConsents;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableConfigurationProperties(ConsentPurgeProperties.class)
+public class ConsentPurgeConfiguration {
+
+    /**
+     * Configure the purge of old consents
+     *
+     * @param properties                Consent purge properties
+     * @param purgeConsents             Deletes a chunk of consents
+     * @param clock                     Clock
+     * @return ConsentPurgeScheduler    Scheduler (not started if disabled)
+     */
+    @Bean
+    public ConsentPurgeScheduler consentPurgeScheduler(ConsentPurgeProperties properties, IPurgeConsents purgeConsents,
+                                                       Clock clock) {
+
+        var scheduler = new ConsentPurgeScheduler(purgeConsents, clock, properties.getStatuses(),
+                properties.getRetention(), properties.getChunkSize(), properties.getPause(), properties.getInterval());
+        if (properties.isEnabled()) {
+            scheduler.start();
+        }
+        return scheduler;
+    }
+
+    /**
+     * Expose consents purged and time spent deleting chunks as metrics
+     *
+     * @param consentPurgeScheduler     Scheduler
+     * @return MeterBinder              Metrics binder
+     */
+    @Bean
+    public MeterBinder consentPurgeMetrics(ConsentPurgeScheduler consentPurgeScheduler) {
+        return registry -> {
+            FunctionCounter.builder("consents.purge.purged", consentPurgeScheduler, ConsentPurgeScheduler::purged)
+                    .description("Consents purged")
+                    .register(registry);
+            Gauge.builder("consents.purge.run.purged", consentPurgeScheduler, ConsentPurgeScheduler::runPurged)
+                    .description("Consents purged by the current (or last) purge")
+                    .register(registry);
+            FunctionTimer.builder("consents.purge.chunks", consentPurgeScheduler, ConsentPurgeScheduler::chunks,
+                            scheduler -> scheduler.chunkTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)
+                    .description("Chunks of consents deleted, pauses excluded")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.raidiam.consents.config;
+
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "custom.consent-purge")
+public class ConsentPurgeProperties {
+
+    /**
+     *  Whether this node purges consents
+     */
+    private boolean enabled = true;
+
+    /**
+     *  Statuses of the consents purged
+     */
+    private List<ConsentStatus> statuses = List.of(ConsentStatus.REJECT);
+
+    /**
+     *  Time consents are kept after their last change
+     */
+    private Duration retention = Duration.ofDays(30);
+
+    /**
+     *  Consents deleted per chunk (short transactions: one statement per shard)
+     */
+    private int chunkSize = 5000;
+
+    /**
+     *  Sleep between chunks, leaving the database to foreground requests
+     */
+    private Duration pause = Duration.ofMillis(200);
+
+    /**
+     *  Time between the end of a purge and the start of the next
+     */
+    private Duration interval = Duration.ofHours(1);
+}
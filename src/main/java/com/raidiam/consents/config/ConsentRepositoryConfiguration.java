@@ -0,0 +1,49 @@
+package com.raidiam.consents.config;
+
+import com.raidiam.consents.adapters.repositories.JpaConsentRepository;
+import com.raidiam.consents.adapters.sharding.ConsentShards;
+import com.raidiam.consents.adapters.sharding.ShardedConsentRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+@Configuration
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class ConsentRepositoryConfiguration {
+
+    /**
+     * Configure the repository of consents injected in the use cases, routing each call to its shard
+     *
+     * @param jpaConsentRepository      Repository of the shard of the current thread
+     * @param consentShards             Consent shards
+     * @param transactionManager        Transaction manager
+     * @param properties                Datasource routing properties
+     * @return ShardedConsentRepository Consent repository
+     */
+    @Bean
+    @Primary
+    public ShardedConsentRepository consentRepository(JpaConsentRepository jpaConsentRepository, ConsentShards consentShards,
+                                                      PlatformTransactionManager transactionManager,
+                                                      DataSourceRoutingProperties properties) {
+
+        // Exports leave at least half of every shard pool to the other requests
+        var pools = IntStream.range(0, consentShards.count())
+                .mapToObj(consentShards::dataSource)
+                .map(HikariDataSource.class::cast)
+                .toList();
+        int smallestPool = pools.stream().mapToInt(HikariDataSource::getMaximumPoolSize).min().orElseThrow();
+        int maxExports = Math.max(1, Math.min(properties.getMaxConcurrentExports(), smallestPool / 2));
+
+        // An export waits for the running ones as long as for a connection
+        var exportTimeout = Duration.ofMillis(pools.get(0).getConnectionTimeout());
+
+        return new ShardedConsentRepository(jpaConsentRepository, consentShards, transactionManager, maxExports,
+                exportTimeout);
+    }
+}
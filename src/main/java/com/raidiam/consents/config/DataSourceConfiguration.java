@@ -0,0 +1,162 @@
+package com.raidiam.consents.config;
+
+import com.raidiam.consents.adapters.datasource.ReplicaPoolDataSource;
+import com.raidiam.consents.adapters.sharding.ConsentShards;
+import com.raidiam.consents.adapters.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class DataSourceConfiguration {
+
+    /**
+     * Configure the connection pool of the primary database (spring.datasource)
+     *
+     * @param dataSourceProperties  Datasource properties
+     * @return HikariDataSource     Primary datasource (not injected: use dataSource)
+     */
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        var dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Configure the connection pools of the read replicas, falling back to the primary when none is up
+     *
+     * @param dataSourceProperties      Datasource properties
+     * @param properties                Datasource routing properties
+     * @return ReplicaPoolDataSource    Replica datasource (not injected: use dataSource)
+     */
+    @Bean(autowireCandidate = false)
+    public ReplicaPoolDataSource replicaDataSource(DataSourceProperties dataSourceProperties, DataSourceRoutingProperties properties) {
+
+        List<DataSource> replicas = new ArrayList<>();
+
+        for (var replica : properties.getReplicas()) {
+            var dataSource = node(dataSourceProperties, replica, "replica-" + replicas.size());
+            dataSource.setReadOnly(true);
+            dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            // A replica down at startup is only marked down
+            dataSource.setInitializationFailTimeout(-1);
+            replicas.add(dataSource);
+        }
+
+        return new ReplicaPoolDataSource(primaryDataSource(dataSourceProperties), replicas,
+                properties.getHealthCheckInterval(), properties.getHealthCheckTimeout());
+    }
+
+    /**
+     * Configure the shards of the consents: the primary is shard 0, followed by the connection pools of
+     * custom.datasource.shards
+     *
+     * @param dataSourceProperties  Datasource properties
+     * @param properties            Datasource routing properties
+     * @return ConsentShards        Consent shards
+     */
+    @Bean
+    public ConsentShards consentShards(DataSourceProperties dataSourceProperties, DataSourceRoutingProperties properties) {
+
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(primaryDataSource(dataSourceProperties));
+
+        for (var shard : properties.getShards()) {
+            shards.add(node(dataSourceProperties, shard, "shard-" + shards.size()));
+        }
+
+        return new ConsentShards(shards);
+    }
+
+    /**
+     * Configure the datasource of the application: connections of read-only transactions come from the replicas,
+     * the others from the primary; with shards, connections come from the shard of the current thread
+     * <p>
+     * The physical connection is only taken at the first statement, once the transaction has marked it read-only
+     * (and once the shard repository has picked the shard)
+     *
+     * @param dataSourceProperties  Datasource properties
+     * @param properties            Datasource routing properties
+     * @return DataSource           Routing datasource
+     */
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, DataSourceRoutingProperties properties) {
+
+        if (! properties.getReplicas().isEmpty() && ! properties.getShards().isEmpty()) {
+            throw new IllegalStateException("Read replicas cannot be combined with shards");
+        }
+
+        var consentShards = consentShards(dataSourceProperties, properties);
+        var dataSource = new LazyConnectionDataSourceProxy(consentShards.count() == 1
+                ? primaryDataSource(dataSourceProperties)
+                : new ShardRoutingDataSource(consentShards));
+
+        if (! properties.getReplicas().isEmpty()) {
+            dataSource.setReadOnlyDataSource(replicaDataSource(dataSourceProperties, properties));
+        }
+
+        return dataSource;
+    }
+
+    /**
+     * Apply the migrations to every shard (not only to the datasource of the application, which is shard 0)
+     *
+     * @param consentShards             Consent shards
+     * @return FlywayMigrationStrategy  Migration strategy
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(ConsentShards consentShards) {
+        return flyway -> {
+            for (int shard = 0; shard < consentShards.count(); shard++) {
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(consentShards.dataSource(shard))
+                        .load()
+                        .migrate();
+            }
+        };
+    }
+
+    /**
+     * Expose the number of replicas up as metric (consents.datasource.replicas.up)
+     *
+     * @param dataSourceProperties  Datasource properties
+     * @param properties            Datasource routing properties
+     * @return MeterBinder          Metrics binder
+     */
+    @Bean
+    public MeterBinder replicaDataSourceMetrics(DataSourceProperties dataSourceProperties, DataSourceRoutingProperties properties) {
+        var replicaDataSource = replicaDataSource(dataSourceProperties, properties);
+        return registry -> Gauge.builder("consents.datasource.replicas.up", replicaDataSource, ReplicaPoolDataSource::replicasUp)
+                .register(registry);
+    }
+
+    private static HikariDataSource node(DataSourceProperties dataSourceProperties, DataSourceRoutingProperties.Node node,
+                                         String poolName) {
+        var dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(dataSourceProperties.determineDriverClassName())
+                .url(node.getUrl())
+                .username(node.getUsername() == null ? dataSourceProperties.determineUsername() : node.getUsername())
+                .password(node.getPassword() == null ? dataSourceProperties.determinePassword() : node.getPassword())
+                .build();
+        dataSource.setPoolName(poolName);
+        return dataSource;
+    }
+}
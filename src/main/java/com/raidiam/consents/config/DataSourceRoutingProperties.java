@@ -0,0 +1,59 @@
+package com.raidiam.consents.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "custom.datasource")
+public class DataSourceRoutingProperties {
+
+    /**
+     *  Read replicas of spring.datasource (none: every connection comes from the primary)
+     */
+    private List<Node> replicas = new ArrayList<>();
+
+    /**
+     *  Shards of the consents after spring.datasource, which is shard 0 (none: a single shard). Cannot be combined
+     *  with replicas, and cannot change once consents are stored
+     */
+    private List<Node> shards = new ArrayList<>();
+
+    /**
+     *  Exports reading every shard at once, with shards: each holds a connection of every shard while it runs (capped
+     *  at half of the smallest shard pool)
+     */
+    private int maxConcurrentExports = 2;
+
+    /**
+     *  Interval between health checks of the replicas
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     *  Time a replica has to validate a connection
+     */
+    private Duration healthCheckTimeout = Duration.ofSeconds(1);
+
+    /**
+     *  Time a replica has to give a connection before it is marked down (at least 250ms)
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+
+    /**
+     *  Connection settings of a replica or a shard
+     */
+    @Data
+    public static class Node {
+        private String url;
+
+        /**
+         *  Credentials (spring.datasource credentials if not set)
+         */
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,32 @@
+package com.raidiam.consents.config;
+
+import com.raidiam.consents.adapters.eventlog.IConsentEventLog;
+import com.raidiam.consents.adapters.eventlog.MappedConsentEventLog;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Configuration
+@EnableConfigurationProperties(EventLogProperties.class)
+public class EventLogConfiguration {
+
+    /**
+     * Configure the log of consent changes (replayed on startup)
+     *
+     * @param properties            Event log properties
+     * @return IConsentEventLog     Event log (discards events if disabled)
+     * @throws IOException          If the log cannot be read
+     */
+    @Bean
+    public IConsentEventLog consentEventLog(EventLogProperties properties) throws IOException {
+
+        if (! properties.isEnabled()) {
+            return IConsentEventLog.DISABLED;
+        }
+
+        return new MappedConsentEventLog(properties.getDirectory(), (int) properties.getSegmentSize().toBytes(),
+                properties.getMaxStateSize(), properties.getFlushInterval(), properties.getSnapshotInterval());
+    }
+}
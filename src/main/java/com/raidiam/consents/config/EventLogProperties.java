@@ -0,0 +1,44 @@
+package com.raidiam.consents.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "custom.event-log")
+public class EventLogProperties {
+
+    /**
+     *  Whether every committed change is also appended to the event log
+     */
+    private boolean enabled = false;
+
+    /**
+     *  Directory of segments and snapshots
+     */
+    private Path directory = Path.of("data", "event-log");
+
+    /**
+     *  Size of a segment file (the log rolls to a new segment beyond it)
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     *  Maximum consents in the in-memory state (about 300 bytes of heap each). Beyond it the state is dropped: events
+     *  are still appended, but no more snapshots are taken and startup replays the whole log
+     */
+    private int maxStateSize = 1_000_000;
+
+    /**
+     *  Interval between flushes of the current segment to disk
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     *  Interval between snapshots of the current state (bounds the events replayed on startup)
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+}
@@ -0,0 +1,28 @@
+package com.raidiam.consents.config;
+
+import com.raidiam.consents.adapters.idgenerator.BlockIdGenerator;
+import com.raidiam.consents.adapters.idgenerator.IIdGenerator;
+import com.raidiam.consents.adapters.idgenerator.JdbcIdBlockSource;
+import com.raidiam.consents.adapters.sharding.ConsentShards;
+import com.raidiam.consents.adapters.sharding.ShardedIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfiguration {
+
+    /**
+     * Configure the generator of consent identifiers: each shard leases blocks from its own database, and hands out
+     * identifiers in its own range
+     *
+     * @param blockSize         Number of identifiers leased at once
+     * @param consentShards     Consent shards
+     * @return IIdGenerator     Consent identifier generator
+     */
+    @Bean
+    public IIdGenerator consentIdGenerator(@Value("${custom.consent-id.block-size}") int blockSize, ConsentShards consentShards) {
+        return new ShardedIdGenerator(consentShards,
+                shard -> new BlockIdGenerator(new JdbcIdBlockSource(consentShards.dataSource(shard)), "consent", blockSize));
+    }
+}
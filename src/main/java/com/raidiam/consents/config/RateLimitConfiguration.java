@@ -0,0 +1,150 @@
+package com.raidiam.consents.config;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.raidiam.consents.adapters.ratelimit.BoundedRateLimitStore;
+import com.raidiam.consents.adapters.ratelimit.IRateLimitStore;
+import com.raidiam.consents.adapters.ratelimit.IRateLimiter;
+import com.raidiam.consents.adapters.ratelimit.InMemoryRateLimitStore;
+import com.raidiam.consents.adapters.ratelimit.JdbcRateLimitStore;
+import com.raidiam.consents.adapters.ratelimit.RateLimit;
+import com.raidiam.consents.adapters.ratelimit.RateLimitPolicy;
+import com.raidiam.consents.adapters.ratelimit.RateLimitPolicyTable;
+import com.raidiam.consents.adapters.ratelimit.RouteTable;
+import com.raidiam.consents.adapters.ratelimit.keys.ClientCertificateKeyResolver;
+import com.raidiam.consents.adapters.ratelimit.keys.ClientKeyResolverChain;
+import com.raidiam.consents.adapters.ratelimit.keys.ForwardedForKeyResolver;
+import com.raidiam.consents.adapters.ratelimit.keys.IClientKeyResolver;
+import com.raidiam.consents.adapters.ratelimit.keys.RemoteAddressKeyResolver;
+import com.raidiam.consents.adapters.ratelimit.keys.UserIdKeyResolver;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfiguration {
+
+    /**
+     *  Names of the policies (and limiters) of unmatched read and write requests
+     */
+    public static final String DEFAULT_READ = "default-read";
+    public static final String DEFAULT_WRITE = "default-write";
+
+    /**
+     * Configure the connection pool of the JDBC rate limit state, on the primary database: a small pool with a short
+     * connection timeout, so an unavailable database fails the rate limiter open quickly instead of holding requests
+     * for the connection timeout of the primary pool. No connection is opened unless the JDBC store is used
+     *
+     * @param dataSourceProperties  Datasource properties
+     * @param properties            Rate limit properties
+     * @return HikariDataSource     Rate limit datasource (not injected)
+     */
+    @Bean(autowireCandidate = false)
+    public HikariDataSource rateLimitDataSource(DataSourceProperties dataSourceProperties, RateLimitProperties properties) {
+        var jdbc = properties.getJdbc();
+        var dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("rate-limit");
+        dataSource.setMaximumPoolSize(jdbc.getPoolSize());
+        dataSource.setConnectionTimeout(jdbc.getConnectionTimeout().toMillis());
+        // Started without connections: a database down at startup only fails the rate limiter open
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    /**
+     * Configure the backend of the rate limit state
+     *
+     * @param properties            Rate limit properties
+     * @param dataSourceProperties  Datasource properties (JDBC store)
+     * @param clock                 Clock
+     * @return IRateLimitStore      Rate limit store
+     */
+    @Bean
+    public IRateLimitStore rateLimitStore(RateLimitProperties properties, DataSourceProperties dataSourceProperties, Clock clock) {
+
+        if (RateLimitProperties.Store.JDBC.equals(properties.getStore())) {
+            var jdbc = properties.getJdbc();
+            return new JdbcRateLimitStore(rateLimitDataSource(dataSourceProperties, properties), clock, Ticker.systemTicker(),
+                    jdbc.getLeaseSize(), jdbc.getLeaseTtl(), jdbc.getSyncInterval(), jdbc.getQueryTimeout());
+        }
+
+        if (RateLimitProperties.Store.BOUNDED.equals(properties.getStore())) {
+            var bounded = properties.getBounded();
+            return new BoundedRateLimitStore(Ticker.systemTicker(),
+                    bounded.getMaxTrackedKeys(), bounded.getEpsilon(), bounded.getDelta());
+        }
+
+        return new InMemoryRateLimitStore(Ticker.systemTicker());
+    }
+
+    /**
+     * Configure rate limit policies by route and HTTP method
+     *
+     * @param tps                       Default transactions per second (unmatched routes)
+     * @param properties                Rate limit properties
+     * @param store                     Rate limit store
+     * @return RateLimitPolicyTable     Precompiled policy table
+     */
+    @Bean
+    public RateLimitPolicyTable rateLimitPolicyTable(
+            @Value("${custom.transactions-per-second}") int tps,
+            RateLimitProperties properties,
+            IRateLimitStore store) {
+
+        IRateLimiter writeBudget = null;
+        if (properties.getWriteBudget() != null) {
+            var limit = properties.getWriteBudget();
+            writeBudget = store.create("write-budget", new RateLimit(limit.getLimit(), limit.getPeriod()));
+        }
+
+        var routes = new RouteTable<RateLimitPolicy>();
+
+        for (var policy : properties.getPolicies()) {
+            var name = String.format("%s %s", policy.getMethod(), policy.getRoute());
+            var rateLimiter = store.create(name, new RateLimit(policy.getLimit(), policy.getPeriod()));
+            var budget = RateLimitPolicyTable.isWrite(policy.getMethod()) ? writeBudget : null;
+
+            routes.add(policy.getMethod(), policy.getRoute(), new RateLimitPolicy(name, policy.getCost(), rateLimiter, budget));
+        }
+
+        // Unmatched reads and writes each have their own default limiter (writes also take from the write budget)
+        var defaultRateLimit = new RateLimit(tps, Duration.ofSeconds(1));
+
+        return new RateLimitPolicyTable(
+                routes,
+                new RateLimitPolicy(DEFAULT_READ, 1, store.create(DEFAULT_READ, defaultRateLimit), null),
+                new RateLimitPolicy(DEFAULT_WRITE, 1, store.create(DEFAULT_WRITE, defaultRateLimit), writeBudget));
+    }
+
+    /**
+     * Configure the chain of client key resolvers
+     *
+     * @param properties                Rate limit properties
+     * @return ClientKeyResolverChain   Client key resolver chain
+     */
+    @Bean
+    public ClientKeyResolverChain clientKeyResolverChain(RateLimitProperties properties) {
+
+        var clientKey = properties.getClientKey();
+        List<IClientKeyResolver<?>> resolvers = new ArrayList<>();
+
+        for (var resolver : clientKey.getResolvers()) {
+            resolvers.add(switch (resolver) {
+                case FORWARDED_FOR -> new ForwardedForKeyResolver(clientKey.getTrustedProxies(), clientKey.getTrustedHops());
+                case USER_ID -> new UserIdKeyResolver(clientKey.getTrustedProxies(), clientKey.getUserIdHeader());
+                case CLIENT_CERTIFICATE -> new ClientCertificateKeyResolver();
+                case REMOTE_ADDRESS -> new RemoteAddressKeyResolver();
+            });
+        }
+
+        return new ClientKeyResolverChain(resolvers, Ticker.systemTicker(), clientKey.getConnectionIdleTimeout(), 10_000);
+    }
+}
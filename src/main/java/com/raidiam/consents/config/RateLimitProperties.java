@@ -0,0 +1,187 @@
+package com.raidiam.consents.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Data
+@Validated
+@ConfigurationProperties(prefix = "custom.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     *  Backend of the rate limit state: MEMORY (per node), BOUNDED (per node, fixed memory) or JDBC (shared by all nodes)
+     */
+    private Store store = Store.MEMORY;
+
+    private Jdbc jdbc = new Jdbc();
+
+    private Bounded bounded = new Bounded();
+
+    private ClientKey clientKey = new ClientKey();
+
+    /**
+     *  Budget shared by all write requests (POST, PUT, PATCH, DELETE) of a client
+     */
+    @Valid
+    private Limit writeBudget;
+
+    /**
+     *  Policies by route and HTTP method
+     */
+    @Valid
+    private List<Policy> policies = new ArrayList<>();
+
+    public enum Store {
+        MEMORY,
+        BOUNDED,
+        JDBC
+    }
+
+    @Data
+    public static class Jdbc {
+
+        /**
+         *  Maximum number of permits a node leases at once
+         */
+        private int leaseSize = 10;
+
+        /**
+         *  Time a node may spend leased permits
+         */
+        private Duration leaseTtl = Duration.ofMillis(100);
+
+        /**
+         *  Interval between syncs of unused permits
+         */
+        private Duration syncInterval = Duration.ofMillis(10);
+
+        /**
+         *  Connections of the rate limit state, in a pool of their own (not taken from the consent requests)
+         */
+        private int poolSize = 4;
+
+        /**
+         *  Time to wait for a connection before failing open (a lease is taken holding the lock of its client key)
+         */
+        private Duration connectionTimeout = Duration.ofMillis(250);
+
+        /**
+         *  Time a statement may run before failing open (rounded up to seconds)
+         */
+        private Duration queryTimeout = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Bounded {
+
+        /**
+         *  Maximum number of keys counted exactly (heavy hitters)
+         */
+        private long maxTrackedKeys = 10_000;
+
+        /**
+         *  Maximum error of the approximate counts, as a fraction of the requests in a period
+         */
+        private double epsilon = 0.001;
+
+        /**
+         *  Probability of an approximate count exceeding the maximum error
+         */
+        private double delta = 0.01;
+    }
+
+    @Data
+    public static class ClientKey {
+
+        /**
+         *  Resolvers of the client key, in order of precedence (the remote address is always the last resort)
+         */
+        private List<Resolver> resolvers = new ArrayList<>();
+
+        /**
+         *  Addresses of the proxies allowed to set X-Forwarded-For and the userId header (required by the FORWARDED_FOR and USER_ID resolvers)
+         */
+        private Set<String> trustedProxies = new HashSet<>();
+
+        /**
+         *  Number of trusted proxies in front of the application
+         */
+        private int trustedHops = 1;
+
+        /**
+         *  Header with the userId of the consent
+         */
+        private String userIdHeader = "X-User-Id";
+
+        /**
+         *  Time after which the resolved keys of an idle connection are discarded
+         */
+        private Duration connectionIdleTimeout = Duration.ofMinutes(1);
+
+        public enum Resolver {
+            FORWARDED_FOR,
+            USER_ID,
+            CLIENT_CERTIFICATE,
+            REMOTE_ADDRESS
+        }
+    }
+
+    @Data
+    public static class Limit {
+
+        @Positive
+        private int limit;
+
+        @NotNull
+        private Duration period = Duration.ofSeconds(1);
+
+        @AssertTrue(message = "period must be positive")
+        public boolean isPeriodPositive() {
+            return period == null || !(period.isNegative() || period.isZero());
+        }
+    }
+
+    @Data
+    public static class Policy {
+
+        @NotBlank
+        private String method;
+
+        @NotBlank
+        private String route;
+
+        @Positive
+        private int limit;
+
+        @NotNull
+        private Duration period = Duration.ofSeconds(1);
+
+        /**
+         *  Permits taken by each request (above the limit, every request would be rejected)
+         */
+        @Positive
+        private int cost = 1;
+
+        @AssertTrue(message = "period must be positive")
+        public boolean isPeriodPositive() {
+            return period == null || !(period.isNegative() || period.isZero());
+        }
+
+        @AssertTrue(message = "cost must not exceed limit")
+        public boolean isCostWithinLimit() {
+            return cost <= limit;
+        }
+    }
+}
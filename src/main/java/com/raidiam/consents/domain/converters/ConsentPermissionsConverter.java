@@ -0,0 +1,88 @@
+package com.raidiam.consents.domain.converters;
+
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Persists the permissions of a consent as a bitmask (one column of the consent row)
+ * <p>
+ * Permissions are read back in declaration order, from lists decoded once for every possible mask. Consents take
+ * that order from creation on (inDeclarationOrder), so every endpoint returns their permissions in the same order.
+ */
+@Converter
+public class ConsentPermissionsConverter implements AttributeConverter<List<ConsentPermission>, Integer> {
+
+    private static final ConsentPermission[] PERMISSIONS = ConsentPermission.values();
+    private static final List<List<ConsentPermission>> DECODED = decodeAll();
+
+    @Override
+    public Integer convertToDatabaseColumn(List<ConsentPermission> permissions) {
+        return mask(permissions);
+    }
+
+    @Override
+    public List<ConsentPermission> convertToEntityAttribute(Integer mask) {
+
+        if (mask == null) {
+            return List.of();
+        }
+
+        return mask >= 0 && mask < DECODED.size() ? DECODED.get(mask) : decode(mask);
+    }
+
+    /**
+     * Permissions as they are read back: in declaration order, without duplicates
+     *
+     * @param permissions                   Permissions (any order)
+     * @return List<ConsentPermission>      Permissions in declaration order
+     */
+    public static List<ConsentPermission> inDeclarationOrder(List<ConsentPermission> permissions) {
+        return DECODED.get(mask(permissions));
+    }
+
+    private static int mask(List<ConsentPermission> permissions) {
+
+        int mask = 0;
+
+        if (permissions != null) {
+            for (var permission : permissions) {
+                mask |= permission.getMask();
+            }
+        }
+
+        return mask;
+    }
+
+    private static List<List<ConsentPermission>> decodeAll() {
+
+        int all = 0;
+        for (var permission : PERMISSIONS) {
+            all |= permission.getMask();
+        }
+
+        var decoded = new ArrayList<List<ConsentPermission>>(all + 1);
+        for (int mask = 0; mask <= all; mask++) {
+            decoded.add(decode(mask));
+        }
+
+        return List.copyOf(decoded);
+    }
+
+    private static List<ConsentPermission> decode(int mask) {
+
+        var permissions = EnumSet.noneOf(ConsentPermission.class);
+
+        for (var permission : PERMISSIONS) {
+            if ((mask & permission.getMask()) != 0) {
+                permissions.add(permission);
+            }
+        }
+
+        return List.copyOf(permissions);
+    }
+}
@@ -1,10 +1,13 @@
 package com.raidiam.consents.domain.entities;
 
+import com.raidiam.consents.domain.converters.ConsentPermissionsConverter;
 import com.raidiam.consents.domain.enums.ConsentPermission;
 import com.raidiam.consents.domain.enums.ConsentStatus;
 import jakarta.persistence.*;
 import lombok.*;
+import org.springframework.data.domain.Persistable;
 
+import java.time.Instant;
 import java.util.List;
 
 @Data
@@ -12,22 +15,57 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class Consent {
+public class Consent implements Persistable<Long> {
 
+    /**
+     *  Assigned by the application (block-allocated), see IIdGenerator
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long consentId;
     private String userId;
 
-    @ElementCollection
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = ConsentPermissionsConverter.class)
     private List<ConsentPermission> permissions;
 
     private ConsentStatus status;
-    private String createdAt;
-    private String updatedAt;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    /**
+     *  When the consent becomes EXPIRED (if still awaiting authorisation or authorised), see ConsentExpirationScheduler
+     */
+    private Instant expirationDateTime;
+
+    /**
+     *  Optimistic lock, exposed to clients as ETag / If-Match
+     */
+    @Version
+    private long version;
+
+    /**
+     *  Whether the consent was loaded or saved (identifiers are assigned, so they do not tell new consents apart)
+     */
+    @Transient
+    @Builder.Default
+    private boolean persisted = false;
 
     public String getFormattedConsentId() {
         return String.format("consent-%s", consentId);
     }
+
+    @Override
+    public Long getId() {
+        return consentId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return ! persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
 }
@@ -2,7 +2,20 @@ package com.raidiam.consents.domain.enums;
 
 public enum ConsentPermission {
 
-	READ_DATA,
-	WRITE_DATA,
-	DELETE_DATA
+	READ_DATA(1),
+	WRITE_DATA(2),
+	DELETE_DATA(4);
+
+	/**
+	 * Bit of the permission in the persisted bitmask (must never change)
+	 */
+	private final int mask;
+
+	ConsentPermission(int mask) {
+		this.mask = mask;
+	}
+
+	public int getMask() {
+		return mask;
+	}
 }
@@ -1,8 +1,25 @@
 package com.raidiam.consents.domain.enums;
 
+import java.util.List;
+
 public enum ConsentStatus {
 	
 	AUTHORISED,
 	AWAITING_AUTHORISATION,
-	REJECT
+	REJECT,
+
+	/**
+	 *  Terminal: set when the expiration date time passes (stored as ordinal 3, after the others)
+	 */
+	EXPIRED;
+
+	/**
+	 *  Statuses a client may send in a request body (EXPIRED is only ever set by the expiration)
+	 */
+	public static final List<ConsentStatus> REQUESTABLE = List.of(AUTHORISED, AWAITING_AUTHORISATION, REJECT);
+
+	/**
+	 *  Statuses of the consents that expire once due
+	 */
+	public static final List<ConsentStatus> EXPIRABLE = List.of(AWAITING_AUTHORISATION, AUTHORISED);
 }
@@ -0,0 +1,7 @@
+package com.raidiam.consents.domain.exceptions;
+
+public class ConsentBatchTooLargeException extends RuntimeException {
+    public ConsentBatchTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.raidiam.consents.domain.exceptions;
+
+public class ConsentVersionMismatchException extends RuntimeException {
+    public ConsentVersionMismatchException(String message) {
+        super(message);
+    }
+}
@@ -4,14 +4,26 @@ public class ErrorMessage {
 
     public static final String REQUIRED_CONSENT_ID_PATH_PARAMETER = "Path parameter consentId is required";
     public static final String INVALID_CONSENT_ID_PATH_PARAMETER_PATTERN = "Path parameter consentId must have the pattern 'consent-N' (N = number)";
+    public static final String REQUIRED_USER_ID_QUERY_PARAMETER = "Query parameter userId is required";
+    public static final String INVALID_USER_ID_QUERY_PARAMETER_PATTERN = "Query parameter userId must have the pattern 'user-N' (N = number)";
+    public static final String INVALID_AFTER_QUERY_PARAMETER_PATTERN = "Query parameter after must have the pattern 'consent-N' (N = number)";
+    public static final String INVALID_LIMIT_QUERY_PARAMETER = "Query parameter limit must be between 1 and 100";
+    public static final String INVALID_PARAMETER_VALUE = "Parameter %s has an invalid value";
     public static final String DUPLICATE_PERMISSIONS_DETECTED = "Duplicate permissions detected";
     public static final String INVALID_CONSENT_INITIAL_STATUS = "Initial status of consent must be AWAITING_AUTHORISATION";
     public static final String INVALID_CONSENT_UPDATE_STATUS = "Status AWAITING_AUTHORISATION is not allowed for update consent";
+    public static final String INVALID_CONSENT_EXPIRED_UPDATE_STATUS = "Status EXPIRED is not allowed for update consent";
+    public static final String CONSENT_EXPIRED = "Consent expired, it cannot be updated";
     public static final String INVALID_VALUE_IN_THE_LIST = "Field %s must be one of the values in the list %s";
     public static final String CONSENT_NOT_FOUND = "Consent not found";
+    public static final String CONSENT_VERSION_MISMATCH = "Consent was modified by another request";
     public static final String INVALID_INPUT = "Invalid input";
     public static final String REQUEST_BODY_MISSING = "Required request body is missing";
+    public static final String MALFORMED_BATCH_ITEM = "Malformed JSON item";
+    public static final String BATCH_TOO_LARGE = "Batch exceeds the maximum of %d items";
+    public static final String IMPORT_LINE_TOO_LONG = "Line exceeds the maximum length";
     public static final String INTERNAL_SERVER_ERROR = "Internal server error";
     public static final String TOO_MANY_REQUESTS = "Too many requests";
+    public static final String SERVICE_UNAVAILABLE = "Service unavailable";
 
 }
@@ -1,22 +1,35 @@
 package com.raidiam.consents.usecases.createconsent;
 
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.eventlog.ConsentEvent;
+import com.raidiam.consents.adapters.eventlog.IConsentEventLog;
+import com.raidiam.consents.adapters.expiration.IConsentExpirationScheduler;
+import com.raidiam.consents.adapters.idgenerator.IIdGenerator;
 import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.domain.converters.ConsentPermissionsConverter;
 import com.raidiam.consents.domain.entities.Consent;
 import com.raidiam.consents.domain.enums.ConsentStatus;
 import com.raidiam.consents.domain.exceptions.ConsentWithInvalidStatusException;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentBatchResponse;
 import com.raidiam.consents.usecases.createconsent.port.CreateConsentRequest;
 import com.raidiam.consents.usecases.createconsent.port.CreateConsentResponse;
-import com.raidiam.consents.utils.CustomFormatter;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Clock;
-import java.util.Date;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
+import static com.raidiam.consents.domain.messages.ErrorMessage.INTERNAL_SERVER_ERROR;
 import static com.raidiam.consents.domain.messages.ErrorMessage.INVALID_CONSENT_INITIAL_STATUS;
 
 @Service
@@ -30,10 +43,32 @@ public class CreateConsent implements ICreateConsent {
     @Autowired
     private IConsentRepository consentRepository;
 
+    @Autowired
+    private IIdGenerator consentIdGenerator;
+
+    @Autowired
+    private IConsentEventLog consentEventLog;
+
+    @Autowired
+    private IConsentExpirationScheduler consentExpirationScheduler;
+
+    /**
+     *  Validity of a consent created without expiration date time
+     */
+    @Value("${custom.consent-expiration.default-validity}")
+    private Duration defaultValidity;
+
+    /**
+     *  Consents inserted per transaction by executeBatch
+     */
+    @Value("${custom.consent-batch.chunk-size}")
+    private int chunkSize;
+
     private final Logger logger = LoggerFactory.getLogger(CreateConsent.class);
 
     /**
-     * Create consent with initial status of AWAITING_AUTHORISATION
+     * Create consent with initial status of AWAITING_AUTHORISATION, expiring at the requested expiration date time (or
+     * after the default validity)
      *
      * @param request                   Consent create data
      * @return CreateConsentResponse    Created consent details
@@ -48,32 +83,162 @@ public class CreateConsent implements ICreateConsent {
             throw new ConsentWithInvalidStatusException(INVALID_CONSENT_INITIAL_STATUS);
         }
 
-        // Get current timestamp according to RFC3339 UTC
-        String now = CustomFormatter.RFC3339.format(Date.from(clock.instant()));
+        // Get current timestamp (rendered as RFC3339 UTC in the JSON response)
+        Instant now = clock.instant();
 
         var consent = Consent.builder()
+                .consentId(consentIdGenerator.nextId(request.getUserId()))
                 .userId(request.getUserId())
                 .status(request.getStatus())
-                .permissions(request.getPermissions())
+                .permissions(ConsentPermissionsConverter.inDeclarationOrder(request.getPermissions()))
                 .createdAt(now)
                 .updatedAt(now)
+                .expirationDateTime(expirationDateTime(request, now))
                 .build();
 
         var savedConsent = consentRepository.save(consent);
 
-        var createConsentResponse =
-                CreateConsentResponse.builder()
-                    .consentId(savedConsent.getFormattedConsentId())
-                    .userId(savedConsent.getUserId())
-                    .permissions(savedConsent.getPermissions())
-                    .status(savedConsent.getStatus())
-                    .createdAt(savedConsent.getCreatedAt())
-                    .updatedAt(savedConsent.getUpdatedAt())
-                    .requestDateTime(now)
-                    .build();
+        consentEventLog.append(ConsentEvent.created(ConsentSnapshot.of(savedConsent)));
+        scheduleExpiration(savedConsent);
+
+        var createConsentResponse = toCreateConsentResponse(savedConsent, now);
 
         logger.info("Consent created successfully: {}", createConsentResponse);
 
         return createConsentResponse;
     }
+
+    /**
+     * Create consents in bulk, each with initial status of AWAITING_AUTHORISATION
+     * <p>
+     * Consents with any other status are rejected individually. The others are inserted in chunks of chunkSize,
+     * one transaction per chunk, so Hibernate sends them as JDBC batches (hibernate.jdbc.batch_size). If a chunk
+     * cannot be saved, its items are reported failed and the next chunks are still saved (the chunks saved before
+     * stay committed). Within a transaction of the caller, the failure is thrown instead, as the whole transaction is
+     * rolled back
+     *
+     * @param requests                      Consent create data
+     * @return CreateConsentBatchResponse   Result of each request, in request order
+     */
+    @Override
+    public CreateConsentBatchResponse executeBatch(List<CreateConsentRequest> requests) {
+
+        logger.info("Create consent batch request: {} items", requests.size());
+
+        // Get current timestamp (shared by the whole batch)
+        Instant now = clock.instant();
+
+        var items = new ArrayList<CreateConsentBatchResponse.Item>(requests.size());
+        var chunk = new ArrayList<Consent>(Math.min(chunkSize, requests.size()));
+        var chunkIndexes = new ArrayList<Integer>(chunk.size());
+
+        for (var request : requests) {
+
+            // Checks if initial status is AWAITING_AUTHORISATION
+            if (! ConsentStatus.AWAITING_AUTHORISATION.equals(request.getStatus())) {
+                items.add(CreateConsentBatchResponse.Item.builder()
+                        .error(INVALID_CONSENT_INITIAL_STATUS)
+                        .build());
+                continue;
+            }
+
+            chunkIndexes.add(items.size());
+            items.add(null);
+            chunk.add(Consent.builder()
+                    .consentId(consentIdGenerator.nextId(request.getUserId()))
+                    .userId(request.getUserId())
+                    .status(request.getStatus())
+                    .permissions(ConsentPermissionsConverter.inDeclarationOrder(request.getPermissions()))
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .expirationDateTime(expirationDateTime(request, now))
+                    .build());
+
+            if (chunk.size() == chunkSize) {
+                saveChunk(chunk, chunkIndexes, items, now);
+            }
+        }
+        saveChunk(chunk, chunkIndexes, items, now);
+
+        logger.info("Consent batch created: {} of {} items", countCreated(items), requests.size());
+
+        return CreateConsentBatchResponse.builder()
+                .items(items)
+                .build();
+    }
+
+    private void saveChunk(List<Consent> chunk, List<Integer> chunkIndexes,
+                           List<CreateConsentBatchResponse.Item> items, Instant now) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<Consent> savedConsents;
+        try {
+            savedConsents = consentRepository.saveAll(chunk);
+        } catch (RuntimeException ex) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                throw ex;
+            }
+            logger.error("Consent batch chunk could not be saved: {} items", chunk.size(), ex);
+            for (var index : chunkIndexes) {
+                items.set(index, CreateConsentBatchResponse.Item.builder()
+                        .error(INTERNAL_SERVER_ERROR)
+                        .failed(true)
+                        .build());
+            }
+            chunk.clear();
+            chunkIndexes.clear();
+            return;
+        }
+
+        for (int i = 0; i < savedConsents.size(); i++) {
+            consentEventLog.append(ConsentEvent.created(ConsentSnapshot.of(savedConsents.get(i))));
+            scheduleExpiration(savedConsents.get(i));
+            items.set(chunkIndexes.get(i), CreateConsentBatchResponse.Item.builder()
+                    .consent(toCreateConsentResponse(savedConsents.get(i), now))
+                    .build());
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    /**
+     * Schedule the expiration of a saved consent once its transaction commits (at once outside a transaction), so a
+     * rolled back consent is never scheduled and the wheel never fires before the consent is visible
+     */
+    private void scheduleExpiration(Consent savedConsent) {
+        if (! TransactionSynchronizationManager.isSynchronizationActive()) {
+            consentExpirationScheduler.schedule(savedConsent.getConsentId(), savedConsent.getExpirationDateTime());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                consentExpirationScheduler.schedule(savedConsent.getConsentId(), savedConsent.getExpirationDateTime());
+            }
+        });
+    }
+
+    private Instant expirationDateTime(CreateConsentRequest request, Instant now) {
+        return request.getExpirationDateTime() != null ? request.getExpirationDateTime() : now.plus(defaultValidity);
+    }
+
+    private static long countCreated(List<CreateConsentBatchResponse.Item> items) {
+        return items.stream().filter(item -> item.getConsent() != null).count();
+    }
+
+    private static CreateConsentResponse toCreateConsentResponse(Consent savedConsent, Instant now) {
+        return CreateConsentResponse.builder()
+                .consentId(savedConsent.getFormattedConsentId())
+                .userId(savedConsent.getUserId())
+                .permissions(savedConsent.getPermissions())
+                .status(savedConsent.getStatus())
+                .createdAt(savedConsent.getCreatedAt())
+                .updatedAt(savedConsent.getUpdatedAt())
+                .expirationDateTime(savedConsent.getExpirationDateTime())
+                .version(savedConsent.getVersion())
+                .requestDateTime(now)
+                .build();
+    }
 }
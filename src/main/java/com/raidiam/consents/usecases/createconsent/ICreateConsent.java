@@ -1,8 +1,12 @@
 package com.raidiam.consents.usecases.createconsent;
 
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentBatchResponse;
 import com.raidiam.consents.usecases.createconsent.port.CreateConsentRequest;
 import com.raidiam.consents.usecases.createconsent.port.CreateConsentResponse;
 
+import java.util.List;
+
 public interface ICreateConsent {
     CreateConsentResponse execute(CreateConsentRequest request);
+    CreateConsentBatchResponse executeBatch(List<CreateConsentRequest> requests);
 }
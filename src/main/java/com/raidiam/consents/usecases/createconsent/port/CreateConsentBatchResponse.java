@@ -0,0 +1,36 @@
+package com.raidiam.consents.usecases.createconsent.port;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Builder
+@Getter
+public class CreateConsentBatchResponse {
+
+    /**
+     *  One item per requested consent, in request order
+     */
+    private List<Item> items;
+
+    @Builder
+    @Getter
+    public static class Item {
+
+        /**
+         *  Created consent details (null if rejected)
+         */
+        private CreateConsentResponse consent;
+
+        /**
+         *  Reason of rejection (null if created)
+         */
+        private String error;
+
+        /**
+         *  Valid, but could not be saved (the error is not the request's)
+         */
+        private boolean failed;
+    }
+}
@@ -5,6 +5,7 @@ import com.raidiam.consents.domain.enums.ConsentStatus;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.time.Instant;
 import java.util.List;
 
 @Builder
@@ -13,4 +14,9 @@ public class CreateConsentRequest {
     private String userId;
     private List<ConsentPermission> permissions;
     private ConsentStatus status;
+
+    /**
+     *  Expiration timestamp (null: the default validity from now)
+     */
+    private Instant expirationDateTime;
 }
@@ -0,0 +1,111 @@
+package com.raidiam.consents.usecases.expireconsents;
+
+import com.raidiam.consents.adapters.cache.IConsentCache;
+import com.raidiam.consents.adapters.eventlog.ConsentEvent;
+import com.raidiam.consents.adapters.eventlog.IConsentEventLog;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@Service
+public class ExpireConsents implements IExpireConsents {
+
+    /**
+     *  Expired consents read per query to log their expiration
+     */
+    private static final int EVENT_PAGE_SIZE = 1000;
+
+    @Autowired
+    private Clock clock;
+
+    @Autowired
+    private IConsentRepository consentRepository;
+
+    @Autowired
+    private IConsentCache consentCache;
+
+    @Autowired
+    private IConsentEventLog consentEventLog;
+
+    private final Logger logger = LoggerFactory.getLogger(ExpireConsents.class);
+
+    /**
+     * Move consents whose expiration date time has passed to EXPIRED, in a single statement (per shard)
+     * <p>
+     * Only consents still awaiting authorisation or authorised, and due, are changed (their version is bumped): the
+     * others, and consents revoked meanwhile, are left as is. The consents changed are read back once the statement is
+     * committed, to append their expiration to the event log (only if the log is enabled)
+     *
+     * @param consentIds    Numerical consent identifications (due according to the timing wheel)
+     * @return int          Number of expired consents
+     */
+    @Override
+    public int execute(List<Long> consentIds) {
+
+        // Get current timestamp (updatedAt of the expired consents, as stored: it finds them back)
+        Instant now = clock.instant().truncatedTo(ChronoUnit.MICROS);
+
+        int expired = consentRepository.expireConsents(consentIds, now);
+
+        // Cached copies are stale from now on (the statement is committed)
+        consentIds.forEach(consentCache::invalidate);
+
+        if (expired > 0 && consentEventLog.isEnabled()) {
+            appendExpiredEvents(now);
+        }
+
+        logger.info("Consents expired: {} of {} due", expired, consentIds.size());
+
+        return expired;
+    }
+
+    /**
+     * Move every consent whose expiration date time has passed to EXPIRED (on start, before the timing wheel is
+     * rebuilt, and then every sweep interval: consents that passed their expiration while no node had them scheduled)
+     * <p>
+     * The consents changed are not known without reading them back, so no cache entry is dropped: a cached copy is
+     * reported EXPIRED from its expiration date time on anyway
+     *
+     * @return int  Number of expired consents
+     */
+    @Override
+    public int executeAllDue() {
+
+        Instant now = clock.instant().truncatedTo(ChronoUnit.MICROS);
+
+        int expired = consentRepository.expireAllDue(now);
+
+        if (expired > 0 && consentEventLog.isEnabled()) {
+            appendExpiredEvents(now);
+        }
+
+        logger.info("Consents past their expiration expired: {}", expired);
+
+        return expired;
+    }
+
+    /**
+     * Append an EXPIRED event for each consent expired at a timestamp
+     */
+    private void appendExpiredEvents(Instant expiredAt) {
+
+        Long afterConsentId = 0L;
+
+        while (true) {
+            var page = consentRepository.findExpiredPage(expiredAt, afterConsentId, PageRequest.ofSize(EVENT_PAGE_SIZE));
+            page.forEach(consent -> consentEventLog.append(ConsentEvent.expired(consent)));
+            if (page.size() < EVENT_PAGE_SIZE) {
+                return;
+            }
+            afterConsentId = page.get(page.size() - 1).consentId();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.raidiam.consents.usecases.expireconsents;
+
+import java.util.List;
+
+public interface IExpireConsents {
+    int execute(List<Long> consentIds);
+    int executeAllDue();
+}
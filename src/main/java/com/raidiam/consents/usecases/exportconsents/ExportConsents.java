@@ -0,0 +1,50 @@
+package com.raidiam.consents.usecases.exportconsents;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+
+@Service
+public class ExportConsents implements IExportConsents {
+
+    @Autowired
+    private IConsentRepository consentRepository;
+
+    private final Logger logger = LoggerFactory.getLogger(ExportConsents.class);
+
+    /**
+     * Hand every consent to a consumer, in consent id order, one at a time
+     * <p>
+     * Consents are read through a forward-only cursor as snapshots (no managed entities), so memory does not grow
+     * with the number of consents. The transaction (and the cursor) stays open until the last consent is consumed
+     *
+     * @param consumer  Receives each consent (e.g. writes it to the response)
+     * @return long     Number of exported consents
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long execute(Consumer<ConsentSnapshot> consumer) {
+
+        logger.info("Export consents request");
+
+        long count = 0;
+
+        try (var consents = consentRepository.streamAll()) {
+            var iterator = consents.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+
+        logger.info("Consents exported successfully: count={}", count);
+
+        return count;
+    }
+}
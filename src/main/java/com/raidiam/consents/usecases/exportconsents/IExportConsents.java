@@ -0,0 +1,9 @@
+package com.raidiam.consents.usecases.exportconsents;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+
+import java.util.function.Consumer;
+
+public interface IExportConsents {
+    long execute(Consumer<ConsentSnapshot> consumer);
+}
@@ -0,0 +1,10 @@
+package com.raidiam.consents.usecases.importconsents;
+
+import com.raidiam.consents.usecases.importconsents.port.ImportConsentsRequest;
+import com.raidiam.consents.usecases.importconsents.port.ImportConsentsResponse;
+
+import java.util.Iterator;
+
+public interface IImportConsents {
+    ImportConsentsResponse execute(Iterator<ImportConsentsRequest> requests);
+}
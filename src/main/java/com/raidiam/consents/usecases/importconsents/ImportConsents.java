@@ -0,0 +1,134 @@
+package com.raidiam.consents.usecases.importconsents;
+
+import com.raidiam.consents.usecases.createconsent.ICreateConsent;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentRequest;
+import com.raidiam.consents.usecases.importconsents.port.ImportConsentsRequest;
+import com.raidiam.consents.usecases.importconsents.port.ImportConsentsResponse;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+@Service
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportConsents implements IImportConsents {
+
+    @Autowired
+    private ICreateConsent createConsent;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     *  Consents committed per transaction
+     */
+    @Value("${custom.consent-import.batch-size}")
+    private int batchSize;
+
+    /**
+     *  Rejected lines reported in the response (the others are only counted)
+     */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(ImportConsents.class);
+
+    /**
+     * Create consents read one at a time, each with initial status of AWAITING_AUTHORISATION
+     * <p>
+     * Requests are pulled from the iterator only while a batch is being filled, so at most batchSize consents are
+     * held in memory. Each batch is created by CreateConsent.executeBatch (same rules as POST /consents) and
+     * committed in its own transaction: a failure stops the import, but batches already committed stay
+     *
+     * @param requests                  Consent create data, one per line (pulled as the body is read)
+     * @return ImportConsentsResponse   Counts and rejected lines
+     */
+    @Override
+    public ImportConsentsResponse execute(Iterator<ImportConsentsRequest> requests) {
+
+        logger.info("Import consents request: batchSize={}", batchSize);
+
+        var progress = new Progress();
+        var batch = new ArrayList<CreateConsentRequest>(batchSize);
+        var batchLines = new long[batchSize];
+
+        while (requests.hasNext()) {
+            var request = requests.next();
+            progress.lines++;
+
+            if (request.getConsent() == null) {
+                progress.reject(request.getLine(), request.getErrors());
+                continue;
+            }
+
+            batchLines[batch.size()] = request.getLine();
+            batch.add(request.getConsent());
+
+            if (batch.size() == batchSize) {
+                commitBatch(batch, batchLines, progress);
+            }
+        }
+        commitBatch(batch, batchLines, progress);
+
+        // Lines rejected by a batch are found after the lines rejected while being read
+        progress.errors.sort(Comparator.comparingLong(ImportConsentsResponse.LineError::getLine));
+
+        logger.info("Consents imported successfully: lines={} created={} rejected={}",
+                progress.lines, progress.created, progress.rejected);
+
+        return ImportConsentsResponse.builder()
+                .lines(progress.lines)
+                .created(progress.created)
+                .rejected(progress.rejected)
+                .errors(progress.errors)
+                .build();
+    }
+
+    private void commitBatch(List<CreateConsentRequest> batch, long[] batchLines, Progress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        var createConsentBatchResponse = transactionTemplate.execute(status -> createConsent.executeBatch(batch));
+        var items = createConsentBatchResponse.getItems();
+
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getConsent() == null) {
+                progress.reject(batchLines[i], List.of(items.get(i).getError()));
+            } else {
+                progress.created++;
+            }
+        }
+        batch.clear();
+
+        logger.info("Consent import progress: lines={} created={} rejected={}",
+                progress.lines, progress.created, progress.rejected);
+    }
+
+    private static class Progress {
+
+        private long lines;
+        private long created;
+        private long rejected;
+        private final List<ImportConsentsResponse.LineError> errors = new ArrayList<>();
+
+        private void reject(long line, List<String> lineErrors) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(ImportConsentsResponse.LineError.builder()
+                        .line(line)
+                        .errors(lineErrors)
+                        .build());
+            }
+        }
+    }
+}
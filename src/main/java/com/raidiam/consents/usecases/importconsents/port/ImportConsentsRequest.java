@@ -0,0 +1,27 @@
+package com.raidiam.consents.usecases.importconsents.port;
+
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentRequest;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Builder
+@Getter
+public class ImportConsentsRequest {
+
+    /**
+     *  Line of the imported file (starting at 1)
+     */
+    private long line;
+
+    /**
+     *  Consent create data (null if the line was rejected while being read)
+     */
+    private CreateConsentRequest consent;
+
+    /**
+     *  Reasons of rejection while being read (null if consent is present)
+     */
+    private List<String> errors;
+}
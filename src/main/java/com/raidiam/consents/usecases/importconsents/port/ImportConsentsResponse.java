@@ -0,0 +1,27 @@
+package com.raidiam.consents.usecases.importconsents.port;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Builder
+@Getter
+public class ImportConsentsResponse {
+
+    private long lines;
+    private long created;
+    private long rejected;
+
+    /**
+     *  Rejected lines, in line order (the first ImportConsents.MAX_REPORTED_ERRORS found)
+     */
+    private List<LineError> errors;
+
+    @Builder
+    @Getter
+    public static class LineError {
+        private long line;
+        private List<String> errors;
+    }
+}
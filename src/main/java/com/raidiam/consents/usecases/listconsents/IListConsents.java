@@ -0,0 +1,8 @@
+package com.raidiam.consents.usecases.listconsents;
+
+import com.raidiam.consents.usecases.listconsents.port.ListConsentsRequest;
+import com.raidiam.consents.usecases.listconsents.port.ListConsentsResponse;
+
+public interface IListConsents {
+    ListConsentsResponse execute(ListConsentsRequest request);
+}
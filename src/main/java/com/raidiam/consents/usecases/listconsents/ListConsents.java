@@ -0,0 +1,96 @@
+package com.raidiam.consents.usecases.listconsents;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.usecases.listconsents.port.ListConsentsRequest;
+import com.raidiam.consents.usecases.listconsents.port.ListConsentsResponse;
+import com.raidiam.consents.utils.CustomFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+public class ListConsents implements IListConsents {
+
+    @Autowired
+    private Clock clock;
+
+    @Autowired
+    private IConsentRepository consentRepository;
+
+    private final Logger logger = LoggerFactory.getLogger(ListConsents.class);
+
+    /**
+     * List consents of a user in consent id order, one page after the cursor
+     * <p>
+     * Every page is an index range scan on (userId, status, consentId), so its cost does not depend on how many
+     * consents the user has. Without a status filter, one range per status is read and the ranges are merged, all
+     * in one read-only transaction (so from the same replica, if any)
+     * <p>
+     * Consents past their expiration date time are reported EXPIRED, as by retrieve. The status filter applies to the
+     * stored status, so until the expiration moves it there, such a consent is still listed under its former status
+     *
+     * @param request                   Consent list filters and cursor
+     * @return ListConsentsResponse     Page of consents
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ListConsentsResponse execute(ListConsentsRequest request) {
+
+        logger.info("List consents request: {}", request);
+
+        // Get numerical cursor (consent ids start at 1)
+        Long after = request.getAfter() == null ? 0L : CustomFormatter.getLongConsentId(request.getAfter());
+
+        // One extra consent tells whether there is a next page
+        var pageable = PageRequest.ofSize(request.getLimit() + 1);
+
+        var statuses = request.getStatus() == null ? List.of(ConsentStatus.values()) : List.of(request.getStatus());
+
+        var consents = new ArrayList<ConsentSnapshot>();
+        for (var status : statuses) {
+            consents.addAll(consentRepository.findPageByUserIdAndStatus(request.getUserId(), status, after, pageable));
+        }
+        if (statuses.size() > 1) {
+            consents.sort(Comparator.comparing(ConsentSnapshot::consentId));
+        }
+
+        var page = consents.subList(0, Math.min(request.getLimit(), consents.size()));
+        var next = consents.size() > request.getLimit() ? page.get(page.size() - 1).formattedConsentId() : null;
+
+        // Get current timestamp (rendered as RFC3339 UTC in the JSON response)
+        Instant now = clock.instant();
+
+        var listConsentsResponse =
+                ListConsentsResponse.builder()
+                    .consents(page.stream()
+                            .map(consent -> ListConsentsResponse.Item.builder()
+                                    .consentId(consent.formattedConsentId())
+                                    .userId(consent.userId())
+                                    .permissions(consent.permissions())
+                                    .status(consent.statusAt(now))
+                                    .createdAt(consent.createdAt())
+                                    .updatedAt(consent.updatedAt())
+                                    .expirationDateTime(consent.expirationDateTime())
+                                    .build())
+                            .toList())
+                    .next(next)
+                    .requestDateTime(now)
+                    .build();
+
+        logger.info("Consents listed successfully: userId={} count={} next={}",
+                request.getUserId(), page.size(), next);
+
+        return listConsentsResponse;
+    }
+}
@@ -0,0 +1,25 @@
+package com.raidiam.consents.usecases.listconsents.port;
+
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+@Builder
+@Getter
+@ToString
+public class ListConsentsRequest {
+    private String userId;
+
+    /**
+     *  Only consents with this status (null for any status)
+     */
+    private ConsentStatus status;
+
+    /**
+     *  Cursor: the page starts after this consent (null for the first page)
+     */
+    private String after;
+
+    private int limit;
+}
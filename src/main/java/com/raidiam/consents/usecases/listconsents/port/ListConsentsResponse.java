@@ -0,0 +1,35 @@
+package com.raidiam.consents.usecases.listconsents.port;
+
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+
+@Builder
+@Getter
+public class ListConsentsResponse {
+
+    private List<Item> consents;
+
+    /**
+     *  Cursor of the next page (null if this is the last page)
+     */
+    private String next;
+
+    private Instant requestDateTime;
+
+    @Builder
+    @Getter
+    public static class Item {
+        private String consentId;
+        private String userId;
+        private List<ConsentPermission> permissions;
+        private ConsentStatus status;
+        private Instant createdAt;
+        private Instant updatedAt;
+        private Instant expirationDateTime;
+    }
+}
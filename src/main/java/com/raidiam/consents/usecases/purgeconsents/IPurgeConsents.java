@@ -0,0 +1,10 @@
+package com.raidiam.consents.usecases.purgeconsents;
+
+import com.raidiam.consents.domain.enums.ConsentStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface IPurgeConsents {
+    int execute(List<ConsentStatus> statuses, Instant updatedBefore, int chunkSize);
+}
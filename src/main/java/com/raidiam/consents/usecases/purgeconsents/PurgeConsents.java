@@ -0,0 +1,62 @@
+package com.raidiam.consents.usecases.purgeconsents;
+
+import com.raidiam.consents.adapters.cache.IConsentCache;
+import com.raidiam.consents.adapters.eventlog.ConsentEvent;
+import com.raidiam.consents.adapters.eventlog.IConsentEventLog;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+@Service
+public class PurgeConsents implements IPurgeConsents {
+
+    @Autowired
+    private Clock clock;
+
+    @Autowired
+    private IConsentRepository consentRepository;
+
+    @Autowired
+    private IConsentCache consentCache;
+
+    @Autowired
+    private IConsentEventLog consentEventLog;
+
+    /**
+     * Delete a chunk of consents with one of the statuses, last changed before a timestamp: their ids are read, then
+     * deleted in a single short statement (per shard)
+     * <p>
+     * The delete checks status and timestamp again, so a consent changed between both statements is kept. A PURGED
+     * event is appended to the event log for each consent deleted
+     *
+     * @param statuses          Consent statuses to purge
+     * @param updatedBefore     Timestamp the purged consents were last changed before
+     * @param chunkSize         Maximum consents deleted
+     * @return int              Number of deleted consents (below chunkSize when none is left)
+     */
+    @Override
+    public int execute(List<ConsentStatus> statuses, Instant updatedBefore, int chunkSize) {
+
+        var consentIds = consentRepository.findPurgeableIds(statuses, updatedBefore, PageRequest.ofSize(chunkSize));
+        if (consentIds.isEmpty()) {
+            return 0;
+        }
+
+        var purgedIds = consentRepository.purgeConsents(consentIds, statuses, updatedBefore);
+
+        // Cached copies are gone from now on (the statement is committed)
+        consentIds.forEach(consentCache::invalidate);
+
+        // The rows are gone, their history stays in the event log
+        var now = clock.instant();
+        purgedIds.forEach(consentId -> consentEventLog.append(ConsentEvent.purged(consentId, now)));
+
+        return purgedIds.size();
+    }
+}
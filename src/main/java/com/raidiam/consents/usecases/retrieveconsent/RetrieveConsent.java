@@ -1,5 +1,6 @@
 package com.raidiam.consents.usecases.retrieveconsent;
 
+import com.raidiam.consents.adapters.cache.IConsentCache;
 import com.raidiam.consents.adapters.repositories.IConsentRepository;
 import com.raidiam.consents.domain.exceptions.ConsentNotFoundException;
 import com.raidiam.consents.usecases.retrieveconsent.port.RetrieveConsentRequest;
@@ -9,9 +10,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Clock;
-import java.util.Date;
+import java.time.Instant;
 
 import static com.raidiam.consents.domain.messages.ErrorMessage.CONSENT_NOT_FOUND;
 
@@ -24,15 +26,26 @@ public class RetrieveConsent implements IRetrieveConsent {
     @Autowired
     private IConsentRepository consentRepository;
 
+    @Autowired
+    private IConsentCache consentCache;
+
     private final Logger logger = LoggerFactory.getLogger(RetrieveConsent.class);
 
     /**
      * Retrieve details of a specific consent
+     * <p>
+     * Runs in a read-only transaction (flush mode MANUAL, routed to a replica when there is one), and a cache miss
+     * reads a projection of the consent instead of a managed entity. A consent changed within the replica lag is read
+     * without being cached (the replica may not have applied the change yet). The connection is only taken on a cache
+     * miss, and is given back when the transaction ends, before the response is serialized
+     * <p>
+     * A consent past its expiration date time is reported EXPIRED, whether or not it has been moved there yet
      *
      * @param request                       Consent retrieve data
      * @return RetrieveConsentResponse      Consent details
      */
     @Override
+    @Transactional(readOnly = true)
     public RetrieveConsentResponse execute(RetrieveConsentRequest request) {
 
         logger.info("Retrieve consent request: {}", request);
@@ -40,20 +53,26 @@ public class RetrieveConsent implements IRetrieveConsent {
         // Get numerical consent id
         Long consentId = CustomFormatter.getLongConsentId(request.getConsentId());
 
-        // Try to find consent in repository
-        var consent = consentRepository.findById(consentId).orElseThrow(() -> new ConsentNotFoundException(CONSENT_NOT_FOUND));
+        // Try to find consent in cache, then in repository
+        var consent = consentCache.get(consentId, id -> consentRepository.findSnapshotById(id).orElse(null));
+
+        if (consent == null) {
+            throw new ConsentNotFoundException(CONSENT_NOT_FOUND);
+        }
 
-        // Get current timestamp according to RFC3339 UTC
-        String now = CustomFormatter.RFC3339.format(Date.from(clock.instant()));
+        // Get current timestamp (rendered as RFC3339 UTC in the JSON response, and the status is as of it)
+        Instant now = clock.instant();
 
         var retrieveConsentResponse =
                 RetrieveConsentResponse.builder()
-                    .consentId(consent.getFormattedConsentId())
-                    .userId(consent.getUserId())
-                    .permissions(consent.getPermissions())
-                    .status(consent.getStatus())
-                    .createdAt(consent.getCreatedAt())
-                    .updatedAt(consent.getUpdatedAt())
+                    .consentId(consent.formattedConsentId())
+                    .userId(consent.userId())
+                    .permissions(consent.permissions())
+                    .status(consent.statusAt(now))
+                    .createdAt(consent.createdAt())
+                    .updatedAt(consent.updatedAt())
+                    .expirationDateTime(consent.expirationDateTime())
+                    .version(consent.version())
                     .requestDateTime(now)
                     .build();
 
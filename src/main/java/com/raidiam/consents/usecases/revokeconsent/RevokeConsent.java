@@ -1,5 +1,8 @@
 package com.raidiam.consents.usecases.revokeconsent;
 
+import com.raidiam.consents.adapters.cache.IConsentCache;
+import com.raidiam.consents.adapters.eventlog.ConsentEvent;
+import com.raidiam.consents.adapters.eventlog.IConsentEventLog;
 import com.raidiam.consents.adapters.repositories.IConsentRepository;
 import com.raidiam.consents.domain.exceptions.ConsentNotFoundException;
 import com.raidiam.consents.usecases.revokeconsent.port.RevokeConsentRequest;
@@ -9,14 +12,25 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
+
 import static com.raidiam.consents.domain.messages.ErrorMessage.CONSENT_NOT_FOUND;
 
 @Service
 public class RevokeConsent implements IRevokeConsent {
 
+    @Autowired
+    private Clock clock;
+
     @Autowired
     private IConsentRepository consentRepository;
 
+    @Autowired
+    private IConsentCache consentCache;
+
+    @Autowired
+    private IConsentEventLog consentEventLog;
+
     private final Logger logger = LoggerFactory.getLogger(RevokeConsent.class);
 
     /**
@@ -32,10 +46,18 @@ public class RevokeConsent implements IRevokeConsent {
         // Get numerical consent id
         Long consentId = CustomFormatter.getLongConsentId(request.getConsentId());
 
-        // Try to find consent in repository
-        consentRepository.findById(consentId).orElseThrow(() -> new ConsentNotFoundException(CONSENT_NOT_FOUND));
+        // Delete in a single round trip: no deleted row means consent not found
+        int deleted = consentRepository.deleteConsentById(consentId);
+
+        // Cached copy is stale from now on
+        consentCache.invalidate(consentId);
+
+        if (deleted == 0) {
+            throw new ConsentNotFoundException(CONSENT_NOT_FOUND);
+        }
 
-        consentRepository.deleteById(consentId);
+        // The row is gone, its history stays in the event log
+        consentEventLog.append(ConsentEvent.revoked(consentId, clock.instant()));
 
         logger.info("Consent revoked successfully: {}", request);
     }
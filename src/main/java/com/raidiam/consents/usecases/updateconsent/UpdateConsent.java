@@ -1,8 +1,13 @@
 package com.raidiam.consents.usecases.updateconsent;
 
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.cache.IConsentCache;
+import com.raidiam.consents.adapters.eventlog.ConsentEvent;
+import com.raidiam.consents.adapters.eventlog.IConsentEventLog;
 import com.raidiam.consents.adapters.repositories.IConsentRepository;
 import com.raidiam.consents.domain.enums.ConsentStatus;
 import com.raidiam.consents.domain.exceptions.ConsentNotFoundException;
+import com.raidiam.consents.domain.exceptions.ConsentVersionMismatchException;
 import com.raidiam.consents.domain.exceptions.ConsentWithInvalidStatusException;
 import com.raidiam.consents.usecases.updateconsent.port.UpdateConsentRequest;
 import com.raidiam.consents.usecases.updateconsent.port.UpdateConsentResponse;
@@ -11,11 +16,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Clock;
-import java.util.Date;
+import java.time.Instant;
 
+import static com.raidiam.consents.domain.messages.ErrorMessage.CONSENT_EXPIRED;
 import static com.raidiam.consents.domain.messages.ErrorMessage.CONSENT_NOT_FOUND;
+import static com.raidiam.consents.domain.messages.ErrorMessage.CONSENT_VERSION_MISMATCH;
+import static com.raidiam.consents.domain.messages.ErrorMessage.INVALID_CONSENT_EXPIRED_UPDATE_STATUS;
 import static com.raidiam.consents.domain.messages.ErrorMessage.INVALID_CONSENT_UPDATE_STATUS;
 
 @Service
@@ -26,15 +35,27 @@ public class UpdateConsent implements IUpdateConsent {
 
     @Autowired
     private IConsentRepository consentRepository;
+
+    @Autowired
+    private IConsentCache consentCache;
+
+    @Autowired
+    private IConsentEventLog consentEventLog;
+
     private final Logger logger = LoggerFactory.getLogger(UpdateConsent.class);
 
     /**
      * Update consent details
+     * <p>
+     * The update returns the updated consent, so a successful update is a single statement. Only when nothing is
+     * updated is the consent looked up, to tell not found, EXPIRED and version mismatch apart (in the read-write
+     * transaction, so on the primary, not on a replica that may lag behind)
      *
      * @param request                   Consent update data
      * @return UpdateConsentResponse    Updated consent details
      */
     @Override
+    @Transactional
     public UpdateConsentResponse execute(UpdateConsentRequest request) {
 
         logger.info("Update consent request: {}", request);
@@ -44,30 +65,55 @@ public class UpdateConsent implements IUpdateConsent {
             throw new ConsentWithInvalidStatusException(INVALID_CONSENT_UPDATE_STATUS);
         }
 
+        // EXPIRED is only set by the expiration of the consent
+        if (ConsentStatus.EXPIRED.equals(request.getStatus())) {
+            throw new ConsentWithInvalidStatusException(INVALID_CONSENT_EXPIRED_UPDATE_STATUS);
+        }
+
+        // A weak, listed or malformed If-Match tag matches no version: nothing to update
+        if (Long.valueOf(CustomFormatter.UNMATCHABLE_VERSION).equals(request.getExpectedVersion())) {
+            throw new ConsentVersionMismatchException(CONSENT_VERSION_MISMATCH);
+        }
+
         // Get numerical consent id
         Long consentId = CustomFormatter.getLongConsentId(request.getConsentId());
 
-        // Try to find consent in repository
-        var consent = consentRepository.findById(consentId).orElseThrow(() -> new ConsentNotFoundException(CONSENT_NOT_FOUND));
-
-        // Get current timestamp according to RFC3339 UTC
-        String now = CustomFormatter.RFC3339.format(Date.from(clock.instant()));
+        // Get current timestamp (rendered as RFC3339 UTC in the JSON response)
+        Instant now = clock.instant();
+
+        // Set new details in a single conditional statement (bumps the version, skips EXPIRED consents and the ones past
+        // their expiration date time), which returns the updated consent (userId and createdAt are not in the request)
+        var updated = consentRepository.updateConsent(
+                consentId, request.getExpectedVersion(), request.getStatus(), request.getPermissions(), now);
+
+        // Cached copy is stale once committed (even if not updated: it may be a version other nodes already changed)
+        consentCache.invalidate(consentId);
+
+        if (updated.isEmpty()) {
+            // Nothing updated: the consent is either not found, EXPIRED (terminal, or past its expiration date time but
+            // not yet expired) or of another version
+            var current = consentRepository.findSnapshotById(consentId)
+                    .orElseThrow(() -> new ConsentNotFoundException(CONSENT_NOT_FOUND));
+            if (ConsentStatus.EXPIRED.equals(current.statusAt(now)) || isPastExpiration(current, now)) {
+                throw new ConsentWithInvalidStatusException(CONSENT_EXPIRED);
+            }
+            throw new ConsentVersionMismatchException(CONSENT_VERSION_MISMATCH);
+        }
 
-        // Set new details
-        consent.setStatus(request.getStatus());
-        consent.setPermissions(request.getPermissions());
-        consent.setUpdatedAt(now);
+        var consent = updated.get();
 
-        consentRepository.save(consent);
+        consentEventLog.append(ConsentEvent.updated(consent));
 
         var updateConsentResponse =
                 UpdateConsentResponse.builder()
-                    .consentId(consent.getFormattedConsentId())
-                    .userId(consent.getUserId())
-                    .permissions(consent.getPermissions())
-                    .status(consent.getStatus())
-                    .createdAt(consent.getCreatedAt())
-                    .updatedAt(consent.getUpdatedAt())
+                    .consentId(consent.formattedConsentId())
+                    .userId(consent.userId())
+                    .permissions(consent.permissions())
+                    .status(consent.status())
+                    .createdAt(consent.createdAt())
+                    .updatedAt(consent.updatedAt())
+                    .expirationDateTime(consent.expirationDateTime())
+                    .version(consent.version())
                     .requestDateTime(now)
                     .build();
 
@@ -75,4 +121,11 @@ public class UpdateConsent implements IUpdateConsent {
 
         return updateConsentResponse;
     }
+
+    /**
+     * Whether the consent is past its expiration date time, whatever its status (the update skips it)
+     */
+    private static boolean isPastExpiration(ConsentSnapshot consent, Instant now) {
+        return consent.expirationDateTime() != null && ! consent.expirationDateTime().isAfter(now);
+    }
 }
@@ -13,4 +13,9 @@ public class UpdateConsentRequest {
     private String consentId;
     private List<ConsentPermission> permissions;
     private ConsentStatus status;
+
+    /**
+     *  Version the client expects to update (If-Match), null to update any version
+     */
+    private Long expectedVersion;
 }
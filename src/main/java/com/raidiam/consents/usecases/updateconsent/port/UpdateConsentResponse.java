@@ -5,6 +5,7 @@ import com.raidiam.consents.domain.enums.ConsentStatus;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.time.Instant;
 import java.util.List;
 
 @Builder
@@ -15,7 +16,9 @@ public class UpdateConsentResponse {
     private String userId;
     private List<ConsentPermission> permissions;
     private ConsentStatus status;
-    private String createdAt;
-    private String updatedAt;
-    private String requestDateTime;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant expirationDateTime;
+    private long version;
+    private Instant requestDateTime;
 }
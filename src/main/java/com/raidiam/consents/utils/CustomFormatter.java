@@ -1,13 +1,25 @@
 package com.raidiam.consents.utils;
 
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 
 public class CustomFormatter {
 
     /**
      *  RFC339 UTC datetime formatter
      */
-    public static final SimpleDateFormat RFC3339 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+    public static final DateTimeFormatter RFC3339 = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZone(ZoneOffset.UTC);
+
+    /**
+     *  Version required by an If-Match header no version can match (consent versions start at 0)
+     */
+    public static final long UNMATCHABLE_VERSION = -1L;
+
+    /**
+     *  Last rendered second (timestamps of the same second render the same text)
+     */
+    private static volatile Rendered lastRendered = new Rendered(Long.MIN_VALUE, null);
 
     /**
      * Return numerical consent identification
@@ -18,4 +30,60 @@ public class CustomFormatter {
     public static Long getLongConsentId(String consentId) {
         return Long.valueOf(consentId.replaceAll("\\D+", ""));
     }
+
+    /**
+     * Render consent version as a strong entity tag
+     *
+     * @param version   Consent version
+     * @return String   ETag header value
+     */
+    public static String formatETag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Return the consent version required by an If-Match header
+     *
+     * @param ifMatch   If-Match header value (nullable)
+     * @return Long     Required version, null if any version matches (no header or "*"), UNMATCHABLE_VERSION if no
+     *                  version can match
+     */
+    public static Long parseIfMatchVersion(String ifMatch) {
+
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+
+        var tag = ifMatch.strip();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+
+        // Weak tags (W/"1"), lists of tags and anything but a version never match
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            return UNMATCHABLE_VERSION;
+        }
+    }
+
+    /**
+     * Render timestamp according to RFC3339 UTC (seconds precision)
+     *
+     * @param instant   Timestamp
+     * @return String   RFC3339 UTC datetime
+     */
+    public static String formatRfc3339(Instant instant) {
+
+        var rendered = lastRendered;
+
+        if (rendered.epochSecond() != instant.getEpochSecond()) {
+            rendered = new Rendered(instant.getEpochSecond(), RFC3339.format(instant));
+            lastRendered = rendered;
+        }
+
+        return rendered.text();
+    }
+
+    private record Rendered(long epochSecond, String text) {}
 }
@@ -0,0 +1,34 @@
+package com.raidiam.consents.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+
+import java.io.IOException;
+
+/**
+ * Reads the status of a request body: only the statuses a client may send (ConsentStatus.REQUESTABLE), any other
+ * value is refused as an unknown one
+ */
+public class RequestedConsentStatusDeserializer extends StdDeserializer<ConsentStatus> {
+
+    public RequestedConsentStatusDeserializer() {
+        super(ConsentStatus.class);
+    }
+
+    @Override
+    public ConsentStatus deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+
+        var value = parser.getValueAsString();
+
+        for (var status : ConsentStatus.REQUESTABLE) {
+            if (status.name().equals(value)) {
+                return status;
+            }
+        }
+
+        throw InvalidFormatException.from(parser, "Status not allowed in a request: " + value, value, ConsentStatus.class);
+    }
+}
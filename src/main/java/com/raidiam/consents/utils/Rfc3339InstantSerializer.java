@@ -0,0 +1,23 @@
+package com.raidiam.consents.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Renders timestamps as RFC3339 UTC datetime in JSON
+ */
+public class Rfc3339InstantSerializer extends StdSerializer<Instant> {
+
+    public Rfc3339InstantSerializer() {
+        super(Instant.class);
+    }
+
+    @Override
+    public void serialize(Instant value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeString(CustomFormatter.formatRfc3339(value));
+    }
+}
@@ -0,0 +1,16 @@
+CREATE SEQUENCE IF NOT EXISTS consent_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS consent (
+    consent_id BIGINT NOT NULL,
+    user_id VARCHAR(255),
+    status TINYINT CHECK (status BETWEEN 0 AND 2),
+    created_at VARCHAR(255),
+    updated_at VARCHAR(255),
+    PRIMARY KEY (consent_id)
+);
+
+CREATE TABLE IF NOT EXISTS consent_permissions (
+    consent_consent_id BIGINT NOT NULL,
+    permissions VARCHAR(255),
+    FOREIGN KEY (consent_consent_id) REFERENCES consent (consent_id)
+);
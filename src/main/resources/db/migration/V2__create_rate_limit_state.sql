@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS rate_limit_state (
+    bucket VARCHAR(255) NOT NULL,
+    client_key VARCHAR(255) NOT NULL,
+    tat BIGINT NOT NULL,
+    PRIMARY KEY (bucket, client_key)
+);
@@ -0,0 +1,16 @@
+-- Permissions as a bitmask column of consent: READ_DATA = 1, WRITE_DATA = 2, DELETE_DATA = 4
+ALTER TABLE consent ADD COLUMN permissions INTEGER DEFAULT 0 NOT NULL;
+
+UPDATE consent c SET permissions = (
+    SELECT COALESCE(SUM(DISTINCT
+        CASE p.permissions
+            WHEN 'READ_DATA' THEN 1
+            WHEN 'WRITE_DATA' THEN 2
+            WHEN 'DELETE_DATA' THEN 4
+            ELSE 0
+        END), 0)
+    FROM consent_permissions p
+    WHERE p.consent_consent_id = c.consent_id
+);
+
+DROP TABLE consent_permissions;
@@ -0,0 +1,3 @@
+-- Timestamps as native columns (RFC3339 strings are converted on the way)
+ALTER TABLE consent ALTER COLUMN created_at SET DATA TYPE TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE consent ALTER COLUMN updated_at SET DATA TYPE TIMESTAMP(6) WITH TIME ZONE;
@@ -0,0 +1,15 @@
+-- Blocks of identifiers leased by the nodes (next_id is the first identifier never leased)
+CREATE TABLE id_block (
+    name VARCHAR(64) NOT NULL,
+    next_id BIGINT NOT NULL,
+    PRIMARY KEY (name)
+);
+
+-- Consent identifiers continue after the ones generated from consent_seq
+INSERT INTO id_block (name, next_id)
+SELECT 'consent', GREATEST(
+    COALESCE(MAX(consent_id), 0) + 1,
+    (SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'CONSENT_SEQ'))
+FROM consent;
+
+DROP SEQUENCE consent_seq;
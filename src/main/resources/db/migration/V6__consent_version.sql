@@ -0,0 +1,2 @@
+-- Optimistic locking: bumped by every update (UPDATE ... WHERE consent_id = ? AND version = ?)
+ALTER TABLE consent ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,2 @@
+-- Listing by user (and status) in consent id order: keyset pages are index range scans
+CREATE INDEX IF NOT EXISTS consent_user_status_id_idx ON consent (user_id, status, consent_id);
@@ -0,0 +1,13 @@
+-- Expiration of consents (null: never expires)
+ALTER TABLE consent ADD COLUMN expiration_date_time TIMESTAMP(6) WITH TIME ZONE;
+
+-- Status EXPIRED (3): the column is rebuilt, its check constraint has no name to drop
+DROP INDEX IF EXISTS consent_user_status_id_idx;
+ALTER TABLE consent ADD COLUMN status_v8 TINYINT CHECK (status_v8 BETWEEN 0 AND 3);
+UPDATE consent SET status_v8 = status;
+ALTER TABLE consent DROP COLUMN status;
+ALTER TABLE consent ALTER COLUMN status_v8 RENAME TO status;
+CREATE INDEX consent_user_status_id_idx ON consent (user_id, status, consent_id);
+
+-- Expirations in time order, with the columns read to schedule them (the timing wheel is rebuilt from it on startup)
+CREATE INDEX consent_expiration_idx ON consent (expiration_date_time, consent_id, status);
@@ -0,0 +1,2 @@
+-- Consents of a status last changed before a date (purge of old REJECT consents): index range scans
+CREATE INDEX IF NOT EXISTS consent_status_updated_idx ON consent (status, updated_at, consent_id);
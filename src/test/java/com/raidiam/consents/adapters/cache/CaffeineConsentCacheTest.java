@@ -0,0 +1,170 @@
+package com.raidiam.consents.adapters.cache;
+
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CaffeineConsentCacheTest {
+
+    @Test
+    public void recordHitsAndMissesWithoutCachingNotFound() {
+
+        // Arrange
+        var cache = new CaffeineConsentCache(10, Duration.ofMinutes(1), Duration.ZERO, System::nanoTime);
+        var loads = new AtomicInteger();
+
+        // Act
+        cache.get(1L, id -> { loads.incrementAndGet(); return snapshot(id); });
+        var cached = cache.get(1L, id -> { loads.incrementAndGet(); return snapshot(id); });
+        var notFound = cache.get(2L, id -> { loads.incrementAndGet(); return null; });
+        cache.get(2L, id -> { loads.incrementAndGet(); return null; });
+
+        // Assert
+        var stats = cache.getNativeCache().stats();
+        assertEquals(1L, cached.consentId());
+        assertNull(notFound);
+        assertEquals(3, loads.get());
+        assertEquals(1, stats.hitCount());
+        assertEquals(3, stats.missCount());
+    }
+
+    @Test
+    public void expireAfterWrite() {
+
+        // Arrange
+        var nanos = new AtomicLong();
+        var cache = new CaffeineConsentCache(10, Duration.ofSeconds(30), Duration.ZERO, nanos::get);
+        var loads = new AtomicInteger();
+
+        // Act
+        cache.get(1L, id -> { loads.incrementAndGet(); return snapshot(id); });
+        nanos.addAndGet(Duration.ofSeconds(29).toNanos());
+        cache.get(1L, id -> { loads.incrementAndGet(); return snapshot(id); });
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        cache.get(1L, id -> { loads.incrementAndGet(); return snapshot(id); });
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void evictBeyondMaximumSize() {
+
+        // Arrange
+        var cache = new CaffeineConsentCache(2, Duration.ofMinutes(1), Duration.ZERO, System::nanoTime);
+
+        // Act
+        for (long id = 1; id <= 3; id++) {
+            cache.get(id, CaffeineConsentCacheTest::snapshot);
+        }
+        cache.getNativeCache().cleanUp();
+
+        // Assert
+        assertEquals(2, cache.getNativeCache().estimatedSize());
+        assertEquals(1, cache.getNativeCache().stats().evictionCount());
+    }
+
+    @Test
+    public void dropLoadInFlightWhenInvalidated() throws Exception {
+
+        // Arrange
+        var cache = new CaffeineConsentCache(10, Duration.ofMinutes(1), Duration.ZERO, System::nanoTime);
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        // Act: a load reads the old consent, then a change is committed and invalidated while the load is in flight
+        var load = CompletableFuture.supplyAsync(() -> cache.get(1L, id -> {
+            loading.countDown();
+            await(release);
+            return snapshot(id);
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        var invalidate = CompletableFuture.runAsync(() -> cache.invalidate(1L));
+        Thread.sleep(50);
+        release.countDown();
+
+        load.get(5, TimeUnit.SECONDS);
+        invalidate.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertNull(cache.getNativeCache().getIfPresent(1L));
+    }
+
+    @Test
+    public void invalidateOnceTransactionCompletes() {
+
+        // Arrange
+        var cache = new CaffeineConsentCache(10, Duration.ofMinutes(1), Duration.ZERO, System::nanoTime);
+        cache.get(1L, CaffeineConsentCacheTest::snapshot);
+        cache.get(2L, CaffeineConsentCacheTest::snapshot);
+
+        // Act
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate(1L);
+            assertNotNull(cache.getNativeCache().getIfPresent(1L));
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        assertNull(cache.getNativeCache().getIfPresent(1L));
+        assertNotNull(cache.getNativeCache().getIfPresent(2L));
+    }
+
+    @Test
+    public void loadWithoutCachingWithinReplicaLag() {
+
+        // Arrange
+        var nanos = new AtomicLong();
+        var cache = new CaffeineConsentCache(10, Duration.ofMinutes(1), Duration.ofSeconds(5), nanos::get);
+        var loads = new AtomicInteger();
+        cache.get(1L, id -> { loads.incrementAndGet(); return snapshot(id); });
+        cache.get(2L, id -> { loads.incrementAndGet(); return snapshot(id); });
+
+        // Act: consent 1 changes, and is read twice within the replica lag, then twice after it
+        cache.invalidate(1L);
+        var withinLag = cache.get(1L, id -> { loads.incrementAndGet(); return snapshot(id); });
+        cache.get(1L, id -> { loads.incrementAndGet(); return snapshot(id); });
+        nanos.addAndGet(Duration.ofSeconds(6).toNanos());
+        cache.get(1L, id -> { loads.incrementAndGet(); return snapshot(id); });
+        cache.get(1L, id -> { loads.incrementAndGet(); return snapshot(id); });
+        cache.get(2L, id -> { loads.incrementAndGet(); return snapshot(id); });
+
+        // Assert: loaded on each read within the lag, then cached again
+        assertEquals(1L, withinLag.consentId());
+        assertEquals(5, loads.get());
+        assertNotNull(cache.getNativeCache().getIfPresent(1L));
+    }
+
+    private static ConsentSnapshot snapshot(Long consentId) {
+        var now = Instant.parse("2025-01-01T00:00:00Z");
+        return new ConsentSnapshot(consentId, "user-1", List.of(ConsentPermission.READ_DATA),
+                ConsentStatus.AWAITING_AUTHORISATION, now, now, 0, null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
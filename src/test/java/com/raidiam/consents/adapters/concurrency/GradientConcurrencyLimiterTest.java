@@ -0,0 +1,103 @@
+package com.raidiam.consents.adapters.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GradientConcurrencyLimiterTest {
+
+    private static final long WINDOW = Duration.ofMillis(100).toNanos();
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private GradientConcurrencyLimiter limiter(int initialLimit) {
+        return new GradientConcurrencyLimiter(nanos::get, initialLimit, 1, 100, Duration.ofMillis(100), 0.5, 1.5);
+    }
+
+    @Test
+    public void rejectBeyondLimit() {
+
+        // Arrange
+        var limiter = limiter(2);
+
+        // Act
+        var first = limiter.tryAcquire();
+        var second = limiter.tryAcquire();
+        var rejected = limiter.tryAcquire();
+
+        // Assert
+        assertNotEquals(GradientConcurrencyLimiter.REJECTED, first);
+        assertNotEquals(GradientConcurrencyLimiter.REJECTED, second);
+        assertEquals(GradientConcurrencyLimiter.REJECTED, rejected);
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release(first);
+
+        assertNotEquals(GradientConcurrencyLimiter.REJECTED, limiter.tryAcquire());
+    }
+
+    @Test
+    public void shrinkLimitWhenLatencyGrows() {
+
+        // Arrange
+        var limiter = limiter(20);
+        runWindow(limiter, 20, Duration.ofMillis(1).toNanos());
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            runWindow(limiter, limiter.getLimit(), Duration.ofMillis(10).toNanos());
+        }
+
+        // Assert
+        assertTrue(limiter.getLimit() < 20, "limit: " + limiter.getLimit());
+    }
+
+    @Test
+    public void growLimitWhenLatencyIsStable() {
+
+        // Arrange
+        var limiter = limiter(20);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            runWindow(limiter, limiter.getLimit(), Duration.ofMillis(1).toNanos());
+        }
+
+        // Assert
+        assertTrue(limiter.getLimit() > 20, "limit: " + limiter.getLimit());
+    }
+
+    @Test
+    public void keepLimitWhenNotUsed() {
+
+        // Arrange
+        var limiter = limiter(20);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            runWindow(limiter, 2, Duration.ofMillis(1).toNanos());
+        }
+
+        // Assert
+        assertEquals(20, limiter.getLimit());
+    }
+
+    /**
+     * Run a window of concurrent requests with the same latency
+     */
+    private void runWindow(GradientConcurrencyLimiter limiter, int requests, long latency) {
+
+        for (int i = 0; i < requests; i++) {
+            assertNotEquals(GradientConcurrencyLimiter.REJECTED, limiter.tryAcquire());
+        }
+
+        nanos.addAndGet(Math.max(latency, WINDOW));
+
+        for (int i = 0; i < requests; i++) {
+            limiter.release(nanos.get() - latency);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.raidiam.consents.adapters.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReplicaPoolDataSourceTest {
+
+    private DataSource primary;
+    private SwitchableDataSource replica0;
+    private SwitchableDataSource replica1;
+    private ReplicaPoolDataSource replicaPool;
+
+    @BeforeEach
+    public void init() {
+        primary = node("primary");
+        replica0 = new SwitchableDataSource(node("replica-0"));
+        replica1 = new SwitchableDataSource(node("replica-1"));
+        replicaPool = new ReplicaPoolDataSource(primary, List.of(replica0, replica1), Duration.ZERO, Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void spreadReadsOverReplicas() throws SQLException {
+
+        // Act
+        var nodes = readNodes(4);
+
+        // Assert
+        assertEquals(List.of("replica-0", "replica-1", "replica-0", "replica-1"), nodes);
+        assertEquals(2, replicaPool.replicasUp());
+    }
+
+    @Test
+    public void skipReplicaDownUntilHealthCheckFindsItUp() throws SQLException {
+
+        // Arrange
+        replica1.up = false;
+
+        // Act
+        var nodesWhileDown = readNodes(3);
+
+        replica1.up = true;
+        var nodesBeforeCheck = readNodes(2);
+
+        replicaPool.checkHealth();
+        var nodesAfterCheck = readNodes(2);
+
+        // Assert
+        assertEquals(List.of("replica-0", "replica-0", "replica-0"), nodesWhileDown);
+        assertEquals(List.of("replica-0", "replica-0"), nodesBeforeCheck);
+        assertEquals(2, nodesAfterCheck.stream().distinct().count());
+    }
+
+    @Test
+    public void fallBackToPrimaryWhenReplicasAreDown() throws SQLException {
+
+        // Arrange
+        replica0.up = false;
+        replica1.up = false;
+
+        // Act
+        replicaPool.checkHealth();
+        var nodes = readNodes(2);
+
+        // Assert
+        assertEquals(0, replicaPool.replicasUp());
+        assertEquals(List.of("primary", "primary"), nodes);
+    }
+
+    @Test
+    public void routeReadOnlyTransactionsToReplicas() {
+
+        // Arrange
+        var dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicaPool);
+
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        var readWrite = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        var readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        // Act
+        var readWriteNode = readWrite.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+        var readOnlyNode = readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+
+        // Assert
+        assertEquals("primary", readWriteNode);
+        assertEquals("replica-0", readOnlyNode);
+    }
+
+    private List<String> readNodes(int count) throws SQLException {
+        var nodes = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            try (var connection = replicaPool.getConnection();
+                 var resultSet = connection.createStatement().executeQuery("SELECT name FROM node")) {
+                resultSet.next();
+                nodes.add(resultSet.getString(1));
+            }
+        }
+        return nodes;
+    }
+
+    private static DataSource node(String name) {
+        var dataSource = new DriverManagerDataSource(String.format("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", UUID.randomUUID()), "user", "pass");
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    /**
+     * Stand-in for a replica that can be taken down
+     */
+    private static class SwitchableDataSource extends DelegatingDataSource {
+
+        private volatile boolean up = true;
+
+        private SwitchableDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (! up) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.raidiam.consents.adapters.eventlog;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedConsentEventLogTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+    private static final Instant INSTANT = Instant.parse("2025-01-01T03:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void replayEventsOnReopen() throws IOException {
+
+        // Arrange
+        try (var eventLog = open()) {
+            eventLog.append(ConsentEvent.created(consent(1L, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+            eventLog.append(ConsentEvent.created(consent(2L, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+            eventLog.append(ConsentEvent.updated(consent(1L, ConsentStatus.AUTHORISED, 1)));
+            eventLog.append(ConsentEvent.revoked(2L, INSTANT));
+            eventLog.append(ConsentEvent.created(consent(3L, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+            eventLog.append(ConsentEvent.expired(consent(3L, ConsentStatus.EXPIRED, 1)));
+            eventLog.append(ConsentEvent.created(consent(4L, ConsentStatus.REJECT, 0)));
+            eventLog.append(ConsentEvent.purged(4L, INSTANT));
+        }
+
+        // Act
+        try (var eventLog = open()) {
+
+            // Assert
+            assertEquals(8, eventLog.sequence());
+            assertEquals(2, eventLog.size());
+            assertEquals(consent(1L, ConsentStatus.AUTHORISED, 1), eventLog.get(1L));
+            assertNull(eventLog.get(2L));
+            assertEquals(consent(3L, ConsentStatus.EXPIRED, 1), eventLog.get(3L));
+            assertNull(eventLog.get(4L));
+        }
+    }
+
+    @Test
+    public void rollSegmentWhenFull() throws IOException {
+
+        // Arrange
+        int consents = 2000;
+
+        try (var eventLog = open()) {
+            for (long consentId = 1; consentId <= consents; consentId++) {
+                eventLog.append(ConsentEvent.created(consent(consentId, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+            }
+        }
+        deleteSnapshots();
+
+        // Act
+        try (var eventLog = open()) {
+
+            // Assert
+            assertTrue(files("segment-").size() > 1);
+            assertEquals(consents, eventLog.sequence());
+            assertEquals(consents, eventLog.size());
+        }
+    }
+
+    @Test
+    public void replayEventsAfterSnapshot() throws IOException {
+
+        // Arrange
+        var eventLog = open();
+        eventLog.append(ConsentEvent.created(consent(1L, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+        eventLog.append(ConsentEvent.created(consent(2L, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+        eventLog.snapshot();
+
+        // Not in the snapshot: replayed from the segment (the log is not closed, as after a crash)
+        eventLog.append(ConsentEvent.updated(consent(1L, ConsentStatus.REJECT, 1)));
+        eventLog.append(ConsentEvent.revoked(2L, INSTANT));
+
+        // Act
+        try (var reopened = open()) {
+
+            // Assert
+            assertEquals(List.of("snapshot-00000000000000000002.snap"), files("snapshot-"));
+            assertEquals(4, reopened.sequence());
+            assertEquals(consent(1L, ConsentStatus.REJECT, 1), reopened.get(1L));
+            assertNull(reopened.get(2L));
+        }
+    }
+
+    @Test
+    public void discardTornWriteAndAppendOverIt() throws IOException {
+
+        // Arrange
+        try (var eventLog = open()) {
+            eventLog.append(ConsentEvent.created(consent(1L, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+            eventLog.append(ConsentEvent.created(consent(2L, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+        }
+        deleteSnapshots();
+        tearSecondEvent();
+
+        // Act
+        try (var eventLog = open()) {
+            assertEquals(1, eventLog.sequence());
+            assertNull(eventLog.get(2L));
+
+            eventLog.append(ConsentEvent.created(consent(3L, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+        }
+        deleteSnapshots();
+
+        // Assert
+        try (var eventLog = open()) {
+            assertEquals(2, eventLog.sequence());
+            assertEquals(2, eventLog.size());
+            assertNotNull(eventLog.get(3L));
+        }
+    }
+
+    @Test
+    public void dropStateBeyondMaximumSize() throws IOException {
+
+        // Arrange
+        try (var eventLog = open(2)) {
+            eventLog.append(ConsentEvent.created(consent(1L, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+            eventLog.append(ConsentEvent.created(consent(2L, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+            eventLog.snapshot();
+
+            // Act
+            eventLog.append(ConsentEvent.created(consent(3L, ConsentStatus.AWAITING_AUTHORISATION, 0)));
+            eventLog.append(ConsentEvent.updated(consent(1L, ConsentStatus.AUTHORISED, 1)));
+            eventLog.snapshot();
+
+            // Assert: events are still appended, but the state is gone and no snapshot is taken past it
+            assertTrue(eventLog.isStateDropped());
+            assertEquals(0, eventLog.size());
+            assertEquals(4, eventLog.sequence());
+            assertEquals(List.of("snapshot-00000000000000000002.snap"), files("snapshot-"));
+        }
+
+        // Assert: the history is kept, and replayed whole with a larger maximum
+        try (var eventLog = open(Integer.MAX_VALUE)) {
+            assertFalse(eventLog.isStateDropped());
+            assertEquals(4, eventLog.sequence());
+            assertEquals(3, eventLog.size());
+            assertEquals(consent(1L, ConsentStatus.AUTHORISED, 1), eventLog.get(1L));
+        }
+    }
+
+    @Test
+    public void rejectSegmentSmallerThanAnEvent() {
+
+        // Act
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> new MappedConsentEventLog(directory, 1024, Integer.MAX_VALUE, Duration.ZERO, Duration.ZERO)
+        );
+
+        // Assert
+        assertTrue(exception.getMessage().startsWith("Segment size must be at least"));
+    }
+
+    private MappedConsentEventLog open() throws IOException {
+        return open(Integer.MAX_VALUE);
+    }
+
+    private MappedConsentEventLog open(int maxStateSize) throws IOException {
+        return new MappedConsentEventLog(directory, SEGMENT_SIZE, maxStateSize, Duration.ZERO, Duration.ZERO);
+    }
+
+    private static ConsentSnapshot consent(long consentId, ConsentStatus status, long version) {
+        return new ConsentSnapshot(consentId, "user-" + consentId, List.of(ConsentPermission.READ_DATA),
+                status, INSTANT, INSTANT.plusSeconds(version), version,
+                version % 2 == 0 ? null : INSTANT.plus(Duration.ofDays(90)));
+    }
+
+    /**
+     * Corrupt the body of the second event of the first segment, as a write cut short by a crash
+     */
+    private void tearSecondEvent() throws IOException {
+        var segment = directory.resolve(files("segment-").get(0));
+        try (var channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int second = 4 + buffer.getInt(0);
+            int body = second + ConsentEventCodec.HEADER_SIZE;
+            buffer.put(body, (byte) ~buffer.get(body));
+            buffer.force();
+        }
+    }
+
+    private void deleteSnapshots() throws IOException {
+        for (var file : files("snapshot-")) {
+            Files.delete(directory.resolve(file));
+        }
+    }
+
+    private List<String> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
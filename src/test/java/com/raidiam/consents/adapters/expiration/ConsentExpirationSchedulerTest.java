@@ -0,0 +1,152 @@
+package com.raidiam.consents.adapters.expiration;
+
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.usecases.expireconsents.IExpireConsents;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ConsentExpirationSchedulerTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T03:00:00Z");
+
+    private IExpireConsents expireConsents;
+    private IConsentRepository consentRepository;
+    private Clock clock;
+    private ConsentExpirationScheduler scheduler;
+
+    @BeforeEach
+    public void init() {
+        expireConsents = mock(IExpireConsents.class);
+        consentRepository = mock(IConsentRepository.class);
+        clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> clock.instant().toEpochMilli());
+        when(clock.instant()).thenReturn(START);
+        scheduler = new ConsentExpirationScheduler(expireConsents, consentRepository, clock, Duration.ofSeconds(1),
+                Duration.ofMinutes(1), 64, 2, 2);
+    }
+
+    @Test
+    public void rebuildFromExpirationPages() {
+
+        // Arrange
+        when(expireConsents.executeAllDue()).thenReturn(5);
+        when(consentRepository.findExpirationPage(eq(Instant.EPOCH), eq(0L), any())).thenReturn(List.of(
+                new ConsentExpiration(7L, START.plusSeconds(10)),
+                new ConsentExpiration(3L, START.plusSeconds(20))));
+        when(consentRepository.findExpirationPage(eq(START.plusSeconds(20)), eq(3L), any())).thenReturn(List.of(
+                new ConsentExpiration(4L, START.plusSeconds(20))));
+        when(consentRepository.findExpirationPage(eq(START.plusSeconds(20)), eq(4L), any())).thenReturn(List.of());
+
+        // Act
+        scheduler.rebuild();
+
+        // Assert
+        assertEquals(3, scheduler.scheduled());
+        assertEquals(5, scheduler.expired());
+        verify(consentRepository, times(3)).findExpirationPage(any(), any(), any());
+    }
+
+    @Test
+    public void scheduleConsentsFallingDueDuringRebuild() {
+
+        // Arrange: the clock moves on once the consents already due are expired
+        when(expireConsents.executeAllDue()).thenAnswer(invocation -> {
+            when(clock.instant()).thenReturn(START.plusSeconds(2));
+            return 0;
+        });
+        when(consentRepository.findExpirationPage(eq(Instant.EPOCH), eq(0L), any())).thenReturn(List.of(
+                new ConsentExpiration(7L, START.plusSeconds(1))));
+        when(consentRepository.findExpirationPage(eq(START.plusSeconds(1)), eq(7L), any())).thenReturn(List.of());
+        when(expireConsents.execute(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        // Act
+        scheduler.rebuild();
+        scheduler.expireDue();
+
+        // Assert: due between the two steps, expired at the first tick
+        verify(expireConsents).execute(List.of(7L));
+        assertEquals(0, scheduler.scheduled());
+        assertEquals(1, scheduler.expired());
+    }
+
+    @Test
+    public void expireDueConsentsInBatches() {
+
+        // Arrange
+        var batches = new ArrayList<List<Long>>();
+        when(expireConsents.execute(anyList())).thenAnswer(invocation -> {
+            List<Long> consentIds = invocation.getArgument(0);
+            batches.add(consentIds);
+            return consentIds.size();
+        });
+
+        scheduler.schedule(1L, START.plusSeconds(5));
+        scheduler.schedule(2L, START.plusSeconds(5));
+        scheduler.schedule(3L, START.plusSeconds(5));
+        scheduler.schedule(4L, START.plusSeconds(60));
+        scheduler.schedule(5L, null);
+
+        // Act
+        when(clock.instant()).thenReturn(START.plusSeconds(5));
+        scheduler.expireDue();
+
+        // Assert
+        assertEquals(2, batches.size());
+        assertEquals(3, batches.stream().mapToInt(List::size).sum());
+        assertEquals(3, scheduler.expired());
+        assertEquals(1, scheduler.scheduled());
+    }
+
+    @Test
+    public void retryFailedBatchAtNextTick() {
+
+        // Arrange
+        when(expireConsents.execute(anyList()))
+                .thenThrow(new IllegalStateException("Database down"))
+                .thenReturn(1);
+        scheduler.schedule(1L, START.plusSeconds(5));
+
+        // Act
+        when(clock.instant()).thenReturn(START.plusSeconds(5));
+        scheduler.expireDue();
+        var scheduledAfterFailure = scheduler.scheduled();
+        when(clock.instant()).thenReturn(START.plusSeconds(6));
+        scheduler.expireDue();
+
+        // Assert
+        assertEquals(1, scheduledAfterFailure);
+        assertEquals(0, scheduler.scheduled());
+        assertEquals(1, scheduler.expired());
+        verify(expireConsents, times(2)).execute(List.of(1L));
+    }
+
+    @Test
+    public void sweepConsentsDueOutsideWheel() {
+
+        // Arrange
+        when(expireConsents.executeAllDue())
+                .thenThrow(new IllegalStateException("Database down"))
+                .thenReturn(3);
+
+        // Act
+        scheduler.sweep();
+        scheduler.sweep();
+
+        // Assert: nothing scheduled here, expired by the second sweep
+        assertEquals(0, scheduler.scheduled());
+        assertEquals(3, scheduler.expired());
+        verify(expireConsents, times(2)).executeAllDue();
+    }
+}
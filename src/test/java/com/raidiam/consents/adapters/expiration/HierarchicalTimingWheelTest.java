@@ -0,0 +1,125 @@
+package com.raidiam.consents.adapters.expiration;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_735_700_400_000L;
+
+    @Test
+    public void fireAtTheTickOfTheDeadline() {
+
+        // Arrange
+        var wheel = new HierarchicalTimingWheel(Duration.ofSeconds(1), 64, START);
+        wheel.schedule(1L, START + 2_500);
+
+        // Act
+        var beforeDeadline = wheel.advance(START + 2_999);
+        var atDeadline = wheel.advance(START + 3_000);
+
+        // Assert
+        assertEquals(0, beforeDeadline.length);
+        assertArrayEquals(new long[] {1L}, atDeadline);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void cascadeFromUpperLevels() {
+
+        // Arrange
+        var wheel = new HierarchicalTimingWheel(Duration.ofMillis(1), 4, START);
+        long deadline = START + 4 * 4 * 4 * 3 + 7;
+        wheel.schedule(1L, deadline);
+
+        // Act
+        var beforeDeadline = wheel.advance(deadline - 1);
+        var atDeadline = wheel.advance(deadline);
+
+        // Assert
+        assertEquals(0, beforeDeadline.length);
+        assertArrayEquals(new long[] {1L}, atDeadline);
+    }
+
+    @Test
+    public void fireTimersScheduledInThePastAtTheNextAdvance() {
+
+        // Arrange
+        var wheel = new HierarchicalTimingWheel(Duration.ofSeconds(1), 64, START);
+        wheel.schedule(1L, START - 60_000);
+        wheel.schedule(2L, START);
+
+        // Act
+        var due = wheel.advance(START);
+
+        // Assert
+        Arrays.sort(due);
+        assertArrayEquals(new long[] {1L, 2L}, due);
+    }
+
+    @Test
+    public void fireEveryTimerAtItsTick() {
+
+        // Arrange
+        var wheel = new HierarchicalTimingWheel(Duration.ofMillis(10), 8, START);
+        var random = new Random(42);
+        var deadlines = new HashMap<Long, Long>();
+        for (long id = 0; id < 10_000; id++) {
+            long deadline = START + random.nextInt(2_000_000);
+            deadlines.put(id, deadline);
+            wheel.schedule(id, deadline);
+        }
+
+        // Act
+        var fired = new HashMap<Long, Long>();
+        for (long now = START; now <= START + 2_000_000; now += 10) {
+            for (long id : wheel.advance(now)) {
+                fired.put(id, now);
+            }
+        }
+
+        // Assert
+        assertEquals(deadlines.size(), fired.size());
+        assertEquals(0, wheel.size());
+        deadlines.forEach((id, deadline) -> {
+            long firedAt = fired.get(id);
+            assertTrue(firedAt >= deadline && firedAt < deadline + 10, "Timer " + id + " fired at " + firedAt);
+        });
+    }
+
+    @Test
+    public void catchUpAfterAJump() {
+
+        // Arrange
+        var wheel = new HierarchicalTimingWheel(Duration.ofSeconds(1), 64, START);
+        List<Long> ids = new ArrayList<>();
+        Map<Long, Long> deadlines = Map.of(1L, START + 5_000, 2L, START + 3_600_000, 3L, START + 86_400_000);
+        deadlines.forEach(wheel::schedule);
+
+        // Act
+        for (long id : wheel.advance(START + 3_600_000)) {
+            ids.add(id);
+        }
+
+        // Assert
+        ids.sort(null);
+        assertEquals(List.of(1L, 2L), ids);
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    public void rejectWheelSizeNotPowerOfTwo() {
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel(Duration.ofSeconds(1), 60, START));
+    }
+}
@@ -0,0 +1,114 @@
+package com.raidiam.consents.adapters.idgenerator;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockIdGeneratorTest {
+
+    @Test
+    public void handOutIdsFromLeasedBlock() {
+
+        // Arrange
+        var leases = new AtomicInteger();
+        var next = new AtomicLong(1);
+        IIdBlockSource source = (name, size) -> {
+            leases.incrementAndGet();
+            return next.getAndAdd(size);
+        };
+        var generator = new BlockIdGenerator(source, "consent", 10);
+
+        // Act & Assert
+        for (long id = 1; id <= 25; id++) {
+            assertEquals(id, generator.nextId());
+        }
+
+        assertEquals(3, leases.get());
+    }
+
+    @Test
+    public void neverRepeatIdsUnderContention() throws Exception {
+
+        // Arrange
+        var next = new AtomicLong(1);
+        var generator = new BlockIdGenerator((name, size) -> next.getAndAdd(size), "consent", 100);
+        var threads = 16;
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(threads);
+        var futures = new ArrayList<Future<long[]>>();
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                var ids = new long[10_000];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+
+        start.countDown();
+
+        var unique = new HashSet<Long>();
+        for (var future : futures) {
+            for (long id : future.get()) {
+                unique.add(id);
+            }
+        }
+
+        executor.shutdown();
+
+        // Assert
+        assertEquals(threads * 10_000, unique.size());
+    }
+
+    @Test
+    public void keepIdsUniqueAcrossNodesAndRestarts() {
+
+        // Arrange
+        var dataSource = new DriverManagerDataSource(String.format("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", UUID.randomUUID()), "user", "pass");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        var source = new JdbcIdBlockSource(dataSource);
+        var node1 = new BlockIdGenerator(source, "consent", 10);
+        var node2 = new BlockIdGenerator(source, "consent", 10);
+
+        // Act
+        var first = node1.nextId();
+        var second = node2.nextId();
+        var restarted = new BlockIdGenerator(source, "consent", 10).nextId();
+
+        // Assert
+        assertEquals(1, first);
+        assertEquals(11, second);
+        assertEquals(21, restarted);
+        assertEquals(31, new JdbcTemplate(dataSource).queryForObject("SELECT next_id FROM id_block WHERE name = 'consent'", Long.class));
+    }
+
+    @Test
+    public void failOnUnknownRange() {
+
+        // Arrange
+        var dataSource = new DriverManagerDataSource(String.format("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", UUID.randomUUID()), "user", "pass");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        var generator = new BlockIdGenerator(new JdbcIdBlockSource(dataSource), "unknown", 10);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+}
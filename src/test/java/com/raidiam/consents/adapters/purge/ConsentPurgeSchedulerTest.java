@@ -0,0 +1,86 @@
+package com.raidiam.consents.adapters.purge;
+
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.usecases.purgeconsents.IPurgeConsents;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class ConsentPurgeSchedulerTest {
+
+    private static final Instant NOW = Instant.parse("2025-02-01T03:00:00Z");
+    private static final List<ConsentStatus> STATUSES = List.of(ConsentStatus.REJECT);
+
+    private IPurgeConsents purgeConsents;
+    private ConsentPurgeScheduler scheduler;
+
+    @BeforeEach
+    public void init() {
+        purgeConsents = mock(IPurgeConsents.class);
+        var clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        scheduler = new ConsentPurgeScheduler(purgeConsents, clock, STATUSES, Duration.ofDays(30), 3,
+                Duration.ZERO, Duration.ofHours(1));
+    }
+
+    @Test
+    public void purgeChunksUntilOneIsNotFull() {
+
+        // Arrange
+        when(purgeConsents.execute(STATUSES, NOW.minus(Duration.ofDays(30)), 3)).thenReturn(3, 3, 1);
+
+        // Act
+        scheduler.purge();
+
+        // Assert
+        assertEquals(7, scheduler.purged());
+        assertEquals(7, scheduler.runPurged());
+        assertEquals(3, scheduler.chunks());
+        verify(purgeConsents, times(3)).execute(any(), any(), anyInt());
+    }
+
+    @Test
+    public void countPurgedConsentsOverRuns() {
+
+        // Arrange
+        when(purgeConsents.execute(any(), any(), anyInt())).thenReturn(3, 2, 0);
+
+        // Act
+        scheduler.purge();
+        scheduler.purge();
+
+        // Assert
+        assertEquals(5, scheduler.purged());
+        assertEquals(0, scheduler.runPurged());
+        assertEquals(3, scheduler.chunks());
+    }
+
+    @Test
+    public void stopRunOnFailureAndPurgeAgainNextRun() {
+
+        // Arrange
+        when(purgeConsents.execute(any(), any(), anyInt()))
+                .thenReturn(3)
+                .thenThrow(new IllegalStateException("Database is down"))
+                .thenReturn(1);
+
+        // Act
+        scheduler.purge();
+        long purgedBeforeFailure = scheduler.runPurged();
+        scheduler.purge();
+
+        // Assert
+        assertEquals(3, purgedBeforeFailure);
+        assertEquals(4, scheduler.purged());
+        assertEquals(1, scheduler.runPurged());
+    }
+}
@@ -0,0 +1,144 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedRateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private BoundedRateLimiter rateLimiter(long maxTrackedKeys) {
+        return new BoundedRateLimiter(new RateLimit(5, Duration.ofSeconds(1)), nanos::get, maxTrackedKeys, 0.0001, 0.01);
+    }
+
+    @Test
+    public void allowRequestsUpToLimit() {
+
+        // Arrange
+        var rateLimiter = rateLimiter(100);
+
+        // Act & Assert
+        for (int i = 0; i < 5; i++) {
+            assertTrue(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+        }
+
+        assertFalse(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+    }
+
+    @Test
+    public void replenishPermitsOverTime() {
+
+        // Arrange
+        var rateLimiter = rateLimiter(100);
+
+        for (int i = 0; i < 6; i++) {
+            rateLimiter.tryAcquire("127.0.0.1", 1);
+        }
+
+        // Act
+        nanos.addAndGet(Duration.ofMillis(200).toNanos());
+
+        // Assert
+        assertTrue(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+        assertFalse(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+    }
+
+    @Test
+    public void countLongTailApproximately() {
+
+        // Arrange
+        var rateLimiter = rateLimiter(100);
+
+        // Act
+        rateLimiter.tryAcquire("127.0.0.1", 1);
+
+        // Assert: below the promotion threshold no exact state is kept
+        assertEquals(0, rateLimiter.trackedKeys());
+        assertEquals(Duration.ofMillis(400).toNanos(), rateLimiter.tryAcquire("127.0.0.1", 1));
+    }
+
+    @Test
+    public void boundMemoryUnderSpoofedKeyFlood() {
+
+        // Arrange
+        var rateLimiter = rateLimiter(100);
+
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire("127.0.0.1", 1);
+        }
+
+        // Act: 100,000 distinct keys, a few of them repeated
+        long rejected = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (! IRateLimiter.isAllowed(rateLimiter.tryAcquire("10." + (i % 50_000), 1))) {
+                rejected++;
+            }
+        }
+
+        // Assert
+        assertEquals(0, rejected);
+        assertTrue(rateLimiter.trackedKeys() <= 100);
+        assertFalse(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+    }
+
+    @Test
+    public void rejectWithZeroLimit() {
+
+        // Arrange
+        var rateLimiter = new BoundedRateLimiter(new RateLimit(0, Duration.ofSeconds(1)), nanos::get, 100, 0.001, 0.01);
+
+        // Act & Assert
+        assertEquals(-Duration.ofSeconds(1).toNanos(), rateLimiter.tryAcquire("127.0.0.1", 1));
+    }
+
+    @Test
+    public void keepCountsOfNewWindowWhileRotating() throws Exception {
+
+        // Arrange: below the promotion threshold, so every count comes from the sketches
+        var rateLimit = new RateLimit(1_000_000, Duration.ofSeconds(1));
+        var rateLimiter = new BoundedRateLimiter(rateLimit, nanos::get, 100, 0.0001, 0.01);
+        int threads = 8;
+        int windows = 100;
+        var round = new AtomicLong();
+        var windowStarted = new CyclicBarrier(threads,
+                () -> nanos.set(round.incrementAndGet() * Duration.ofSeconds(1).toNanos()));
+        var firstRequestsDone = new CyclicBarrier(threads);
+        var executor = Executors.newFixedThreadPool(threads);
+
+        // Act: every thread sends its first request of each window as the window starts, then a second one
+        var results = new ArrayList<Future<Long>>();
+        try {
+            for (int thread = 0; thread < threads; thread++) {
+                String key = "10.0.0." + thread;
+                results.add(executor.submit(() -> {
+                    long lost = 0;
+                    for (int window = 0; window < windows; window++) {
+                        windowStarted.await(5, TimeUnit.SECONDS);
+                        rateLimiter.tryAcquire(key + "-" + window, 1);
+                        firstRequestsDone.await(5, TimeUnit.SECONDS);
+                        if (rateLimiter.tryAcquire(key + "-" + window, 1) < 2 * rateLimit.getEmissionIntervalNanos()) {
+                            lost++;
+                        }
+                    }
+                    return lost;
+                }));
+            }
+
+            // Assert: the rotation never wiped a first request
+            for (var result : results) {
+                assertEquals(0, result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CountMinSketchTest {
+
+    private static final double EPSILON = 0.01;
+    private static final double DELTA = 0.01;
+
+    @Test
+    public void sizeFromErrorBounds() {
+
+        // Act
+        var sketch = new CountMinSketch(EPSILON, DELTA, 42);
+
+        // Assert
+        assertEquals(272, sketch.getWidth());
+        assertEquals(5, sketch.getDepth());
+    }
+
+    @Test
+    public void stayWithinErrorBounds() {
+
+        // Arrange
+        var sketch = new CountMinSketch(EPSILON, DELTA, 42);
+        var random = new SplittableRandom(42);
+        var counts = new HashMap<String, Long>();
+        long total = 0;
+
+        // Act: a few heavy hitters and a long tail of 50,000 keys
+        for (int i = 0; i < 200_000; i++) {
+            var key = random.nextInt(4) == 0
+                    ? "10.0.0." + random.nextInt(10)
+                    : "192.168." + random.nextInt(50_000);
+
+            sketch.add(key, 1);
+            counts.merge(key, 1L, Long::sum);
+            total++;
+        }
+
+        // Assert: never below the true count, above it by more than epsilon * N for at most delta of the keys
+        long exceeded = 0;
+        for (var entry : counts.entrySet()) {
+            long error = sketch.estimate(entry.getKey()) - entry.getValue();
+
+            assertTrue(error >= 0);
+            if (error > EPSILON * total) {
+                exceeded++;
+            }
+        }
+
+        assertTrue(exceeded <= DELTA * counts.size(), "keys over the error bound: " + exceeded);
+    }
+
+    @Test
+    public void countExactlyWithoutCollisions() {
+
+        // Arrange
+        var sketch = new CountMinSketch(EPSILON, DELTA, 42);
+
+        // Act
+        sketch.add("127.0.0.1", 3);
+        var estimate = sketch.add("127.0.0.1", 2);
+
+        // Assert
+        assertEquals(5, estimate);
+        assertEquals(5, sketch.estimate("127.0.0.1"));
+        assertEquals(0, sketch.estimate("127.0.0.2"));
+    }
+
+    @Test
+    public void separateKeysWithSameStringHashCode() {
+
+        // Arrange: same String.hashCode for every key
+        var sketch = new CountMinSketch(EPSILON, DELTA, 42);
+        var keys = List.of("AaAa", "AaBB", "BBAa", "BBBB");
+        assertEquals(1, keys.stream().mapToInt(String::hashCode).distinct().count());
+
+        // Act
+        sketch.add("AaAa", 100);
+
+        // Assert
+        assertEquals(100, sketch.estimate("AaAa"));
+        assertEquals(0, sketch.estimate("AaBB"));
+        assertEquals(0, sketch.estimate("BBAa"));
+        assertEquals(0, sketch.estimate("BBBB"));
+    }
+
+    @Test
+    public void resetCounters() {
+
+        // Arrange
+        var sketch = new CountMinSketch(EPSILON, DELTA, 42);
+        sketch.add("127.0.0.1", 3);
+
+        // Act
+        sketch.clear();
+
+        // Assert
+        assertEquals(0, sketch.estimate("127.0.0.1"));
+    }
+}
@@ -0,0 +1,161 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InMemoryRateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    public void allowRequestsUpToLimit() {
+
+        // Arrange
+        var rateLimiter = new InMemoryRateLimiter(new RateLimit(5, Duration.ofSeconds(1)), nanos::get);
+
+        // Act & Assert
+        for (int i = 0; i < 5; i++) {
+            assertTrue(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+        }
+
+        var result = rateLimiter.tryAcquire("127.0.0.1", 1);
+
+        assertFalse(IRateLimiter.isAllowed(result));
+        assertEquals(-Duration.ofMillis(200).toNanos(), result);
+    }
+
+    @Test
+    public void replenishPermitsOverTime() {
+
+        // Arrange
+        var rateLimiter = new InMemoryRateLimiter(new RateLimit(5, Duration.ofSeconds(1)), nanos::get);
+
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire("127.0.0.1", 1);
+        }
+
+        // Act
+        nanos.addAndGet(Duration.ofMillis(200).toNanos());
+
+        // Assert
+        assertTrue(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+        assertFalse(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+    }
+
+    @Test
+    public void keepBusyClientThrottledWithinWindow() {
+
+        // Arrange
+        var rateLimiter = new InMemoryRateLimiter(new RateLimit(5, Duration.ofSeconds(1)), nanos::get);
+        var allowed = 0;
+
+        // Act: one request every 10ms during 2 seconds
+        for (int i = 0; i < 200; i++) {
+            if (IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1))) {
+                allowed++;
+            }
+            nanos.addAndGet(Duration.ofMillis(10).toNanos());
+        }
+
+        // Assert: initial burst plus one permit every 200ms
+        assertEquals(5 + 9, allowed);
+    }
+
+    @Test
+    public void applyRequestCost() {
+
+        // Arrange
+        var rateLimiter = new InMemoryRateLimiter(new RateLimit(5, Duration.ofSeconds(1)), nanos::get);
+
+        // Act & Assert
+        assertTrue(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 3)));
+        assertFalse(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 3)));
+        assertTrue(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 2)));
+    }
+
+    @Test
+    public void isolateKeys() {
+
+        // Arrange
+        var rateLimiter = new InMemoryRateLimiter(new RateLimit(1, Duration.ofSeconds(1)), nanos::get);
+
+        // Act & Assert
+        assertTrue(IRateLimiter.isAllowed(rateLimiter.tryAcquire("10.0.0.1", 1)));
+        assertTrue(IRateLimiter.isAllowed(rateLimiter.tryAcquire("10.0.0.2", 1)));
+        assertFalse(IRateLimiter.isAllowed(rateLimiter.tryAcquire("10.0.0.1", 1)));
+    }
+
+    @Test
+    public void rejectAllRequestsWithZeroLimit() {
+
+        // Arrange
+        var rateLimiter = new InMemoryRateLimiter(new RateLimit(0, Duration.ofSeconds(1)), nanos::get);
+
+        // Act & Assert
+        assertFalse(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+    }
+
+    @Test
+    public void allowLimitAboveOnePermitPerNanosecond() {
+
+        // Arrange
+        var rateLimit = new RateLimit(Integer.MAX_VALUE, Duration.ofSeconds(1));
+        var rateLimiter = new InMemoryRateLimiter(rateLimit, nanos::get);
+
+        // Act
+        var result = rateLimiter.tryAcquire("127.0.0.1", 1);
+
+        // Assert
+        assertTrue(IRateLimiter.isAllowed(result));
+        assertEquals(Integer.MAX_VALUE - 1, rateLimit.remaining(result));
+    }
+
+    @Test
+    public void neverLoseIncrementsUnderContention() throws Exception {
+
+        // Arrange
+        var limit = 1_000;
+        var threads = 16;
+        var attemptsPerThread = 1_000;
+        var rateLimiter = new InMemoryRateLimiter(new RateLimit(limit, Duration.ofSeconds(1)), nanos::get);
+        var executor = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+        var futures = new ArrayList<Future<Integer>>();
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                var allowed = 0;
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1))) {
+                        allowed++;
+                    }
+                }
+                return allowed;
+            }));
+        }
+
+        start.countDown();
+
+        var allowed = 0;
+        for (var future : futures) {
+            allowed += future.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(limit, allowed);
+    }
+}
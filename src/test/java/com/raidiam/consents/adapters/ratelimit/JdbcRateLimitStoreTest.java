@@ -0,0 +1,186 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JdbcRateLimitStoreTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+    private static final long NOW_NANOS = NOW.getEpochSecond() * 1_000_000_000L;
+
+    private final Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+    private final AtomicLong nanos = new AtomicLong();
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void init() {
+        dataSource = new DriverManagerDataSource(String.format("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", UUID.randomUUID()), "user", "pass");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V2__create_rate_limit_state.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    private JdbcRateLimitStore store(int leaseSize) {
+        return new JdbcRateLimitStore(dataSource, clock, nanos::get, leaseSize, Duration.ofMillis(100), Duration.ZERO, Duration.ofSeconds(1));
+    }
+
+    private Long tat(String key) {
+        return jdbcTemplate.queryForObject("SELECT tat FROM rate_limit_state WHERE bucket = 'default' AND client_key = ?", Long.class, key);
+    }
+
+    @Test
+    public void holdLimitAcrossNodes() {
+
+        // Arrange
+        var rateLimit = new RateLimit(10, Duration.ofSeconds(1));
+        var node1 = store(3).create("default", rateLimit);
+        var node2 = store(3).create("default", rateLimit);
+        var allowed = 0;
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            if (IRateLimiter.isAllowed(node1.tryAcquire("127.0.0.1", 1))) {
+                allowed++;
+            }
+            if (IRateLimiter.isAllowed(node2.tryAcquire("127.0.0.1", 1))) {
+                allowed++;
+            }
+        }
+
+        // Assert
+        assertEquals(10, allowed);
+    }
+
+    @Test
+    public void spendLeasedPermitsLocally() {
+
+        // Arrange
+        var rateLimiter = store(5).create("default", new RateLimit(10, Duration.ofSeconds(1)));
+        var interval = Duration.ofMillis(100).toNanos();
+
+        // Act
+        rateLimiter.tryAcquire("127.0.0.1", 1);
+        var leasedTat = tat("127.0.0.1");
+        for (int i = 0; i < 4; i++) {
+            assertTrue(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+        }
+
+        // Assert: one lease of five permits, no further writes
+        assertEquals(NOW_NANOS + 5 * interval, leasedTat);
+        assertEquals(leasedTat, tat("127.0.0.1"));
+    }
+
+    @Test
+    public void giveBackUnusedPermitsOnSync() {
+
+        // Arrange
+        var store = store(5);
+        var rateLimiter = store.create("default", new RateLimit(10, Duration.ofSeconds(1)));
+        var interval = Duration.ofMillis(100).toNanos();
+
+        rateLimiter.tryAcquire("127.0.0.1", 1);
+
+        // Act
+        store.sync();
+        var tatBeforeExpiry = tat("127.0.0.1");
+
+        nanos.addAndGet(Duration.ofMillis(100).toNanos());
+        store.sync();
+
+        // Assert
+        assertEquals(NOW_NANOS + 5 * interval, tatBeforeExpiry);
+        assertEquals(NOW_NANOS + interval, tat("127.0.0.1"));
+    }
+
+    @Test
+    public void rejectWithRetryTimeWhenExhausted() {
+
+        // Arrange
+        var rateLimiter = store(5).create("default", new RateLimit(2, Duration.ofSeconds(1)));
+
+        // Act
+        var first = rateLimiter.tryAcquire("127.0.0.1", 1);
+        var second = rateLimiter.tryAcquire("127.0.0.1", 1);
+        var third = rateLimiter.tryAcquire("127.0.0.1", 1);
+
+        // Assert
+        assertTrue(IRateLimiter.isAllowed(first));
+        assertTrue(IRateLimiter.isAllowed(second));
+        assertFalse(IRateLimiter.isAllowed(third));
+        assertEquals(-Duration.ofMillis(500).toNanos(), third);
+    }
+
+    @Test
+    public void allowFirstRequestWithMovingTicker() {
+
+        // Arrange
+        var store = new JdbcRateLimitStore(dataSource, clock, nanos::incrementAndGet, 5, Duration.ofMillis(100), Duration.ZERO,
+                Duration.ofSeconds(1));
+        var rateLimiter = store.create("default", new RateLimit(10, Duration.ofSeconds(1)));
+
+        // Act & Assert
+        assertTrue(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+    }
+
+    @Test
+    public void failOpenWhenStoreIsUnavailable() {
+
+        // Arrange
+        var rateLimiter = store(5).create("default", new RateLimit(10, Duration.ofSeconds(1)));
+        jdbcTemplate.execute("DROP TABLE rate_limit_state");
+
+        // Act & Assert
+        assertTrue(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+    }
+
+    @Test
+    public void failOpenAtPolicyRate() {
+
+        // Arrange: one permit per 100 ms, the lease TTL
+        var rateLimiter = store(5).create("default", new RateLimit(10, Duration.ofSeconds(1)));
+        jdbcTemplate.execute("DROP TABLE rate_limit_state");
+
+        // Act
+        var first = rateLimiter.tryAcquire("127.0.0.1", 1);
+        var second = rateLimiter.tryAcquire("127.0.0.1", 1);
+        nanos.addAndGet(Duration.ofMillis(100).toNanos());
+        var third = rateLimiter.tryAcquire("127.0.0.1", 1);
+
+        // Assert: a lease of one permit, not of lease-size permits
+        assertTrue(IRateLimiter.isAllowed(first));
+        assertFalse(IRateLimiter.isAllowed(second));
+        assertEquals(-Duration.ofMillis(100).toNanos(), second);
+        assertTrue(IRateLimiter.isAllowed(third));
+    }
+
+    @Test
+    public void failOpenWhenDatabaseIsUnreachable() {
+
+        // Arrange
+        var unreachable = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/unreachable", "user", "pass");
+        var store = new JdbcRateLimitStore(unreachable, clock, nanos::get, 5, Duration.ofMillis(100), Duration.ZERO,
+                Duration.ofSeconds(1));
+        var rateLimiter = store.create("default", new RateLimit(10, Duration.ofSeconds(1)));
+
+        // Act & Assert
+        assertTrue(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+        assertFalse(IRateLimiter.isAllowed(rateLimiter.tryAcquire("127.0.0.1", 1)));
+    }
+}
@@ -0,0 +1,36 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RateLimitRejectionLoggerTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final RateLimitPolicy policy = new RateLimitPolicy("default", 1, null, null);
+
+    @Test
+    public void logAtMostOncePerInterval() {
+
+        // Arrange
+        var rejectionLogger = new RateLimitRejectionLogger(nanos::get, Duration.ofSeconds(1));
+        var lines = 0;
+
+        // Act: 1000 rejections in 2.5 seconds
+        for (int i = 0; i < 1000; i++) {
+            if (rejectionLogger.record("127.0.0.1", policy)) {
+                lines++;
+            }
+            nanos.addAndGet(Duration.ofMillis(2).toNanos() + Duration.ofMillis(1).toNanos() / 2);
+        }
+
+        // Assert
+        assertEquals(3, lines);
+    }
+}
@@ -0,0 +1,75 @@
+package com.raidiam.consents.adapters.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RouteTableTest {
+
+    private RouteTable<String> routeTable() {
+        var routeTable = new RouteTable<String>();
+        routeTable.add("POST", "/consents", "create");
+        routeTable.add("GET", "/consents/{consentId}", "retrieve");
+        routeTable.add("PUT", "/consents/{consentId}", "update");
+        routeTable.add("GET", "/consents/export", "export");
+        routeTable.add("GET", "/consents/{consentId}/history", "history");
+        return routeTable;
+    }
+
+    @Test
+    public void matchRoutesByMethod() {
+
+        // Arrange
+        var routeTable = routeTable();
+
+        // Act & Assert
+        assertEquals("create", routeTable.match("POST", "/consents"));
+        assertEquals("retrieve", routeTable.match("GET", "/consents/consent-1"));
+        assertEquals("update", routeTable.match("PUT", "/consents/consent-1"));
+        assertNull(routeTable.match("DELETE", "/consents/consent-1"));
+        assertNull(routeTable.match("GET", "/consents"));
+    }
+
+    @Test
+    public void preferLiteralSegmentsOverPathVariables() {
+
+        // Arrange
+        var routeTable = routeTable();
+
+        // Act & Assert
+        assertEquals("export", routeTable.match("GET", "/consents/export"));
+        assertEquals("history", routeTable.match("GET", "/consents/export/history"));
+    }
+
+    @Test
+    public void ignoreRepeatedAndTrailingSlashes() {
+
+        // Arrange
+        var routeTable = routeTable();
+
+        // Act & Assert
+        assertEquals("create", routeTable.match("POST", "/consents/"));
+        assertEquals("retrieve", routeTable.match("GET", "//consents//consent-1"));
+    }
+
+    @Test
+    public void notMatchUnknownRoutesOrMethods() {
+
+        // Arrange
+        var routeTable = routeTable();
+
+        // Act & Assert
+        assertNull(routeTable.match("GET", "/permissions"));
+        assertNull(routeTable.match("GET", "/consents/consent-1/unknown"));
+        assertNull(routeTable.match("BREW", "/consents"));
+        assertNull(routeTable.match("GET", null));
+    }
+
+    @Test
+    public void rejectUnsupportedMethod() {
+        assertThrows(IllegalArgumentException.class, () -> new RouteTable<String>().add("BREW", "/consents", "coffee"));
+    }
+}
@@ -0,0 +1,157 @@
+package com.raidiam.consents.adapters.ratelimit.keys;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.security.auth.x500.X500Principal;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ClientKeyResolverChainTest {
+
+    @Test
+    public void resolveForwardedForByTrustedHops() {
+
+        // Arrange
+        var oneHop = new ForwardedForKeyResolver(Set.of("10.1.1.1"), 1);
+        var twoHops = new ForwardedForKeyResolver(Set.of("10.1.1.1"), 2);
+
+        // Act & Assert
+        assertEquals("10.0.0.3", oneHop.resolve("10.0.0.1, 10.0.0.2, 10.0.0.3"));
+        assertEquals("10.0.0.2", twoHops.resolve("10.0.0.1, 10.0.0.2, 10.0.0.3"));
+        assertNull(twoHops.resolve("10.0.0.3"));
+    }
+
+    @Test
+    public void ignoreForwardedForFromUntrustedPeer() {
+
+        // Arrange
+        var chain = chain(new ForwardedForKeyResolver(Set.of("10.1.1.1"), 1));
+        var request = request();
+        request.addHeader(ForwardedForKeyResolver.X_FORWARDED_FOR, "10.0.0.1");
+
+        // Act & Assert
+        assertEquals("127.0.0.1", chain.resolve(request));
+    }
+
+    @Test
+    public void refuseForwardedForWithoutTrustedProxies() {
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new ForwardedForKeyResolver(Set.of(), 1));
+    }
+
+    @Test
+    public void resolveUserIdFromHeaderOnly() {
+
+        // Arrange
+        var chain = chain(new UserIdKeyResolver(Set.of("127.0.0.1"), "X-User-Id"));
+        var headerRequest = request();
+        headerRequest.addHeader("X-User-Id", "user-1");
+        var parameterRequest = request();
+        parameterRequest.setParameter("userId", "user-2");
+
+        // Act & Assert: a client-chosen parameter would give a fresh bucket per value
+        assertEquals("user:user-1", chain.resolve(headerRequest));
+        assertEquals("127.0.0.1", chain.resolve(parameterRequest));
+    }
+
+    @Test
+    public void ignoreUserIdFromUntrustedPeer() {
+
+        // Arrange
+        var chain = chain(new UserIdKeyResolver(Set.of("10.1.1.1"), "X-User-Id"));
+
+        // Act & Assert: a new header value on each request does not give a fresh bucket
+        for (var userId : List.of("user-1", "user-2", "user-3")) {
+            var request = request();
+            request.addHeader("X-User-Id", userId);
+            assertEquals("127.0.0.1", chain.resolve(request));
+        }
+    }
+
+    @Test
+    public void refuseUserIdWithoutTrustedProxies() {
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new UserIdKeyResolver(Set.of(), "X-User-Id"));
+    }
+
+    @Test
+    public void resolveClientCertificateSubject() {
+
+        // Arrange
+        var certificate = mock(X509Certificate.class);
+        when(certificate.getSubjectX500Principal()).thenReturn(new X500Principal("CN=client-1,O=Raidiam"));
+
+        var chain = chain(new ClientCertificateKeyResolver());
+        var request = request();
+        request.setAttribute(ClientCertificateKeyResolver.X509_CERTIFICATE, new X509Certificate[] { certificate });
+
+        // Act & Assert
+        assertEquals("cert:CN=client-1,O=Raidiam", chain.resolve(request));
+    }
+
+    @Test
+    public void fallBackThroughChain() {
+
+        // Arrange
+        var chain = chain(new ClientCertificateKeyResolver(), new UserIdKeyResolver(Set.of("127.0.0.1"), "X-User-Id"));
+
+        // Act & Assert
+        assertEquals("127.0.0.1", chain.resolve(request()));
+    }
+
+    @Test
+    public void cacheResolvedKeyPerConnection() {
+
+        // Arrange
+        var resolved = new AtomicInteger();
+        var chain = chain(new IClientKeyResolver<String>() {
+            @Override
+            public String input(HttpServletRequest request) {
+                return request.getHeader("X-Client");
+            }
+
+            @Override
+            public String resolve(String input) {
+                resolved.incrementAndGet();
+                return input;
+            }
+        });
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            var request = request();
+            request.addHeader("X-Client", new String("client-1"));
+            assertEquals("client-1", chain.resolve(request));
+        }
+
+        var request = request();
+        request.addHeader("X-Client", "client-2");
+
+        // Assert
+        assertEquals("client-2", chain.resolve(request));
+        assertEquals(2, resolved.get());
+    }
+
+    private static ClientKeyResolverChain chain(IClientKeyResolver<?>... resolvers) {
+        return new ClientKeyResolverChain(List.of(resolvers), Ticker.systemTicker(), Duration.ofMinutes(1), 100);
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/consents/consent-1");
+    }
+}
@@ -0,0 +1,157 @@
+package com.raidiam.consents.adapters.rest;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.raidiam.consents.adapters.concurrency.GradientConcurrencyLimiter;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitingFilterTest {
+
+    private final GradientConcurrencyLimiter readLimiter = limiter();
+    private final GradientConcurrencyLimiter writeLimiter = limiter();
+    private final GradientConcurrencyLimiter streamLimiter = limiter();
+    private final ConcurrencyLimitingFilter concurrencyLimitingFilter =
+            new ConcurrencyLimitingFilter(readLimiter, writeLimiter, streamLimiter);
+
+    @Test
+    public void shedRequestWhenLimitIsReached() throws Exception {
+
+        // Arrange
+        readLimiter.tryAcquire();
+
+        // Act
+        var response = doFilter("GET", "/consents/consent-1", (request, servletResponse) -> {});
+
+        // Assert
+        assertEquals(503, response.getStatus());
+        assertEquals("{\"message\":\"Service unavailable\"}", response.getContentAsString());
+    }
+
+    @Test
+    public void limitReadsAndWritesSeparately() throws Exception {
+
+        // Arrange
+        readLimiter.tryAcquire();
+
+        // Act
+        var response = doFilter("DELETE", "/consents/consent-1", (request, servletResponse) -> {});
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertEquals(0, writeLimiter.getInFlight());
+    }
+
+    @Test
+    public void releaseSlotWhenChainFails() {
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> doFilter("POST", "/consents", (request, servletResponse) -> {
+            assertEquals(1, writeLimiter.getInFlight());
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(0, writeLimiter.getInFlight());
+    }
+
+    @Test
+    public void holdSlotUntilAsyncRequestCompletes() throws Exception {
+
+        // Arrange
+        var request = new MockHttpServletRequest("GET", "/consents/export");
+        request.setAsyncSupported(true);
+
+        // Act: the chain returns as soon as the streaming starts
+        concurrencyLimitingFilter.doFilter(request, new MockHttpServletResponse(),
+                (servletRequest, servletResponse) -> servletRequest.startAsync());
+        var inFlightWhileStreaming = streamLimiter.getInFlight();
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+
+        // Assert
+        assertEquals(1, inFlightWhileStreaming);
+        assertEquals(0, streamLimiter.getInFlight());
+        assertEquals(0, readLimiter.getInFlight());
+    }
+
+    @Test
+    public void keepReadLimitWhileStreaming() throws Exception {
+
+        // Arrange: a read of 1 ms sets the long-term latency of reads
+        var nanos = new AtomicLong();
+        var reads = new GradientConcurrencyLimiter(nanos::get, 10, 1, 100, Duration.ofMillis(100), 0.5, 1.5);
+        var filter = new ConcurrencyLimitingFilter(reads, limiter(), limiter());
+        FilterChain read = (servletRequest, servletResponse) -> nanos.addAndGet(Duration.ofMillis(1).toNanos());
+        nanos.set(Duration.ofMillis(99).toNanos());
+        filter.doFilter(new MockHttpServletRequest("GET", "/consents/consent-1"), new MockHttpServletResponse(), read);
+
+        // Act: an export streams for a minute, then a read ends the next window
+        var export = new MockHttpServletRequest("GET", "/consents/export");
+        export.setAsyncSupported(true);
+        filter.doFilter(export, new MockHttpServletResponse(), (servletRequest, servletResponse) -> servletRequest.startAsync());
+        nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+        ((MockAsyncContext) export.getAsyncContext()).complete();
+        nanos.addAndGet(Duration.ofMillis(100).toNanos());
+        filter.doFilter(new MockHttpServletRequest("GET", "/consents/consent-1"), new MockHttpServletResponse(), read);
+
+        // Assert: the latency of the export is not sampled by the reads
+        assertEquals(10, reads.getLimit());
+    }
+
+    @Test
+    public void limitStreamsSeparately() throws Exception {
+
+        // Arrange
+        streamLimiter.tryAcquire();
+
+        // Act
+        var export = doFilter("GET", "/consents/export", (request, servletResponse) -> {});
+        var retrieve = doFilter("GET", "/consents/consent-1", (request, servletResponse) -> {});
+
+        // Assert
+        assertEquals(503, export.getStatus());
+        assertEquals(200, retrieve.getStatus());
+    }
+
+    @Test
+    public void skipRoutesOutsideConsents() throws Exception {
+
+        // Arrange
+        readLimiter.tryAcquire();
+
+        // Act
+        var response = doFilter("GET", "/actuator/health", (request, servletResponse) -> {});
+
+        // Assert
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void skipRoutesSharingTheConsentsPrefix() throws Exception {
+
+        // Arrange
+        readLimiter.tryAcquire();
+
+        // Act & Assert
+        assertEquals(200, doFilter("GET", "/consents-admin", (request, servletResponse) -> {}).getStatus());
+        assertEquals(200, doFilter("GET", "/consentsX/consent-1", (request, servletResponse) -> {}).getStatus());
+        assertEquals(503, doFilter("GET", "/consents", (request, servletResponse) -> {}).getStatus());
+        assertEquals(503, doFilter("GET", "/consents/consent-1", (request, servletResponse) -> {}).getStatus());
+    }
+
+    private MockHttpServletResponse doFilter(String method, String uri, FilterChain chain) throws Exception {
+        var httpServletResponse = new MockHttpServletResponse();
+        concurrencyLimitingFilter.doFilter(new MockHttpServletRequest(method, uri), httpServletResponse, chain);
+        return httpServletResponse;
+    }
+
+    private static GradientConcurrencyLimiter limiter() {
+        return new GradientConcurrencyLimiter(Ticker.systemTicker(), 1, 1, 10, Duration.ofMillis(100), 0.2, 1.5);
+    }
+}
@@ -1,35 +1,73 @@
 package com.raidiam.consents.adapters.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.rest.port.ConsentBatchResponse;
+import com.raidiam.consents.adapters.rest.port.ConsentListResponse;
 import com.raidiam.consents.adapters.rest.port.ConsentRequest;
 import com.raidiam.consents.adapters.rest.port.ConsentResponse;
 import com.raidiam.consents.adapters.rest.port.ConsentUpdateRequest;
 import com.raidiam.consents.domain.enums.ConsentPermission;
 import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.domain.exceptions.ConsentBatchTooLargeException;
 import com.raidiam.consents.domain.exceptions.ConsentPermissionsWithDuplicateValueException;
 import com.raidiam.consents.usecases.createconsent.ICreateConsent;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentBatchResponse;
 import com.raidiam.consents.usecases.createconsent.port.CreateConsentRequest;
 import com.raidiam.consents.usecases.createconsent.port.CreateConsentResponse;
+import com.raidiam.consents.usecases.exportconsents.IExportConsents;
+import com.raidiam.consents.usecases.importconsents.IImportConsents;
+import com.raidiam.consents.usecases.importconsents.port.ImportConsentsRequest;
+import com.raidiam.consents.usecases.importconsents.port.ImportConsentsResponse;
+import com.raidiam.consents.usecases.listconsents.IListConsents;
+import com.raidiam.consents.usecases.listconsents.port.ListConsentsResponse;
 import com.raidiam.consents.usecases.retrieveconsent.IRetrieveConsent;
 import com.raidiam.consents.usecases.retrieveconsent.port.RetrieveConsentRequest;
 import com.raidiam.consents.usecases.retrieveconsent.port.RetrieveConsentResponse;
 import com.raidiam.consents.usecases.revokeconsent.IRevokeConsent;
 import com.raidiam.consents.usecases.revokeconsent.port.RevokeConsentRequest;
 import com.raidiam.consents.usecases.updateconsent.IUpdateConsent;
-import com.raidiam.consents.usecases.updateconsent.port.UpdateConsentRequest;
 import com.raidiam.consents.usecases.updateconsent.port.UpdateConsentResponse;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static com.raidiam.consents.domain.messages.ErrorMessage.BATCH_TOO_LARGE;
 import static com.raidiam.consents.domain.messages.ErrorMessage.DUPLICATE_PERMISSIONS_DETECTED;
+import static com.raidiam.consents.domain.messages.ErrorMessage.IMPORT_LINE_TOO_LONG;
+import static com.raidiam.consents.domain.messages.ErrorMessage.INTERNAL_SERVER_ERROR;
+import static com.raidiam.consents.domain.messages.ErrorMessage.INVALID_CONSENT_INITIAL_STATUS;
+import static com.raidiam.consents.domain.messages.ErrorMessage.MALFORMED_BATCH_ITEM;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -50,11 +88,34 @@ public class ConsentControllerTest {
     @Mock
     private IRevokeConsent revokeConsent;
 
+    @Mock
+    private IListConsents listConsents;
+
+    @Mock
+    private IExportConsents exportConsents;
+
+    @Mock
+    private IImportConsents importConsents;
+
+    @Mock
+    private Clock clock;
+
+    @Spy
+    private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @BeforeEach
+    public void init() {
+        ReflectionTestUtils.setField(consentController, "batchMaxItems", 4);
+    }
+
     @Test
     public void createConsentSuccessfully() {
 
         // Arrange
-        var frozenTime = "2025-01-01T00:00:00Z";
+        var frozenTime = Instant.parse("2025-01-01T00:00:00Z");
 
         var mockCreateConsentResponse =
                 CreateConsentResponse.builder()
@@ -90,7 +151,7 @@ public class ConsentControllerTest {
                         .build();
 
         // Act
-        var createdConsent = consentController.createConsent(consentRequest);
+        var createdConsent = consentController.createConsent(consentRequest, new MockHttpServletResponse());
 
         // Assert
         assertThat(createdConsent)
@@ -111,18 +172,263 @@ public class ConsentControllerTest {
 
         // Act
         var exception = assertThrows(ConsentPermissionsWithDuplicateValueException.class,
-                () -> consentController.createConsent(consentRequest)
+                () -> consentController.createConsent(consentRequest, new MockHttpServletResponse())
         );
 
         // Assert
         assertEquals(DUPLICATE_PERMISSIONS_DETECTED, exception.getLocalizedMessage());
     }
 
+    @Test
+    public void createConsentBatchWithPerItemResults() throws Exception {
+
+        // Arrange
+        var frozenTime = Instant.parse("2025-01-01T00:00:00Z");
+
+        var mockCreateConsentBatchResponse =
+                CreateConsentBatchResponse.builder()
+                        .items(List.of(
+                                CreateConsentBatchResponse.Item.builder()
+                                        .consent(CreateConsentResponse.builder()
+                                                .consentId("consent-1")
+                                                .userId("user-1")
+                                                .permissions(List.of(ConsentPermission.READ_DATA))
+                                                .status(ConsentStatus.AWAITING_AUTHORISATION)
+                                                .createdAt(frozenTime)
+                                                .updatedAt(frozenTime)
+                                                .requestDateTime(frozenTime)
+                                                .build())
+                                        .build(),
+                                CreateConsentBatchResponse.Item.builder()
+                                        .error(INVALID_CONSENT_INITIAL_STATUS)
+                                        .build()))
+                        .build();
+
+        when(createConsent.executeBatch(anyList())).thenReturn(mockCreateConsentBatchResponse);
+
+        var consentRequests = List.of(
+                ConsentRequest.builder()
+                        .userId("user-1")
+                        .permissions(List.of(ConsentPermission.READ_DATA))
+                        .status(ConsentStatus.AWAITING_AUTHORISATION)
+                        .build(),
+                ConsentRequest.builder()
+                        .userId("invalid")
+                        .permissions(List.of(ConsentPermission.READ_DATA))
+                        .status(ConsentStatus.AWAITING_AUTHORISATION)
+                        .build(),
+                ConsentRequest.builder()
+                        .userId("user-3")
+                        .permissions(List.of(ConsentPermission.READ_DATA, ConsentPermission.READ_DATA))
+                        .status(ConsentStatus.AWAITING_AUTHORISATION)
+                        .build(),
+                ConsentRequest.builder()
+                        .userId("user-4")
+                        .permissions(List.of(ConsentPermission.READ_DATA))
+                        .status(ConsentStatus.AUTHORISED)
+                        .build());
+
+        // Act
+        var batchResponse = consentController.createConsents(jsonRequest(consentRequests));
+
+        // Assert
+        verify(createConsent).executeBatch(argThat(requests -> requests.size() == 2));
+        assertEquals(1, batchResponse.getCreated());
+        assertEquals(3, batchResponse.getRejected());
+
+        var items = batchResponse.getItems();
+        assertEquals(201, items.get(0).getStatus());
+        assertEquals("consent-1", items.get(0).getConsent().getConsentId());
+        assertEquals(frozenTime, items.get(0).getConsent().getMeta().getRequestDateTime());
+        assertEquals(List.of("Field userId must have the pattern 'user-N' (N = number)"), items.get(1).getErrors());
+        assertEquals(List.of(DUPLICATE_PERMISSIONS_DETECTED), items.get(2).getErrors());
+        assertEquals(List.of(INVALID_CONSENT_INITIAL_STATUS), items.get(3).getErrors());
+        assertEquals(List.of(0, 1, 2, 3), items.stream().map(ConsentBatchResponse.Item::getIndex).toList());
+    }
+
+    @Test
+    public void createConsentBatchFromNdjsonWithMalformedLine() throws Exception {
+
+        // Arrange
+        var frozenTime = Instant.parse("2025-01-01T00:00:00Z");
+
+        when(createConsent.executeBatch(anyList())).thenAnswer(invocation -> {
+            List<CreateConsentRequest> requests = invocation.getArgument(0);
+            return CreateConsentBatchResponse.builder()
+                    .items(requests.stream()
+                            .map(request -> CreateConsentBatchResponse.Item.builder()
+                                    .consent(CreateConsentResponse.builder()
+                                            .consentId("consent-1")
+                                            .userId(request.getUserId())
+                                            .permissions(request.getPermissions())
+                                            .status(request.getStatus())
+                                            .createdAt(frozenTime)
+                                            .updatedAt(frozenTime)
+                                            .requestDateTime(frozenTime)
+                                            .build())
+                                    .build())
+                            .toList())
+                    .build();
+        });
+
+        var body = """
+                {"userId": "user-1", "permissions": ["READ_DATA"], "status": "AWAITING_AUTHORISATION"}
+
+                {"userId": "user-2", "permissions": ["READ_DATA"], "status": "INVALID_STATUS"}
+                {"userId": "user-3", "permissions": ["WRITE_DATA"], "status": "AWAITING_AUTHORISATION"}
+                """;
+
+        // Act
+        var batchResponse = consentController.createConsentsFromNdjson(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(2, batchResponse.getCreated());
+        assertEquals(1, batchResponse.getRejected());
+
+        var items = batchResponse.getItems();
+        assertEquals("user-1", items.get(0).getConsent().getUserId());
+        assertEquals(List.of(MALFORMED_BATCH_ITEM), items.get(1).getErrors());
+        assertEquals("user-3", items.get(2).getConsent().getUserId());
+    }
+
+    @Test
+    public void reportFailedBatchItemsWithStatus500() throws Exception {
+
+        // Arrange
+        when(createConsent.executeBatch(anyList())).thenReturn(CreateConsentBatchResponse.builder()
+                .items(List.of(
+                        CreateConsentBatchResponse.Item.builder()
+                                .error(INTERNAL_SERVER_ERROR)
+                                .failed(true)
+                                .build(),
+                        CreateConsentBatchResponse.Item.builder()
+                                .error(INVALID_CONSENT_INITIAL_STATUS)
+                                .build()))
+                .build());
+
+        var body = """
+                {"userId": "user-1", "permissions": ["READ_DATA"], "status": "AWAITING_AUTHORISATION"}
+                {"userId": "user-2", "permissions": ["READ_DATA"], "status": "AUTHORISED"}
+                """;
+
+        // Act
+        var batchResponse = consentController.createConsentsFromNdjson(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(0, batchResponse.getCreated());
+        assertEquals(1, batchResponse.getRejected());
+        assertEquals(1, batchResponse.getFailed());
+
+        var items = batchResponse.getItems();
+        assertEquals(500, items.get(0).getStatus());
+        assertEquals(List.of(INTERNAL_SERVER_ERROR), items.get(0).getErrors());
+        assertEquals(400, items.get(1).getStatus());
+    }
+
+    @Test
+    public void tryCreateConsentBatchOverMaximumItems() throws Exception {
+
+        // Arrange
+        var consentRequest =
+                ConsentRequest.builder()
+                        .userId("user-1")
+                        .permissions(List.of(ConsentPermission.READ_DATA))
+                        .status(ConsentStatus.AWAITING_AUTHORISATION)
+                        .build();
+        var request = jsonRequest(List.of(consentRequest, consentRequest, consentRequest, consentRequest, consentRequest));
+
+        // Act
+        var exception = assertThrows(ConsentBatchTooLargeException.class,
+                () -> consentController.createConsents(request)
+        );
+
+        // Assert
+        assertEquals(String.format(BATCH_TOO_LARGE, 4), exception.getLocalizedMessage());
+        verify(createConsent, never()).executeBatch(anyList());
+    }
+
+    @Test
+    public void tryCreateConsentBatchFromNdjsonOverMaximumItems() {
+
+        // Arrange
+        var line = "{\"userId\": \"user-1\", \"permissions\": [\"READ_DATA\"], \"status\": \"AWAITING_AUTHORISATION\"}\n";
+        var body = new ByteArrayInputStream(line.repeat(5).getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        var exception = assertThrows(ConsentBatchTooLargeException.class,
+                () -> consentController.createConsentsFromNdjson(body)
+        );
+
+        // Assert
+        assertEquals(String.format(BATCH_TOO_LARGE, 4), exception.getLocalizedMessage());
+        verify(createConsent, never()).executeBatch(anyList());
+    }
+
+    @Test
+    public void tryCreateConsentBatchWithoutArray() {
+
+        // Arrange
+        var request = new MockHttpServletRequest();
+        request.setContent("{\"userId\": \"user-1\"}".getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        assertThrows(HttpMessageNotReadableException.class, () -> consentController.createConsents(request));
+        verify(createConsent, never()).executeBatch(anyList());
+    }
+
+    @Test
+    public void importConsentsFromNdjsonLineByLine() {
+
+        // Arrange
+        var requests = new ArrayList<ImportConsentsRequest>();
+
+        when(importConsents.execute(any())).thenAnswer(invocation -> {
+            Iterator<ImportConsentsRequest> iterator = invocation.getArgument(0);
+            iterator.forEachRemaining(requests::add);
+            return ImportConsentsResponse.builder()
+                    .lines(requests.size())
+                    .created(1)
+                    .rejected(requests.size() - 1)
+                    .errors(List.of(ImportConsentsResponse.LineError.builder()
+                            .line(3)
+                            .errors(List.of(MALFORMED_BATCH_ITEM))
+                            .build()))
+                    .build();
+        });
+
+        var body = "{\"userId\": \"user-1\", \"permissions\": [\"READ_DATA\"], \"status\": \"AWAITING_AUTHORISATION\"}\r\n"
+                + "\n"
+                + "{\"userId\": \"user-2\", \"permissions\": [\"READ_DATA\"]} trailing\n"
+                + "{\"userId\": \"user-3\", \"permissions\": [\"READ_DATA\", \"READ_DATA\"], \"status\": \"AWAITING_AUTHORISATION\"}\n"
+                + "{\"userId\": \"" + "9".repeat(ConsentImportReader.MAX_LINE_LENGTH) + "\"}\n"
+                + "{\"userId\": \"x\", \"permissions\": [\"READ_DATA\"], \"status\": \"AWAITING_AUTHORISATION\"}";
+
+        // Act
+        var importResponse = consentController.importConsents(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(5, requests.size());
+        assertEquals(List.of(1L, 3L, 4L, 5L, 6L), requests.stream().map(ImportConsentsRequest::getLine).toList());
+        assertEquals("user-1", requests.get(0).getConsent().getUserId());
+        assertEquals(List.of(MALFORMED_BATCH_ITEM), requests.get(1).getErrors());
+        assertEquals(List.of(DUPLICATE_PERMISSIONS_DETECTED), requests.get(2).getErrors());
+        assertEquals(List.of(IMPORT_LINE_TOO_LONG), requests.get(3).getErrors());
+        assertEquals(List.of("Field userId must have the pattern 'user-N' (N = number)"), requests.get(4).getErrors());
+
+        assertEquals(5, importResponse.getLines());
+        assertEquals(1, importResponse.getCreated());
+        assertEquals(4, importResponse.getRejected());
+        assertEquals(3, importResponse.getErrors().get(0).getLine());
+    }
+
     @Test
     public void retrieveConsentSuccessfully() {
 
         // Arrange
-        var frozenTime = "2025-01-01T00:00:00Z";
+        var frozenTime = Instant.parse("2025-01-01T00:00:00Z");
 
         var mockRetrieveConsentResponse =
                 RetrieveConsentResponse.builder()
@@ -150,20 +456,111 @@ public class ConsentControllerTest {
                                 .build())
                         .build();
 
+        var response = new MockHttpServletResponse();
+
         // Act
-        var retrievedConsent = consentController.retrieveConsent("consent-1");
+        var retrievedConsent = consentController.retrieveConsent("consent-1", response);
 
         // Assert
         assertThat(retrievedConsent)
                 .usingRecursiveComparison()
                 .isEqualTo(expectedConsentResponse);
+        assertEquals("\"0\"", response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void listConsentsSuccessfully() {
+
+        // Arrange
+        var frozenTime = Instant.parse("2025-01-01T00:00:00Z");
+
+        var mockListConsentsResponse =
+                ListConsentsResponse.builder()
+                        .consents(List.of(ListConsentsResponse.Item.builder()
+                                .consentId("consent-2")
+                                .userId("user-1")
+                                .permissions(List.of(ConsentPermission.READ_DATA))
+                                .status(ConsentStatus.AUTHORISED)
+                                .createdAt(frozenTime)
+                                .updatedAt(frozenTime)
+                                .build()))
+                        .next("consent-2")
+                        .requestDateTime(frozenTime)
+                        .build();
+
+        when(listConsents.execute(argThat(request -> "user-1".equals(request.getUserId())
+                && request.getStatus() == ConsentStatus.AUTHORISED
+                && "consent-1".equals(request.getAfter())
+                && request.getLimit() == 1))).thenReturn(mockListConsentsResponse);
+
+        var expectedConsentListResponse =
+                ConsentListResponse.builder()
+                        .consents(List.of(ConsentResponse.builder()
+                                .consentId("consent-2")
+                                .userId("user-1")
+                                .permissions(List.of(ConsentPermission.READ_DATA))
+                                .status(ConsentStatus.AUTHORISED)
+                                .createdAt(frozenTime)
+                                .updatedAt(frozenTime)
+                                .build()))
+                        .meta(ConsentListResponse.Meta.builder()
+                                .requestDateTime(frozenTime)
+                                .next("consent-2")
+                                .build())
+                        .build();
+
+        // Act
+        var consentList = consentController.listConsents("user-1", ConsentStatus.AUTHORISED, "consent-1", 1);
+
+        // Assert
+        assertThat(consentList)
+                .usingRecursiveComparison()
+                .isEqualTo(expectedConsentListResponse);
+    }
+
+    @Test
+    public void exportConsentsAsNdjson() throws Exception {
+
+        // Arrange
+        var frozenTime = Instant.parse("2025-01-01T00:00:00Z");
+        var outputStream = new ByteArrayOutputStream();
+
+        when(clock.instant()).thenReturn(frozenTime);
+        doAnswer(invocation -> {
+            Consumer<ConsentSnapshot> consumer = invocation.getArgument(0);
+            consumer.accept(new ConsentSnapshot(1L, "user-1", List.of(ConsentPermission.READ_DATA),
+                    ConsentStatus.AUTHORISED, frozenTime, frozenTime, 0, null));
+            consumer.accept(new ConsentSnapshot(2L, "user-2", List.of(ConsentPermission.WRITE_DATA),
+                    ConsentStatus.REJECT, frozenTime, frozenTime, 1, null));
+            // Past its expiration, not yet moved to EXPIRED
+            consumer.accept(new ConsentSnapshot(3L, "user-3", List.of(ConsentPermission.READ_DATA),
+                    ConsentStatus.AUTHORISED, frozenTime, frozenTime, 0, frozenTime.minusSeconds(1)));
+            return 3L;
+        }).when(exportConsents).execute(any());
+
+        // Act
+        var response = consentController.exportConsents();
+        response.getBody().writeTo(outputStream);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+
+        var lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(3, lines.length);
+        assertEquals("consent-1", objectMapper.readTree(lines[0]).get("consentId").asText());
+        assertEquals("AUTHORISED", objectMapper.readTree(lines[0]).get("status").asText());
+        assertEquals("user-2", objectMapper.readTree(lines[1]).get("userId").asText());
+        assertEquals("REJECT", objectMapper.readTree(lines[1]).get("status").asText());
+        assertEquals("EXPIRED", objectMapper.readTree(lines[2]).get("status").asText());
     }
 
     @Test
     public void updateConsentSuccessfully() {
 
         // Arrange
-        var frozenTime = "2025-01-01T00:00:00Z";
+        var frozenTime = Instant.parse("2025-01-01T00:00:00Z");
 
         var consentUpdateRequest =
                 ConsentUpdateRequest.builder()
@@ -185,10 +582,11 @@ public class ConsentControllerTest {
                         .status(ConsentStatus.AUTHORISED)
                         .createdAt(frozenTime)
                         .updatedAt(frozenTime)
+                        .version(4)
                         .requestDateTime(frozenTime)
                         .build();
 
-        when(updateConsent.execute(any(UpdateConsentRequest.class))).thenReturn(mockUpdateConsentResponse);
+        when(updateConsent.execute(argThat(request -> request.getExpectedVersion() == 3L))).thenReturn(mockUpdateConsentResponse);
 
         var expectedConsentResponse =
                 ConsentResponse.builder()
@@ -206,13 +604,16 @@ public class ConsentControllerTest {
                                 .build())
                         .build();
 
+        var response = new MockHttpServletResponse();
+
         // Act
-        var updatedConsent = consentController.updateConsent("consent-1", consentUpdateRequest);
+        var updatedConsent = consentController.updateConsent("consent-1", consentUpdateRequest, "\"3\"", response);
 
         // Assert
         assertThat(updatedConsent)
                 .usingRecursiveComparison()
                 .isEqualTo(expectedConsentResponse);
+        assertEquals("\"4\"", response.getHeader(HttpHeaders.ETAG));
     }
 
     @Test
@@ -227,7 +628,7 @@ public class ConsentControllerTest {
 
         // Act
         var exception = assertThrows(ConsentPermissionsWithDuplicateValueException.class,
-                () -> consentController.updateConsent("consent-12345", consentUpdateRequest)
+                () -> consentController.updateConsent("consent-12345", consentUpdateRequest, null, new MockHttpServletResponse())
         );
 
         // Assert
@@ -243,4 +644,11 @@ public class ConsentControllerTest {
         // Assert
         verify(revokeConsent, times(1)).execute(any(RevokeConsentRequest.class));
     }
+
+    private MockHttpServletRequest jsonRequest(List<ConsentRequest> consentRequests) throws Exception {
+        var request = new MockHttpServletRequest();
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(objectMapper.writeValueAsBytes(consentRequests));
+        return request;
+    }
 }
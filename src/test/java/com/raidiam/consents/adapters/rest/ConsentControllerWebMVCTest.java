@@ -7,18 +7,28 @@ import com.raidiam.consents.adapters.rest.port.ConsentRequest;
 import com.raidiam.consents.adapters.rest.port.ConsentUpdateRequest;
 import com.raidiam.consents.domain.enums.ConsentPermission;
 import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.domain.exceptions.ConsentVersionMismatchException;
+import com.raidiam.consents.usecases.updateconsent.UpdateConsent;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.List;
 
 import static com.raidiam.consents.domain.messages.ErrorMessage.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -35,6 +45,9 @@ public class ConsentControllerWebMVCTest {
     @MockitoBean
     private RateLimitingFilter rateLimitingFilter;
 
+    @MockitoBean
+    private ConcurrencyLimitingFilter concurrencyLimitingFilter;
+
     private final ObjectWriter objectWriter = new ObjectMapper().writer().withDefaultPrettyPrinter();
 
     @BeforeEach
@@ -300,6 +313,70 @@ public class ConsentControllerWebMVCTest {
 
     }
 
+    @Test
+    public void tryUpdateConsentWithStaleIfMatch() throws Exception {
+
+        // Arrange
+        String bodyRequest = "{\"permissions\": [\"READ_DATA\"], \"status\": \"AUTHORISED\"}";
+
+        String expectedResponse =
+                objectWriter.writeValueAsString(
+                        ConsentErrorResponse.builder()
+                                .message(CONSENT_VERSION_MISMATCH)
+                                .build()
+                );
+
+        when(consentController.updateConsent(eq("consent-12345"), any(), eq("\"1\""), any()))
+                .thenThrow(new ConsentVersionMismatchException(CONSENT_VERSION_MISMATCH));
+
+        // Act & Assert
+        mockMvc.perform(
+                        put("/consents/consent-12345")
+                                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(bodyRequest)
+                ).andExpect(status().isPreconditionFailed())
+                .andExpect(content().json(expectedResponse));
+    }
+
+    @Test
+    public void tryUpdateConsentWithUnmatchableIfMatch() throws Exception {
+
+        // Arrange
+        var consentRepository = mock(IConsentRepository.class);
+        var updateConsent = new UpdateConsent();
+        ReflectionTestUtils.setField(updateConsent, "consentRepository", consentRepository);
+
+        var controller = new ConsentController();
+        ReflectionTestUtils.setField(controller, "updateConsent", updateConsent);
+        var controllerMockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(ConsentControllerAdvice.class)
+                .build();
+
+        String bodyRequest = "{\"permissions\": [\"READ_DATA\"], \"status\": \"AUTHORISED\"}";
+
+        String expectedResponse =
+                objectWriter.writeValueAsString(
+                        ConsentErrorResponse.builder()
+                                .message(CONSENT_VERSION_MISMATCH)
+                                .build()
+                );
+
+        // Act & Assert (weak tag, list of tags, not a tag)
+        for (var ifMatch : List.of("W/\"7\"", "\"7\", \"8\"", "garbage")) {
+            controllerMockMvc.perform(
+                            put("/consents/consent-7")
+                                    .header(HttpHeaders.IF_MATCH, ifMatch)
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(bodyRequest)
+                    ).andExpect(status().isPreconditionFailed())
+                    .andExpect(content().json(expectedResponse));
+        }
+
+        // The consent row is never written
+        verifyNoInteractions(consentRepository);
+    }
+
     @Test
     public void tryUpdateConsentWithNoRequestBody() throws Exception {
 
@@ -440,6 +517,29 @@ public class ConsentControllerWebMVCTest {
 
     }
 
+    @Test
+    public void tryUpdateConsentToExpiredStatus() throws Exception {
+
+        // Arrange
+        String bodyRequest = "{\"permissions\": [\"READ_DATA\"], \"status\": \"EXPIRED\"}";
+
+        String expectedResponse =
+                objectWriter.writeValueAsString(
+                        ConsentErrorResponse.builder()
+                                .message(INVALID_INPUT)
+                                .errors(List.of("Field status must be one of the values in the list [AUTHORISED, AWAITING_AUTHORISATION, REJECT]"))
+                                .build()
+                );
+
+        // Act & Assert
+        mockMvc.perform(
+                        put("/consents/consent-12345")
+                                .content(bodyRequest)
+                                .contentType(MediaType.APPLICATION_JSON)
+                ).andExpect(status().isBadRequest())
+                .andExpect(content().json(expectedResponse));
+    }
+
     @Test
     public void tryUpdateConsentWithInvalidStatus() throws Exception {
 
@@ -489,6 +589,67 @@ public class ConsentControllerWebMVCTest {
 
     }
 
+    /*
+        Tests for list consents
+     */
+
+    @Test
+    public void tryListConsentsWithNoUserId() throws Exception {
+
+        // Arrange
+        String expectedResponse =
+                objectWriter.writeValueAsString(
+                        ConsentErrorResponse.builder()
+                                .message(INVALID_INPUT)
+                                .errors(List.of(REQUIRED_USER_ID_QUERY_PARAMETER))
+                                .build()
+                );
+
+        // Act & Assert
+        mockMvc.perform(
+                        get("/consents")
+                ).andExpect(status().isBadRequest())
+                .andExpect(content().json(expectedResponse));
+    }
+
+    @Test
+    public void tryListConsentsWithInvalidStatus() throws Exception {
+
+        // Arrange
+        String expectedResponse =
+                objectWriter.writeValueAsString(
+                        ConsentErrorResponse.builder()
+                                .message(INVALID_INPUT)
+                                .errors(List.of("Field status must be one of the values in the list [AUTHORISED, AWAITING_AUTHORISATION, REJECT, EXPIRED]"))
+                                .build()
+                );
+
+        // Act & Assert
+        mockMvc.perform(
+                        get("/consents?userId=user-1&status=INVALID_STATUS")
+                ).andExpect(status().isBadRequest())
+                .andExpect(content().json(expectedResponse));
+    }
+
+    @Test
+    public void tryListConsentsWithInvalidLimit() throws Exception {
+
+        // Arrange
+        String expectedResponse =
+                objectWriter.writeValueAsString(
+                        ConsentErrorResponse.builder()
+                                .message(INVALID_INPUT)
+                                .errors(List.of(INVALID_LIMIT_QUERY_PARAMETER))
+                                .build()
+                );
+
+        // Act & Assert
+        mockMvc.perform(
+                        get("/consents?userId=user-1&limit=0")
+                ).andExpect(status().isBadRequest())
+                .andExpect(content().json(expectedResponse));
+    }
+
     /*
         Other HTTP test requests
      */
@@ -1,40 +1,48 @@
 package com.raidiam.consents.adapters.rest;
 
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.raidiam.consents.adapters.ratelimit.IRateLimiter;
+import com.raidiam.consents.adapters.ratelimit.InMemoryRateLimiter;
+import com.raidiam.consents.adapters.ratelimit.RateLimit;
+import com.raidiam.consents.adapters.ratelimit.RateLimitPolicy;
+import com.raidiam.consents.adapters.ratelimit.RateLimitPolicyTable;
+import com.raidiam.consents.adapters.ratelimit.RouteTable;
+import com.raidiam.consents.adapters.ratelimit.keys.ClientKeyResolverChain;
+import com.raidiam.consents.adapters.ratelimit.keys.ForwardedForKeyResolver;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 public class RateLimitingFilterTest {
 
-    @InjectMocks
-    private RateLimitingFilter rateLimitingFilter;
+    private final FilterChain filterChain = new FilterChain() {
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+
+        }
+    };
 
     @Test
     public void processRequest() throws Exception {
 
         // Arrange
-        ReflectionTestUtils.setField(rateLimitingFilter, "tps", 1);
+        var rateLimitingFilter = new RateLimitingFilter(policyTable(1, new RouteTable<>()));
         var httpServletRequest = new MockHttpServletRequest();
         var httpServletResponse = new MockHttpServletResponse();
-        var filterChain = new FilterChain() {
-            @Override
-            public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
-
-            }
-        };
 
         // Act
         rateLimitingFilter.doFilter(httpServletRequest, httpServletResponse, filterChain);
@@ -47,15 +55,9 @@ public class RateLimitingFilterTest {
     public void throttleRequest() throws Exception {
 
         // Arrange
-        ReflectionTestUtils.setField(rateLimitingFilter, "tps", 0);
+        var rateLimitingFilter = new RateLimitingFilter(policyTable(0, new RouteTable<>()));
         var httpServletRequest = new MockHttpServletRequest();
         var httpServletResponse = new MockHttpServletResponse();
-        var filterChain = new FilterChain() {
-            @Override
-            public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
-
-            }
-        };
 
         // Act
         rateLimitingFilter.doFilter(httpServletRequest, httpServletResponse, filterChain);
@@ -63,4 +65,95 @@ public class RateLimitingFilterTest {
         // Assert
         assertTrue(httpServletResponse.getContentAsString().contains("Too many requests"));
     }
+
+    @Test
+    public void throttleWritesWithoutThrottlingReads() throws Exception {
+
+        // Arrange
+        var routes = new RouteTable<RateLimitPolicy>();
+        var writeBudget = rateLimiter(1);
+        routes.add("GET", "/consents/{consentId}", new RateLimitPolicy("GET", 1, rateLimiter(10), null));
+        routes.add("POST", "/consents", new RateLimitPolicy("POST", 1, rateLimiter(10), writeBudget));
+        routes.add("DELETE", "/consents/{consentId}", new RateLimitPolicy("DELETE", 1, rateLimiter(10), writeBudget));
+
+        var rateLimitingFilter = new RateLimitingFilter(policyTable(0, routes));
+
+        // Act
+        var createResponse = doFilter(rateLimitingFilter, "POST", "/consents");
+        var revokeResponse = doFilter(rateLimitingFilter, "DELETE", "/consents/consent-1");
+        var retrieveResponse = doFilter(rateLimitingFilter, "GET", "/consents/consent-1");
+
+        // Assert
+        assertEquals(200, createResponse.getStatus());
+        assertEquals(429, revokeResponse.getStatus());
+        assertEquals(200, retrieveResponse.getStatus());
+    }
+
+    @Test
+    public void setRateLimitHeaders() throws Exception {
+
+        // Arrange
+        var rateLimitingFilter = new RateLimitingFilter(policyTable(2, new RouteTable<>()));
+
+        // Act
+        var firstResponse = doFilter(rateLimitingFilter, "GET", "/consents/consent-1");
+        var secondResponse = doFilter(rateLimitingFilter, "GET", "/consents/consent-1");
+        var rejectedResponse = doFilter(rateLimitingFilter, "GET", "/consents/consent-1");
+
+        // Assert
+        assertEquals("2", firstResponse.getHeader(RateLimitingFilter.RATE_LIMIT_LIMIT));
+        assertEquals("1", firstResponse.getHeader(RateLimitingFilter.RATE_LIMIT_REMAINING));
+        assertEquals("1", firstResponse.getHeader(RateLimitingFilter.RATE_LIMIT_RESET));
+        assertNull(firstResponse.getHeader(RateLimitingFilter.RETRY_AFTER));
+
+        assertEquals("0", secondResponse.getHeader(RateLimitingFilter.RATE_LIMIT_REMAINING));
+
+        assertEquals(429, rejectedResponse.getStatus());
+        assertEquals("application/json", rejectedResponse.getContentType());
+        assertEquals("{\"message\":\"Too many requests\"}", rejectedResponse.getContentAsString());
+        assertEquals("0", rejectedResponse.getHeader(RateLimitingFilter.RATE_LIMIT_REMAINING));
+        assertEquals("1", rejectedResponse.getHeader(RateLimitingFilter.RETRY_AFTER));
+    }
+
+    @Test
+    public void throttleClientsBehindProxySeparately() throws Exception {
+
+        // Arrange
+        var keyResolver = new ClientKeyResolverChain(
+                List.of(new ForwardedForKeyResolver(Set.of("127.0.0.1"), 1)), Ticker.systemTicker(), Duration.ofMinutes(1), 100);
+        var rateLimitingFilter = new RateLimitingFilter(policyTable(1, new RouteTable<>()), keyResolver);
+
+        // Act
+        var firstClientResponse = doFilter(rateLimitingFilter, "10.0.0.1");
+        var secondClientResponse = doFilter(rateLimitingFilter, "10.0.0.2");
+        var rejectedResponse = doFilter(rateLimitingFilter, "10.0.0.1");
+
+        // Assert
+        assertEquals(200, firstClientResponse.getStatus());
+        assertEquals(200, secondClientResponse.getStatus());
+        assertEquals(429, rejectedResponse.getStatus());
+    }
+
+    private MockHttpServletResponse doFilter(RateLimitingFilter rateLimitingFilter, String forwardedFor) throws Exception {
+        var httpServletRequest = new MockHttpServletRequest("GET", "/consents/consent-1");
+        httpServletRequest.addHeader(ForwardedForKeyResolver.X_FORWARDED_FOR, forwardedFor);
+        var httpServletResponse = new MockHttpServletResponse();
+        rateLimitingFilter.doFilter(httpServletRequest, httpServletResponse, filterChain);
+        return httpServletResponse;
+    }
+
+    private MockHttpServletResponse doFilter(RateLimitingFilter rateLimitingFilter, String method, String uri) throws Exception {
+        var httpServletResponse = new MockHttpServletResponse();
+        rateLimitingFilter.doFilter(new MockHttpServletRequest(method, uri), httpServletResponse, filterChain);
+        return httpServletResponse;
+    }
+
+    private static IRateLimiter rateLimiter(int limit) {
+        return new InMemoryRateLimiter(new RateLimit(limit, Duration.ofSeconds(1)), Ticker.systemTicker());
+    }
+
+    private static RateLimitPolicyTable policyTable(int tps, RouteTable<RateLimitPolicy> routes) {
+        var defaultPolicy = new RateLimitPolicy("default", 1, rateLimiter(tps), null);
+        return new RateLimitPolicyTable(routes, defaultPolicy, defaultPolicy);
+    }
 }
@@ -0,0 +1,391 @@
+package com.raidiam.consents.adapters.sharding;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.expiration.ConsentExpiration;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.domain.entities.Consent;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.raidiam.consents.adapters.sharding.ConsentShards.ID_RANGE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class ShardedConsentRepositoryTest {
+
+    private static final Instant INSTANT = Instant.parse("2025-01-01T03:00:00Z");
+
+    private IConsentRepository shardRepository;
+    private PlatformTransactionManager transactionManager;
+    private ConsentShards shards;
+    private ShardedConsentRepository consentRepository;
+
+    @BeforeEach
+    public void init() {
+        shardRepository = mock(IConsentRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        shards = shards(4);
+        consentRepository = new ShardedConsentRepository(shardRepository, shards, transactionManager, 2, Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    public void close() {
+        consentRepository.close();
+    }
+
+    @Test
+    public void routeCallsByConsentIdAndUserId() {
+
+        // Arrange
+        var calledShards = new ArrayList<Integer>();
+        when(shardRepository.findById(anyLong())).thenAnswer(invocation -> {
+            calledShards.add(ConsentShards.current());
+            return Optional.empty();
+        });
+        when(shardRepository.findPageByUserIdAndStatus(any(), any(), any(), any())).thenAnswer(invocation -> {
+            calledShards.add(ConsentShards.current());
+            return List.of();
+        });
+
+        // Act
+        consentRepository.findById(2 * ID_RANGE + 5);
+        consentRepository.findById(7L);
+        consentRepository.findPageByUserIdAndStatus("user-12345", ConsentStatus.AUTHORISED, 0L, PageRequest.ofSize(10));
+
+        // Assert
+        assertEquals(List.of(2, 0, shards.shardOfUser("user-12345")), calledShards);
+        assertEquals(0, ConsentShards.current());
+    }
+
+    @Test
+    public void consentIdOutOfShardRangesIsNotFound() {
+
+        // Act
+        var consent = consentRepository.findById(4 * ID_RANGE + 1);
+        var snapshot = consentRepository.findSnapshotById(-1L);
+        var deleted = consentRepository.deleteConsentById(4 * ID_RANGE + 1);
+        var updated = consentRepository.updateConsent(4 * ID_RANGE + 1, null, ConsentStatus.REJECT,
+                List.of(ConsentPermission.READ_DATA), INSTANT);
+
+        // Assert
+        assertTrue(consent.isEmpty());
+        assertTrue(snapshot.isEmpty());
+        assertEquals(0, deleted);
+        assertTrue(updated.isEmpty());
+        verifyNoInteractions(shardRepository);
+    }
+
+    @Test
+    public void saveConsentsOfSeveralShardsOneTransactionPerShard() {
+
+        // Arrange
+        var savedShards = new ArrayList<Integer>();
+        when(shardRepository.saveAll(any())).thenAnswer(invocation -> {
+            savedShards.add(ConsentShards.current());
+            return new ArrayList<>(invocation.<List<Consent>>getArgument(0));
+        });
+
+        var consents = List.of(consent(ID_RANGE + 1), consent(1L), consent(ID_RANGE + 2), consent(3 * ID_RANGE + 1));
+
+        // Act
+        var savedConsents = consentRepository.saveAll(consents);
+
+        // Assert
+        assertEquals(consents, savedConsents);
+        assertEquals(List.of(0, 1, 3), savedShards);
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    public void saveConsentsOfOneShardInCurrentTransaction() {
+
+        // Arrange
+        when(shardRepository.saveAll(any())).thenAnswer(invocation -> new ArrayList<>(invocation.<List<Consent>>getArgument(0)));
+
+        var consents = List.of(consent(2 * ID_RANGE + 1), consent(2 * ID_RANGE + 2));
+
+        // Act
+        var savedConsents = consentRepository.saveAll(consents);
+
+        // Assert
+        assertEquals(consents, savedConsents);
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    public void rejectConsentIdOutOfShardRangesOnSave() {
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> consentRepository.save(consent(4 * ID_RANGE)));
+        verifyNoInteractions(shardRepository);
+    }
+
+    @Test
+    public void expireConsentsOneStatementPerShard() {
+
+        // Arrange
+        var expiredIds = Collections.synchronizedList(new ArrayList<List<Long>>());
+        when(shardRepository.expireConsents(anyList(), any())).thenAnswer(invocation -> {
+            List<Long> consentIds = invocation.getArgument(0);
+            expiredIds.add(consentIds);
+            return consentIds.size();
+        });
+
+        // Act
+        int expired = consentRepository.expireConsents(
+                List.of(ID_RANGE + 1, 1L, 4 * ID_RANGE + 1, ID_RANGE + 2, 2L), INSTANT);
+
+        // Assert
+        assertEquals(4, expired);
+        assertEquals(Set.of(List.of(1L, 2L), List.of(ID_RANGE + 1, ID_RANGE + 2)), Set.copyOf(expiredIds));
+        verify(transactionManager, times(2)).getTransaction(any());
+    }
+
+    @Test
+    public void purgeConsentsOneStatementPerShard() {
+
+        // Arrange
+        var statuses = List.of(ConsentStatus.REJECT);
+        when(shardRepository.purgeConsents(anyList(), any(), any())).thenAnswer(invocation -> {
+            List<Long> consentIds = invocation.getArgument(0);
+            // The first consent of each shard changed meanwhile and is kept
+            return consentIds.subList(1, consentIds.size());
+        });
+
+        // Act
+        var purged = consentRepository.purgeConsents(
+                List.of(ID_RANGE + 1, 1L, 4 * ID_RANGE + 1, ID_RANGE + 2, 2L), statuses, INSTANT);
+
+        // Assert
+        assertEquals(List.of(2L, ID_RANGE + 2), purged);
+        verify(transactionManager, times(2)).getTransaction(any());
+    }
+
+    @Test
+    public void mergeExpirationPagesOfShards() {
+
+        // Arrange
+        when(shardRepository.findExpirationPage(any(), any(), any())).thenAnswer(invocation -> {
+            long shardBase = ConsentShards.current() * ID_RANGE;
+            return List.of(
+                    new ConsentExpiration(shardBase + 1, INSTANT.plusSeconds(ConsentShards.current())),
+                    new ConsentExpiration(shardBase + 2, INSTANT.plusSeconds(10)));
+        });
+
+        // Act
+        var page = consentRepository.findExpirationPage(INSTANT, 0L, PageRequest.ofSize(3));
+
+        // Assert
+        assertEquals(List.of(1L, ID_RANGE + 1, 2 * ID_RANGE + 1),
+                page.stream().map(ConsentExpiration::consentId).toList());
+    }
+
+    @Test
+    public void fillPurgePageFromShardsInTurn() {
+
+        // Arrange
+        var pageSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        when(shardRepository.findPurgeableIds(any(), any(), any())).thenAnswer(invocation -> {
+            pageSizes.add(invocation.<PageRequest>getArgument(2).getPageSize());
+            long shardBase = ConsentShards.current() * ID_RANGE;
+            return List.of(shardBase + 1, shardBase + 2);
+        });
+
+        // Act
+        var consentIds = consentRepository.findPurgeableIds(List.of(ConsentStatus.REJECT), INSTANT, PageRequest.ofSize(5));
+
+        // Assert
+        assertEquals(List.of(1L, 2L, ID_RANGE + 1, ID_RANGE + 2, 2 * ID_RANGE + 1), consentIds);
+        assertEquals(List.of(5, 5, 5, 5), pageSizes);
+    }
+
+    @Test
+    public void callShardsAtOnce() {
+
+        // Arrange
+        var running = new CountDownLatch(4);
+        when(shardRepository.expireAllDue(any())).thenAnswer(invocation -> {
+            // Only returns 1 if every shard is called before any of them returns
+            running.countDown();
+            return running.await(5, TimeUnit.SECONDS) ? 1 : 0;
+        });
+
+        // Act
+        int expired = consentRepository.expireAllDue(INSTANT);
+
+        // Assert
+        assertEquals(4, expired);
+        verify(transactionManager, times(4)).getTransaction(any());
+    }
+
+    @Test
+    public void failCallWhenAShardFails() {
+
+        // Arrange
+        when(shardRepository.findExpiredPage(any(), any(), any())).thenAnswer(invocation -> {
+            if (ConsentShards.current() == 2) {
+                throw new IllegalStateException("Shard 2 is down");
+            }
+            return List.of(snapshot(ConsentShards.current() * ID_RANGE + 1));
+        });
+
+        // Act
+        var exception = assertThrows(IllegalStateException.class,
+                () -> consentRepository.findExpiredPage(INSTANT, 0L, PageRequest.ofSize(10)));
+
+        // Assert
+        assertEquals("Shard 2 is down", exception.getMessage());
+    }
+
+    @Test
+    public void mergeShardsInConsentIdOrder() {
+
+        // Arrange
+        var consentIds = Map.of(
+                0, List.of(1L, 5L, 9L),
+                1, List.of(2L, 6L),
+                2, List.<Long>of(),
+                3, IntStream.rangeClosed(10, 3000).mapToObj(Long::valueOf).toList());
+        when(shardRepository.streamAll()).thenAnswer(invocation ->
+                consentIds.get(ConsentShards.current()).stream().map(ShardedConsentRepositoryTest::snapshot));
+
+        // Act
+        List<Long> exported;
+        try (var consents = consentRepository.streamAll()) {
+            exported = consents.map(ConsentSnapshot::consentId).toList();
+        }
+
+        // Assert
+        assertEquals(2996, exported.size());
+        assertEquals(List.of(1L, 2L, 5L, 6L, 9L, 10L), exported.subList(0, 6));
+        assertEquals(3000L, exported.get(exported.size() - 1));
+        verify(transactionManager, times(4)).getTransaction(any());
+    }
+
+    @Test
+    public void failExportWhenAShardFails() {
+
+        // Arrange
+        when(shardRepository.streamAll()).thenAnswer(invocation -> {
+            if (ConsentShards.current() == 2) {
+                throw new IllegalStateException("Shard 2 is down");
+            }
+            return List.of(snapshot(ConsentShards.current() * ID_RANGE + 1)).stream();
+        });
+
+        // Act
+        var exception = assertThrows(IllegalStateException.class, () -> {
+            try (var consents = consentRepository.streamAll()) {
+                consents.forEach(consent -> { });
+            }
+        });
+
+        // Assert
+        assertEquals("Shard 2 is down", exception.getMessage());
+    }
+
+    @Test
+    public void boundConcurrentExports() {
+
+        // Arrange
+        var boundedRepository = new ShardedConsentRepository(shardRepository, shards, transactionManager, 1,
+                Duration.ofMillis(100));
+        when(shardRepository.streamAll()).thenAnswer(invocation ->
+                List.of(snapshot(ConsentShards.current() * ID_RANGE + 1)).stream());
+
+        try {
+            // Act
+            var running = boundedRepository.streamAll();
+            var exception = assertThrows(CannotCreateTransactionException.class, boundedRepository::streamAll);
+            running.close();
+
+            long exported;
+            try (var consents = boundedRepository.streamAll()) {
+                exported = consents.count();
+            }
+
+            // Assert
+            assertTrue(exception.getMessage().startsWith("No export slot available"));
+            assertEquals(4, exported);
+        } finally {
+            boundedRepository.close();
+        }
+    }
+
+    @Test
+    public void releaseExportSlotWhenExportCannotStart() {
+
+        // Arrange
+        var boundedRepository = new ShardedConsentRepository(shardRepository, shards, transactionManager, 1,
+                Duration.ofMillis(100));
+        boundedRepository.close();
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, boundedRepository::streamAll);
+        // The slot was given back: the second export is rejected again instead of waiting for a slot
+        assertThrows(RejectedExecutionException.class, boundedRepository::streamAll);
+    }
+
+    @Test
+    public void streamSingleShardInCurrentTransaction() {
+
+        // Arrange
+        var singleShardRepository = new ShardedConsentRepository(shardRepository, shards(1), transactionManager, 2, Duration.ofSeconds(1));
+        when(shardRepository.streamAll()).thenReturn(List.of(snapshot(1L)).stream());
+
+        // Act
+        long count;
+        try (var consents = singleShardRepository.streamAll()) {
+            count = consents.count();
+        }
+
+        // Assert
+        assertEquals(1, count);
+        verifyNoInteractions(transactionManager);
+        singleShardRepository.close();
+    }
+
+    private static ConsentShards shards(int count) {
+        return new ConsentShards(IntStream.range(0, count).mapToObj(shard -> mock(DataSource.class)).toList());
+    }
+
+    private static Consent consent(long consentId) {
+        return Consent.builder()
+                .consentId(consentId)
+                .userId("user-" + consentId)
+                .status(ConsentStatus.AWAITING_AUTHORISATION)
+                .permissions(List.of(ConsentPermission.READ_DATA))
+                .createdAt(INSTANT)
+                .updatedAt(INSTANT)
+                .build();
+    }
+
+    private static ConsentSnapshot snapshot(long consentId) {
+        return new ConsentSnapshot(consentId, "user-" + consentId, List.of(ConsentPermission.READ_DATA),
+                ConsentStatus.AUTHORISED, INSTANT, INSTANT, 0, null);
+    }
+}
@@ -0,0 +1,62 @@
+package com.raidiam.consents.adapters.sharding;
+
+import com.raidiam.consents.adapters.idgenerator.IIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static com.raidiam.consents.adapters.sharding.ConsentShards.ID_RANGE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class ShardedIdGeneratorTest {
+
+    @Test
+    public void handOutIdsInRangeOfUserShard() {
+
+        // Arrange
+        var shards = new ConsentShards(IntStream.range(0, 8).mapToObj(shard -> mock(DataSource.class)).toList());
+        var generator = new ShardedIdGenerator(shards, shard -> new AtomicLong()::incrementAndGet);
+
+        // Act & Assert
+        for (int user = 0; user < 100; user++) {
+            var userId = "user-" + user;
+            long id = generator.nextId(userId);
+            assertEquals(shards.shardOfUser(userId), shards.shardOfConsent(id));
+        }
+
+        assertEquals(0, shards.shardOfConsent(generator.nextId()));
+    }
+
+    @Test
+    public void spreadUsersOverShards() {
+
+        // Arrange
+        var shards = new ConsentShards(IntStream.range(0, 4).mapToObj(shard -> mock(DataSource.class)).toList());
+        var users = new int[shards.count()];
+
+        // Act
+        for (int user = 0; user < 4000; user++) {
+            users[shards.shardOfUser("user-" + user)]++;
+        }
+
+        // Assert
+        for (int count : users) {
+            assertTrue(count > 800 && count < 1200, "users per shard: " + count);
+        }
+    }
+
+    @Test
+    public void failWhenShardRangeIsExhausted() {
+
+        // Arrange
+        var shards = new ConsentShards(IntStream.range(0, 2).mapToObj(shard -> mock(DataSource.class)).toList());
+        IIdGenerator exhausted = () -> ID_RANGE;
+        var generator = new ShardedIdGenerator(shards, shard -> exhausted);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> generator.nextId("user-12345"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.raidiam.consents.config;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.raidiam.consents.adapters.ratelimit.InMemoryRateLimitStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.validation.BindValidationException;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(PropertiesConfiguration.class);
+
+    @Test
+    public void separateDefaultReadAndWritePolicies() {
+
+        // Arrange
+        var properties = new RateLimitProperties();
+        var store = new InMemoryRateLimitStore(Ticker.systemTicker());
+
+        // Act
+        var policyTable = new RateLimitConfiguration().rateLimitPolicyTable(1, properties, store);
+        var readPolicy = policyTable.resolve("GET", "/unmatched");
+        var writePolicy = policyTable.resolve("POST", "/unmatched");
+
+        // Assert: a write does not take the permit of a read
+        assertEquals(RateLimitConfiguration.DEFAULT_READ, readPolicy.getName());
+        assertEquals(RateLimitConfiguration.DEFAULT_WRITE, writePolicy.getName());
+        assertNotSame(readPolicy.getRateLimiter(), writePolicy.getRateLimiter());
+    }
+
+    @Test
+    public void bindValidPolicies() {
+
+        // Act & Assert
+        contextRunner
+                .withPropertyValues(
+                        "custom.rate-limit.policies[0].method=POST",
+                        "custom.rate-limit.policies[0].route=/consents/batch",
+                        "custom.rate-limit.policies[0].limit=5",
+                        "custom.rate-limit.policies[0].cost=5")
+                .run(context -> assertThat(context).hasNotFailed());
+    }
+
+    @Test
+    public void refusePolicyWithCostOverLimit() {
+
+        // Act & Assert
+        contextRunner
+                .withPropertyValues(
+                        "custom.rate-limit.policies[0].method=POST",
+                        "custom.rate-limit.policies[0].route=/consents/batch",
+                        "custom.rate-limit.policies[0].limit=5",
+                        "custom.rate-limit.policies[0].cost=6")
+                .run(context -> assertThat(errors(context.getStartupFailure())).containsExactly("cost must not exceed limit"));
+    }
+
+    @Test
+    public void refusePolicyWithoutRoute() {
+
+        // Act & Assert
+        contextRunner
+                .withPropertyValues(
+                        "custom.rate-limit.policies[0].method=GET",
+                        "custom.rate-limit.policies[0].limit=5")
+                .run(context -> assertThat(errors(context.getStartupFailure())).containsExactly("must not be blank"));
+    }
+
+    @Test
+    public void refuseWriteBudgetWithoutLimit() {
+
+        // Act & Assert
+        contextRunner
+                .withPropertyValues("custom.rate-limit.write-budget.period=1s")
+                .run(context -> assertThat(errors(context.getStartupFailure())).containsExactly("must be greater than 0"));
+    }
+
+    private static List<String> errors(Throwable startupFailure) {
+
+        assertNotNull(startupFailure);
+
+        var cause = startupFailure;
+        while (! (cause instanceof BindValidationException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        var bindValidationException = assertInstanceOf(BindValidationException.class, cause);
+
+        return bindValidationException.getValidationErrors().getAllErrors().stream()
+                .map(error -> error.getDefaultMessage())
+                .toList();
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(RateLimitProperties.class)
+    static class PropertiesConfiguration {
+    }
+}
@@ -0,0 +1,51 @@
+package com.raidiam.consents.domain.converters;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.raidiam.consents.domain.enums.ConsentPermission.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsentPermissionsConverterTest {
+
+    private final ConsentPermissionsConverter converter = new ConsentPermissionsConverter();
+
+    @Test
+    public void convertPermissionsToBitmask() {
+
+        // Act & Assert
+        assertEquals(0, converter.convertToDatabaseColumn(List.of()));
+        assertEquals(1, converter.convertToDatabaseColumn(List.of(READ_DATA)));
+        assertEquals(6, converter.convertToDatabaseColumn(List.of(DELETE_DATA, WRITE_DATA)));
+        assertEquals(7, converter.convertToDatabaseColumn(List.of(READ_DATA, WRITE_DATA, DELETE_DATA)));
+    }
+
+    @Test
+    public void convertBitmaskToPermissionsInDeclarationOrder() {
+
+        // Act & Assert
+        assertEquals(List.of(), converter.convertToEntityAttribute(0));
+        assertEquals(List.of(READ_DATA), converter.convertToEntityAttribute(1));
+        assertEquals(List.of(WRITE_DATA, DELETE_DATA), converter.convertToEntityAttribute(6));
+        assertEquals(List.of(READ_DATA, WRITE_DATA, DELETE_DATA), converter.convertToEntityAttribute(7));
+        assertEquals(List.of(), converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    public void putPermissionsInDeclarationOrder() {
+
+        // Act & Assert
+        assertEquals(List.of(), ConsentPermissionsConverter.inDeclarationOrder(List.of()));
+        assertEquals(List.of(READ_DATA, DELETE_DATA), ConsentPermissionsConverter.inDeclarationOrder(List.of(DELETE_DATA, READ_DATA)));
+        assertEquals(converter.convertToEntityAttribute(7),
+                ConsentPermissionsConverter.inDeclarationOrder(List.of(DELETE_DATA, WRITE_DATA, READ_DATA)));
+    }
+
+    @Test
+    public void ignoreUnknownBits() {
+
+        // Act & Assert
+        assertEquals(List.of(READ_DATA), converter.convertToEntityAttribute(1 | 64));
+    }
+}
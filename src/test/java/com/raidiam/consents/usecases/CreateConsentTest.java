@@ -1,5 +1,8 @@
 package com.raidiam.consents.usecases;
 
+import com.raidiam.consents.adapters.eventlog.IConsentEventLog;
+import com.raidiam.consents.adapters.expiration.IConsentExpirationScheduler;
+import com.raidiam.consents.adapters.idgenerator.IIdGenerator;
 import com.raidiam.consents.adapters.repositories.IConsentRepository;
 import com.raidiam.consents.domain.entities.Consent;
 import com.raidiam.consents.domain.enums.ConsentPermission;
@@ -8,26 +11,40 @@ import com.raidiam.consents.domain.exceptions.ConsentWithInvalidStatusException;
 import com.raidiam.consents.usecases.createconsent.CreateConsent;
 import com.raidiam.consents.usecases.createconsent.port.CreateConsentRequest;
 import com.raidiam.consents.usecases.createconsent.port.CreateConsentResponse;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import java.time.*;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static com.raidiam.consents.domain.messages.ErrorMessage.INTERNAL_SERVER_ERROR;
 import static com.raidiam.consents.domain.messages.ErrorMessage.INVALID_CONSENT_INITIAL_STATUS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class CreateConsentTest {
 
+    private static final int CHUNK_SIZE = 4;
+
     @InjectMocks
     CreateConsent createConsent;
 
@@ -37,13 +54,26 @@ public class CreateConsentTest {
     @Mock
     IConsentRepository consentRepository;
 
+    @Mock
+    IIdGenerator consentIdGenerator;
+
+    @Mock
+    IConsentEventLog consentEventLog;
+
+    @Mock
+    IConsentExpirationScheduler consentExpirationScheduler;
+
+    @BeforeEach
+    public void init() {
+        ReflectionTestUtils.setField(createConsent, "defaultValidity", Duration.ofDays(90));
+        ReflectionTestUtils.setField(createConsent, "chunkSize", CHUNK_SIZE);
+    }
+
     @Test
     public void createConsentSuccessfully() {
 
         // Arrange
         var frozenDateTime = LocalDateTime.of(2025, 1, 1, 3, 0, 0);
-        var dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
-        var formattedFrozenDateTime = dateTimeFormatter.format(frozenDateTime);
         var instant = ZonedDateTime.of(frozenDateTime, ZoneId.systemDefault()).toInstant();
 
         var savedMockConsent =
@@ -52,8 +82,9 @@ public class CreateConsentTest {
                         .userId("user-12345")
                         .status(ConsentStatus.AWAITING_AUTHORISATION)
                         .permissions(List.of(ConsentPermission.READ_DATA))
-                        .createdAt(formattedFrozenDateTime)
-                        .updatedAt(formattedFrozenDateTime)
+                        .createdAt(instant)
+                        .updatedAt(instant)
+                        .expirationDateTime(instant.plus(Duration.ofDays(90)))
                         .build();
 
         var createConsentRequest =
@@ -69,12 +100,14 @@ public class CreateConsentTest {
                         .userId("user-12345")
                         .status(ConsentStatus.AWAITING_AUTHORISATION)
                         .permissions(List.of(ConsentPermission.READ_DATA))
-                        .createdAt(formattedFrozenDateTime)
-                        .updatedAt(formattedFrozenDateTime)
-                        .requestDateTime(formattedFrozenDateTime)
+                        .createdAt(instant)
+                        .updatedAt(instant)
+                        .expirationDateTime(instant.plus(Duration.ofDays(90)))
+                        .requestDateTime(instant)
                         .build();
 
         when(clock.instant()).thenReturn(instant);
+        when(consentIdGenerator.nextId(anyString())).thenReturn(1L);
         when(consentRepository.save(any(Consent.class))).thenReturn(savedMockConsent);
 
         // Act
@@ -82,6 +115,33 @@ public class CreateConsentTest {
 
         // Assert
         assertThat(createdConsent).usingRecursiveComparison().isEqualTo(expectedConsentResponse);
+        verify(consentRepository).save(argThat(consent -> instant.plus(Duration.ofDays(90)).equals(consent.getExpirationDateTime())));
+        verify(consentEventLog).append(any());
+        verify(consentExpirationScheduler).schedule(1L, instant.plus(Duration.ofDays(90)));
+    }
+
+    @Test
+    public void createConsentWithPermissionsInDeclarationOrder() {
+
+        // Arrange
+        var instant = Instant.parse("2025-01-01T00:00:00Z");
+
+        var createConsentRequest =
+                CreateConsentRequest.builder()
+                        .userId("user-12345")
+                        .status(ConsentStatus.AWAITING_AUTHORISATION)
+                        .permissions(List.of(ConsentPermission.DELETE_DATA, ConsentPermission.READ_DATA))
+                        .build();
+
+        when(clock.instant()).thenReturn(instant);
+        when(consentIdGenerator.nextId(anyString())).thenReturn(1L);
+        when(consentRepository.save(any(Consent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        var createdConsent = createConsent.execute(createConsentRequest);
+
+        // Assert: same order as the consent is read back (bitmask decoded in declaration order)
+        assertEquals(List.of(ConsentPermission.READ_DATA, ConsentPermission.DELETE_DATA), createdConsent.getPermissions());
     }
 
     @Test
@@ -103,4 +163,139 @@ public class CreateConsentTest {
         // Assert
         assertEquals(INVALID_CONSENT_INITIAL_STATUS, exception.getLocalizedMessage());
     }
+
+    @Test
+    public void createConsentBatchInChunks() {
+
+        // Arrange
+        var instant = Instant.parse("2025-01-01T00:00:00Z");
+        var nextId = new AtomicLong();
+
+        var requests = new ArrayList<CreateConsentRequest>();
+        for (int i = 0; i < CHUNK_SIZE + 2; i++) {
+            requests.add(CreateConsentRequest.builder()
+                    .userId("user-" + i)
+                    .status(i == 1 ? ConsentStatus.AUTHORISED : ConsentStatus.AWAITING_AUTHORISATION)
+                    .permissions(List.of(ConsentPermission.READ_DATA))
+                    .expirationDateTime(i == 0 ? instant.plus(Duration.ofHours(1)) : null)
+                    .build());
+        }
+
+        when(clock.instant()).thenReturn(instant);
+        when(consentIdGenerator.nextId(anyString())).thenAnswer(invocation -> nextId.incrementAndGet());
+        when(consentRepository.saveAll(anyList())).thenAnswer(invocation -> new ArrayList<>(invocation.getArgument(0)));
+
+        // Act
+        var batchResponse = createConsent.executeBatch(requests);
+
+        // Assert
+        verify(consentRepository, times(2)).saveAll(anyList());
+
+        var items = batchResponse.getItems();
+        assertEquals(CHUNK_SIZE + 2, items.size());
+        assertEquals("consent-1", items.get(0).getConsent().getConsentId());
+        assertEquals(instant, items.get(0).getConsent().getCreatedAt());
+        assertEquals(instant.plus(Duration.ofHours(1)), items.get(0).getConsent().getExpirationDateTime());
+        assertEquals(instant.plus(Duration.ofDays(90)), items.get(2).getConsent().getExpirationDateTime());
+        verify(consentExpirationScheduler, times(CHUNK_SIZE + 1)).schedule(anyLong(), any());
+        assertNull(items.get(1).getConsent());
+        assertEquals(INVALID_CONSENT_INITIAL_STATUS, items.get(1).getError());
+        assertEquals("consent-2", items.get(2).getConsent().getConsentId());
+        assertEquals("user-" + (CHUNK_SIZE + 1), items.get(CHUNK_SIZE + 1).getConsent().getUserId());
+    }
+
+    @Test
+    public void reportFailedChunkAndSaveTheOthers() {
+
+        // Arrange
+        var instant = Instant.parse("2025-01-01T00:00:00Z");
+        var nextId = new AtomicLong();
+        var saves = new AtomicLong();
+
+        var requests = new ArrayList<CreateConsentRequest>();
+        for (int i = 0; i < 2 * CHUNK_SIZE + 2; i++) {
+            requests.add(CreateConsentRequest.builder()
+                    .userId("user-" + i)
+                    .status(ConsentStatus.AWAITING_AUTHORISATION)
+                    .permissions(List.of(ConsentPermission.READ_DATA))
+                    .build());
+        }
+
+        when(clock.instant()).thenReturn(instant);
+        when(consentIdGenerator.nextId(anyString())).thenAnswer(invocation -> nextId.incrementAndGet());
+        when(consentRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            if (saves.incrementAndGet() == 2) {
+                throw new DataAccessResourceFailureException("Connection lost");
+            }
+            return new ArrayList<>(invocation.getArgument(0));
+        });
+
+        // Act
+        var batchResponse = createConsent.executeBatch(requests);
+
+        // Assert
+        verify(consentRepository, times(3)).saveAll(anyList());
+        verify(consentExpirationScheduler, times(CHUNK_SIZE + 2)).schedule(anyLong(), any());
+
+        var items = batchResponse.getItems();
+        assertEquals(2 * CHUNK_SIZE + 2, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            boolean failedChunk = i >= CHUNK_SIZE && i < 2 * CHUNK_SIZE;
+            assertEquals(failedChunk, items.get(i).isFailed());
+            assertEquals(failedChunk ? INTERNAL_SERVER_ERROR : null, items.get(i).getError());
+            assertEquals(failedChunk, items.get(i).getConsent() == null);
+        }
+    }
+
+    @Test
+    public void throwChunkFailureWithinCallerTransaction() {
+
+        // Arrange
+        var request = CreateConsentRequest.builder()
+                .userId("user-1")
+                .status(ConsentStatus.AWAITING_AUTHORISATION)
+                .permissions(List.of(ConsentPermission.READ_DATA))
+                .build();
+
+        when(clock.instant()).thenReturn(Instant.parse("2025-01-01T00:00:00Z"));
+        when(consentIdGenerator.nextId(anyString())).thenReturn(1L);
+        when(consentRepository.saveAll(anyList())).thenThrow(new DataAccessResourceFailureException("Connection lost"));
+
+        // Act & Assert
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(DataAccessResourceFailureException.class, () -> createConsent.executeBatch(List.of(request)));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        verifyNoInteractions(consentExpirationScheduler);
+    }
+
+    @Test
+    public void scheduleExpirationOnceCommitted() {
+
+        // Arrange
+        var instant = Instant.parse("2025-01-01T00:00:00Z");
+        var request = CreateConsentRequest.builder()
+                .userId("user-1")
+                .status(ConsentStatus.AWAITING_AUTHORISATION)
+                .permissions(List.of(ConsentPermission.READ_DATA))
+                .build();
+
+        when(clock.instant()).thenReturn(instant);
+        when(consentIdGenerator.nextId(anyString())).thenReturn(1L);
+        when(consentRepository.save(any(Consent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act & Assert
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            createConsent.execute(request);
+            verifyNoInteractions(consentExpirationScheduler);
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+            verify(consentExpirationScheduler).schedule(1L, instant.plus(Duration.ofDays(90)));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
 }
@@ -0,0 +1,132 @@
+package com.raidiam.consents.usecases;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.cache.IConsentCache;
+import com.raidiam.consents.adapters.eventlog.ConsentEvent;
+import com.raidiam.consents.adapters.eventlog.IConsentEventLog;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.usecases.expireconsents.ExpireConsents;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpireConsentsTest {
+
+    @InjectMocks
+    ExpireConsents expireConsents;
+
+    @Mock
+    Clock clock;
+
+    @Mock
+    IConsentRepository consentRepository;
+
+    @Mock
+    IConsentCache consentCache;
+
+    @Mock
+    IConsentEventLog consentEventLog;
+
+    @Test
+    public void expireConsentsAndDropThemFromCache() {
+
+        // Arrange
+        var instant = Instant.parse("2025-01-01T03:00:00Z");
+        when(clock.instant()).thenReturn(instant);
+        when(consentRepository.expireConsents(List.of(1L, 2L, 3L), instant)).thenReturn(2);
+        when(consentEventLog.isEnabled()).thenReturn(true);
+        when(consentRepository.findExpiredPage(instant, 0L, PageRequest.ofSize(1000)))
+                .thenReturn(List.of(expiredConsent(1L, instant), expiredConsent(3L, instant)));
+
+        // Act
+        int expired = expireConsents.execute(List.of(1L, 2L, 3L));
+
+        // Assert
+        assertEquals(2, expired);
+        verify(consentCache).invalidate(1L);
+        verify(consentCache).invalidate(2L);
+        verify(consentCache).invalidate(3L);
+        verify(consentEventLog).append(ConsentEvent.expired(expiredConsent(1L, instant)));
+        verify(consentEventLog).append(ConsentEvent.expired(expiredConsent(3L, instant)));
+    }
+
+    @Test
+    public void readNothingBackWhenEventLogDisabled() {
+
+        // Arrange
+        var instant = Instant.parse("2025-01-01T03:00:00Z");
+        when(clock.instant()).thenReturn(instant);
+        when(consentRepository.expireConsents(List.of(1L, 2L), instant)).thenReturn(2);
+        when(consentEventLog.isEnabled()).thenReturn(false);
+
+        // Act
+        int expired = expireConsents.execute(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(2, expired);
+        verify(consentCache).invalidate(1L);
+        verify(consentCache).invalidate(2L);
+        verify(consentRepository, never()).findExpiredPage(any(), anyLong(), any());
+        verify(consentEventLog, never()).append(any());
+    }
+
+    @Test
+    public void appendNothingWhenNoConsentExpired() {
+
+        // Arrange
+        var instant = Instant.parse("2025-01-01T03:00:00Z");
+        when(clock.instant()).thenReturn(instant);
+        when(consentRepository.expireConsents(List.of(1L), instant)).thenReturn(0);
+
+        // Act
+        int expired = expireConsents.execute(List.of(1L));
+
+        // Assert
+        assertEquals(0, expired);
+        verify(consentRepository, never()).findExpiredPage(any(), anyLong(), any());
+        verifyNoInteractions(consentEventLog);
+    }
+
+    @Test
+    public void expireAllDueConsents() {
+
+        // Arrange
+        var instant = Instant.parse("2025-01-01T03:00:00Z");
+        when(clock.instant()).thenReturn(instant);
+        when(consentRepository.expireAllDue(instant)).thenReturn(1001);
+        when(consentEventLog.isEnabled()).thenReturn(true);
+        var firstPage = LongStream.rangeClosed(1, 1000).mapToObj(consentId -> expiredConsent(consentId, instant)).toList();
+        when(consentRepository.findExpiredPage(instant, 0L, PageRequest.ofSize(1000))).thenReturn(firstPage);
+        when(consentRepository.findExpiredPage(instant, 1000L, PageRequest.ofSize(1000)))
+                .thenReturn(List.of(expiredConsent(1001L, instant)));
+
+        // Act
+        int expired = expireConsents.executeAllDue();
+
+        // Assert
+        assertEquals(1001, expired);
+        verify(consentEventLog, times(1001)).append(any());
+        verifyNoInteractions(consentCache);
+    }
+
+    private static ConsentSnapshot expiredConsent(long consentId, Instant expiredAt) {
+        return new ConsentSnapshot(consentId, "user-1", List.of(ConsentPermission.READ_DATA), ConsentStatus.EXPIRED,
+                expiredAt.minusSeconds(60), expiredAt, 1, expiredAt);
+    }
+}
@@ -0,0 +1,73 @@
+package com.raidiam.consents.usecases;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.usecases.exportconsents.ExportConsents;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ExportConsentsTest {
+
+    @InjectMocks
+    ExportConsents exportConsents;
+
+    @Mock
+    IConsentRepository consentRepository;
+
+    @Test
+    public void exportConsentsInOrderAndCloseCursor() {
+
+        // Arrange
+        var closed = new AtomicBoolean();
+        var exported = new ArrayList<Long>();
+
+        when(consentRepository.streamAll())
+                .thenReturn(Stream.of(snapshot(1), snapshot(2), snapshot(3)).onClose(() -> closed.set(true)));
+
+        // Act
+        var count = exportConsents.execute(consent -> exported.add(consent.consentId()));
+
+        // Assert
+        assertEquals(3, count);
+        assertEquals(List.of(1L, 2L, 3L), exported);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void closeCursorWhenConsumerFails() {
+
+        // Arrange
+        var closed = new AtomicBoolean();
+
+        when(consentRepository.streamAll())
+                .thenReturn(Stream.of(snapshot(1), snapshot(2)).onClose(() -> closed.set(true)));
+
+        // Act
+        // Assert
+        assertThrows(IllegalStateException.class, () -> exportConsents.execute(consent -> {
+            throw new IllegalStateException("client disconnected");
+        }));
+        assertTrue(closed.get());
+    }
+
+    private static ConsentSnapshot snapshot(long consentId) {
+        var time = Instant.parse("2025-01-01T00:00:00Z");
+        return new ConsentSnapshot(consentId, "user-1", List.of(ConsentPermission.READ_DATA),
+                ConsentStatus.AUTHORISED, time, time, 0, null);
+    }
+}
@@ -0,0 +1,130 @@
+package com.raidiam.consents.usecases;
+
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.usecases.createconsent.ICreateConsent;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentBatchResponse;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentRequest;
+import com.raidiam.consents.usecases.createconsent.port.CreateConsentResponse;
+import com.raidiam.consents.usecases.importconsents.ImportConsents;
+import com.raidiam.consents.usecases.importconsents.port.ImportConsentsRequest;
+import com.raidiam.consents.usecases.importconsents.port.ImportConsentsResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.raidiam.consents.domain.messages.ErrorMessage.INVALID_CONSENT_INITIAL_STATUS;
+import static com.raidiam.consents.domain.messages.ErrorMessage.MALFORMED_BATCH_ITEM;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ImportConsentsTest {
+
+    ImportConsents importConsents;
+
+    @Mock
+    ICreateConsent createConsent;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void init() {
+        importConsents = new ImportConsents(createConsent, new TransactionTemplate(transactionManager), 2);
+    }
+
+    @Test
+    public void importConsentsInCommittedBatches() {
+
+        // Arrange
+        var batchSizes = new ArrayList<Integer>();
+
+        when(createConsent.executeBatch(anyList())).thenAnswer(invocation -> {
+            List<CreateConsentRequest> requests = invocation.getArgument(0);
+            batchSizes.add(requests.size());
+            return CreateConsentBatchResponse.builder()
+                    .items(requests.stream()
+                            .map(request -> ConsentStatus.AWAITING_AUTHORISATION.equals(request.getStatus())
+                                    ? CreateConsentBatchResponse.Item.builder()
+                                        .consent(CreateConsentResponse.builder().userId(request.getUserId()).build())
+                                        .build()
+                                    : CreateConsentBatchResponse.Item.builder()
+                                        .error(INVALID_CONSENT_INITIAL_STATUS)
+                                        .build())
+                            .toList())
+                    .build();
+        });
+
+        var requests = List.of(
+                valid(1, ConsentStatus.AWAITING_AUTHORISATION),
+                valid(2, ConsentStatus.AUTHORISED),
+                malformed(4),
+                valid(5, ConsentStatus.AWAITING_AUTHORISATION),
+                valid(6, ConsentStatus.AWAITING_AUTHORISATION));
+
+        // Act
+        var importResponse = importConsents.execute(requests.iterator());
+
+        // Assert
+        assertEquals(List.of(2, 2), batchSizes);
+        verify(transactionManager, times(2)).commit(any());
+
+        assertEquals(5, importResponse.getLines());
+        assertEquals(3, importResponse.getCreated());
+        assertEquals(2, importResponse.getRejected());
+
+        var errors = importResponse.getErrors();
+        assertEquals(List.of(2L, 4L), errors.stream().map(ImportConsentsResponse.LineError::getLine).toList());
+        assertEquals(List.of(INVALID_CONSENT_INITIAL_STATUS), errors.get(0).getErrors());
+        assertEquals(List.of(MALFORMED_BATCH_ITEM), errors.get(1).getErrors());
+    }
+
+    @Test
+    public void reportOnlyFirstRejectedLines() {
+
+        // Arrange
+        var requests = IntStream.rangeClosed(1, ImportConsents.MAX_REPORTED_ERRORS + 5)
+                .mapToObj(ImportConsentsTest::malformed)
+                .iterator();
+
+        // Act
+        var importResponse = importConsents.execute(requests);
+
+        // Assert
+        assertEquals(ImportConsents.MAX_REPORTED_ERRORS + 5, importResponse.getRejected());
+        assertEquals(0, importResponse.getCreated());
+        assertEquals(ImportConsents.MAX_REPORTED_ERRORS, importResponse.getErrors().size());
+        verify(createConsent, times(0)).executeBatch(anyList());
+    }
+
+    private static ImportConsentsRequest valid(long line, ConsentStatus status) {
+        return ImportConsentsRequest.builder()
+                .line(line)
+                .consent(CreateConsentRequest.builder()
+                        .userId("user-" + line)
+                        .permissions(List.of(ConsentPermission.READ_DATA))
+                        .status(status)
+                        .build())
+                .build();
+    }
+
+    private static ImportConsentsRequest malformed(long line) {
+        return ImportConsentsRequest.builder()
+                .line(line)
+                .errors(List.of(MALFORMED_BATCH_ITEM))
+                .build();
+    }
+}
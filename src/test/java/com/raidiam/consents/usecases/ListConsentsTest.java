@@ -0,0 +1,125 @@
+package com.raidiam.consents.usecases;
+
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.domain.enums.ConsentPermission;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.usecases.listconsents.ListConsents;
+import com.raidiam.consents.usecases.listconsents.port.ListConsentsRequest;
+import com.raidiam.consents.usecases.listconsents.port.ListConsentsResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ListConsentsTest {
+
+    @InjectMocks
+    ListConsents listConsents;
+
+    @Mock
+    Clock clock;
+
+    @Mock
+    IConsentRepository consentRepository;
+
+    @Test
+    public void listConsentsWithStatusAfterCursor() {
+
+        // Arrange
+        var request =
+                ListConsentsRequest.builder()
+                        .userId("user-1")
+                        .status(ConsentStatus.AUTHORISED)
+                        .after("consent-10")
+                        .limit(2)
+                        .build();
+
+        when(consentRepository.findPageByUserIdAndStatus("user-1", ConsentStatus.AUTHORISED, 10L, PageRequest.ofSize(3)))
+                .thenReturn(List.of(snapshot(11, ConsentStatus.AUTHORISED), snapshot(12, ConsentStatus.AUTHORISED),
+                        snapshot(13, ConsentStatus.AUTHORISED)));
+
+        // Act
+        var response = listConsents.execute(request);
+
+        // Assert
+        assertEquals(List.of("consent-11", "consent-12"), consentIds(response));
+        assertEquals("consent-12", response.getNext());
+    }
+
+    @Test
+    public void listConsentsOfAnyStatusMergingStatuses() {
+
+        // Arrange
+        var request =
+                ListConsentsRequest.builder()
+                        .userId("user-1")
+                        .limit(3)
+                        .build();
+
+        when(consentRepository.findPageByUserIdAndStatus(eq("user-1"), any(), eq(0L), eq(PageRequest.ofSize(4))))
+                .thenReturn(List.of());
+        when(consentRepository.findPageByUserIdAndStatus(eq("user-1"), eq(ConsentStatus.AUTHORISED), eq(0L), any()))
+                .thenReturn(List.of(snapshot(2, ConsentStatus.AUTHORISED), snapshot(5, ConsentStatus.AUTHORISED)));
+        when(consentRepository.findPageByUserIdAndStatus(eq("user-1"), eq(ConsentStatus.REJECT), eq(0L), any()))
+                .thenReturn(List.of(snapshot(1, ConsentStatus.REJECT)));
+
+        // Act
+        var response = listConsents.execute(request);
+
+        // Assert
+        verify(consentRepository, times(ConsentStatus.values().length)).findPageByUserIdAndStatus(any(), any(), any(), any());
+        assertEquals(List.of("consent-1", "consent-2", "consent-5"), consentIds(response));
+        assertNull(response.getNext());
+    }
+
+    @Test
+    public void listConsentsPastExpirationAsExpired() {
+
+        // Arrange
+        var now = Instant.parse("2025-01-01T03:00:00Z");
+        var request =
+                ListConsentsRequest.builder()
+                        .userId("user-1")
+                        .status(ConsentStatus.AUTHORISED)
+                        .limit(2)
+                        .build();
+
+        // Consent 1 is past its expiration, not yet moved to EXPIRED; consent 2 expires later
+        when(clock.instant()).thenReturn(now);
+        when(consentRepository.findPageByUserIdAndStatus("user-1", ConsentStatus.AUTHORISED, 0L, PageRequest.ofSize(3)))
+                .thenReturn(List.of(
+                        new ConsentSnapshot(1L, "user-1", List.of(ConsentPermission.READ_DATA), ConsentStatus.AUTHORISED,
+                                now, now, 0, now.minusSeconds(1)),
+                        new ConsentSnapshot(2L, "user-1", List.of(ConsentPermission.READ_DATA), ConsentStatus.AUTHORISED,
+                                now, now, 0, now.plusSeconds(1))));
+
+        // Act
+        var response = listConsents.execute(request);
+
+        // Assert
+        assertEquals(List.of(ConsentStatus.EXPIRED, ConsentStatus.AUTHORISED),
+                response.getConsents().stream().map(ListConsentsResponse.Item::getStatus).toList());
+    }
+
+    private static List<String> consentIds(ListConsentsResponse response) {
+        return response.getConsents().stream().map(ListConsentsResponse.Item::getConsentId).toList();
+    }
+
+    private static ConsentSnapshot snapshot(long consentId, ConsentStatus status) {
+        var now = Instant.parse("2025-01-01T00:00:00Z");
+        return new ConsentSnapshot(consentId, "user-1", List.of(ConsentPermission.READ_DATA), status, now, now, 0, null);
+    }
+}
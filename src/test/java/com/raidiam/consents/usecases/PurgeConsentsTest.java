@@ -0,0 +1,80 @@
+package com.raidiam.consents.usecases;
+
+import com.raidiam.consents.adapters.cache.IConsentCache;
+import com.raidiam.consents.adapters.eventlog.ConsentEvent;
+import com.raidiam.consents.adapters.eventlog.IConsentEventLog;
+import com.raidiam.consents.adapters.repositories.IConsentRepository;
+import com.raidiam.consents.domain.enums.ConsentStatus;
+import com.raidiam.consents.usecases.purgeconsents.PurgeConsents;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PurgeConsentsTest {
+
+    private static final Instant UPDATED_BEFORE = Instant.parse("2025-01-01T03:00:00Z");
+    private static final Instant NOW = Instant.parse("2025-01-31T03:00:00Z");
+    private static final List<ConsentStatus> STATUSES = List.of(ConsentStatus.REJECT);
+
+    @InjectMocks
+    PurgeConsents purgeConsents;
+
+    @Mock
+    IConsentRepository consentRepository;
+
+    @Mock
+    IConsentCache consentCache;
+
+    @Mock
+    IConsentEventLog consentEventLog;
+
+    @Mock
+    Clock clock;
+
+    @Test
+    public void purgeChunkDropItFromCacheAndLogIt() {
+
+        // Arrange
+        when(consentRepository.findPurgeableIds(STATUSES, UPDATED_BEFORE, PageRequest.ofSize(3))).thenReturn(List.of(1L, 2L, 3L));
+        when(consentRepository.purgeConsents(List.of(1L, 2L, 3L), STATUSES, UPDATED_BEFORE)).thenReturn(List.of(1L, 3L));
+        when(clock.instant()).thenReturn(NOW);
+
+        // Act
+        int purged = purgeConsents.execute(STATUSES, UPDATED_BEFORE, 3);
+
+        // Assert
+        assertEquals(2, purged);
+        verify(consentCache).invalidate(1L);
+        verify(consentCache).invalidate(2L);
+        verify(consentCache).invalidate(3L);
+        verify(consentEventLog).append(ConsentEvent.purged(1L, NOW));
+        verify(consentEventLog).append(ConsentEvent.purged(3L, NOW));
+        verifyNoMoreInteractions(consentEventLog);
+    }
+
+    @Test
+    public void purgeNothingWhenNoConsentIsOld() {
+
+        // Arrange
+        when(consentRepository.findPurgeableIds(STATUSES, UPDATED_BEFORE, PageRequest.ofSize(3))).thenReturn(List.of());
+
+        // Act
+        int purged = purgeConsents.execute(STATUSES, UPDATED_BEFORE, 3);
+
+        // Assert
+        assertEquals(0, purged);
+        verify(consentRepository, never()).purgeConsents(any(), any(), any());
+        verifyNoInteractions(consentCache, consentEventLog);
+    }
+}
@@ -1,5 +1,8 @@
 package com.raidiam.consents.usecases;
 
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.raidiam.consents.adapters.cache.CaffeineConsentCache;
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
 import com.raidiam.consents.adapters.repositories.IConsentRepository;
 import com.raidiam.consents.domain.entities.Consent;
 import com.raidiam.consents.domain.enums.ConsentPermission;
@@ -12,17 +15,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.*;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 
 import static com.raidiam.consents.domain.messages.ErrorMessage.CONSENT_NOT_FOUND;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class RetrieveConsentTest {
@@ -33,6 +36,9 @@ public class RetrieveConsentTest {
     @Mock
     IConsentRepository consentRepository;
 
+    @Spy
+    CaffeineConsentCache consentCache = new CaffeineConsentCache(100, Duration.ofMinutes(1), Duration.ZERO, Ticker.systemTicker());
+
     @InjectMocks
     RetrieveConsent retrieveConsent;
 
@@ -41,8 +47,6 @@ public class RetrieveConsentTest {
 
         // Arrange
         var frozenDateTime = LocalDateTime.of(2025, 1, 1, 3, 0, 0);
-        var dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
-        var formattedFrozenDateTime = dateTimeFormatter.format(frozenDateTime);
         var instant = ZonedDateTime.of(frozenDateTime, ZoneId.systemDefault()).toInstant();
 
         var savedMockConsent =
@@ -51,8 +55,8 @@ public class RetrieveConsentTest {
                         .userId("user-12345")
                         .status(ConsentStatus.AWAITING_AUTHORISATION)
                         .permissions(List.of(ConsentPermission.READ_DATA))
-                        .createdAt(formattedFrozenDateTime)
-                        .updatedAt(formattedFrozenDateTime)
+                        .createdAt(instant)
+                        .updatedAt(instant)
                         .build();
 
         var retrieveConsentRequest =
@@ -66,13 +70,13 @@ public class RetrieveConsentTest {
                         .userId("user-12345")
                         .status(ConsentStatus.AWAITING_AUTHORISATION)
                         .permissions(List.of(ConsentPermission.READ_DATA))
-                        .createdAt(formattedFrozenDateTime)
-                        .updatedAt(formattedFrozenDateTime)
-                        .requestDateTime(formattedFrozenDateTime)
+                        .createdAt(instant)
+                        .updatedAt(instant)
+                        .requestDateTime(instant)
                         .build();
 
         when(clock.instant()).thenReturn(instant);
-        when(consentRepository.findById(1L)).thenReturn(Optional.ofNullable(savedMockConsent));
+        when(consentRepository.findSnapshotById(1L)).thenReturn(Optional.of(ConsentSnapshot.of(savedMockConsent)));
 
         // Act
         var retrievedConsent = retrieveConsent.execute(retrieveConsentRequest);
@@ -81,6 +85,43 @@ public class RetrieveConsentTest {
         assertThat(retrievedConsent).usingRecursiveComparison().isEqualTo(expectedConsentResponse);
     }
 
+    @Test
+    public void retrieveConsentFromCache() {
+
+        // Arrange
+        var instant = Instant.parse("2025-01-01T00:00:00Z");
+
+        var savedMockConsent =
+                Consent.builder()
+                        .consentId(1L)
+                        .userId("user-12345")
+                        .status(ConsentStatus.AWAITING_AUTHORISATION)
+                        .permissions(List.of(ConsentPermission.READ_DATA))
+                        .createdAt(instant)
+                        .updatedAt(instant)
+                        .build();
+
+        var retrieveConsentRequest =
+                RetrieveConsentRequest.builder()
+                        .consentId("consent-1")
+                        .build();
+
+        when(clock.instant()).thenReturn(instant);
+        when(consentRepository.findSnapshotById(1L)).thenAnswer(invocation -> Optional.of(ConsentSnapshot.of(savedMockConsent)));
+
+        // Act
+        retrieveConsent.execute(retrieveConsentRequest);
+        savedMockConsent.setStatus(ConsentStatus.REJECT);
+        var cachedConsent = retrieveConsent.execute(retrieveConsentRequest);
+        consentCache.invalidate(1L);
+        var reloadedConsent = retrieveConsent.execute(retrieveConsentRequest);
+
+        // Assert
+        verify(consentRepository, times(2)).findSnapshotById(1L);
+        assertEquals(ConsentStatus.AWAITING_AUTHORISATION, cachedConsent.getStatus());
+        assertEquals(ConsentStatus.REJECT, reloadedConsent.getStatus());
+    }
+
     @Test
     public void tryRetrieveConsentWithNotFoundIdentification() {
 
@@ -116,4 +157,39 @@ public class RetrieveConsentTest {
         // Assert
         assertTrue(exception.getLocalizedMessage().contains("99999999999999999999"));
     }
+
+    @Test
+    public void reportExpiredPastExpirationDateTime() {
+
+        // Arrange
+        var instant = Instant.parse("2025-01-01T00:00:00Z");
+
+        var savedMockConsent =
+                Consent.builder()
+                        .consentId(1L)
+                        .userId("user-12345")
+                        .status(ConsentStatus.AUTHORISED)
+                        .permissions(List.of(ConsentPermission.READ_DATA))
+                        .createdAt(instant)
+                        .updatedAt(instant)
+                        .expirationDateTime(instant.plusSeconds(60))
+                        .build();
+
+        var retrieveConsentRequest =
+                RetrieveConsentRequest.builder()
+                        .consentId("consent-1")
+                        .build();
+
+        when(clock.instant()).thenReturn(instant, instant.plusSeconds(60));
+        when(consentRepository.findSnapshotById(1L)).thenReturn(Optional.of(ConsentSnapshot.of(savedMockConsent)));
+
+        // Act
+        var beforeExpiration = retrieveConsent.execute(retrieveConsentRequest);
+        var atExpiration = retrieveConsent.execute(retrieveConsentRequest);
+
+        // Assert: the cached copy is still AUTHORISED, not yet moved to EXPIRED
+        assertEquals(ConsentStatus.AUTHORISED, beforeExpiration.getStatus());
+        assertEquals(ConsentStatus.EXPIRED, atExpiration.getStatus());
+        verify(consentRepository, times(1)).findSnapshotById(1L);
+    }
 }
@@ -1,7 +1,8 @@
 package com.raidiam.consents.usecases;
 
+import com.raidiam.consents.adapters.cache.IConsentCache;
+import com.raidiam.consents.adapters.eventlog.IConsentEventLog;
 import com.raidiam.consents.adapters.repositories.IConsentRepository;
-import com.raidiam.consents.domain.entities.Consent;
 import com.raidiam.consents.domain.exceptions.ConsentNotFoundException;
 import com.raidiam.consents.usecases.revokeconsent.RevokeConsent;
 import com.raidiam.consents.usecases.revokeconsent.port.RevokeConsentRequest;
@@ -11,10 +12,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Optional;
+import java.time.Clock;
 
 import static com.raidiam.consents.domain.messages.ErrorMessage.CONSENT_NOT_FOUND;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,6 +25,15 @@ public class RevokeConsentTest {
     @Mock
     IConsentRepository consentRepository;
 
+    @Mock
+    IConsentCache consentCache;
+
+    @Mock
+    IConsentEventLog consentEventLog;
+
+    @Mock
+    Clock clock;
+
     @InjectMocks
     private RevokeConsent revokeConsent;
 
@@ -36,15 +47,16 @@ public class RevokeConsentTest {
                         .consentId("consent-1")
                         .build();
 
-        when(consentRepository.findById(1L)).thenReturn(Optional.ofNullable(Consent.builder().build()));
-        doNothing().when(consentRepository).deleteById(1L);
+        when(consentRepository.deleteConsentById(1L)).thenReturn(1);
 
         // Act
         revokeConsent.execute(revokeConsentRequest);
 
         // Assert
-        verify(consentRepository, times(1)).findById(1L);
-        verify(consentRepository, times(1)).deleteById(1L);
+        verify(consentRepository, times(1)).deleteConsentById(1L);
+        verifyNoMoreInteractions(consentRepository);
+        verify(consentCache).invalidate(1L);
+        verify(consentEventLog).append(any());
     }
 
     @Test
@@ -56,6 +68,8 @@ public class RevokeConsentTest {
                         .consentId("consent-1")
                         .build();
 
+        when(consentRepository.deleteConsentById(1L)).thenReturn(0);
+
         // Act
         var exception = assertThrows(ConsentNotFoundException.class,
                 () -> revokeConsent.execute(revokeConsentRequest)
@@ -63,6 +77,7 @@ public class RevokeConsentTest {
 
         // Assert
         assertEquals(CONSENT_NOT_FOUND, exception.getLocalizedMessage());
+        verify(consentEventLog, never()).append(any());
     }
 
     @Test
@@ -1,10 +1,13 @@
 package com.raidiam.consents.usecases;
 
+import com.raidiam.consents.adapters.cache.ConsentSnapshot;
+import com.raidiam.consents.adapters.cache.IConsentCache;
+import com.raidiam.consents.adapters.eventlog.IConsentEventLog;
 import com.raidiam.consents.adapters.repositories.IConsentRepository;
-import com.raidiam.consents.domain.entities.Consent;
 import com.raidiam.consents.domain.enums.ConsentPermission;
 import com.raidiam.consents.domain.enums.ConsentStatus;
 import com.raidiam.consents.domain.exceptions.ConsentNotFoundException;
+import com.raidiam.consents.domain.exceptions.ConsentVersionMismatchException;
 import com.raidiam.consents.domain.exceptions.ConsentWithInvalidStatusException;
 import com.raidiam.consents.usecases.updateconsent.UpdateConsent;
 import com.raidiam.consents.usecases.updateconsent.port.UpdateConsentRequest;
@@ -16,14 +19,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.*;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 
 import static com.raidiam.consents.domain.messages.ErrorMessage.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class UpdateConsentTest {
@@ -37,24 +40,22 @@ public class UpdateConsentTest {
     @Mock
     IConsentRepository consentRepository;
 
+    @Mock
+    IConsentCache consentCache;
+
+    @Mock
+    IConsentEventLog consentEventLog;
+
     @Test
     public void updateConsentSuccessfully() {
 
         // Arrange
         var frozenDateTime = LocalDateTime.of(2025, 1, 1, 3, 0, 0);
-        var dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
-        var formattedFrozenDateTime = dateTimeFormatter.format(frozenDateTime);
         var instant = ZonedDateTime.of(frozenDateTime, ZoneId.systemDefault()).toInstant();
 
-        var savedMockConsent =
-                Consent.builder()
-                        .consentId(1L)
-                        .userId("user-12345")
-                        .status(ConsentStatus.AWAITING_AUTHORISATION)
-                        .permissions(List.of(ConsentPermission.READ_DATA))
-                        .createdAt(formattedFrozenDateTime)
-                        .updatedAt(formattedFrozenDateTime)
-                        .build();
+        var updatedMockConsent = new ConsentSnapshot(1L, "user-12345",
+                List.of(ConsentPermission.READ_DATA, ConsentPermission.WRITE_DATA), ConsentStatus.AUTHORISED,
+                instant, instant, 4, null);
 
         var updateConsentRequest =
                 UpdateConsentRequest.builder()
@@ -64,6 +65,7 @@ public class UpdateConsentTest {
                             ConsentPermission.READ_DATA,
                             ConsentPermission.WRITE_DATA
                         ))
+                        .expectedVersion(3L)
                         .build();
 
         var expectedConsentResponse =
@@ -75,19 +77,72 @@ public class UpdateConsentTest {
                                 ConsentPermission.READ_DATA,
                                 ConsentPermission.WRITE_DATA
                         ))
-                        .createdAt(formattedFrozenDateTime)
-                        .updatedAt(formattedFrozenDateTime)
-                        .requestDateTime(formattedFrozenDateTime)
+                        .createdAt(instant)
+                        .updatedAt(instant)
+                        .version(4)
+                        .requestDateTime(instant)
                         .build();
 
         when(clock.instant()).thenReturn(instant);
-        when(consentRepository.findById(1L)).thenReturn(Optional.ofNullable(savedMockConsent));
+        when(consentRepository.updateConsent(1L, 3L, ConsentStatus.AUTHORISED,
+                List.of(ConsentPermission.READ_DATA, ConsentPermission.WRITE_DATA), instant))
+                .thenReturn(Optional.of(updatedMockConsent));
 
         // Act
         var updatedConsent = updateConsent.execute(updateConsentRequest);
 
         // Assert
         assertThat(updatedConsent).usingRecursiveComparison().isEqualTo(expectedConsentResponse);
+        verify(consentCache).invalidate(1L);
+        verify(consentEventLog).append(any());
+        verify(consentRepository, never()).findById(any());
+        verify(consentRepository, never()).findSnapshotById(any());
+    }
+
+    @Test
+    public void tryUpdateConsentWithVersionMismatch() {
+
+        // Arrange
+        var updateConsentRequest =
+                UpdateConsentRequest.builder()
+                        .consentId("consent-1")
+                        .status(ConsentStatus.REJECT)
+                        .permissions(List.of(ConsentPermission.READ_DATA))
+                        .expectedVersion(3L)
+                        .build();
+
+        when(consentRepository.findSnapshotById(1L)).thenReturn(Optional.of(consent(ConsentStatus.AUTHORISED, 4)));
+
+        // Act
+        var exception = assertThrows(ConsentVersionMismatchException.class,
+                () -> updateConsent.execute(updateConsentRequest)
+        );
+
+        // Assert
+        assertEquals(CONSENT_VERSION_MISMATCH, exception.getLocalizedMessage());
+        verify(consentCache).invalidate(1L);
+        verify(consentEventLog, never()).append(any());
+    }
+
+    @Test
+    public void tryUpdateConsentWithVersionOfNotFoundIdentification() {
+
+        // Arrange
+        var updateConsentRequest =
+                UpdateConsentRequest.builder()
+                        .consentId("consent-1")
+                        .status(ConsentStatus.REJECT)
+                        .permissions(List.of(ConsentPermission.READ_DATA))
+                        .expectedVersion(3L)
+                        .build();
+
+        // Act
+        var exception = assertThrows(ConsentNotFoundException.class,
+                () -> updateConsent.execute(updateConsentRequest)
+        );
+
+        // Assert
+        assertEquals(CONSENT_NOT_FOUND, exception.getLocalizedMessage());
     }
 
     @Test
@@ -110,6 +165,81 @@ public class UpdateConsentTest {
         assertEquals(INVALID_CONSENT_UPDATE_STATUS, exception.getLocalizedMessage());
     }
 
+    @Test
+    public void tryUpdateConsentToExpiredStatus() {
+
+        // Arrange
+        var updateConsentRequest =
+                UpdateConsentRequest.builder()
+                        .consentId("consent-1")
+                        .status(ConsentStatus.EXPIRED)
+                        .permissions(List.of(ConsentPermission.READ_DATA))
+                        .build();
+
+        // Act
+        var exception = assertThrows(ConsentWithInvalidStatusException.class,
+                () -> updateConsent.execute(updateConsentRequest)
+        );
+
+        // Assert
+        assertEquals(INVALID_CONSENT_EXPIRED_UPDATE_STATUS, exception.getLocalizedMessage());
+        verifyNoInteractions(consentRepository);
+    }
+
+    @Test
+    public void tryUpdateExpiredConsent() {
+
+        // Arrange
+        var updateConsentRequest =
+                UpdateConsentRequest.builder()
+                        .consentId("consent-1")
+                        .status(ConsentStatus.AUTHORISED)
+                        .permissions(List.of(ConsentPermission.READ_DATA))
+                        .build();
+
+        when(consentRepository.findSnapshotById(1L)).thenReturn(Optional.of(consent(ConsentStatus.EXPIRED, 5)));
+
+        // Act
+        var exception = assertThrows(ConsentWithInvalidStatusException.class,
+                () -> updateConsent.execute(updateConsentRequest)
+        );
+
+        // Assert
+        assertEquals(CONSENT_EXPIRED, exception.getLocalizedMessage());
+        verify(consentEventLog, never()).append(any());
+    }
+
+    @Test
+    public void tryUpdateConsentPastExpirationNotYetExpired() {
+
+        // Arrange
+        var instant = Instant.parse("2025-01-01T03:00:00Z");
+
+        var updateConsentRequest =
+                UpdateConsentRequest.builder()
+                        .consentId("consent-1")
+                        .status(ConsentStatus.AUTHORISED)
+                        .permissions(List.of(ConsentPermission.READ_DATA))
+                        .build();
+
+        // Still AWAITING_AUTHORISATION: the wheel has not expired it yet
+        var pastExpiration = new ConsentSnapshot(1L, "user-12345", List.of(ConsentPermission.READ_DATA),
+                ConsentStatus.AWAITING_AUTHORISATION, Instant.EPOCH, Instant.EPOCH, 5, instant.minusSeconds(1));
+
+        when(clock.instant()).thenReturn(instant);
+        when(consentRepository.findSnapshotById(1L)).thenReturn(Optional.of(pastExpiration));
+
+        // Act
+        var exception = assertThrows(ConsentWithInvalidStatusException.class,
+                () -> updateConsent.execute(updateConsentRequest)
+        );
+
+        // Assert
+        assertEquals(CONSENT_EXPIRED, exception.getLocalizedMessage());
+        verify(consentRepository).updateConsent(1L, null, ConsentStatus.AUTHORISED, List.of(ConsentPermission.READ_DATA), instant);
+        verify(consentEventLog, never()).append(any());
+    }
+
     @Test
     public void tryUpdateConsentWithNotFoundIdentification() {
 
@@ -145,4 +275,9 @@ public class UpdateConsentTest {
         // Assert
         assertTrue(exception.getLocalizedMessage().contains("99999999999999999999"));
     }
+
+    private static ConsentSnapshot consent(ConsentStatus status, long version) {
+        return new ConsentSnapshot(1L, "user-12345", List.of(ConsentPermission.READ_DATA), status,
+                Instant.EPOCH, Instant.EPOCH, version, null);
+    }
 }
@@ -1,10 +1,14 @@
 package com.raidiam.consents.utils;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raidiam.consents.adapters.rest.port.ConsentResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 public class CustomFormatterTest {
@@ -18,4 +22,52 @@ public class CustomFormatterTest {
         // Assert
         assertEquals(12345L, longConsentId);
     }
+
+    @Test
+    public void parseIfMatchVersion() {
+
+        // Arrange, Act & Assert
+        assertEquals("\"7\"", CustomFormatter.formatETag(7));
+        assertEquals(7L, CustomFormatter.parseIfMatchVersion("\"7\""));
+        assertEquals(7L, CustomFormatter.parseIfMatchVersion("7"));
+        assertNull(CustomFormatter.parseIfMatchVersion(null));
+        assertNull(CustomFormatter.parseIfMatchVersion("*"));
+        assertEquals(CustomFormatter.UNMATCHABLE_VERSION, CustomFormatter.parseIfMatchVersion("W/\"7\""));
+        assertEquals(CustomFormatter.UNMATCHABLE_VERSION, CustomFormatter.parseIfMatchVersion("\"7\", \"8\""));
+    }
+
+    @Test
+    public void formatRfc3339InUtc() {
+
+        // Arrange
+        var instant = Instant.parse("2025-01-01T03:00:00.123456Z");
+
+        // Act
+        var formatted = CustomFormatter.formatRfc3339(instant);
+
+        // Assert
+        assertEquals("2025-01-01T03:00:00Z", formatted);
+        assertSame(formatted, CustomFormatter.formatRfc3339(instant.plusMillis(500)));
+        assertEquals("2025-01-01T03:00:01Z", CustomFormatter.formatRfc3339(instant.plusSeconds(1)));
+    }
+
+    @Test
+    public void serializeInstantAsRfc3339() throws Exception {
+
+        // Arrange
+        var response =
+                ConsentResponse.builder()
+                        .createdAt(Instant.parse("2025-01-01T03:00:00Z"))
+                        .meta(ConsentResponse.Meta.builder()
+                                .requestDateTime(Instant.parse("2025-01-01T03:00:01.5Z"))
+                                .build())
+                        .build();
+
+        // Act
+        var json = new ObjectMapper().writeValueAsString(response);
+
+        // Assert
+        assertTrue(json.contains("\"createdAt\":\"2025-01-01T03:00:00Z\""));
+        assertTrue(json.contains("\"requestDateTime\":\"2025-01-01T03:00:01Z\""));
+    }
 }